@@ -0,0 +1,158 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.geoEngine.models;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Locale;
+
+import com.aionemu.gameserver.geoEngine.collision.CollisionIntention;
+import com.aionemu.gameserver.geoEngine.math.Matrix3f;
+import com.aionemu.gameserver.geoEngine.math.Vector3f;
+import com.aionemu.gameserver.geoEngine.scene.Geometry;
+import com.aionemu.gameserver.geoEngine.scene.Mesh;
+import com.aionemu.gameserver.geoEngine.scene.Node;
+import com.aionemu.gameserver.geoEngine.scene.VertexBuffer;
+
+/**
+ * Bytes allocated and time spent per call of the common {@link GeoMap} queries on a synthetic map.<br>
+ * The map has terrain between z 100 and 106 over 1024x1024 and one 40x40 vertex mesh at z 150 to 152 over x and y 0 to 195, with no height cache. Allocation is read
+ * from {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} around each batch of calls. The last of {@link #ROUNDS} rounds is reported, the earlier ones
+ * are warmup.<br>
+ * Run with {@code ant benchmark}, then {@code java -cp "../build/bin:../build/benchmark:dist/libs/*" com.aionemu.gameserver.geoEngine.models.GeoMapAllocationBenchmark}.
+ */
+public class GeoMapAllocationBenchmark
+{
+	private static final int CALLS = 200000;
+	private static final int ROUNDS = 5;
+	private static final int TERRAIN_SIZE = 513;
+	private static final int MESH_SIZE = 40;
+	private static final float MESH_STEP = 5;
+	private static final byte PHYSICAL = CollisionIntention.PHYSICAL.getId();
+	
+	private interface Query
+	{
+		/**
+		 * @param i call number, spreads the calls over the map
+		 * @return something derived from the result so the call is not optimized away
+		 */
+		float call(int i);
+	}
+	
+	public static void main(String[] args)
+	{
+		final GeoMap map = createMap();
+		final String[] names =
+		{
+			"getZ terrain",
+			"getZ mesh",
+			"canSee clear",
+			"canSee blocked",
+			"getClosestCollision fly",
+			"getClosestCollision walk"
+		};
+		final Query[] queries =
+		{
+			i -> map.getZ(300 + (i % 500), 300 + ((i * 7) % 500), 110, 1),
+			i -> map.getZ(10 + (i % 150), 10 + ((i * 7) % 150), 155, 1),
+			i -> map.canSee(10 + (i % 150), 10, 160, 10 + ((i * 7) % 150), 60, 160, 100, 1) ? 1 : 0,
+			i -> map.canSee(10 + (i % 150), 10, 160, 10 + ((i * 7) % 150), 60, 140, 100, 1) ? 1 : 0,
+			i -> sum(map.getClosestCollision(10 + (i % 150), 10, 160, 10 + ((i * 7) % 150), 60, 140, false, true, 1, PHYSICAL)),
+			i -> sum(map.getClosestCollision(10 + (i % 150), 10, 152, 10 + ((i * 7) % 150), 60, 152, true, false, 1, PHYSICAL))
+		};
+		
+		final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long threadId = Thread.currentThread().getId();
+		float sink = 0;
+		final long[] bytes = new long[queries.length];
+		final long[] nanos = new long[queries.length];
+		for (int round = 0; round < ROUNDS; round++)
+		{
+			for (int q = 0; q < queries.length; q++)
+			{
+				final Query query = queries[q];
+				final long startBytes = bean.getThreadAllocatedBytes(threadId);
+				final long start = System.nanoTime();
+				for (int i = 0; i < CALLS; i++)
+				{
+					sink += query.call(i);
+				}
+				nanos[q] = System.nanoTime() - start;
+				bytes[q] = bean.getThreadAllocatedBytes(threadId) - startBytes;
+			}
+		}
+		System.out.println(String.format(Locale.ENGLISH, "%-26s %12s %10s", "query", "bytes/call", "ns/call"));
+		for (int q = 0; q < queries.length; q++)
+		{
+			System.out.println(String.format(Locale.ENGLISH, "%-26s %12.1f %10.0f", names[q], (double) bytes[q] / CALLS, (double) nanos[q] / CALLS));
+		}
+		System.out.println("(checksum " + sink + ")");
+	}
+	
+	private static float sum(Vector3f v)
+	{
+		return v.x + v.y + v.z;
+	}
+	
+	private static GeoMap createMap()
+	{
+		final GeoMap map = new GeoMap("benchmark", 1024);
+		final short[] terrain = new short[TERRAIN_SIZE * TERRAIN_SIZE];
+		for (int i = 0; i < terrain.length; i++)
+		{
+			terrain[i] = (short) (32 * (100 + (i % 7)));
+		}
+		map.setTerrainData(ShortBuffer.wrap(terrain));
+		
+		final FloatBuffer vertices = ByteBuffer.allocateDirect(MESH_SIZE * MESH_SIZE * 3 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+		for (int i = 0; i < MESH_SIZE; i++)
+		{
+			for (int j = 0; j < MESH_SIZE; j++)
+			{
+				vertices.put(i * MESH_STEP).put(j * MESH_STEP).put(150 + ((i + j) % 3));
+			}
+		}
+		final ShortBuffer indexes = ByteBuffer.allocateDirect((MESH_SIZE - 1) * (MESH_SIZE - 1) * 6 * 2).order(ByteOrder.nativeOrder()).asShortBuffer();
+		for (int i = 0; i < (MESH_SIZE - 1); i++)
+		{
+			for (int j = 0; j < (MESH_SIZE - 1); j++)
+			{
+				final short p = (short) ((i * MESH_SIZE) + j);
+				indexes.put(p).put((short) (p + 1)).put((short) (p + MESH_SIZE));
+				indexes.put((short) (p + 1)).put((short) (p + MESH_SIZE + 1)).put((short) (p + MESH_SIZE));
+			}
+		}
+		final Mesh mesh = new Mesh();
+		mesh.setCollisionFlags((short) (PHYSICAL << 8));
+		mesh.setBuffer(VertexBuffer.Type.Position, 3, vertices);
+		mesh.setBuffer(VertexBuffer.Type.Index, 3, indexes);
+		mesh.createCollisionData();
+		mesh.updateBound();
+		
+		final Node node = new Node("mesh");
+		node.setCollisionFlags((short) (PHYSICAL << 8));
+		node.attachChild(new Geometry("mesh", mesh));
+		node.setTransform(new Matrix3f(), new Vector3f(), 1);
+		node.updateModelBound();
+		map.attachChild(node);
+		map.updateModelBound();
+		return map;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.network.aion;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import com.aionemu.commons.configuration.ConfigurableProcessor;
+import com.aionemu.commons.network.AcceptReadWriteDispatcherImpl;
+import com.aionemu.commons.network.Dispatcher;
+import com.aionemu.gameserver.configs.network.NetworkConfig;
+import com.aionemu.gameserver.network.aion.serverpackets.SM_PONG;
+
+/**
+ * Throughput of {@link AionConnection#sendPacket(AionServerPacket)} with 1, 4 and 16 sending threads, and how many Selector wakeups the sends cost.<br>
+ * One real connection is set up over loopback and registered to a real Dispatcher, the senders share a number of SM_PONG packets and a reader thread counts them on the
+ * client side. A run ends when the client got every packet, so the rate covers queueing, encryption, coalescing and socket writes. The flood mode sends without pause, the
+ * burst mode sends {@link #BURST} packets and then pauses for {@link #BURST_PAUSE_NANOS}, like a game tick.<br>
+ * Run with {@code ant benchmark}, then {@code java -cp "../build/bin:../build/benchmark:dist/libs/*" com.aionemu.gameserver.network.aion.SendPacketBenchmark}.
+ */
+public class SendPacketBenchmark
+{
+	private static final int[] THREADS =
+	{
+		1,
+		4,
+		16
+	};
+	private static final int FLOOD_PACKETS = 1600000;
+	private static final int BURST_PACKETS = 160000;
+	private static final int BURST = 10;
+	private static final long BURST_PAUSE_NANOS = 100000;
+	
+	public static void main(String[] args) throws Exception
+	{
+		// defaults of network.properties, packet write coalescing included
+		ConfigurableProcessor.process(NetworkConfig.class, new Properties());
+		
+		final Dispatcher dispatcher = new AcceptReadWriteDispatcherImpl("SendPacketBenchmark Dispatcher", Runnable::run);
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+		
+		System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors() + ", flood " + FLOOD_PACKETS + " packets, burst " + BURST_PACKETS + " packets per run");
+		System.out.println(String.format(Locale.ENGLISH, "%-6s %-8s %14s %10s %16s %14s", "mode", "threads", "packets/s", "wakeups", "packets/wakeup", "packets/write"));
+		for (boolean burst : new boolean[]
+		{
+			false,
+			true
+		})
+		{
+			final int packets = burst ? BURST_PACKETS : FLOOD_PACKETS;
+			for (int threads : THREADS)
+			{
+				// first run of each thread count is warmup
+				run(dispatcher, threads, packets, burst);
+				final long[] result = run(dispatcher, threads, packets, burst);
+				System.out.println(String.format(Locale.ENGLISH, "%-6s %-8d %,14.0f %,10d %,16.1f %,14.1f", burst ? "burst" : "flood", threads, (packets * 1e9) / result[0], result[1], (double) packets / Math.max(1, result[1]), (double) packets / Math.max(1, result[2])));
+			}
+		}
+		System.exit(0);
+	}
+	
+	/**
+	 * @return nanoseconds until the client got all packets, Selector wakeups and socket writes
+	 */
+	private static long[] run(Dispatcher dispatcher, int threads, int packets, boolean burst) throws Exception
+	{
+		try (ServerSocketChannel server = ServerSocketChannel.open();
+			SocketChannel client = SocketChannel.open())
+		{
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			client.connect(server.getLocalAddress());
+			final SocketChannel channel = server.accept();
+			channel.configureBlocking(false);
+			final AionConnection con = new AionConnection(channel, dispatcher);
+			con.enableCryptKey();
+			dispatcher.register(channel, SelectionKey.OP_READ, con);
+			
+			final AtomicReference<Throwable> failure = new AtomicReference<>();
+			final CountDownLatch received = new CountDownLatch(1);
+			final Thread reader = new Thread(() ->
+			{
+				try
+				{
+					countPackets(client, packets);
+				}
+				catch (Throwable e)
+				{
+					failure.compareAndSet(null, e);
+				}
+				finally
+				{
+					received.countDown();
+				}
+			}, "SendPacketBenchmark-reader");
+			reader.start();
+			
+			final CountDownLatch go = new CountDownLatch(1);
+			final Thread[] senders = new Thread[threads];
+			for (int t = 0; t < threads; t++)
+			{
+				final int count = (packets / threads) + (t < (packets % threads) ? 1 : 0);
+				senders[t] = new Thread(() ->
+				{
+					try
+					{
+						go.await();
+						for (int i = 0; i < count; i++)
+						{
+							con.sendPacket(new SM_PONG());
+							if (burst && ((i % BURST) == (BURST - 1)))
+							{
+								LockSupport.parkNanos(BURST_PAUSE_NANOS);
+							}
+						}
+					}
+					catch (Throwable e)
+					{
+						failure.compareAndSet(null, e);
+					}
+				}, "SendPacketBenchmark-" + t);
+				senders[t].start();
+			}
+			
+			final long start = System.nanoTime();
+			go.countDown();
+			received.await();
+			final long time = System.nanoTime() - start;
+			for (Thread sender : senders)
+			{
+				sender.join();
+			}
+			if (failure.get() != null)
+			{
+				throw new IllegalStateException("Run failed", failure.get());
+			}
+			final long[] result =
+			{
+				time,
+				con.getSelectorWakeups(),
+				con.getSocketWrites()
+			};
+			con.close(true);
+			return result;
+		}
+	}
+	
+	/**
+	 * Reads until the given number of packets arrived, packet boundaries are taken from the size each packet starts with.
+	 */
+	private static void countPackets(SocketChannel client, int expected) throws Exception
+	{
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+		int packets = 0;
+		int skip = 0;
+		int sizeLow = -1;
+		while (packets < expected)
+		{
+			buffer.clear();
+			if (client.read(buffer) < 0)
+			{
+				throw new IllegalStateException("Connection closed after " + packets + " packets");
+			}
+			buffer.flip();
+			while (buffer.hasRemaining())
+			{
+				if (skip > 0)
+				{
+					final int n = Math.min(skip, buffer.remaining());
+					buffer.position(buffer.position() + n);
+					skip -= n;
+				}
+				else if (sizeLow < 0)
+				{
+					sizeLow = buffer.get() & 0xFF;
+				}
+				else
+				{
+					skip = (sizeLow | ((buffer.get() & 0xFF) << 8)) - 2;
+					sizeLow = -1;
+					packets++;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.utils.idfactory;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Throughput of {@link IDFactory} against the former BitSet allocator under one ReentrantLock, at 1 to 32 threads.<br>
+ * Every thread keeps a window of ids in use, releasing the oldest one for each new id, so allocation always competes with releases. The bulk run takes and releases
+ * {@link #BULK} ids at a time through {@link IDFactory#nextIds(int)}. An ownership table checks that no id is handed out twice while in use, and all ids but 0 must be free
+ * again at the end.<br>
+ * Run with {@code ant benchmark}, then {@code java -cp "../build/bin:../build/benchmark:dist/libs/*" com.aionemu.gameserver.utils.idfactory.IDFactoryBenchmark}.
+ */
+public class IDFactoryBenchmark
+{
+	private static final int[] THREADS =
+	{
+		1,
+		2,
+		4,
+		8,
+		16,
+		32
+	};
+	private static final int WINDOW = 256;
+	private static final int BULK = 16;
+	private static final long WARMUP_MS = 1000;
+	private static final long MEASURE_MS = 2000;
+	
+	/**
+	 * Ids are reused lowest first, so the threads never go above this.
+	 */
+	private static final int MAX_ID = 1 << 20;
+	
+	private interface Allocator
+	{
+		int nextId();
+		
+		int[] nextIds(int count);
+		
+		void releaseId(int id);
+		
+		int getUsedCount();
+	}
+	
+	private static final class LockFreeAllocator implements Allocator
+	{
+		private final IDFactory factory = new IDFactory(false);
+		
+		@Override
+		public int nextId()
+		{
+			return factory.nextId();
+		}
+		
+		@Override
+		public int[] nextIds(int count)
+		{
+			return factory.nextIds(count);
+		}
+		
+		@Override
+		public void releaseId(int id)
+		{
+			factory.releaseId(id);
+		}
+		
+		@Override
+		public int getUsedCount()
+		{
+			return factory.getUsedCount();
+		}
+	}
+	
+	/**
+	 * The allocator IDFactory replaced: a BitSet and a lowest free hint under one lock, bulk requests take the lock per id.
+	 */
+	private static final class LockedAllocator implements Allocator
+	{
+		private final BitSet idList = new BitSet();
+		private final ReentrantLock lock = new ReentrantLock();
+		private volatile int nextMinId = 1;
+		
+		LockedAllocator()
+		{
+			idList.set(0);
+		}
+		
+		@Override
+		public int nextId()
+		{
+			lock.lock();
+			try
+			{
+				final int id = idList.nextClearBit(nextMinId);
+				idList.set(id);
+				nextMinId = id + 1;
+				return id;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		
+		@Override
+		public int[] nextIds(int count)
+		{
+			final int[] ids = new int[count];
+			for (int i = 0; i < count; i++)
+			{
+				ids[i] = nextId();
+			}
+			return ids;
+		}
+		
+		@Override
+		public void releaseId(int id)
+		{
+			lock.lock();
+			try
+			{
+				if (!idList.get(id))
+				{
+					throw new IDFactoryError("ID " + id + " is not taken, can't release it.");
+				}
+				idList.clear(id);
+				if (id < nextMinId)
+				{
+					nextMinId = id;
+				}
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		
+		@Override
+		public int getUsedCount()
+		{
+			return idList.cardinality();
+		}
+	}
+	
+	public static void main(String[] args) throws Exception
+	{
+		System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors() + ", window " + WINDOW + " ids per thread, bulk " + BULK + " ids");
+		System.out.println(String.format(Locale.ENGLISH, "%-8s %-10s %16s %16s", "threads", "mode", "locked ids/s", "lock-free ids/s"));
+		for (int threads : THREADS)
+		{
+			for (boolean bulk : new boolean[]
+			{
+				false,
+				true
+			})
+			{
+				final double locked = run(new LockedAllocator(), threads, bulk);
+				final double lockFree = run(new LockFreeAllocator(), threads, bulk);
+				System.out.println(String.format(Locale.ENGLISH, "%-8d %-10s %,16.0f %,16.0f", threads, bulk ? "nextIds" : "nextId", locked, lockFree));
+			}
+		}
+	}
+	
+	/**
+	 * @return ids allocated and released per second, summed over all threads
+	 */
+	private static double run(Allocator allocator, int threads, boolean bulk) throws Exception
+	{
+		final AtomicIntegerArray owners = new AtomicIntegerArray(MAX_ID);
+		final LongAdder ops = new LongAdder();
+		final CountDownLatch done = new CountDownLatch(threads);
+		final Thread[] workers = new Thread[threads];
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final long start = System.currentTimeMillis();
+		final long measureStart = start + WARMUP_MS;
+		final long end = measureStart + MEASURE_MS;
+		for (int t = 0; t < threads; t++)
+		{
+			final int owner = t + 1;
+			workers[t] = new Thread(() ->
+			{
+				final int[] window = new int[WINDOW];
+				int filled = 0;
+				int next = 0;
+				long count = 0;
+				boolean measuring = false;
+				try
+				{
+					while (true)
+					{
+						final long now = System.currentTimeMillis();
+						if (now >= end)
+						{
+							break;
+						}
+						if (!measuring && (now >= measureStart))
+						{
+							measuring = true;
+							count = 0;
+						}
+						final int[] ids = bulk ? allocator.nextIds(BULK) : new int[]
+						{
+							allocator.nextId()
+						};
+						for (int id : ids)
+						{
+							if (!owners.compareAndSet(id, 0, owner))
+							{
+								throw new IllegalStateException("id " + id + " handed out twice");
+							}
+							if (filled == WINDOW)
+							{
+								final int old = window[next];
+								owners.set(old, 0);
+								allocator.releaseId(old);
+							}
+							else
+							{
+								filled++;
+							}
+							window[next] = id;
+							next = (next + 1) % WINDOW;
+						}
+						count += ids.length;
+					}
+					ops.add(count);
+					for (int i = 0; i < filled; i++)
+					{
+						owners.set(window[i], 0);
+						allocator.releaseId(window[i]);
+					}
+				}
+				catch (Throwable e)
+				{
+					failure.compareAndSet(null, e);
+				}
+				finally
+				{
+					done.countDown();
+				}
+			}, "IDFactoryBenchmark-" + t);
+			workers[t].start();
+		}
+		done.await();
+		if (failure.get() != null)
+		{
+			throw new IllegalStateException("Worker failed", failure.get());
+		}
+		if (allocator.getUsedCount() != 1)
+		{
+			throw new IllegalStateException(allocator.getUsedCount() + " ids still used, expected only id 0");
+		}
+		return (ops.sum() * 1000.0) / MEASURE_MS;
+	}
+}
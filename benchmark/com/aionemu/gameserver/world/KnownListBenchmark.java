@@ -0,0 +1,158 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.world;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+import javax.xml.bind.JAXB;
+
+import com.aionemu.commons.configuration.ConfigurableProcessor;
+import com.aionemu.gameserver.configs.main.WorldConfig;
+import com.aionemu.gameserver.controllers.VisibleObjectController;
+import com.aionemu.gameserver.dataholders.DataManager;
+import com.aionemu.gameserver.dataholders.WorldMapsData;
+import com.aionemu.gameserver.dataholders.ZoneData;
+import com.aionemu.gameserver.model.gameobjects.VisibleObject;
+import com.aionemu.gameserver.world.knownlist.KnownList;
+
+/**
+ * Time of known list updates with 500, 2,000 and 5,000 objects on one map, looked up through the {@link SpatialGrid} and through the former walk over the owner's region
+ * and its neighbours.<br>
+ * Objects are spread at random over a {@link #WORLD_SIZE} map. Each pass moves every object by up to {@link #STEP} meters through {@link World#updatePosition} and then
+ * runs its {@link KnownList#doUpdate()}. Both lookups get the same objects and moves, so the summed known list sizes must be equal. The objects are plain visible objects
+ * with the default 95m visibility, which keeps the comparison to the lookup itself.<br>
+ * Run with {@code ant benchmark}, then {@code java -cp "../build/bin:../build/benchmark:dist/libs/*" com.aionemu.gameserver.world.KnownListBenchmark}.
+ */
+public class KnownListBenchmark
+{
+	private static final int[] OBJECTS =
+	{
+		500,
+		2000,
+		5000
+	};
+	private static final int MAP_ID = 900000000;
+	private static final int WORLD_SIZE = 2048;
+	private static final float STEP = 5;
+	private static final int WARMUP_PASSES = 20;
+	private static final int PASSES = 20;
+	
+	private static int nextObjectId = 1;
+	
+	private static class BenchmarkObject extends VisibleObject
+	{
+		BenchmarkObject(int objectId)
+		{
+			super(objectId, new VisibleObjectController<BenchmarkObject>()
+			{
+			}, null, null, new WorldPosition(MAP_ID));
+			setKnownlist(new KnownList(this));
+		}
+		
+		@Override
+		public String getName()
+		{
+			return "KnownListBenchmark-" + getObjectId();
+		}
+	}
+	
+	public static void main(String[] args)
+	{
+		ConfigurableProcessor.process(WorldConfig.class, new Properties());
+		DataManager.ZONE_DATA = new ZoneData();
+		DataManager.WORLD_MAPS_DATA = JAXB.unmarshal(new StringReader("<world_maps><map id=\"" + MAP_ID + "\" name=\"benchmark\" world_size=\"" + WORLD_SIZE + "\" death_level=\"0\" water_level=\"0\" flags=\"RECALL\"/></world_maps>"), WorldMapsData.class);
+		final WorldMap map = World.getInstance().getWorldMap(MAP_ID);
+		
+		System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors() + ", map " + WORLD_SIZE + "x" + WORLD_SIZE + ", region " + WorldConfig.WORLD_REGION_SIZE + ", grid cell " + WorldConfig.WORLD_GRID_CELL_SIZE);
+		System.out.println(String.format(Locale.ENGLISH, "%-8s %-7s %12s %14s %12s", "objects", "lookup", "ms/pass", "us/update", "known/object"));
+		for (int objects : OBJECTS)
+		{
+			for (boolean grid : new boolean[]
+			{
+				false,
+				true
+			})
+			{
+				final double[] result = run(map, objects, grid);
+				System.out.println(String.format(Locale.ENGLISH, "%-8d %-7s %,12.2f %,14.2f %,12.1f", objects, grid ? "grid" : "region", result[0] / 1e6, result[0] / 1e3 / objects, result[1] / objects));
+			}
+		}
+	}
+	
+	/**
+	 * @return nanoseconds per pass and the summed known list size after the last pass
+	 */
+	private static double[] run(WorldMap map, int count, boolean grid)
+	{
+		// the grid is created with the instance, so each run gets a new one
+		WorldConfig.WORLD_GRID_ENABLE = grid;
+		final int instanceId = map.getNextInstanceId();
+		map.addInstance(instanceId, WorldMapInstanceFactory.createWorldMapInstance(map, instanceId));
+		final World world = World.getInstance();
+		
+		final Random random = new Random(count);
+		final List<VisibleObject> objects = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			final VisibleObject object = new BenchmarkObject(nextObjectId++);
+			world.setPosition(object, MAP_ID, instanceId, random.nextFloat() * WORLD_SIZE, random.nextFloat() * WORLD_SIZE, 100, (byte) 0);
+			world.spawn(object);
+			objects.add(object);
+		}
+		
+		long time = 0;
+		for (int pass = 0; pass < (WARMUP_PASSES + PASSES); pass++)
+		{
+			for (VisibleObject object : objects)
+			{
+				final float x = Math.min(WORLD_SIZE - 1, Math.max(0, object.getX() + ((random.nextFloat() * 2) - 1) * STEP));
+				final float y = Math.min(WORLD_SIZE - 1, Math.max(0, object.getY() + ((random.nextFloat() * 2) - 1) * STEP));
+				world.updatePosition(object, x, y, object.getZ(), (byte) 0, false);
+			}
+			final long start = System.nanoTime();
+			for (VisibleObject object : objects)
+			{
+				object.getKnownList().doUpdate();
+			}
+			if (pass >= WARMUP_PASSES)
+			{
+				time += System.nanoTime() - start;
+			}
+		}
+		
+		long known = 0;
+		for (VisibleObject object : objects)
+		{
+			known += object.getKnownList().getKnownObjects().size();
+		}
+		for (VisibleObject object : objects)
+		{
+			world.despawn(object);
+		}
+		map.removeWorldMapInstance(instanceId);
+		return new double[]
+		{
+			(double) time / PASSES,
+			known
+		};
+	}
+}
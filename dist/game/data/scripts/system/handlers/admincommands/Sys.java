@@ -18,16 +18,21 @@ package system.handlers.admincommands;
 
 import java.util.List;
 
+import com.aionemu.commons.network.SerialPacketProcessor;
 import com.aionemu.commons.utils.AEInfos;
 import com.aionemu.gameserver.ShutdownHook;
 import com.aionemu.gameserver.ShutdownHook.ShutdownMode;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
+import com.aionemu.gameserver.network.aion.AionConnection;
+import com.aionemu.gameserver.services.instance.InstancePool;
+import com.aionemu.gameserver.taskmanager.tasks.KnownListUpdateTaskManager;
 import com.aionemu.gameserver.utils.PacketSendUtility;
 import com.aionemu.gameserver.utils.ThreadPoolManager;
 import com.aionemu.gameserver.utils.chathandlers.AdminCommand;
+import com.aionemu.gameserver.world.geo.GeoService;
 
 /**
- * @author lord_rex //sys info - System Informations //sys memory - Memory Informations //sys gc - Garbage Collector //sys shutdown <seconds> <announceInterval> - Call shutdown //sys restart <seconds> <announceInterval> - Call restart //sys threadpool - Thread pools info
+ * @author lord_rex //sys info - System Informations //sys memory - Memory Informations //sys gc - Garbage Collector //sys shutdown <seconds> <announceInterval> - Call shutdown //sys restart <seconds> <announceInterval> - Call restart //sys threadpool - Thread pools info //sys instancepool - Instance pool info //sys knownlist - Known list update info //sys geocache - Geo height cache info //sys packets [reset] - Client packet processor info
  */
 public class Sys extends AdminCommand
 {
@@ -41,7 +46,7 @@ public class Sys extends AdminCommand
 	{
 		if ((params == null) || (params.length < 1))
 		{
-			PacketSendUtility.sendMessage(player, "Usage: //sys info | //sys memory | //sys gc | //sys restart <countdown time> <announce delay> | //sys shutdown <countdown time> <announce delay>");
+			PacketSendUtility.sendMessage(player, "Usage: //sys info | //sys memory | //sys gc | //sys restart <countdown time> <announce delay> | //sys shutdown <countdown time> <announce delay> | //sys instancepool | //sys knownlist | //sys geocache | //sys packets [reset]");
 			return;
 		}
 		
@@ -136,12 +141,51 @@ public class Sys extends AdminCommand
 				PacketSendUtility.sendMessage(player, stat.replaceAll("\t", ""));
 			}
 		}
+		else if (params[0].equals("instancepool"))
+		{
+			for (String stat : InstancePool.getInstance().getStats())
+			{
+				PacketSendUtility.sendMessage(player, stat.replaceAll("\t", ""));
+			}
+		}
+		else if (params[0].equals("knownlist"))
+		{
+			for (String stat : KnownListUpdateTaskManager.getInstance().getStats())
+			{
+				PacketSendUtility.sendMessage(player, stat.replaceAll("\t", ""));
+			}
+		}
+		else if (params[0].equals("packets"))
+		{
+			final SerialPacketProcessor<AionConnection> processor = AionConnection.getPacketProcessor();
+			for (String stat : processor.getStats())
+			{
+				PacketSendUtility.sendMessage(player, stat.replaceAll("\t", ""));
+			}
+			if ((params.length > 1) && params[1].equals("reset"))
+			{
+				processor.resetStats();
+				PacketSendUtility.sendMessage(player, "Packet processor stats reset.");
+			}
+		}
+		else if (params[0].equals("geocache"))
+		{
+			final List<String> stats = GeoService.getInstance().getHeightCacheStats();
+			if (stats.isEmpty())
+			{
+				PacketSendUtility.sendMessage(player, "Height cache is disabled.");
+			}
+			for (String stat : stats)
+			{
+				PacketSendUtility.sendMessage(player, stat.replaceAll("\t", ""));
+			}
+		}
 	}
 	
 	@Override
 	public void onFail(Player player, String message)
 	{
-		PacketSendUtility.sendMessage(player, "Usage: //sys info | //sys memory | //sys gc | //sys restart <countdown time> <announce delay> | //sys shutdown <countdown time> <announce delay>");
+		PacketSendUtility.sendMessage(player, "Usage: //sys info | //sys memory | //sys gc | //sys restart <countdown time> <announce delay> | //sys shutdown <countdown time> <announce delay> | //sys instancepool | //sys knownlist | //sys geocache | //sys packets [reset]");
 	}
 	
 }
@@ -25,4 +25,6 @@ public class CommonsConfig
 {
 	@Property(key = "commons.runnablestats.enable", defaultValue = "false")
 	public static boolean RUNNABLESTATS_ENABLE;
+	@Property(key = "commons.runnablestats.sample", defaultValue = "1")
+	public static int RUNNABLESTATS_SAMPLE;
 }
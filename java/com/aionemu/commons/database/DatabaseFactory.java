@@ -134,12 +134,19 @@ public class DatabaseFactory
 	
 	/**
 	 * Returns an active connection from pool. This function utilizes the dataSource which grabs an object from the ObjectPool within its limits. The GenericObjectPool.borrowObject()' function utilized in 'DataSource.getConnection()' does not allow any connections to be returned as null, thus a null
-	 * check is not needed. Throws SQLException in case of a Failed Connection
+	 * check is not needed. Throws SQLException in case of a Failed Connection<br>
+	 * While a {@link PersistenceSession} is open on the calling thread, its connection is returned instead.
 	 * @return Connection pooled connection
 	 * @throws java.sql.SQLException if can't get connection
 	 */
 	public static Connection getConnection() throws SQLException
 	{
+		final Connection shared = PersistenceSession.getSharedConnection();
+		if (shared != null)
+		{
+			return shared;
+		}
+		
 		final Connection con = connectionPool.getConnection();
 		
 		if (!con.getAutoCommit())
@@ -0,0 +1,197 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit of work bound to the current thread.<br>
+ * While a session is open, {@link DatabaseFactory#getConnection()} hands every caller on this thread the same connection with auto-commit disabled, so a chain of DAO calls
+ * runs as one transaction without changing the DAOs. Their own commit, auto-commit switches and close calls are ignored, a rollback marks the whole session as failed.
+ * Statement batches of the DAOs are kept as they are.<br>
+ * Sessions nest: an inner {@link #begin()} joins the outer session, only the outermost one commits.
+ * 
+ * <pre>
+ * PersistenceSession session = PersistenceSession.begin();
+ * try
+ * {
+ * 	// DAO calls
+ * 	session.commit();
+ * }
+ * finally
+ * {
+ * 	session.close();
+ * }
+ * </pre>
+ */
+public class PersistenceSession
+{
+	private static final Logger log = LoggerFactory.getLogger(PersistenceSession.class);
+	
+	private static final ThreadLocal<PersistenceSession> current = new ThreadLocal<>();
+	
+	private final Connection connection;
+	private final Connection sharedConnection;
+	private int depth = 1;
+	private boolean rollbackOnly;
+	private boolean committed;
+	
+	private PersistenceSession(Connection connection) throws SQLException
+	{
+		this.connection = connection;
+		connection.setAutoCommit(false);
+		sharedConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]
+		{
+			Connection.class
+		}, new SharedConnectionHandler());
+	}
+	
+	/**
+	 * Opens a session on the current thread or joins the one already open.
+	 * @return session, must be closed by the caller
+	 * @throws SQLException if no connection could be obtained
+	 */
+	public static PersistenceSession begin() throws SQLException
+	{
+		PersistenceSession session = current.get();
+		if (session != null)
+		{
+			session.depth++;
+			return session;
+		}
+		session = new PersistenceSession(DatabaseFactory.getConnection());
+		current.set(session);
+		return session;
+	}
+	
+	/**
+	 * @return connection of the session open on the current thread, null if there is none
+	 */
+	static Connection getSharedConnection()
+	{
+		final PersistenceSession session = current.get();
+		return session == null ? null : session.sharedConnection;
+	}
+	
+	/**
+	 * Commits the work done so far. Inside a nested session it only confirms the inner part, the outermost session commits.
+	 * @throws SQLException if the session was marked for rollback or the commit failed, the transaction is rolled back
+	 */
+	public void commit() throws SQLException
+	{
+		if (depth > 1)
+		{
+			return;
+		}
+		if (rollbackOnly)
+		{
+			throw new SQLException("Persistence session was marked for rollback");
+		}
+		connection.commit();
+		committed = true;
+	}
+	
+	/**
+	 * Ends this session, rolling back whatever was not committed. The connection goes back to the pool when the outermost session is closed.
+	 */
+	public void close()
+	{
+		if (--depth > 0)
+		{
+			return;
+		}
+		current.remove();
+		if (!committed)
+		{
+			try
+			{
+				connection.rollback();
+			}
+			catch (SQLException e)
+			{
+				log.error("Failed to rollback persistence session", e);
+			}
+		}
+		DatabaseFactory.close(connection);
+	}
+	
+	/**
+	 * @return true if a DAO rolled back its part, the session can't be committed any more
+	 */
+	public boolean isRollbackOnly()
+	{
+		return rollbackOnly;
+	}
+	
+	/**
+	 * Hands out the session connection while keeping transaction control with the session.
+	 */
+	private class SharedConnectionHandler implements InvocationHandler
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			switch (method.getName())
+			{
+				case "close":
+				case "commit":
+				case "setAutoCommit":
+				{
+					return null;
+				}
+				case "getAutoCommit":
+				{
+					// looks like a regular pooled connection to DatabaseFactory.close()
+					return true;
+				}
+				case "rollback":
+				{
+					rollbackOnly = true;
+					return null;
+				}
+				case "isClosed":
+				{
+					return connection.isClosed();
+				}
+				case "equals":
+				{
+					return proxy == args[0];
+				}
+				case "hashCode":
+				{
+					return System.identityHashCode(proxy);
+				}
+			}
+			try
+			{
+				return method.invoke(connection, args);
+			}
+			catch (InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+		}
+	}
+}
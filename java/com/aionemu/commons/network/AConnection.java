@@ -43,7 +43,7 @@ public abstract class AConnection
 	/**
 	 * True if this connection should be closed after sending last server packet.
 	 */
-	protected boolean pendingClose;
+	protected volatile boolean pendingClose;
 	/**
 	 * True if OnDisconnect() method should be called immediately after this connection was closed.
 	 */
@@ -51,7 +51,7 @@ public abstract class AConnection
 	/**
 	 * True if this connection is already closed.
 	 */
-	protected boolean closed;
+	protected volatile boolean closed;
 	/**
 	 * Object on witch some methods are synchronized
 	 */
@@ -75,6 +75,26 @@ public abstract class AConnection
 	 */
 	private boolean locked = false;
 	
+	/**
+	 * Client packets waiting for execution by SerialPacketProcessor.
+	 */
+	private final PacketMailbox packetMailbox = new PacketMailbox();
+	
+	/**
+	 * Number of socketChannel.write calls issued by Dispatcher for this connection.
+	 */
+	private long socketWrites;
+	
+	/**
+	 * Number of packets that were written to writeBuffer for this connection.
+	 */
+	private long packetsWritten;
+	
+	/**
+	 * Number of Selector wakeups requested by {@link #enableWriteInterest()} for this connection.
+	 */
+	private long selectorWakeups;
+	
 	/**
 	 * Constructor
 	 * @param sc
@@ -113,9 +133,18 @@ public abstract class AConnection
 		{
 			key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
 			key.selector().wakeup();
+			selectorWakeups++;
 		}
 	}
 	
+	/**
+	 * Called by Dispatcher when all data were written, so we're no longer interested in writing on this socket.
+	 */
+	protected void disableWriteInterest()
+	{
+		key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+	}
+	
 	/**
 	 * @return Dispatcher to witch this connection is registered.
 	 */
@@ -216,6 +245,15 @@ public abstract class AConnection
 		return locked = true;
 	}
 	
+	/**
+	 * Used only by SerialPacketProcessor.
+	 * @return mailbox with client packets of this connection.
+	 */
+	final PacketMailbox getPacketMailbox()
+	{
+		return packetMailbox;
+	}
+	
 	/**
 	 * Used only for PacketProcessor synchronization purpose. Unlock this connection.
 	 */
@@ -224,6 +262,56 @@ public abstract class AConnection
 		locked = false;
 	}
 	
+	/**
+	 * Called by Dispatcher after each socketChannel.write for this connection.
+	 */
+	final void onSocketWrite()
+	{
+		socketWrites++;
+	}
+	
+	/**
+	 * Should be called from {@link #writeData(ByteBuffer)} with number of packets that were put into writeBuffer.
+	 * @param count
+	 */
+	protected final void onPacketsWritten(int count)
+	{
+		packetsWritten += count;
+	}
+	
+	/**
+	 * @return Number of socketChannel.write calls issued for this connection.
+	 */
+	public final long getSocketWrites()
+	{
+		return socketWrites;
+	}
+	
+	/**
+	 * @return Number of packets written for this connection.
+	 */
+	public final long getPacketsWritten()
+	{
+		return packetsWritten;
+	}
+	
+	/**
+	 * @return Number of Selector wakeups requested to write data of this connection.
+	 */
+	public final long getSelectorWakeups()
+	{
+		return selectorWakeups;
+	}
+	
+	/**
+	 * @return Average number of packets sent by one socketChannel.write call.
+	 */
+	public final double getPacketsPerWrite()
+	{
+		final long writes = socketWrites;
+		return writes == 0 ? 0 : (double) packetsWritten / writes;
+	}
+	
 	/**
 	 * @param data
 	 * @return True if data was processed correctly, False if some error occurred and connection should be closed NOW.
@@ -231,7 +319,7 @@ public abstract class AConnection
 	protected abstract boolean processData(ByteBuffer data);
 	
 	/**
-	 * This method will be called by Dispatcher, and will be repeated till return false.
+	 * This method will be called by Dispatcher, and will be repeated till return false. Implementation may put more than one packet into data, data must be flipped before return.
 	 * @param data
 	 * @return True if data was written to buffer, False indicating that there are not any more data to write.
 	 */
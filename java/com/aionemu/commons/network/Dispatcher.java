@@ -272,6 +272,7 @@ public abstract class Dispatcher extends Thread
 			try
 			{
 				numWrite = socketChannel.write(wb);
+				con.onSocketWrite();
 			}
 			catch (IOException e)
 			{
@@ -311,6 +312,7 @@ public abstract class Dispatcher extends Thread
 			try
 			{
 				numWrite = socketChannel.write(wb);
+				con.onSocketWrite();
 			}
 			catch (IOException e)
 			{
@@ -336,7 +338,7 @@ public abstract class Dispatcher extends Thread
 		/**
 		 * We wrote away all data, so we're no longer interested in writing on this socket.
 		 */
-		key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+		con.disableWriteInterest();
 		
 		/**
 		 * We wrote all data so we can close connection that is "PandingClose"
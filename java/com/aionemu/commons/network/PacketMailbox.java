@@ -0,0 +1,40 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.aionemu.commons.network.packet.BaseClientPacket;
+
+/**
+ * FIFO of client packets of one connection. At most one thread executes packets of given mailbox at one time.
+ * @see SerialPacketProcessor
+ */
+final class PacketMailbox
+{
+	/**
+	 * Packets waiting for execution in received order.
+	 */
+	final Queue<BaseClientPacket<?>> packets = new ConcurrentLinkedQueue<>();
+	
+	/**
+	 * True if this mailbox is already submitted to (or being executed by) processor pool.
+	 */
+	final AtomicBoolean scheduled = new AtomicBoolean();
+}
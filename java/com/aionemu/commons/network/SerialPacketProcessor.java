@@ -0,0 +1,297 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aionemu.commons.network.packet.BaseClientPacket;
+import com.aionemu.commons.network.util.ThreadUncaughtExceptionHandler;
+import com.aionemu.commons.utils.concurrent.PriorityThreadFactory;
+import com.google.common.base.Preconditions;
+
+/**
+ * Packet Processor responsible for executing packets in correct order with respecting rules: - 1 packet / client at one time. - execute packets in received order.<br>
+ * Unlike {@link PacketProcessor} there is no global queue: every connection has its own FIFO mailbox and only mailboxes with pending packets are dispatched to fixed or work-stealing thread pool.
+ * @param <T> AConnection - owner of client packets.
+ */
+public class SerialPacketProcessor<T extends AConnection>
+{
+	/**
+	 * Logger for SerialPacketProcessor
+	 */
+	private static final Logger log = LoggerFactory.getLogger(SerialPacketProcessor.class);
+	
+	/**
+	 * Max number of packets executed for one connection before its mailbox is requeued, so busy client can't hold thread for too long.
+	 */
+	private static final int BATCH_SIZE = 16;
+	
+	/**
+	 * How often lag warning may be logged.
+	 */
+	private static final long LAG_WARN_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+	
+	/**
+	 * Pool executing mailboxes.
+	 */
+	private final ExecutorService pool;
+	
+	/**
+	 * Executor that will be used to execute packets (should be used only as decorator).
+	 */
+	private final Executor executor;
+	
+	/**
+	 * Packet wait time after which lag warning is logged.
+	 */
+	private final long lagWarnTime;
+	
+	/**
+	 * Number of packets waiting for execution.
+	 */
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	
+	/**
+	 * Highest number of packets waiting for execution since last stats reset.
+	 */
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+	
+	/**
+	 * Number of executed packets since last stats reset.
+	 */
+	private final LongAdder executedPackets = new LongAdder();
+	
+	/**
+	 * Sum of wait times [ns] of executed packets since last stats reset.
+	 */
+	private final LongAdder waitTime = new LongAdder();
+	
+	/**
+	 * Highest wait time [ns] since last stats reset.
+	 */
+	private final AtomicLong maxWaitTime = new AtomicLong();
+	
+	/**
+	 * Time of last lag warning.
+	 */
+	private volatile long lastLagWarn = System.nanoTime() - LAG_WARN_INTERVAL;
+	
+	/**
+	 * Create and start SerialPacketProcessor responsible for executing packets.
+	 * @param name - name of working threads.
+	 * @param threads - number of working threads.
+	 * @param workStealing - if true, work-stealing ForkJoinPool will be used instead of fixed thread pool.
+	 * @param lagWarnMillis - packet wait time [ms] after which lag warning will be logged.
+	 * @param executor - Executor that will be used to execute task (should be used only as decorator).
+	 */
+	public SerialPacketProcessor(String name, int threads, boolean workStealing, long lagWarnMillis, Executor executor)
+	{
+		Preconditions.checkArgument(threads > 0, "Threads must be positive");
+		
+		this.executor = executor;
+		lagWarnTime = TimeUnit.MILLISECONDS.toNanos(lagWarnMillis);
+		if (workStealing)
+		{
+			final AtomicInteger threadNumber = new AtomicInteger(1);
+			pool = new ForkJoinPool(threads, fjPool ->
+			{
+				final ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(fjPool);
+				t.setName(name + "-" + threadNumber.getAndIncrement());
+				return t;
+			}, new ThreadUncaughtExceptionHandler(), true);
+		}
+		else
+		{
+			final ThreadPoolExecutor tpe = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new PriorityThreadFactory(name, Thread.NORM_PRIORITY));
+			tpe.prestartAllCoreThreads();
+			pool = tpe;
+		}
+	}
+	
+	/**
+	 * Add packet to its connection mailbox and execute it as soon as possible on another Thread.
+	 * @param packet that will be executed.
+	 */
+	public final void executePacket(BaseClientPacket<T> packet)
+	{
+		final PacketMailbox mailbox = packet.getConnection().getPacketMailbox();
+		packet.setQueuedTime(System.nanoTime());
+		final int depth = queueDepth.incrementAndGet();
+		if (depth > maxQueueDepth.get())
+		{
+			maxQueueDepth.accumulateAndGet(depth, Math::max);
+		}
+		mailbox.packets.offer(packet);
+		if (mailbox.scheduled.compareAndSet(false, true))
+		{
+			pool.execute(new MailboxTask(mailbox));
+		}
+	}
+	
+	/**
+	 * @return Number of packets waiting for execution.
+	 */
+	public int getQueueDepth()
+	{
+		return queueDepth.get();
+	}
+	
+	/**
+	 * @return Highest number of packets waiting for execution since last stats reset.
+	 */
+	public int getMaxQueueDepth()
+	{
+		return maxQueueDepth.get();
+	}
+	
+	/**
+	 * @return Number of executed packets since last stats reset.
+	 */
+	public long getExecutedPackets()
+	{
+		return executedPackets.sum();
+	}
+	
+	/**
+	 * @return Average time [ms] packets were waiting for execution since last stats reset.
+	 */
+	public double getAverageWaitTime()
+	{
+		final long executed = executedPackets.sum();
+		return executed == 0 ? 0 : (waitTime.sum() / (double) executed) / 1000000;
+	}
+	
+	/**
+	 * @return Highest time [ms] packet was waiting for execution since last stats reset.
+	 */
+	public double getMaxWaitTime()
+	{
+		return maxWaitTime.get() / 1000000.0;
+	}
+	
+	/**
+	 * Reset executed packets, wait time and max queue depth statistics.
+	 */
+	public void resetStats()
+	{
+		executedPackets.reset();
+		waitTime.reset();
+		maxWaitTime.set(0);
+		maxQueueDepth.set(queueDepth.get());
+	}
+	
+	/**
+	 * @return Statistics of this processor.
+	 */
+	public List<String> getStats()
+	{
+		final List<String> list = new ArrayList<>();
+		list.add("Packet processor:");
+		list.add("=================================================");
+		list.add("\tqueueDepth: .......... " + getQueueDepth());
+		list.add("\tmaxQueueDepth: ....... " + getMaxQueueDepth());
+		list.add("\texecutedPackets: ..... " + getExecutedPackets());
+		list.add("\taverageWaitTime: ..... " + String.format("%.3f", getAverageWaitTime()) + " ms");
+		list.add("\tmaxWaitTime: ......... " + String.format("%.3f", getMaxWaitTime()) + " ms");
+		return list;
+	}
+	
+	/**
+	 * Update wait time statistics of packet that will be executed now.
+	 * @param packet
+	 */
+	private void onExecute(BaseClientPacket<?> packet)
+	{
+		queueDepth.decrementAndGet();
+		final long now = System.nanoTime();
+		final long wait = now - packet.getQueuedTime();
+		executedPackets.increment();
+		waitTime.add(wait);
+		if (wait > maxWaitTime.get())
+		{
+			maxWaitTime.accumulateAndGet(wait, Math::max);
+		}
+		if ((wait > lagWarnTime) && ((now - lastLagWarn) > LAG_WARN_INTERVAL))
+		{
+			lastLagWarn = now;
+			log.info("Lagg detected! [client packet was waiting " + TimeUnit.NANOSECONDS.toMillis(wait) + " ms for execution, " + queueDepth.get() + " packets are waiting]. You should consider increasing PacketProcessor threads or hardware upgrade.");
+		}
+	}
+	
+	/**
+	 * Task executing packets of one mailbox. Packets of one connection are executed by only one such task at one time, in received order.
+	 */
+	private final class MailboxTask implements Runnable
+	{
+		private final PacketMailbox mailbox;
+		
+		MailboxTask(PacketMailbox mailbox)
+		{
+			this.mailbox = mailbox;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run()
+		{
+			for (int i = 0; i < BATCH_SIZE; i++)
+			{
+				final BaseClientPacket<?> packet = mailbox.packets.poll();
+				if (packet == null)
+				{
+					break;
+				}
+				onExecute(packet);
+				try
+				{
+					executor.execute(packet);
+				}
+				catch (Throwable t)
+				{
+					log.error("Exception while executing packet " + packet, t);
+				}
+			}
+			
+			if (mailbox.packets.isEmpty())
+			{
+				mailbox.scheduled.set(false);
+				/* packet could be queued after last poll, but its sender saw mailbox still scheduled */
+				if (mailbox.packets.isEmpty() || !mailbox.scheduled.compareAndSet(false, true))
+				{
+					return;
+				}
+			}
+			pool.execute(this);
+		}
+	}
+}
@@ -42,6 +42,7 @@ public abstract class BaseClientPacket<T extends AConnection>extends BasePacket
 	 * ByteBuffer that contains this packet data
 	 */
 	private ByteBuffer buf;
+	private long queuedTime;
 	
 	/**
 	 * Constructs a new client packet with specified id and data buffer.
@@ -303,4 +304,20 @@ public abstract class BaseClientPacket<T extends AConnection>extends BasePacket
 	{
 		return client;
 	}
+	
+	/**
+	 * @param queuedTime System.nanoTime() when this packet was queued for execution.
+	 */
+	public final void setQueuedTime(long queuedTime)
+	{
+		this.queuedTime = queuedTime;
+	}
+	
+	/**
+	 * @return System.nanoTime() when this packet was queued for execution.
+	 */
+	public final long getQueuedTime()
+	{
+		return queuedTime;
+	}
 }
@@ -0,0 +1,463 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.utils.collections;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent map with primitive <tt>int</tt> keys, backed by an open-addressing table with linear probing.<br>
+ * Reads and iteration are lock-free, writes are serialized on the map. Compared to <tt>FastMap&lt;Integer, V&gt;().shared()</tt> it allocates no entry per mapping and no
+ * <tt>Integer</tt> when the primitive methods are used, which matters for the many small object registries (known lists, map regions).<br>
+ * Iterators are weakly consistent: they never throw {@link java.util.ConcurrentModificationException} and may or may not reflect changes made during iteration. Null values are not
+ * permitted.
+ * @param <V> type of the values
+ */
+public class ConcurrentIntObjectMap<V> extends AbstractMap<Integer, V>
+{
+	private static final int MIN_CAPACITY = 4;
+	
+	/**
+	 * Marks a removed mapping, the key of the slot stays so probing does not stop there.
+	 */
+	private static final Object REMOVED = new Object();
+	
+	private volatile Table table;
+	
+	private volatile int size;
+	
+	/**
+	 * Slots holding a key, removed ones included.
+	 */
+	private int used;
+	
+	private Set<Integer> keySet;
+	private Collection<V> values;
+	private Set<Entry<Integer, V>> entrySet;
+	
+	public ConcurrentIntObjectMap()
+	{
+		this(MIN_CAPACITY);
+	}
+	
+	/**
+	 * @param expectedSize number of mappings the map should hold without resizing
+	 */
+	public ConcurrentIntObjectMap(int expectedSize)
+	{
+		table = new Table(capacityFor(expectedSize));
+	}
+	
+	private static int capacityFor(int expectedSize)
+	{
+		int capacity = MIN_CAPACITY;
+		while ((capacity * 3) < (expectedSize * 4))
+		{
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+	
+	private static int hash(int key)
+	{
+		final int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * @param key
+	 * @return value mapped to key or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key)
+	{
+		final Table t = table;
+		for (int i = hash(key) & t.mask;; i = (i + 1) & t.mask)
+		{
+			final Object value = t.values.get(i);
+			if (value == null)
+			{
+				return null;
+			}
+			if (t.keys[i] == key)
+			{
+				return value == REMOVED ? null : (V) value;
+			}
+		}
+	}
+	
+	public boolean containsKey(int key)
+	{
+		return get(key) != null;
+	}
+	
+	/**
+	 * @param key
+	 * @param value
+	 * @return previous value mapped to key or null
+	 */
+	public synchronized V put(int key, V value)
+	{
+		return put(key, value, false);
+	}
+	
+	/**
+	 * @param key
+	 * @param value
+	 * @return current value mapped to key, null if value was added
+	 */
+	public synchronized V putIfAbsent(int key, V value)
+	{
+		return put(key, value, true);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private V put(int key, V value, boolean onlyIfAbsent)
+	{
+		if (value == null)
+		{
+			throw new NullPointerException();
+		}
+		final Table t = table;
+		for (int i = hash(key) & t.mask;; i = (i + 1) & t.mask)
+		{
+			final Object old = t.values.get(i);
+			if (old == null)
+			{
+				// key must be visible before the value publishes the slot
+				t.keys[i] = key;
+				t.values.set(i, value);
+				size++;
+				if (++used > t.threshold)
+				{
+					rehash();
+				}
+				return null;
+			}
+			if (t.keys[i] == key)
+			{
+				if (old == REMOVED)
+				{
+					t.values.set(i, value);
+					size++;
+					return null;
+				}
+				if (!onlyIfAbsent)
+				{
+					t.values.set(i, value);
+				}
+				return (V) old;
+			}
+		}
+	}
+	
+	/**
+	 * @param key
+	 * @return removed value or null
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V remove(int key)
+	{
+		final Table t = table;
+		for (int i = hash(key) & t.mask;; i = (i + 1) & t.mask)
+		{
+			final Object old = t.values.get(i);
+			if (old == null)
+			{
+				return null;
+			}
+			if (t.keys[i] == key)
+			{
+				if (old == REMOVED)
+				{
+					return null;
+				}
+				t.values.set(i, REMOVED);
+				size--;
+				return (V) old;
+			}
+		}
+	}
+	
+	/**
+	 * Builds a new table sized for the live mappings, dropping removed slots. Readers keep using the old table until they see the new one.
+	 */
+	private void rehash()
+	{
+		final Table old = table;
+		final Table t = new Table(capacityFor(size + (size >> 1)));
+		for (int j = 0; j < old.keys.length; j++)
+		{
+			final Object value = old.values.get(j);
+			if ((value == null) || (value == REMOVED))
+			{
+				continue;
+			}
+			final int key = old.keys[j];
+			int i = hash(key) & t.mask;
+			while (t.values.get(i) != null)
+			{
+				i = (i + 1) & t.mask;
+			}
+			t.keys[i] = key;
+			t.values.set(i, value);
+		}
+		used = size;
+		table = t;
+	}
+	
+	@Override
+	public synchronized void clear()
+	{
+		table = new Table(MIN_CAPACITY);
+		size = 0;
+		used = 0;
+	}
+	
+	@Override
+	public V get(Object key)
+	{
+		return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+	}
+	
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return get(key) != null;
+	}
+	
+	@Override
+	public V put(Integer key, V value)
+	{
+		return put(key.intValue(), value);
+	}
+	
+	@Override
+	public V putIfAbsent(Integer key, V value)
+	{
+		return putIfAbsent(key.intValue(), value);
+	}
+	
+	@Override
+	public V remove(Object key)
+	{
+		return key instanceof Integer ? remove(((Integer) key).intValue()) : null;
+	}
+	
+	@Override
+	public Set<Integer> keySet()
+	{
+		if (keySet == null)
+		{
+			keySet = new AbstractSet<Integer>()
+			{
+				@Override
+				public Iterator<Integer> iterator()
+				{
+					return new TableIterator<Integer>()
+					{
+						@Override
+						Integer next(int key, V value)
+						{
+							return key;
+						}
+					};
+				}
+				
+				@Override
+				public int size()
+				{
+					return size;
+				}
+				
+				@Override
+				public boolean contains(Object o)
+				{
+					return containsKey(o);
+				}
+				
+				@Override
+				public boolean remove(Object o)
+				{
+					return ConcurrentIntObjectMap.this.remove(o) != null;
+				}
+			};
+		}
+		return keySet;
+	}
+	
+	@Override
+	public Collection<V> values()
+	{
+		if (values == null)
+		{
+			values = new AbstractCollection<V>()
+			{
+				@Override
+				public Iterator<V> iterator()
+				{
+					return new TableIterator<V>()
+					{
+						@Override
+						V next(int key, V value)
+						{
+							return value;
+						}
+					};
+				}
+				
+				@Override
+				public int size()
+				{
+					return size;
+				}
+			};
+		}
+		return values;
+	}
+	
+	@Override
+	public Set<Entry<Integer, V>> entrySet()
+	{
+		if (entrySet == null)
+		{
+			entrySet = new AbstractSet<Entry<Integer, V>>()
+			{
+				@Override
+				public Iterator<Entry<Integer, V>> iterator()
+				{
+					return new TableIterator<Entry<Integer, V>>()
+					{
+						@Override
+						Entry<Integer, V> next(int key, V value)
+						{
+							return new SimpleImmutableEntry<>(key, value);
+						}
+					};
+				}
+				
+				@Override
+				public int size()
+				{
+					return size;
+				}
+			};
+		}
+		return entrySet;
+	}
+	
+	private static final class Table
+	{
+		final int[] keys;
+		final AtomicReferenceArray<Object> values;
+		final int mask;
+		final int threshold;
+		
+		Table(int capacity)
+		{
+			keys = new int[capacity];
+			values = new AtomicReferenceArray<>(capacity);
+			mask = capacity - 1;
+			threshold = (capacity * 3) / 4;
+		}
+	}
+	
+	/**
+	 * Walks the table seen at creation time.
+	 */
+	private abstract class TableIterator<T> implements Iterator<T>
+	{
+		private final Table t = table;
+		private int index = -1;
+		private int nextIndex = -1;
+		private int lastKey;
+		private boolean canRemove;
+		private Object nextValue;
+		
+		TableIterator()
+		{
+			advance();
+		}
+		
+		private void advance()
+		{
+			nextValue = null;
+			for (nextIndex = index + 1; nextIndex < t.keys.length; nextIndex++)
+			{
+				final Object value = t.values.get(nextIndex);
+				if ((value != null) && (value != REMOVED))
+				{
+					nextValue = value;
+					return;
+				}
+			}
+		}
+		
+		abstract T next(int key, V value);
+		
+		@Override
+		public boolean hasNext()
+		{
+			return nextValue != null;
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public T next()
+		{
+			if (nextValue == null)
+			{
+				throw new NoSuchElementException();
+			}
+			index = nextIndex;
+			lastKey = t.keys[index];
+			canRemove = true;
+			final T result = next(lastKey, (V) nextValue);
+			advance();
+			return result;
+		}
+		
+		@Override
+		public void remove()
+		{
+			if (!canRemove)
+			{
+				throw new IllegalStateException();
+			}
+			canRemove = false;
+			ConcurrentIntObjectMap.this.remove(lastKey);
+		}
+	}
+}
@@ -57,7 +57,7 @@ public class ExecuteWrapper implements Executor
 			final long runtimeInNanosec = System.nanoTime() - begin;
 			final Class<? extends Runnable> clazz = runnable.getClass();
 			
-			if (CommonsConfig.RUNNABLESTATS_ENABLE)
+			if (CommonsConfig.RUNNABLESTATS_ENABLE && RunnableStatsManager.isSampled())
 			{
 				RunnableStatsManager.handleStats(clazz, runtimeInNanosec);
 			}
@@ -22,26 +22,35 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.aionemu.commons.configs.CommonsConfig;
+
 /**
  * @author NB4L1
  */
-@SuppressWarnings("unchecked")
 public final class RunnableStatsManager
 {
 	private static final Logger log = LoggerFactory.getLogger(RunnableStatsManager.class);
 	
-	static final Map<Class<?>, ClassStat> classStats = new HashMap<>();
+	/**
+	 * Sub buckets per power of two of the latency histogram, relative error of reported percentiles is below 1/4.
+	 */
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = 64 << SUB_BUCKET_BITS;
+	
+	static final ConcurrentHashMap<Class<?>, ClassStat> classStats = new ConcurrentHashMap<>();
 	
 	private static final class ClassStat
 	{
@@ -49,24 +58,13 @@ public final class RunnableStatsManager
 		private final String className;
 		private final MethodStat runnableStat;
 		
-		private String[] methodNames = new String[0];
-		MethodStat[] methodStats = new MethodStat[0];
+		private final ConcurrentHashMap<String, MethodStat> methodStats = new ConcurrentHashMap<>();
 		
 		ClassStat(Class<?> clazz)
 		{
 			className = clazz.getName().replace("com.aionemu.gameserver.", "");
 			runnableStat = new MethodStat(className, "run()");
-			
-			methodNames = new String[]
-			{
-				"run()"
-			};
-			methodStats = new MethodStat[]
-			{
-				runnableStat
-			};
-			
-			classStats.put(clazz, this);
+			methodStats.put("run()", runnableStat);
 		}
 		
 		MethodStat getRunnableStat()
@@ -74,7 +72,7 @@ public final class RunnableStatsManager
 			return runnableStat;
 		}
 		
-		MethodStat getMethodStat(String methodName, boolean synchronizedAlready)
+		MethodStat getMethodStat(String methodName)
 		{
 			// method names will be interned automatically because of compiling, so this gonna work
 			if ("run()".equals(methodName))
@@ -82,45 +80,33 @@ public final class RunnableStatsManager
 				return runnableStat;
 			}
 			
-			for (int i = 0; i < methodNames.length; i++)
-			{
-				if (methodNames[i].equals(methodName))
-				{
-					return methodStats[i];
-				}
-			}
-			
-			if (!synchronizedAlready)
+			final MethodStat methodStat = methodStats.get(methodName);
+			if (methodStat != null)
 			{
-				synchronized (this)
-				{
-					return getMethodStat(methodName, true);
-				}
+				return methodStat;
 			}
-			
-			methodName = methodName.intern();
-			
-			final MethodStat methodStat = new MethodStat(className, methodName);
-			
-			methodNames = (String[]) ArrayUtils.add(methodNames, methodName);
-			methodStats = (MethodStat[]) ArrayUtils.add(methodStats, methodStat);
-			
-			return methodStat;
+			return methodStats.computeIfAbsent(methodName.intern(), name -> new MethodStat(className, name));
 		}
 	}
 	
+	/**
+	 * Execution times of one method. Every counter is striped, so threads recording the same method don't contend, sums are taken when stats are dumped.
+	 */
 	private static final class MethodStat
 	{
 		
-		private final ReentrantLock lock = new ReentrantLock();
-		
 		final String className;
 		final String methodName;
 		
-		long count;
-		long total;
-		long min = Long.MAX_VALUE;
-		long max = Long.MIN_VALUE;
+		final LongAdder count = new LongAdder();
+		final LongAdder total = new LongAdder();
+		final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+		final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+		
+		/**
+		 * Log-linear latency histogram, buckets are created on first use.
+		 */
+		final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKETS);
 		
 		MethodStat(String className, String methodName)
 		{
@@ -130,49 +116,150 @@ public final class RunnableStatsManager
 		
 		void handleStats(long runTime)
 		{
-			lock.lock();
-			try
+			count.increment();
+			total.add(runTime);
+			min.accumulate(runTime);
+			max.accumulate(runTime);
+			
+			final int index = getBucket(runTime);
+			LongAdder bucket = buckets.get(index);
+			if (bucket == null)
 			{
-				count++;
-				total += runTime;
-				min = Math.min(min, runTime);
-				max = Math.max(max, runTime);
+				bucket = new LongAdder();
+				if (!buckets.compareAndSet(index, null, bucket))
+				{
+					bucket = buckets.get(index);
+				}
 			}
-			finally
+			bucket.increment();
+		}
+		
+		/**
+		 * @return current values of this method, count and total scaled up to all executions when only a sample is recorded
+		 */
+		Snapshot snapshot()
+		{
+			final long sample = Math.max(1, CommonsConfig.RUNNABLESTATS_SAMPLE);
+			final long[] counts = new long[BUCKETS];
+			long sampled = 0;
+			for (int i = 0; i < BUCKETS; i++)
 			{
-				lock.unlock();
+				final LongAdder bucket = buckets.get(i);
+				if (bucket != null)
+				{
+					counts[i] = bucket.sum();
+					sampled += counts[i];
+				}
 			}
+			return new Snapshot(className, methodName, count.sum() * sample, total.sum() * sample, min.get(), max.get(), getPercentile(counts, sampled, 0.5), getPercentile(counts, sampled, 0.99));
 		}
 	}
 	
-	private static ClassStat getClassStat(Class<?> clazz, boolean synchronizedAlready)
+	/**
+	 * Values of one {@link MethodStat} taken at one moment.
+	 */
+	static final class Snapshot
 	{
-		final ClassStat classStat = classStats.get(clazz);
+		final String className;
+		final String methodName;
+		final long count;
+		final long total;
+		final long min;
+		final long max;
+		final long p50;
+		final long p99;
 		
-		if (classStat != null)
+		Snapshot(String className, String methodName, long count, long total, long min, long max, long p50, long p99)
 		{
-			return classStat;
+			this.className = className;
+			this.methodName = methodName;
+			this.count = count;
+			this.total = total;
+			this.min = min;
+			this.max = max;
+			this.p50 = p50;
+			this.p99 = p99;
 		}
-		
-		if (!synchronizedAlready)
+	}
+	
+	/**
+	 * @param runTime
+	 * @return histogram bucket of run time, values below {@link #SUB_BUCKETS} have a bucket each, larger ones share a bucket with values of the same power of two and the same
+	 *         {@link #SUB_BUCKET_BITS} highest bits
+	 */
+	static int getBucket(long runTime)
+	{
+		if (runTime < SUB_BUCKETS)
+		{
+			return runTime < 0 ? 0 : (int) runTime;
+		}
+		final int power = 63 - Long.numberOfLeadingZeros(runTime);
+		final int sub = (int) (runTime >>> (power - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (power << SUB_BUCKET_BITS) + sub;
+	}
+	
+	/**
+	 * @param bucket
+	 * @return highest run time falling into bucket
+	 */
+	static long getBucketLimit(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+		final int power = bucket >>> SUB_BUCKET_BITS;
+		final int sub = bucket & (SUB_BUCKETS - 1);
+		return (((long) (SUB_BUCKETS + sub + 1)) << (power - SUB_BUCKET_BITS)) - 1;
+	}
+	
+	private static long getPercentile(long[] counts, long sampled, double percentile)
+	{
+		if (sampled == 0)
+		{
+			return 0;
+		}
+		final long rank = (long) Math.ceil(sampled * percentile);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++)
 		{
-			synchronized (RunnableStatsManager.class)
+			seen += counts[i];
+			if (seen >= rank)
 			{
-				return getClassStat(clazz, true);
+				return getBucketLimit(i);
 			}
 		}
-		
-		return new ClassStat(clazz);
+		return getBucketLimit(counts.length - 1);
+	}
+	
+	private static ClassStat getClassStat(Class<?> clazz)
+	{
+		final ClassStat classStat = classStats.get(clazz);
+		if (classStat != null)
+		{
+			return classStat;
+		}
+		return classStats.computeIfAbsent(clazz, ClassStat::new);
+	}
+	
+	/**
+	 * Callers measure and record run time only when this returns true, so stats cost only 1 of {@link CommonsConfig#RUNNABLESTATS_SAMPLE} calls.
+	 * @return true if current call should be recorded
+	 */
+	public static boolean isSampled()
+	{
+		final int sample = CommonsConfig.RUNNABLESTATS_SAMPLE;
+		return (sample <= 1) || (ThreadLocalRandom.current().nextInt(sample) == 0);
 	}
 	
 	public static void handleStats(Class<? extends Runnable> clazz, long runTime)
 	{
-		getClassStat(clazz, false).getRunnableStat().handleStats(runTime);
+		getClassStat(clazz).getRunnableStat().handleStats(runTime);
 	}
 	
 	public static void handleStats(Class<?> clazz, String methodName, long runTime)
 	{
-		getClassStat(clazz, false).getMethodStat(methodName, false).handleStats(runTime);
+		getClassStat(clazz).getMethodStat(methodName).handleStats(runTime);
 	}
 	
 	public static enum SortBy
@@ -184,7 +271,9 @@ public final class RunnableStatsManager
 		NAME("class"),
 		METHOD("method"),
 		MIN("min"),
-		MAX("max"),;
+		MAX("max"),
+		P50("p50"),
+		P99("p99"),;
 		
 		final String xmlAttributeName;
 		
@@ -193,12 +282,16 @@ public final class RunnableStatsManager
 			this.xmlAttributeName = xmlAttributeName;
 		}
 		
-		final Comparator<MethodStat> comparator = new Comparator<MethodStat>()
+		final Comparator<Snapshot> comparator = new Comparator<Snapshot>()
 		{
 			
 			@Override
-			@SuppressWarnings("rawtypes")
-			public int compare(MethodStat o1, MethodStat o2)
+			@SuppressWarnings(
+			{
+				"unchecked",
+				"rawtypes"
+			})
+			public int compare(Snapshot o1, Snapshot o2)
 			{
 				final Comparable c1 = getComparableValueOf(o1);
 				final Comparable c2 = getComparableValueOf(o2);
@@ -252,7 +345,7 @@ public final class RunnableStatsManager
 		};
 		
 		@SuppressWarnings("rawtypes")
-		Comparable getComparableValueOf(MethodStat stat)
+		Comparable getComparableValueOf(Snapshot stat)
 		{
 			switch (this)
 			{
@@ -284,6 +377,14 @@ public final class RunnableStatsManager
 				{
 					return stat.max;
 				}
+				case P50:
+				{
+					return stat.p50;
+				}
+				case P99:
+				{
+					return stat.p99;
+				}
 				default:
 				{
 					throw new InternalError();
@@ -301,18 +402,16 @@ public final class RunnableStatsManager
 	
 	public static void dumpClassStats(SortBy sortBy)
 	{
-		final List<MethodStat> methodStats = new ArrayList<>();
+		final List<Snapshot> methodStats = new ArrayList<>();
 		
-		synchronized (RunnableStatsManager.class)
+		for (ClassStat classStat : classStats.values())
 		{
-			for (ClassStat classStat : classStats.values())
+			for (MethodStat methodStat : classStat.methodStats.values())
 			{
-				for (MethodStat methodStat : classStat.methodStats)
+				final Snapshot snapshot = methodStat.snapshot();
+				if (snapshot.count > 0)
 				{
-					if (methodStat.count > 0)
-					{
-						methodStats.add(methodStat);
-					}
+					methodStats.add(snapshot);
 				}
 			}
 		}
@@ -328,6 +427,10 @@ public final class RunnableStatsManager
 		lines.add("<entries>");
 		lines.add("\t<!-- This XML contains statistics about execution times. -->");
 		lines.add("\t<!-- Submitted results will help the developers to optimize the server. -->");
+		if (CommonsConfig.RUNNABLESTATS_SAMPLE > 1)
+		{
+			lines.add("\t<!-- Only 1 of " + CommonsConfig.RUNNABLESTATS_SAMPLE + " executions was recorded, count and total are estimated from the recorded ones. -->");
+		}
 		
 		final String[][] values = new String[SortBy.VALUES.length][methodStats.size()];
 		final int[] maxLength = new int[SortBy.VALUES.length];
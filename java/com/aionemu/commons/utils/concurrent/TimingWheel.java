@@ -0,0 +1,467 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.utils.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed hierarchical timing wheel. Scheduling and cancelling a timer is O(1), timers are fired with given tick resolution.<br>
+ * Timers are added and cancelled through lock-free queues, the wheel itself is owned only by ticker thread. Expired timers are executed on given executor.
+ */
+public class TimingWheel
+{
+	private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+	
+	/**
+	 * Number of bits of slot index, every level has 2^WHEEL_BITS slots.
+	 */
+	private static final int WHEEL_BITS = 8;
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+	
+	/**
+	 * Number of levels: with 10 ms tick they cover 2.56 s, 11 min, 46 h and 1.3 years.
+	 */
+	private static final int LEVELS = 4;
+	
+	private static final int PENDING = 0;
+	private static final int CANCELLED = 1;
+	private static final int DONE = 2;
+	
+	private final long tickNanos;
+	private final long startTime;
+	private final Executor executor;
+	private final Slot[][] wheel = new Slot[LEVELS][WHEEL_SIZE];
+	
+	/**
+	 * Timers waiting to be put into wheel.
+	 */
+	private final Queue<Timer> added = new ConcurrentLinkedQueue<>();
+	
+	/**
+	 * Cancelled timers waiting to be removed from wheel.
+	 */
+	private final Queue<Timer> cancelled = new ConcurrentLinkedQueue<>();
+	
+	/**
+	 * Tick being processed. Used only by ticker thread.
+	 */
+	private long currentTick;
+	
+	private final Thread ticker;
+	private volatile boolean running = true;
+	
+	/**
+	 * Timers which are not expired nor cancelled yet.
+	 */
+	private final AtomicInteger pendingTimers = new AtomicInteger();
+	
+	/**
+	 * Number of timers which were taken out of higher levels.
+	 */
+	private long cascaded;
+	
+	/**
+	 * @param name name of ticker thread
+	 * @param tickMillis wheel resolution
+	 * @param executor executor for expired timers
+	 */
+	public TimingWheel(String name, long tickMillis, Executor executor)
+	{
+		tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+		this.executor = executor;
+		for (int level = 0; level < LEVELS; level++)
+		{
+			for (int i = 0; i < WHEEL_SIZE; i++)
+			{
+				wheel[level][i] = new Slot();
+			}
+		}
+		startTime = System.nanoTime();
+		ticker = new Thread(this::tickerLoop, name);
+		ticker.setDaemon(true);
+		ticker.start();
+	}
+	
+	/**
+	 * @param r
+	 * @param delay in ms
+	 * @return timer
+	 */
+	public ScheduledFuture<?> schedule(Runnable r, long delay)
+	{
+		return add(new Timer(r, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay), 0));
+	}
+	
+	/**
+	 * @param r
+	 * @param delay in ms
+	 * @param period in ms
+	 * @return timer
+	 */
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable r, long delay, long period)
+	{
+		return add(new Timer(r, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay), TimeUnit.MILLISECONDS.toNanos(Math.max(1, period))));
+	}
+	
+	private Timer add(Timer timer)
+	{
+		pendingTimers.incrementAndGet();
+		added.offer(timer);
+		return timer;
+	}
+	
+	/**
+	 * Stop ticker thread, not expired timers are dropped.
+	 */
+	public void shutdown()
+	{
+		running = false;
+		LockSupport.unpark(ticker);
+	}
+	
+	/**
+	 * @return number of timers which are not expired nor cancelled yet
+	 */
+	public int getPendingTimers()
+	{
+		return pendingTimers.get();
+	}
+	
+	private void tickerLoop()
+	{
+		while (running)
+		{
+			final long deadline = startTime + ((currentTick + 1) * tickNanos);
+			long sleep;
+			while (running && ((sleep = deadline - System.nanoTime()) > 0))
+			{
+				LockSupport.parkNanos(this, sleep);
+			}
+			try
+			{
+				tick();
+			}
+			catch (Throwable t)
+			{
+				log.error("Error in timing wheel tick " + currentTick, t);
+			}
+		}
+	}
+	
+	private void tick()
+	{
+		currentTick++;
+		
+		/* move timers from higher levels which should be fired in next WHEEL_SIZE ticks */
+		long index = currentTick;
+		for (int level = 1; (level < LEVELS) && ((index & WHEEL_MASK) == 0); level++)
+		{
+			index >>>= WHEEL_BITS;
+			cascade(wheel[level][(int) (index & WHEEL_MASK)]);
+		}
+		
+		Timer timer;
+		while ((timer = cancelled.poll()) != null)
+		{
+			if (timer.slot != null)
+			{
+				timer.slot.remove(timer);
+			}
+		}
+		while ((timer = added.poll()) != null)
+		{
+			if (timer.state.get() == PENDING)
+			{
+				insert(timer);
+			}
+		}
+		
+		final Slot slot = wheel[0][(int) (currentTick & WHEEL_MASK)];
+		while ((timer = slot.head) != null)
+		{
+			slot.remove(timer);
+			if (timer.state.get() == PENDING)
+			{
+				executor.execute(timer);
+			}
+		}
+	}
+	
+	private void cascade(Slot slot)
+	{
+		Timer timer;
+		while ((timer = slot.head) != null)
+		{
+			slot.remove(timer);
+			cascaded++;
+			insert(timer);
+		}
+	}
+	
+	/**
+	 * Put timer to the slot of the lowest level which covers its expiration tick.
+	 * @param timer
+	 */
+	private void insert(Timer timer)
+	{
+		long expiration = ((timer.deadline - startTime) + tickNanos - 1) / tickNanos;
+		if (expiration < currentTick)
+		{
+			expiration = currentTick;
+		}
+		final long delta = expiration - currentTick;
+		int level = 0;
+		while ((level < (LEVELS - 1)) && (delta >= (1L << (WHEEL_BITS * (level + 1)))))
+		{
+			level++;
+		}
+		if ((level == (LEVELS - 1)) && (delta >= (1L << (WHEEL_BITS * LEVELS))))
+		{
+			/* out of range, it will be cascaded again and again until it fits */
+			expiration = currentTick + (1L << (WHEEL_BITS * LEVELS)) - 1;
+		}
+		wheel[level][(int) ((expiration >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(timer);
+	}
+	
+	/**
+	 * @return statistics of pending timers per level and slot
+	 */
+	public List<String> getStats()
+	{
+		final List<String> list = new ArrayList<>();
+		list.add("Timing wheel [tick " + TimeUnit.NANOSECONDS.toMillis(tickNanos) + " ms]:");
+		list.add("=================================================");
+		list.add("\tpendingTimers: ....... " + getPendingTimers());
+		list.add("\tcascadedTimers: ...... " + cascaded);
+		for (int level = 0; level < LEVELS; level++)
+		{
+			int timers = 0;
+			int usedSlots = 0;
+			int maxSlot = 0;
+			for (Slot slot : wheel[level])
+			{
+				final int size = slot.size;
+				timers += size;
+				maxSlot = Math.max(maxSlot, size);
+				if (size > 0)
+				{
+					usedSlots++;
+				}
+			}
+			list.add("\tlevel " + level + ": " + timers + " timers in " + usedSlots + "/" + WHEEL_SIZE + " buckets, max " + maxSlot + " per bucket");
+		}
+		return list;
+	}
+	
+	/**
+	 * @param level
+	 * @return number of timers in every slot of given level
+	 */
+	public int[] getBucketSizes(int level)
+	{
+		final int[] sizes = new int[WHEEL_SIZE];
+		for (int i = 0; i < WHEEL_SIZE; i++)
+		{
+			sizes[i] = wheel[level][i].size;
+		}
+		return sizes;
+	}
+	
+	/**
+	 * Doubly linked list of timers. Modified only by ticker thread.
+	 */
+	private static final class Slot
+	{
+		Timer head;
+		volatile int size;
+		
+		void add(Timer timer)
+		{
+			timer.slot = this;
+			timer.prev = null;
+			timer.next = head;
+			if (head != null)
+			{
+				head.prev = timer;
+			}
+			head = timer;
+			size++;
+		}
+		
+		void remove(Timer timer)
+		{
+			if (timer.prev != null)
+			{
+				timer.prev.next = timer.next;
+			}
+			else
+			{
+				head = timer.next;
+			}
+			if (timer.next != null)
+			{
+				timer.next.prev = timer.prev;
+			}
+			timer.slot = null;
+			timer.prev = null;
+			timer.next = null;
+			size--;
+		}
+	}
+	
+	private final class Timer implements ScheduledFuture<Object>, Runnable
+	{
+		private final Runnable task;
+		private final long period;
+		private volatile long deadline;
+		final AtomicInteger state = new AtomicInteger(PENDING);
+		
+		/* used only by ticker thread */
+		Slot slot;
+		Timer prev;
+		Timer next;
+		
+		Timer(Runnable task, long deadline, long period)
+		{
+			this.task = task;
+			this.deadline = deadline;
+			this.period = period;
+		}
+		
+		@Override
+		public void run()
+		{
+			if (state.get() != PENDING)
+			{
+				return;
+			}
+			try
+			{
+				task.run();
+			}
+			finally
+			{
+				if (period > 0)
+				{
+					if (state.get() == PENDING)
+					{
+						deadline += period;
+						added.offer(this);
+					}
+				}
+				else if (state.compareAndSet(PENDING, DONE))
+				{
+					pendingTimers.decrementAndGet();
+					synchronized (this)
+					{
+						notifyAll();
+					}
+				}
+			}
+		}
+		
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning)
+		{
+			if (!state.compareAndSet(PENDING, CANCELLED))
+			{
+				return false;
+			}
+			pendingTimers.decrementAndGet();
+			cancelled.offer(this);
+			synchronized (this)
+			{
+				notifyAll();
+			}
+			return true;
+		}
+		
+		@Override
+		public boolean isCancelled()
+		{
+			return state.get() == CANCELLED;
+		}
+		
+		@Override
+		public boolean isDone()
+		{
+			return state.get() != PENDING;
+		}
+		
+		@Override
+		public long getDelay(TimeUnit unit)
+		{
+			return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+		
+		@Override
+		public int compareTo(Delayed o)
+		{
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+		}
+		
+		@Override
+		public synchronized Object get() throws InterruptedException, ExecutionException
+		{
+			while (!isDone())
+			{
+				wait();
+			}
+			if (isCancelled())
+			{
+				throw new CancellationException();
+			}
+			return null;
+		}
+		
+		@Override
+		public synchronized Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+		{
+			final long end = System.nanoTime() + unit.toNanos(timeout);
+			while (!isDone())
+			{
+				final long left = end - System.nanoTime();
+				if (left <= 0)
+				{
+					throw new TimeoutException();
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, left);
+			}
+			if (isCancelled())
+			{
+				throw new CancellationException();
+			}
+			return null;
+		}
+	}
+}
@@ -32,6 +32,7 @@ import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.network.ls.LoginServer;
 import com.aionemu.gameserver.services.PeriodicSaveService;
 import com.aionemu.gameserver.services.player.PlayerLeaveWorldService;
+import com.aionemu.gameserver.services.player.PlayerService;
 import com.aionemu.gameserver.utils.ThreadPoolManager;
 import com.aionemu.gameserver.utils.gametime.GameTimeManager;
 import com.aionemu.gameserver.world.World;
@@ -165,6 +166,8 @@ public class ShutdownHook extends Thread
 		LoginServer.getInstance().gameServerDisconnected();
 		
 		// Disconnect all players.
+		final int playersCount = World.getInstance().getAllPlayers().size();
+		log.info("Saving " + playersCount + " players, about " + ((playersCount * PlayerService.getAverageStoreTime()) / 1000) + " seconds...");
 		Iterator<Player> onlinePlayers;
 		onlinePlayers = World.getInstance().getPlayersIterator();
 		while (onlinePlayers.hasNext())
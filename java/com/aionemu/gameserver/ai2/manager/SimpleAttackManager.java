@@ -64,7 +64,7 @@ public class SimpleAttackManager
 		npcAI.getOwner().getGameStats().setNextAttackTime(System.currentTimeMillis() + delay);
 		if (delay > 0)
 		{
-			ThreadPoolManager.getInstance().schedule(new SimpleAttackAction(npcAI), delay);
+			ThreadPoolManager.getInstance().scheduleTimer(new SimpleAttackAction(npcAI), delay);
 		}
 		else
 		{
@@ -86,7 +86,7 @@ public class SimpleAttackManager
 		{
 			AI2Logger.info(npcAI, "Scheduling checked attack " + delay);
 		}
-		ThreadPoolManager.getInstance().schedule(new SimpleCheckedAttackAction(npcAI), delay);
+		ThreadPoolManager.getInstance().scheduleTimer(new SimpleCheckedAttackAction(npcAI), delay);
 	}
 	
 	public static boolean isTargetInAttackRange(Npc npc)
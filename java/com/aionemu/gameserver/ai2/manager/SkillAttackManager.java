@@ -51,7 +51,7 @@ public class SkillAttackManager
 		{
 			if (delay > 0)
 			{
-				ThreadPoolManager.getInstance().schedule(new SkillAction(npcAI), delay + DataManager.SKILL_DATA.getSkillTemplate(npcAI.getSkillId()).getDuration());
+				ThreadPoolManager.getInstance().scheduleTimer(new SkillAction(npcAI), delay + DataManager.SKILL_DATA.getSkillTemplate(npcAI.getSkillId()).getDuration());
 			}
 			else
 			{
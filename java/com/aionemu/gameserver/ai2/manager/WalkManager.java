@@ -265,7 +265,7 @@ public class WalkManager
 		{
 			npcAI.getOwner().getMoveController().abortMove();
 			npcAI.getOwner().getMoveController().chooseNextStep();
-			ThreadPoolManager.getInstance().schedule(() ->
+			ThreadPoolManager.getInstance().scheduleTimer(() ->
 			{
 				if (npcAI.isInState(AIState.WALKING))
 				{
@@ -287,7 +287,7 @@ public class WalkManager
 		
 		final float distToSpawn = (float) owner.getDistanceToSpawnLocation();
 		
-		ThreadPoolManager.getInstance().schedule(() ->
+		ThreadPoolManager.getInstance().scheduleTimer(() ->
 		{
 			if (npcAI.isInState(AIState.WALKING))
 			{
@@ -62,6 +62,8 @@ public class CustomConfig
 	public static String INSTANCES_COOL_DOWN_FILTER;
 	@Property(key = "gameserver.instances.cooldown.rate", defaultValue = "1")
 	public static int INSTANCES_RATE;
+	@Property(key = "gameserver.instances.pool", defaultValue = "")
+	public static String INSTANCES_POOL;
 	@Property(key = "gameserver.enable.kinah.cap", defaultValue = "false")
 	public static boolean ENABLE_KINAH_CAP;
 	@Property(key = "gameserver.kinah.cap.value", defaultValue = "1000000000")
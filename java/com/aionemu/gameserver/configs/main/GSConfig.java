@@ -60,4 +60,16 @@ public class GSConfig
 	public static boolean ABYSSRANKING_SMALL_CACHE;
 	@Property(key = "gameserver.character.reentry.time", defaultValue = "20")
 	public static int CHARACTER_REENTRY_TIME;
+	@Property(key = "gameserver.static_data.validation.cache", defaultValue = "true")
+	public static boolean STATIC_DATA_VALIDATION_CACHE;
+	@Property(key = "gameserver.static_data.snapshot", defaultValue = "true")
+	public static boolean STATIC_DATA_SNAPSHOT;
+	@Property(key = "gameserver.static_data.parallel", defaultValue = "true")
+	public static boolean STATIC_DATA_PARALLEL;
+	@Property(key = "gameserver.static_data.parallel.threads", defaultValue = "0")
+	public static int STATIC_DATA_PARALLEL_THREADS;
+	@Property(key = "gameserver.player.load.threads", defaultValue = "4")
+	public static int PLAYER_LOAD_THREADS;
+	@Property(key = "gameserver.spawn.threads", defaultValue = "0")
+	public static int SPAWN_THREADS;
 }
\ No newline at end of file
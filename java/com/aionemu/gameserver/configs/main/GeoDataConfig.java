@@ -80,4 +80,34 @@ public class GeoDataConfig
 	@Property(key = "gameserver.geodata.objectfactory.enabled", defaultValue = "true")
 	public static boolean GEO_OBJECT_FACTORY_ENABLE;
 	
+	/**
+	 * Threads loading geo maps, 0 for one per processor
+	 */
+	@Property(key = "gameserver.geodata.load.threads", defaultValue = "0")
+	public static int GEO_LOAD_THREADS;
+	
+	/**
+	 * Cache getZ results of open world maps in a height field
+	 */
+	@Property(key = "gameserver.geodata.heightcache.enable", defaultValue = "false")
+	public static boolean GEO_HEIGHT_CACHE_ENABLE;
+	
+	/**
+	 * Side of a height cache cell in meters
+	 */
+	@Property(key = "gameserver.geodata.heightcache.cell.size", defaultValue = "1")
+	public static float GEO_HEIGHT_CACHE_CELL_SIZE;
+	
+	/**
+	 * Max cells cached per map, least recently used cells are evicted
+	 */
+	@Property(key = "gameserver.geodata.heightcache.cells", defaultValue = "65536")
+	public static int GEO_HEIGHT_CACHE_CELLS;
+	
+	/**
+	 * Max height error of a cached getZ, in meters
+	 */
+	@Property(key = "gameserver.geodata.heightcache.tolerance", defaultValue = "0.1")
+	public static float GEO_HEIGHT_CACHE_TOLERANCE;
+	
 }
@@ -50,4 +50,22 @@ public class PeriodicSaveConfig
 	@Property(key = "gameserver.periodicsave.player.pets", defaultValue = "5")
 	public static int PLAYER_PETS;
 	
+	/**
+	 * Store all data of a player on one connection in one transaction
+	 */
+	@Property(key = "gameserver.periodicsave.player.transaction", defaultValue = "true")
+	public static boolean PLAYER_TRANSACTION;
+	
+	/**
+	 * Number of threads running periodic saves
+	 */
+	@Property(key = "gameserver.periodicsave.writer.threads", defaultValue = "2")
+	public static int WRITER_THREADS;
+	
+	/**
+	 * Maximum number of periodic saves waiting for a writer thread
+	 */
+	@Property(key = "gameserver.periodicsave.writer.queue", defaultValue = "10000")
+	public static int WRITER_QUEUE;
+	
 }
@@ -32,6 +32,10 @@ public class ThreadConfig
 	public static long MAXIMUM_RUNTIME_IN_MILLISEC_WITHOUT_WARNING;
 	@Property(key = "gameserver.thread.usepriority", defaultValue = "false")
 	public static boolean USE_PRIORITIES;
+	@Property(key = "gameserver.thread.timingwheel.enable", defaultValue = "true")
+	public static boolean TIMING_WHEEL_ENABLE;
+	@Property(key = "gameserver.thread.timingwheel.tick", defaultValue = "10")
+	public static int TIMING_WHEEL_TICK;
 	public static int THREAD_POOL_SIZE;
 	
 	public static void load()
@@ -25,8 +25,22 @@ public class WorldConfig
 {
 	@Property(key = "gameserver.world.region.size", defaultValue = "128")
 	public static int WORLD_REGION_SIZE;
+	@Property(key = "gameserver.world.grid.enable", defaultValue = "true")
+	public static boolean WORLD_GRID_ENABLE;
+	@Property(key = "gameserver.world.grid.cell.size", defaultValue = "32")
+	public static int WORLD_GRID_CELL_SIZE;
+	@Property(key = "gameserver.world.zone.index.cell.size", defaultValue = "16")
+	public static int WORLD_ZONE_INDEX_CELL_SIZE;
 	@Property(key = "gameserver.world.region.active.trace", defaultValue = "true")
 	public static boolean WORLD_ACTIVE_TRACE;
+	@Property(key = "gameserver.world.spawn.lazy", defaultValue = "false")
+	public static boolean WORLD_LAZY_SPAWN;
+	@Property(key = "gameserver.world.spawn.lazy.park.delay", defaultValue = "30")
+	public static int WORLD_LAZY_SPAWN_PARK_DELAY;
+	@Property(key = "gameserver.world.knownlist.update.delay", defaultValue = "300")
+	public static int WORLD_KNOWNLIST_UPDATE_DELAY;
+	@Property(key = "gameserver.world.knownlist.update.distance", defaultValue = "5")
+	public static float WORLD_KNOWNLIST_UPDATE_DISTANCE;
 	@Property(key = "gameserver.world.emulate.a.station", defaultValue = "true")
 	public static boolean WORLD_EMULATE_A_STATION;
 	@Property(key = "gameserver.world.max.twincount.usual", defaultValue = "1")
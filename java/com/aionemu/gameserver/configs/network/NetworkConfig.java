@@ -77,28 +77,22 @@ public class NetworkConfig
 	public static int NIO_READ_WRITE_THREADS;
 	
 	/**
-	 * Number of minimum threads that will be used to execute aion client packets.
+	 * Number of threads that will be used to execute aion client packets.
 	 */
-	@Property(key = "gameserver.network.packet.processor.threads.min", defaultValue = "4")
-	public static int PACKET_PROCESSOR_MIN_THREADS;
+	@Property(key = "gameserver.network.packet.processor.threads", defaultValue = "4")
+	public static int PACKET_PROCESSOR_THREADS;
 	
 	/**
-	 * Number of maximum threads that will be used to execute aion client packets.
+	 * If work-stealing pool should be used to execute aion client packets instead of fixed one.
 	 */
-	@Property(key = "gameserver.network.packet.processor.threads.max", defaultValue = "4")
-	public static int PACKET_PROCESSOR_MAX_THREADS;
+	@Property(key = "gameserver.network.packet.processor.workstealing", defaultValue = "false")
+	public static boolean PACKET_PROCESSOR_WORK_STEALING;
 	
 	/**
-	 * Threshold that will be used to decide when extra threads are not needed. (it doesn't have any effect if min threads == max threads)
+	 * Time [ms] client packet may wait for execution before lag warning is logged.
 	 */
-	@Property(key = "gameserver.network.packet.processor.threshold.kill", defaultValue = "3")
-	public static int PACKET_PROCESSOR_THREAD_KILL_THRESHOLD;
-	
-	/**
-	 * Threshold that will be used to decide when extra threads should be spawned. (it doesn't have any effect if min threads == max threads)
-	 */
-	@Property(key = "gameserver.network.packet.processor.threshold.spawn", defaultValue = "50")
-	public static int PACKET_PROCESSOR_THREAD_SPAWN_THRESHOLD;
+	@Property(key = "gameserver.network.packet.processor.lag.warn", defaultValue = "1000")
+	public static int PACKET_PROCESSOR_LAG_WARN;
 	
 	/**
 	 * If unknown packets should be logged.
@@ -109,6 +103,30 @@ public class NetworkConfig
 	@Property(key = "gameserver.network.display.packets", defaultValue = "false")
 	public static boolean DISPLAY_PACKETS;
 	
+	/**
+	 * Max number of idle instances kept per poolable client packet (like CM_MOVE), 0 disables pooling.
+	 */
+	@Property(key = "gameserver.network.packet.pool.size", defaultValue = "64")
+	public static int PACKET_POOL_SIZE;
+	
+	/**
+	 * If more than one queued packet should be written to client by one socket write.
+	 */
+	@Property(key = "gameserver.network.packet.write.coalesce", defaultValue = "true")
+	public static boolean PACKET_WRITE_COALESCE;
+	
+	/**
+	 * Minimum free space [bytes] that must be left in write buffer to append next queued packet.
+	 */
+	@Property(key = "gameserver.network.packet.write.coalesce.reserve", defaultValue = "8192")
+	public static int PACKET_WRITE_COALESCE_RESERVE;
+	
+	/**
+	 * If broadcasted packets should be serialized only once and shared by all recipients.
+	 */
+	@Property(key = "gameserver.network.packet.broadcast.shared", defaultValue = "true")
+	public static boolean PACKET_BROADCAST_SHARED;
+	
 	@Property(key = "gameserver.network.flood.connections", defaultValue = "false")
 	public static boolean ENABLE_FLOOD_CONNECTIONS;
 	
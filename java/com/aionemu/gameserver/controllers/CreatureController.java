@@ -412,7 +412,7 @@ public abstract class CreatureController<T extends Creature>extends VisibleObjec
 		}
 		else
 		{
-			ThreadPoolManager.getInstance().schedule(new DelayedOnAttack(target, creature, damage), time);
+			ThreadPoolManager.getInstance().scheduleTimer(new DelayedOnAttack(target, creature, damage), time);
 		}
 	}
 	
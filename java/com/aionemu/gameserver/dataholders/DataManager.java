@@ -16,9 +16,13 @@
  */
 package com.aionemu.gameserver.dataholders;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.aionemu.gameserver.dataholders.loadingutils.StaticDataSectionLoader.SectionStats;
 import com.aionemu.gameserver.dataholders.loadingutils.XmlDataLoader;
 import com.aionemu.gameserver.model.templates.mail.Mails;
 import com.aionemu.gameserver.utils.Util;
@@ -286,6 +290,12 @@ public final class DataManager
 		final String timeMsg = (time / 1000) + " seconds";
 		log.info("######### STATIC DATA LOADING IS FINISHED #########");
 		log.info("Static data load time: " + timeMsg);
+		final List<SectionStats> sectionStats = new ArrayList<>(loader.getSectionStats());
+		sectionStats.sort((s1, s2) -> Long.compare(s2.getTime(), s1.getTime()));
+		for (SectionStats stats : sectionStats)
+		{
+			log.info("Static data load time: " + stats.getName() + " " + stats.getTime() + " ms, " + (stats.getAllocated() / 1048576) + " MB allocated");
+		}
 	}
 	
 	@SuppressWarnings("synthetic-access")
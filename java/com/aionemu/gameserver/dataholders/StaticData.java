@@ -16,7 +16,6 @@
  */
 package com.aionemu.gameserver.dataholders;
 
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -267,8 +266,10 @@ public class StaticData
 	@XmlElement(name = "f2p_bonus")
 	public F2PBonusData f2pBonus;
 	
-	@SuppressWarnings("unused")
-	private void afterUnmarshal(Unmarshaller unmarshaller, Object parent)
+	/**
+	 * Called by the loader once all sections are loaded.
+	 */
+	public void logLoadedData()
 	{
 		DataManager.log.info("Loaded " + worldMapsData.size() + " MAP");
 		DataManager.log.info("Loaded " + playerExperienceTable.getMaxLevel() + " LEVEL");
@@ -0,0 +1,350 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.dataholders.loadingutils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXParseException;
+
+import com.aionemu.gameserver.dataholders.StaticData;
+
+/**
+ * Loads {@link StaticData} by splitting the merged xml into its top-level sections and unmarshalling every section as its own task on a fork-join pool.<br>
+ * Each section is wrapped into a document with the original root element, so it unmarshals into a partial {@link StaticData}. Holder post-processing (their
+ * <tt>afterUnmarshal</tt>) runs inside the section task, the partial results are merged afterwards in document order. Schema validation, when requested, runs over the whole file as
+ * one more task.<br>
+ * Sections linked with <tt>@XmlIDREF</tt> must resolve in the same document, they are kept together (see {@link #LINKED_SECTIONS}).
+ */
+public class StaticDataSectionLoader
+{
+	private static final Logger log = LoggerFactory.getLogger(StaticDataSectionLoader.class);
+	
+	/**
+	 * Sections referencing item templates by id.
+	 */
+	private static final Set<String> LINKED_SECTIONS = new HashSet<>(Arrays.asList("item_templates", "npc_templates", "player_initial_data"));
+	private static final String LINKED_SECTIONS_NAME = "item_templates, npc_templates, player_initial_data";
+	
+	private static final List<Field> SECTION_FIELDS = new ArrayList<>();
+	
+	static
+	{
+		for (Field field : StaticData.class.getDeclaredFields())
+		{
+			if (field.isAnnotationPresent(XmlElement.class))
+			{
+				field.setAccessible(true);
+				SECTION_FIELDS.add(field);
+			}
+		}
+	}
+	
+	private final JAXBContext context;
+	private final Schema schema;
+	private final int parallelism;
+	private final List<SectionStats> stats = new ArrayList<>();
+	
+	/**
+	 * @param context context of {@link StaticData}
+	 * @param schema schema to validate the whole file against, null to skip validation
+	 * @param parallelism number of worker threads
+	 */
+	public StaticDataSectionLoader(JAXBContext context, Schema schema, int parallelism)
+	{
+		this.context = context;
+		this.schema = schema;
+		this.parallelism = parallelism;
+	}
+	
+	public StaticData load(File xml) throws Exception
+	{
+		long time = System.currentTimeMillis();
+		final Map<String, byte[]> documents = split(xml);
+		log.info("Split static data into " + documents.size() + " sections in " + (System.currentTimeMillis() - time) + " ms");
+		
+		final ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			final List<ForkJoinTask<StaticData>> tasks = new ArrayList<>(documents.size());
+			final List<SectionStats> taskStats = new ArrayList<>(documents.size());
+			// validation reads the whole file, start it first so it doesn't finish last
+			ForkJoinTask<?> validation = null;
+			if (schema != null)
+			{
+				final SectionStats validationStats = new SectionStats("schema validation");
+				validation = pool.submit(() -> validate(xml, validationStats));
+				taskStats.add(validationStats);
+			}
+			for (Map.Entry<String, byte[]> e : documents.entrySet())
+			{
+				final SectionStats sectionStats = new SectionStats(e.getKey());
+				final byte[] document = e.getValue();
+				tasks.add(pool.submit(() -> unmarshal(document, sectionStats)));
+				taskStats.add(sectionStats);
+			}
+			
+			final StaticData data = new StaticData();
+			for (ForkJoinTask<StaticData> task : tasks)
+			{
+				merge(task.join(), data);
+			}
+			if (validation != null)
+			{
+				validation.join();
+			}
+			stats.addAll(taskStats);
+			return data;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * @return load time and allocated memory of every section of the last load
+	 */
+	public List<SectionStats> getStats()
+	{
+		return stats;
+	}
+	
+	/**
+	 * Copies every top-level section into its own document with the original root element.
+	 * @param xml
+	 * @return section name -> document, in document order
+	 */
+	private Map<String, byte[]> split(File xml) throws Exception
+	{
+		final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+		final XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+		final Map<String, SectionWriter> writers = new LinkedHashMap<>();
+		try (InputStream in = new BufferedInputStream(new FileInputStream(xml)))
+		{
+			final XMLEventReader reader = inputFactory.createXMLEventReader(in);
+			StartElement root = null;
+			SectionWriter current = null;
+			int depth = 0;
+			while (reader.hasNext())
+			{
+				final XMLEvent event = reader.nextEvent();
+				if (event.isStartElement())
+				{
+					depth++;
+					if (depth == 1)
+					{
+						root = event.asStartElement();
+						continue;
+					}
+					if (depth == 2)
+					{
+						final String name = event.asStartElement().getName().getLocalPart();
+						final String key = LINKED_SECTIONS.contains(name) ? LINKED_SECTIONS_NAME : name;
+						current = writers.get(key);
+						if (current == null)
+						{
+							current = new SectionWriter(outputFactory, eventFactory, root);
+							writers.put(key, current);
+						}
+					}
+				}
+				if ((current != null) && (depth >= 2))
+				{
+					current.writer.add(event);
+				}
+				if (event.isEndElement())
+				{
+					if (depth == 2)
+					{
+						current = null;
+					}
+					depth--;
+				}
+			}
+			reader.close();
+		}
+		
+		final Map<String, byte[]> documents = new LinkedHashMap<>();
+		for (Map.Entry<String, SectionWriter> e : writers.entrySet())
+		{
+			documents.put(e.getKey(), e.getValue().finish(eventFactory));
+		}
+		return documents;
+	}
+	
+	private StaticData unmarshal(byte[] document, SectionStats sectionStats)
+	{
+		final long startBytes = getAllocatedBytes();
+		final long start = System.currentTimeMillis();
+		try
+		{
+			final Unmarshaller un = context.createUnmarshaller();
+			un.setEventHandler(new XmlValidationHandler());
+			return (StaticData) un.unmarshal(new ByteArrayInputStream(document));
+		}
+		catch (Exception e)
+		{
+			throw new Error("Error while loading static data section " + sectionStats.getName(), e);
+		}
+		finally
+		{
+			sectionStats.set(System.currentTimeMillis() - start, getAllocatedBytes() - startBytes);
+		}
+	}
+	
+	private void validate(File xml, SectionStats validationStats)
+	{
+		final long startBytes = getAllocatedBytes();
+		final long start = System.currentTimeMillis();
+		try
+		{
+			final Validator validator = schema.newValidator();
+			validator.validate(new StreamSource(xml));
+		}
+		catch (SAXParseException e)
+		{
+			log.error("Error at [line=" + e.getLineNumber() + ", column=" + e.getColumnNumber() + "]: " + e.getMessage());
+			throw new Error(e);
+		}
+		catch (Exception e)
+		{
+			throw new Error("Error while validating static data", e);
+		}
+		finally
+		{
+			validationStats.set(System.currentTimeMillis() - start, getAllocatedBytes() - startBytes);
+		}
+	}
+	
+	private static void merge(StaticData section, StaticData data) throws IllegalAccessException
+	{
+		for (Field field : SECTION_FIELDS)
+		{
+			final Object holder = field.get(section);
+			if (holder != null)
+			{
+				field.set(data, holder);
+			}
+		}
+	}
+	
+	/**
+	 * @return bytes allocated by the current thread so far, 0 if the JVM doesn't track it
+	 */
+	private static long getAllocatedBytes()
+	{
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+	
+	private static class SectionWriter
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final XMLEventWriter writer;
+		final StartElement root;
+		
+		SectionWriter(XMLOutputFactory outputFactory, XMLEventFactory eventFactory, StartElement root) throws XMLStreamException
+		{
+			this.root = root;
+			writer = outputFactory.createXMLEventWriter(out, "UTF-8");
+			writer.add(eventFactory.createStartDocument("UTF-8"));
+			writer.add(root);
+		}
+		
+		byte[] finish(XMLEventFactory eventFactory) throws XMLStreamException
+		{
+			writer.add(eventFactory.createEndElement(root.getName(), null));
+			writer.add(eventFactory.createEndDocument());
+			writer.close();
+			return out.toByteArray();
+		}
+	}
+	
+	/**
+	 * Load time and memory allocated while unmarshalling one section, including its holder post-processing.
+	 */
+	public static class SectionStats
+	{
+		private final String name;
+		private volatile long time;
+		private volatile long allocated;
+		
+		SectionStats(String name)
+		{
+			this.name = name;
+		}
+		
+		void set(long time, long allocated)
+		{
+			this.time = time;
+			this.allocated = allocated;
+		}
+		
+		public String getName()
+		{
+			return name;
+		}
+		
+		public long getTime()
+		{
+			return time;
+		}
+		
+		public long getAllocated()
+		{
+			return allocated;
+		}
+	}
+}
@@ -0,0 +1,1119 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.dataholders.loadingutils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aionemu.gameserver.dataholders.StaticData;
+
+import javolution.util.FastComparator;
+import javolution.util.FastMap;
+
+/**
+ * Binary snapshot of a loaded {@link StaticData} graph, so boots with unchanged xml skip the JAXB unmarshal.<br>
+ * The graph is written field by field through reflection, keeping shared references (xml id references) and cycles. Collections and maps are written as their elements and rebuilt
+ * on read, so hash based ones stay valid for keys hashed by identity. Externalizable objects (trove collections) use their own format, other serializable library objects go
+ * through java serialization, which the whole snapshot is written on so they keep sharing state among each other (a lock and its read and write views).<br>
+ * Every class is described by its field names and types the first time it's written. The read fails if a class changed since, the caller then loads the xml and writes a new
+ * snapshot.
+ */
+public class StaticDataSnapshot
+{
+	private static final Logger log = LoggerFactory.getLogger(StaticDataSnapshot.class);
+	
+	private static final int MAGIC = 0x41455344;
+	private static final int VERSION = 1;
+	
+	/**
+	 * Template graphs nest deeply (linked templates, recursive conditions), so both ways run on a thread with a large stack.
+	 */
+	private static final long STACK_SIZE = 256L * 1024 * 1024;
+	
+	private static final byte NULL = 0;
+	private static final byte REF = 1;
+	private static final byte STRING = 2;
+	private static final byte INT = 3;
+	private static final byte LONG = 4;
+	private static final byte SHORT = 5;
+	private static final byte BYTE = 6;
+	private static final byte CHAR = 7;
+	private static final byte BOOLEAN = 8;
+	private static final byte FLOAT = 9;
+	private static final byte DOUBLE = 10;
+	private static final byte ENUM = 11;
+	private static final byte CLASS = 12;
+	private static final byte ARRAY = 13;
+	private static final byte ENUM_SET = 14;
+	private static final byte ENUM_MAP = 15;
+	private static final byte COLLECTION = 16;
+	private static final byte MAP = 17;
+	private static final byte EXTERNALIZABLE = 18;
+	private static final byte SERIALIZABLE = 19;
+	private static final byte OBJECT = 20;
+	
+	private static final byte SHARED_MAP = 1;
+	
+	/**
+	 * Packages holding services and other runtime state, a template referencing them is not plain data.
+	 */
+	private static final String[] RUNTIME_PACKAGES =
+	{
+		"com.aionemu.gameserver.services.",
+		"com.aionemu.gameserver.network.",
+		"com.aionemu.gameserver.taskmanager.",
+		"com.aionemu.commons.database."
+	};
+	
+	/**
+	 * @param data loaded static data
+	 * @param file
+	 * @param key identifies the xml the data was loaded from
+	 * @throws Exception if the graph holds an object which can't be written, no file is left then
+	 */
+	public static void write(StaticData data, File file, String key) throws Exception
+	{
+		final File tmp = new File(file.getPath() + ".tmp");
+		try
+		{
+			runWithLargeStack(() ->
+			{
+				try (Writer out = new Writer(new LeafObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))))
+				{
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.writeUTF(key + "|" + getCodeVersion());
+					out.writeObject(data);
+				}
+				return null;
+			});
+			if ((file.exists() && !file.delete()) || !tmp.renameTo(file))
+			{
+				throw new IOException("Can't replace " + file.getPath());
+			}
+		}
+		finally
+		{
+			tmp.delete();
+		}
+	}
+	
+	/**
+	 * @param file
+	 * @param key identifies the xml the data must come from
+	 * @return static data of the snapshot, null if there is none for this key or it can't be read
+	 */
+	public static StaticData read(File file, String key)
+	{
+		if (!file.exists())
+		{
+			return null;
+		}
+		try
+		{
+			return runWithLargeStack(() ->
+			{
+				try (Reader in = new Reader(new ObjectInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))))
+				{
+					if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) || !in.readUTF().equals(key + "|" + getCodeVersion()))
+					{
+						log.info("Static data snapshot is outdated, loading xml.");
+						return null;
+					}
+					return (StaticData) in.readObject();
+				}
+			});
+		}
+		catch (Exception e)
+		{
+			log.warn("Can't read static data snapshot, loading xml: " + e);
+			return null;
+		}
+	}
+	
+	/**
+	 * @return size and modification time of the jar holding the data classes, empty when running from class directories
+	 */
+	private static String getCodeVersion()
+	{
+		final URL location = StaticData.class.getProtectionDomain().getCodeSource().getLocation();
+		if ((location == null) || !location.getPath().endsWith(".jar"))
+		{
+			return "";
+		}
+		final File jar = new File(location.getPath());
+		return jar.length() + "-" + jar.lastModified();
+	}
+	
+	private static <T> T runWithLargeStack(Callable<T> task) throws Exception
+	{
+		final AtomicReference<T> result = new AtomicReference<>();
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		final Thread thread = new Thread(null, () ->
+		{
+			try
+			{
+				result.set(task.call());
+			}
+			catch (Throwable t)
+			{
+				error.set(t);
+			}
+		}, "StaticDataSnapshot", STACK_SIZE);
+		thread.start();
+		thread.join();
+		final Throwable t = error.get();
+		if (t instanceof Exception)
+		{
+			throw (Exception) t;
+		}
+		if (t != null)
+		{
+			throw new Exception(t);
+		}
+		return result.get();
+	}
+	
+	private static boolean isRuntimeClass(String name)
+	{
+		if (name.contains("$$Lambda$"))
+		{
+			return true;
+		}
+		for (String pkg : RUNTIME_PACKAGES)
+		{
+			if (name.startsWith(pkg))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @param type
+	 * @return true if objects of type are written field by field: game classes, the jdk collection wrappers and map entries
+	 */
+	private static boolean isGraphClass(Class<?> type)
+	{
+		final String name = type.getName();
+		return name.startsWith("com.aionemu.") || name.startsWith("java.util.Collections$") || name.equals("java.util.Arrays$ArrayList") || name.startsWith("java.util.AbstractMap$Simple");
+	}
+	
+	/**
+	 * @param type collection or map class
+	 * @return true if it is rebuilt from its elements, which needs a no-arg constructor
+	 */
+	private static boolean isRebuilt(Class<?> type)
+	{
+		final String name = type.getName();
+		if (name.startsWith("java.util.Collections$") || name.startsWith("java.util.Arrays$"))
+		{
+			return false;
+		}
+		try
+		{
+			type.getDeclaredConstructor();
+			return true;
+		}
+		catch (NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+	
+	private static Field getField(Class<?> type, String name)
+	{
+		try
+		{
+			final Field field = type.getDeclaredField(name);
+			field.setAccessible(true);
+			return field;
+		}
+		catch (NoSuchFieldException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static final Field ENUM_SET_TYPE = getField(EnumSet.class, "elementType");
+	private static final Field ENUM_MAP_TYPE = getField(EnumMap.class, "keyType");
+	
+	/**
+	 * Layout of one class in the snapshot.
+	 */
+	private static final class ClassInfo
+	{
+		final Class<?> type;
+		final int id;
+		boolean described;
+		Field[] fields;
+		Constructor<?> constructor;
+		
+		ClassInfo(Class<?> type, int id)
+		{
+			this.type = type;
+			this.id = id;
+		}
+		
+		/**
+		 * @return non-static fields declared by the graph classes of the hierarchy, superclass first, by name within a class
+		 */
+		Field[] getFields() throws NotSerializableException
+		{
+			if (fields == null)
+			{
+				final List<Class<?>> levels = new ArrayList<>();
+				for (Class<?> level = type; (level != null) && (level != Object.class); level = level.getSuperclass())
+				{
+					levels.add(0, level);
+				}
+				final List<Field> list = new ArrayList<>();
+				for (Class<?> level : levels)
+				{
+					if (!isGraphClass(level))
+					{
+						if (!Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type))
+						{
+							throw new NotSerializableException(type.getName() + " extends " + level.getName());
+						}
+						continue;
+					}
+					final Field[] declared = level.getDeclaredFields();
+					Arrays.sort(declared, Comparator.comparing(Field::getName));
+					for (Field field : declared)
+					{
+						if (!Modifier.isStatic(field.getModifiers()))
+						{
+							field.setAccessible(true);
+							list.add(field);
+						}
+					}
+				}
+				fields = list.toArray(new Field[list.size()]);
+			}
+			return fields;
+		}
+		
+		Object newCollection() throws IOException
+		{
+			try
+			{
+				if (constructor == null)
+				{
+					constructor = type.getDeclaredConstructor();
+					constructor.setAccessible(true);
+				}
+				return constructor.newInstance();
+			}
+			catch (ReflectiveOperationException e)
+			{
+				throw new InvalidClassException(type.getName(), e.toString());
+			}
+		}
+	}
+	
+	private static final class Writer extends DataOutputStream implements ObjectOutput
+	{
+		private final IdentityHashMap<Object, Integer> refs = new IdentityHashMap<>();
+		private final Map<Class<?>, ClassInfo> classes = new HashMap<>();
+		private final ObjectOutputStream serializer;
+		
+		/**
+		 * @param out buffers the data written through this, and writes the serializable library objects
+		 */
+		Writer(ObjectOutputStream out)
+		{
+			super(out);
+			serializer = out;
+		}
+		
+		@Override
+		public void writeObject(Object obj) throws IOException
+		{
+			if (obj == null)
+			{
+				writeByte(NULL);
+				return;
+			}
+			final Class<?> type = obj.getClass();
+			if (type == Integer.class)
+			{
+				writeByte(INT);
+				writeInt((Integer) obj);
+				return;
+			}
+			if (type == Long.class)
+			{
+				writeByte(LONG);
+				writeLong((Long) obj);
+				return;
+			}
+			if (type == Short.class)
+			{
+				writeByte(SHORT);
+				writeShort((Short) obj);
+				return;
+			}
+			if (type == Byte.class)
+			{
+				writeByte(BYTE);
+				writeByte((Byte) obj);
+				return;
+			}
+			if (type == Character.class)
+			{
+				writeByte(CHAR);
+				writeChar((Character) obj);
+				return;
+			}
+			if (type == Boolean.class)
+			{
+				writeByte(BOOLEAN);
+				writeBoolean((Boolean) obj);
+				return;
+			}
+			if (type == Float.class)
+			{
+				writeByte(FLOAT);
+				writeFloat((Float) obj);
+				return;
+			}
+			if (type == Double.class)
+			{
+				writeByte(DOUBLE);
+				writeDouble((Double) obj);
+				return;
+			}
+			if (obj instanceof Enum)
+			{
+				final Enum<?> e = (Enum<?>) obj;
+				writeByte(ENUM);
+				writeEnumClass(e.getDeclaringClass());
+				writeInt(e.ordinal());
+				return;
+			}
+			if (obj instanceof Class)
+			{
+				writeByte(CLASS);
+				writeClass((Class<?>) obj);
+				return;
+			}
+			final Integer ref = refs.get(obj);
+			if (ref != null)
+			{
+				writeByte(REF);
+				writeInt(ref);
+				return;
+			}
+			refs.put(obj, refs.size());
+			
+			if (type == String.class)
+			{
+				writeByte(STRING);
+				final byte[] bytes = ((String) obj).getBytes(StandardCharsets.UTF_8);
+				writeInt(bytes.length);
+				write(bytes);
+			}
+			else if (type.isArray())
+			{
+				writeByte(ARRAY);
+				writeClass(type);
+				writeArray(obj, type.getComponentType());
+			}
+			else if (obj instanceof EnumSet)
+			{
+				final EnumSet<?> set = (EnumSet<?>) obj;
+				writeByte(ENUM_SET);
+				writeEnumClass(get(ENUM_SET_TYPE, set));
+				writeInt(set.size());
+				for (Enum<?> e : set)
+				{
+					writeInt(e.ordinal());
+				}
+			}
+			else if (obj instanceof EnumMap)
+			{
+				final EnumMap<?, ?> map = (EnumMap<?, ?>) obj;
+				writeByte(ENUM_MAP);
+				writeEnumClass(get(ENUM_MAP_TYPE, map));
+				writeInt(map.size());
+				for (Map.Entry<? extends Enum<?>, ?> e : map.entrySet())
+				{
+					writeInt(e.getKey().ordinal());
+					writeObject(e.getValue());
+				}
+			}
+			else if ((obj instanceof Collection) && isRebuilt(type))
+			{
+				if (((obj instanceof SortedSet) && (((SortedSet<?>) obj).comparator() != null)) || ((obj instanceof PriorityQueue) && (((PriorityQueue<?>) obj).comparator() != null)))
+				{
+					throw new NotSerializableException(type.getName() + " with comparator");
+				}
+				final Collection<?> collection = (Collection<?>) obj;
+				writeByte(COLLECTION);
+				final ClassInfo info = writeDescribedClass(type);
+				writeInt(collection.size());
+				for (Object element : collection)
+				{
+					writeObject(element);
+				}
+				writeFields(obj, info);
+			}
+			else if ((obj instanceof Map) && isRebuilt(type))
+			{
+				byte flags = 0;
+				if (obj instanceof FastMap)
+				{
+					final FastMap<?, ?> fastMap = (FastMap<?, ?>) obj;
+					if ((fastMap.getKeyComparator() != FastComparator.DEFAULT) || (fastMap.getValueComparator() != FastComparator.DEFAULT))
+					{
+						throw new NotSerializableException(type.getName() + " with comparator");
+					}
+					if (fastMap.isShared())
+					{
+						flags |= SHARED_MAP;
+					}
+				}
+				else if ((obj instanceof SortedMap) && (((SortedMap<?, ?>) obj).comparator() != null))
+				{
+					throw new NotSerializableException(type.getName() + " with comparator");
+				}
+				final Map<?, ?> map = (Map<?, ?>) obj;
+				writeByte(MAP);
+				final ClassInfo info = writeDescribedClass(type);
+				writeByte(flags);
+				writeInt(map.size());
+				for (Map.Entry<?, ?> e : map.entrySet())
+				{
+					writeObject(e.getKey());
+					writeObject(e.getValue());
+				}
+				writeFields(obj, info);
+			}
+			else if (obj instanceof Externalizable)
+			{
+				writeByte(EXTERNALIZABLE);
+				writeClass(type);
+				((Externalizable) obj).writeExternal(this);
+			}
+			else if (isRuntimeClass(type.getName()))
+			{
+				throw new NotSerializableException(type.getName() + " is not static data");
+			}
+			else if (isGraphClass(type))
+			{
+				writeByte(OBJECT);
+				writeFields(obj, writeDescribedClass(type));
+			}
+			else if (obj instanceof Serializable)
+			{
+				writeByte(SERIALIZABLE);
+				serializer.writeObject(obj);
+			}
+			else
+			{
+				throw new NotSerializableException(type.getName());
+			}
+		}
+		
+		private void writeArray(Object array, Class<?> component) throws IOException
+		{
+			final int length = Array.getLength(array);
+			writeInt(length);
+			if (component == byte.class)
+			{
+				write((byte[]) array);
+			}
+			else if (component == int.class)
+			{
+				for (int value : (int[]) array)
+				{
+					writeInt(value);
+				}
+			}
+			else if (component == float.class)
+			{
+				for (float value : (float[]) array)
+				{
+					writeFloat(value);
+				}
+			}
+			else if (component == long.class)
+			{
+				for (long value : (long[]) array)
+				{
+					writeLong(value);
+				}
+			}
+			else if (component == short.class)
+			{
+				for (short value : (short[]) array)
+				{
+					writeShort(value);
+				}
+			}
+			else if (component == double.class)
+			{
+				for (double value : (double[]) array)
+				{
+					writeDouble(value);
+				}
+			}
+			else if (component == boolean.class)
+			{
+				for (boolean value : (boolean[]) array)
+				{
+					writeBoolean(value);
+				}
+			}
+			else if (component == char.class)
+			{
+				for (char value : (char[]) array)
+				{
+					writeChar(value);
+				}
+			}
+			else
+			{
+				for (Object value : (Object[]) array)
+				{
+					writeObject(value);
+				}
+			}
+		}
+		
+		private void writeFields(Object obj, ClassInfo info) throws IOException
+		{
+			try
+			{
+				for (Field field : info.getFields())
+				{
+					final Class<?> type = field.getType();
+					if (!type.isPrimitive())
+					{
+						writeObject(field.get(obj));
+					}
+					else if (type == int.class)
+					{
+						writeInt(field.getInt(obj));
+					}
+					else if (type == float.class)
+					{
+						writeFloat(field.getFloat(obj));
+					}
+					else if (type == boolean.class)
+					{
+						writeBoolean(field.getBoolean(obj));
+					}
+					else if (type == long.class)
+					{
+						writeLong(field.getLong(obj));
+					}
+					else if (type == short.class)
+					{
+						writeShort(field.getShort(obj));
+					}
+					else if (type == byte.class)
+					{
+						writeByte(field.getByte(obj));
+					}
+					else if (type == double.class)
+					{
+						writeDouble(field.getDouble(obj));
+					}
+					else
+					{
+						writeChar(field.getChar(obj));
+					}
+				}
+			}
+			catch (IllegalAccessException e)
+			{
+				throw new InvalidClassException(info.type.getName(), e.toString());
+			}
+		}
+		
+		private ClassInfo writeClass(Class<?> type) throws IOException
+		{
+			ClassInfo info = classes.get(type);
+			if (info == null)
+			{
+				info = new ClassInfo(type, classes.size());
+				classes.put(type, info);
+				writeInt(info.id);
+				writeUTF(type.getName());
+			}
+			else
+			{
+				writeInt(info.id);
+			}
+			return info;
+		}
+		
+		/**
+		 * Writes the class, followed by its field names and types the first time.
+		 */
+		private ClassInfo writeDescribedClass(Class<?> type) throws IOException
+		{
+			final ClassInfo info = writeClass(type);
+			if (!info.described)
+			{
+				info.described = true;
+				final Field[] fields = info.getFields();
+				writeInt(fields.length);
+				for (Field field : fields)
+				{
+					writeUTF(field.getName());
+					writeUTF(field.getType().getName());
+				}
+			}
+			return info;
+		}
+		
+		/**
+		 * Writes the enum class, followed by its constant names the first time.
+		 */
+		private void writeEnumClass(Class<?> type) throws IOException
+		{
+			final ClassInfo info = writeClass(type);
+			if (!info.described)
+			{
+				info.described = true;
+				final Object[] constants = type.getEnumConstants();
+				writeInt(constants.length);
+				for (Object constant : constants)
+				{
+					writeUTF(((Enum<?>) constant).name());
+				}
+			}
+		}
+		
+		private static Class<?> get(Field field, Object obj) throws IOException
+		{
+			try
+			{
+				return (Class<?>) field.get(obj);
+			}
+			catch (IllegalAccessException e)
+			{
+				throw new InvalidClassException(obj.getClass().getName(), e.toString());
+			}
+		}
+	}
+	
+	/**
+	 * Java serialization of the library objects, which must not reach back into the graph as the copies would lose their identity.
+	 */
+	private static final class LeafObjectOutputStream extends ObjectOutputStream
+	{
+		LeafObjectOutputStream(java.io.OutputStream out) throws IOException
+		{
+			super(out);
+			enableReplaceObject(true);
+		}
+		
+		@Override
+		protected Object replaceObject(Object obj) throws IOException
+		{
+			if ((obj != null) && isGraphClass(obj.getClass()))
+			{
+				throw new NotSerializableException(obj.getClass().getName() + " inside a serialized library object");
+			}
+			return obj;
+		}
+	}
+	
+	private static final class Reader extends DataInputStream implements ObjectInput
+	{
+		private final List<Object> refs = new ArrayList<>();
+		private final List<ClassInfo> classes = new ArrayList<>();
+		private final Objenesis objenesis = new ObjenesisStd(true);
+		private final ObjectInputStream deserializer;
+		
+		Reader(ObjectInputStream in)
+		{
+			super(in);
+			deserializer = in;
+		}
+		
+		@Override
+		@SuppressWarnings(
+		{
+			"unchecked",
+			"rawtypes"
+		})
+		public Object readObject() throws ClassNotFoundException, IOException
+		{
+			final byte tag = readByte();
+			switch (tag)
+			{
+				case NULL:
+					return null;
+				case REF:
+					return refs.get(readInt());
+				case INT:
+					return readInt();
+				case LONG:
+					return readLong();
+				case SHORT:
+					return readShort();
+				case BYTE:
+					return readByte();
+				case CHAR:
+					return readChar();
+				case BOOLEAN:
+					return readBoolean();
+				case FLOAT:
+					return readFloat();
+				case DOUBLE:
+					return readDouble();
+				case ENUM:
+				{
+					final Object[] constants = readEnumClass().getEnumConstants();
+					return constants[readInt()];
+				}
+				case CLASS:
+					return readClass().type;
+				case STRING:
+				{
+					final byte[] bytes = new byte[readInt()];
+					readFully(bytes);
+					final String string = new String(bytes, StandardCharsets.UTF_8);
+					refs.add(string);
+					return string;
+				}
+				case ARRAY:
+				{
+					final Class<?> component = readClass().type.getComponentType();
+					final Object array = Array.newInstance(component, readInt());
+					refs.add(array);
+					readArray(array, component);
+					return array;
+				}
+				case ENUM_SET:
+				{
+					final Class enumClass = readEnumClass();
+					final Object[] constants = enumClass.getEnumConstants();
+					final EnumSet set = EnumSet.noneOf(enumClass);
+					refs.add(set);
+					for (int i = readInt(); i > 0; i--)
+					{
+						set.add(constants[readInt()]);
+					}
+					return set;
+				}
+				case ENUM_MAP:
+				{
+					final Class enumClass = readEnumClass();
+					final Object[] constants = enumClass.getEnumConstants();
+					final EnumMap map = new EnumMap(enumClass);
+					refs.add(map);
+					for (int i = readInt(); i > 0; i--)
+					{
+						final Object key = constants[readInt()];
+						map.put(key, readObject());
+					}
+					return map;
+				}
+				case COLLECTION:
+				{
+					final ClassInfo info = readDescribedClass();
+					final Collection collection = (Collection) info.newCollection();
+					refs.add(collection);
+					for (int i = readInt(); i > 0; i--)
+					{
+						collection.add(readObject());
+					}
+					readFields(collection, info);
+					return collection;
+				}
+				case MAP:
+				{
+					final ClassInfo info = readDescribedClass();
+					final Map map = (Map) info.newCollection();
+					refs.add(map);
+					if ((readByte() & SHARED_MAP) != 0)
+					{
+						((FastMap) map).shared();
+					}
+					for (int i = readInt(); i > 0; i--)
+					{
+						final Object key = readObject();
+						map.put(key, readObject());
+					}
+					readFields(map, info);
+					return map;
+				}
+				case EXTERNALIZABLE:
+				{
+					final Externalizable obj = (Externalizable) readClass().newCollection();
+					refs.add(obj);
+					obj.readExternal(this);
+					return obj;
+				}
+				case SERIALIZABLE:
+				{
+					final int index = refs.size();
+					refs.add(null);
+					final Object obj = deserializer.readObject();
+					refs.set(index, obj);
+					return obj;
+				}
+				case OBJECT:
+				{
+					final ClassInfo info = readDescribedClass();
+					final Object obj = objenesis.newInstance(info.type);
+					refs.add(obj);
+					readFields(obj, info);
+					return obj;
+				}
+				default:
+					throw new StreamCorruptedException("Unknown tag " + tag);
+			}
+		}
+		
+		private void readArray(Object array, Class<?> component) throws ClassNotFoundException, IOException
+		{
+			final int length = Array.getLength(array);
+			if (component == byte.class)
+			{
+				readFully((byte[]) array);
+			}
+			else if (component == int.class)
+			{
+				final int[] values = (int[]) array;
+				for (int i = 0; i < length; i++)
+				{
+					values[i] = readInt();
+				}
+			}
+			else if (component == float.class)
+			{
+				final float[] values = (float[]) array;
+				for (int i = 0; i < length; i++)
+				{
+					values[i] = readFloat();
+				}
+			}
+			else if (component == long.class)
+			{
+				final long[] values = (long[]) array;
+				for (int i = 0; i < length; i++)
+				{
+					values[i] = readLong();
+				}
+			}
+			else if (component == short.class)
+			{
+				final short[] values = (short[]) array;
+				for (int i = 0; i < length; i++)
+				{
+					values[i] = readShort();
+				}
+			}
+			else if (component == double.class)
+			{
+				final double[] values = (double[]) array;
+				for (int i = 0; i < length; i++)
+				{
+					values[i] = readDouble();
+				}
+			}
+			else if (component == boolean.class)
+			{
+				final boolean[] values = (boolean[]) array;
+				for (int i = 0; i < length; i++)
+				{
+					values[i] = readBoolean();
+				}
+			}
+			else if (component == char.class)
+			{
+				final char[] values = (char[]) array;
+				for (int i = 0; i < length; i++)
+				{
+					values[i] = readChar();
+				}
+			}
+			else
+			{
+				final Object[] values = (Object[]) array;
+				for (int i = 0; i < length; i++)
+				{
+					values[i] = readObject();
+				}
+			}
+		}
+		
+		private void readFields(Object obj, ClassInfo info) throws ClassNotFoundException, IOException
+		{
+			try
+			{
+				for (Field field : info.fields)
+				{
+					final Class<?> type = field.getType();
+					if (!type.isPrimitive())
+					{
+						field.set(obj, readObject());
+					}
+					else if (type == int.class)
+					{
+						field.setInt(obj, readInt());
+					}
+					else if (type == float.class)
+					{
+						field.setFloat(obj, readFloat());
+					}
+					else if (type == boolean.class)
+					{
+						field.setBoolean(obj, readBoolean());
+					}
+					else if (type == long.class)
+					{
+						field.setLong(obj, readLong());
+					}
+					else if (type == short.class)
+					{
+						field.setShort(obj, readShort());
+					}
+					else if (type == byte.class)
+					{
+						field.setByte(obj, readByte());
+					}
+					else if (type == double.class)
+					{
+						field.setDouble(obj, readDouble());
+					}
+					else
+					{
+						field.setChar(obj, readChar());
+					}
+				}
+			}
+			catch (IllegalAccessException | IllegalArgumentException e)
+			{
+				throw new InvalidClassException(info.type.getName(), e.toString());
+			}
+		}
+		
+		private ClassInfo readClass() throws ClassNotFoundException, IOException
+		{
+			final int id = readInt();
+			if (id < classes.size())
+			{
+				return classes.get(id);
+			}
+			if (id != classes.size())
+			{
+				throw new StreamCorruptedException("Unknown class " + id);
+			}
+			final ClassInfo info = new ClassInfo(Class.forName(readUTF(), false, StaticData.class.getClassLoader()), id);
+			classes.add(info);
+			return info;
+		}
+		
+		/**
+		 * Reads the class and, the first time, checks its fields are still the written ones.
+		 */
+		private ClassInfo readDescribedClass() throws ClassNotFoundException, IOException
+		{
+			final ClassInfo info = readClass();
+			if (!info.described)
+			{
+				info.described = true;
+				final Field[] fields = info.getFields();
+				final int count = readInt();
+				boolean changed = count != fields.length;
+				for (int i = 0; i < count; i++)
+				{
+					final String name = readUTF();
+					final String type = readUTF();
+					changed |= (i >= fields.length) || !fields[i].getName().equals(name) || !fields[i].getType().getName().equals(type);
+				}
+				if (changed)
+				{
+					throw new InvalidClassException(info.type.getName(), "fields changed since the snapshot was written");
+				}
+			}
+			return info;
+		}
+		
+		private Class<?> readEnumClass() throws ClassNotFoundException, IOException
+		{
+			final ClassInfo info = readClass();
+			if (!info.described)
+			{
+				info.described = true;
+				final Object[] constants = info.type.getEnumConstants();
+				final int count = readInt();
+				boolean changed = count != constants.length;
+				for (int i = 0; i < count; i++)
+				{
+					final String name = readUTF();
+					changed |= (i >= constants.length) || !((Enum<?>) constants[i]).name().equals(name);
+				}
+				if (changed)
+				{
+					throw new InvalidClassException(info.type.getName(), "constants changed since the snapshot was written");
+				}
+			}
+			return info.type;
+		}
+	}
+}
@@ -16,8 +16,14 @@
  */
 package com.aionemu.gameserver.dataholders.loadingutils;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
@@ -25,11 +31,16 @@ import javax.xml.bind.Unmarshaller;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
+import com.aionemu.gameserver.configs.main.GSConfig;
 import com.aionemu.gameserver.dataholders.StaticData;
+import com.aionemu.gameserver.dataholders.loadingutils.StaticDataSectionLoader.SectionStats;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
 
 /**
  * This class is responsible for loading xml files. It uses JAXB to do the job.<br>
@@ -46,12 +57,18 @@ public class XmlDataLoader
 	private static final String CACHE_DIRECTORY = "./cache/";
 	private static final String CACHE_XML_FILE = "./cache/static_data.xml";
 	private static final String MAIN_XML_FILE = "./data/static_data/static_data.xml";
+	/** Content hash of the merged xml and schema which last passed validation */
+	private static final String CACHE_HASH_FILE = "./cache/static_data.xml.validated";
+	/** Binary snapshot of the static data loaded from the xml with the same content hash */
+	private static final String SNAPSHOT_FILE = "./cache/static_data.snapshot";
 	
 	public static XmlDataLoader getInstance()
 	{
 		return SingletonHolder.instance;
 	}
 	
+	private List<SectionStats> sectionStats = Collections.emptyList();
+	
 	private XmlDataLoader()
 	{
 		
@@ -70,13 +87,55 @@ public class XmlDataLoader
 		
 		mergeXmlFiles(cachedXml, cleanMainXml);
 		
+		final String hash = GSConfig.STATIC_DATA_VALIDATION_CACHE || GSConfig.STATIC_DATA_SNAPSHOT ? getContentHash(cachedXml) : null;
+		if ((hash != null) && GSConfig.STATIC_DATA_SNAPSHOT)
+		{
+			final long start = System.currentTimeMillis();
+			final StaticData data = StaticDataSnapshot.read(new File(SNAPSHOT_FILE), hash);
+			if (data != null)
+			{
+				log.info("Static data is unchanged, loaded snapshot in " + (System.currentTimeMillis() - start) + " ms.");
+				data.logLoadedData();
+				return data;
+			}
+		}
+		final boolean validated = GSConfig.STATIC_DATA_VALIDATION_CACHE && (hash != null) && hash.equals(readValidatedHash());
+		if (validated)
+		{
+			log.info("Static data is unchanged since its last validation, skipping schema validation.");
+		}
 		try
 		{
 			final JAXBContext jc = JAXBContext.newInstance(StaticData.class);
-			final Unmarshaller un = jc.createUnmarshaller();
-			un.setEventHandler(new XmlValidationHandler());
-			un.setSchema(getSchema());
-			return (StaticData) un.unmarshal(new FileReader(CACHE_XML_FILE));
+			final Schema schema = validated ? null : getSchema();
+			final StaticData data;
+			if (GSConfig.STATIC_DATA_PARALLEL)
+			{
+				final int threads = GSConfig.STATIC_DATA_PARALLEL_THREADS > 0 ? GSConfig.STATIC_DATA_PARALLEL_THREADS : Runtime.getRuntime().availableProcessors();
+				final StaticDataSectionLoader sectionLoader = new StaticDataSectionLoader(jc, schema, threads);
+				data = sectionLoader.load(cachedXml);
+				sectionStats = sectionLoader.getStats();
+			}
+			else
+			{
+				try (InputStream in = new BufferedInputStream(new FileInputStream(cachedXml)))
+				{
+					final Unmarshaller un = jc.createUnmarshaller();
+					un.setEventHandler(new XmlValidationHandler());
+					un.setSchema(schema);
+					data = (StaticData) un.unmarshal(in);
+				}
+			}
+			data.logLoadedData();
+			if (GSConfig.STATIC_DATA_VALIDATION_CACHE && (hash != null) && !validated)
+			{
+				FileUtils.writeStringToFile(new File(CACHE_HASH_FILE), hash, StandardCharsets.UTF_8);
+			}
+			if (GSConfig.STATIC_DATA_SNAPSHOT && (hash != null))
+			{
+				writeSnapshot(data, hash);
+			}
+			return data;
 		}
 		/*
 		 * catch (IllegalAnnotationsException e) { log.error("Error while loading static data", e); throw new Error("Error while loading static data", e); } catch (FileNotFoundException e) { log.error("Error while loading static data", e); throw new Error("Error while loading static data", e); }
@@ -89,6 +148,70 @@ public class XmlDataLoader
 		return null;
 	}
 	
+	/**
+	 * Writes the loaded data for the next boot, a data class which can't be written only costs the snapshot.
+	 * @param data
+	 * @param hash content hash of the xml the data was loaded from
+	 */
+	private void writeSnapshot(StaticData data, String hash)
+	{
+		final long start = System.currentTimeMillis();
+		final File file = new File(SNAPSHOT_FILE);
+		try
+		{
+			StaticDataSnapshot.write(data, file, hash);
+			log.info("Static data snapshot written (" + (file.length() / 1024) + " KB) in " + (System.currentTimeMillis() - start) + " ms.");
+		}
+		catch (Exception e)
+		{
+			file.delete();
+			log.warn("Can't write static data snapshot, next boot will load the xml again: " + e);
+		}
+	}
+	
+	/**
+	 * @return load time and memory of each static data section, empty unless loaded in parallel
+	 */
+	public List<SectionStats> getSectionStats()
+	{
+		return sectionStats;
+	}
+	
+	/**
+	 * @param cachedXml merged xml file
+	 * @return hash of the merged xml content and of the schema it is validated against, null if it can't be computed
+	 */
+	private String getContentHash(File cachedXml)
+	{
+		try
+		{
+			return Files.asByteSource(cachedXml).hash(Hashing.sha256()) + ":" + Files.asByteSource(new File(XML_SCHEMA_FILE)).hash(Hashing.sha256());
+		}
+		catch (IOException e)
+		{
+			log.warn("Can't compute static data hash, schema validation will be done", e);
+			return null;
+		}
+	}
+	
+	private String readValidatedHash()
+	{
+		final File file = new File(CACHE_HASH_FILE);
+		if (!file.exists())
+		{
+			return null;
+		}
+		try
+		{
+			return FileUtils.readFileToString(file, StandardCharsets.UTF_8).trim();
+		}
+		catch (IOException e)
+		{
+			log.warn("Can't read " + CACHE_HASH_FILE, e);
+			return null;
+		}
+	}
+	
 	/**
 	 * Creates and returns {@link Schema} object representing xml schema of xml files
 	 * @return a Schema object.
@@ -26,6 +26,7 @@ import java.nio.FloatBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.ShortBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -68,16 +69,15 @@ public class GeoWorldLoader
 		DEBUG = debug;
 	}
 	
-	@SuppressWarnings("resource")
 	public static Map<String, Spatial> loadMeshs(String fileName) throws IOException
 	{
 		final Map<String, Spatial> geoms = new HashMap<>();
 		final File geoFile = new File(fileName);
-		FileChannel roChannel = null;
-		MappedByteBuffer geo = null;
-		roChannel = new RandomAccessFile(geoFile, "r").getChannel();
-		final int size = (int) roChannel.size();
-		geo = roChannel.map(FileChannel.MapMode.READ_ONLY, 0, size).load();
+		final MappedByteBuffer geo;
+		try (RandomAccessFile file = new RandomAccessFile(geoFile, "r"))
+		{
+			geo = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()).load();
+		}
 		geo.order(ByteOrder.LITTLE_ENDIAN);
 		while (geo.hasRemaining())
 		{
@@ -120,6 +120,8 @@ public class GeoWorldLoader
 				m.setBuffer(VertexBuffer.Type.Position, 3, vertices);
 				m.setBuffer(VertexBuffer.Type.Index, 3, indexes);
 				m.createCollisionData();
+				// computed once here, placements only transform it (and may do so concurrently)
+				m.updateBound();
 				
 				if (((intentions & CollisionIntention.DOOR.getId()) != 0) && ((intentions & CollisionIntention.PHYSICAL.getId()) != 0))
 				{
@@ -162,33 +164,45 @@ public class GeoWorldLoader
 		
 	}
 	
-	@SuppressWarnings("resource")
-	public static boolean loadWorld(int worldId, Map<String, Spatial> models, GeoMap map) throws IOException
+	/**
+	 * Loads terrain and static geometry of one world into map, maps may be loaded concurrently.<br>
+	 * Terrain heights stay in the memory-mapped file. Placements share the meshes of models, each gets its own geometry with the placement transform only.<br>
+	 * Placements touching state shared between maps (door templates, material zones) are not run but returned, to be run in order on one thread once all maps are loaded.
+	 * @param worldId
+	 * @param models
+	 * @param map
+	 * @return placements left to run
+	 * @throws IOException
+	 */
+	public static List<Runnable> loadWorld(int worldId, Map<String, Spatial> models, GeoMap map) throws IOException
 	{
 		final File geoFile = new File(GEO_DIR + worldId + ".geo");
-		FileChannel roChannel = null;
-		MappedByteBuffer geo = null;
-		roChannel = new RandomAccessFile(geoFile, "r").getChannel();
-		geo = roChannel.map(FileChannel.MapMode.READ_ONLY, 0, (int) roChannel.size()).load();
+		final MappedByteBuffer geo;
+		try (RandomAccessFile file = new RandomAccessFile(geoFile, "r"))
+		{
+			// the mapping stays valid after the file is closed
+			geo = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+		}
 		geo.order(ByteOrder.LITTLE_ENDIAN);
-		if (geo.get() == 0)
+		final boolean mappedTerrain = geo.get() != 0;
+		if (!mappedTerrain)
 		{
-			map.setTerrainData(new short[]
+			map.setTerrainData(ShortBuffer.wrap(new short[]
 			{
 				geo.getShort()
-			});
+			}));
 		}
 		else
 		{
 			final int size = geo.getInt();
-			final short[] terrainData = new short[size];
-			for (int i = 0; i < size; i++)
-			{
-				terrainData[i] = geo.getShort();
-			}
+			final ShortBuffer terrainData = geo.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+			terrainData.limit(size);
 			map.setTerrainData(terrainData);
+			geo.position(geo.position() + (size * 2));
 		}
 		
+		final List<Runnable> placements = new ArrayList<>();
+		boolean hasDoors = false;
 		while (geo.hasRemaining())
 		{
 			final int nameLength = geo.getShort();
@@ -204,40 +218,48 @@ public class GeoWorldLoader
 			final float scale = geo.getFloat();
 			final Matrix3f matrix3f = new Matrix3f();
 			matrix3f.set(matrix);
-			final Spatial node = models.get(name.toLowerCase().intern());
+			final Spatial node = models.get(name.toLowerCase());
 			try
 			{
 				if (node != null)
 				{
-					Spatial nodeClone = node;
 					if (node instanceof DoorGeometry)
 					{
-						try
-						{
-							nodeClone = node.clone();
-						}
-						catch (CloneNotSupportedException e)
+						// door clones share the template state
+						hasDoors = true;
+						placements.add(() ->
 						{
-							e.printStackTrace();
-						}
-						createDoors(nodeClone, worldId, matrix3f, loc, scale);
-						map.attachChild(nodeClone);
+							Spatial nodeClone = node;
+							try
+							{
+								nodeClone = node.clone();
+							}
+							catch (CloneNotSupportedException e)
+							{
+								e.printStackTrace();
+							}
+							createDoors(nodeClone, worldId, matrix3f, loc, scale);
+							map.attachChild(nodeClone);
+						});
 					}
 					else
 					{
-						nodeClone = attachChild(map, node, matrix3f, loc, scale);
-						final List<Spatial> children = ((Node) node).descendantMatches("child\\d+_" + name.replace("\\", "\\\\"));
-						if (children.size() == 0)
-						{
-							createZone(nodeClone, worldId, 0);
-						}
-						else
+						final Spatial nodeClone = attachChild(map, node, matrix3f, loc, scale);
+						if (GeoDataConfig.GEO_MATERIALS_ENABLE && ((nodeClone.getIntentions() & CollisionIntention.MATERIAL.getId()) != 0))
 						{
-							for (int c = 0; c < children.size(); c++)
+							final List<Spatial> children = ((Node) nodeClone).descendantMatches("child\\d+_" + name.replace("\\", "\\\\"));
+							if (children.size() == 0)
 							{
-								final Spatial child = children.get(c);
-								nodeClone = attachChild(map, child, matrix3f, loc, scale);
-								createZone(nodeClone, worldId, c + 1);
+								placements.add(() -> createZone(nodeClone, worldId, 0));
+							}
+							else
+							{
+								for (int c = 0; c < children.size(); c++)
+								{
+									final Spatial child = children.get(c);
+									final int childNumber = c + 1;
+									placements.add(() -> createZone(child, worldId, childNumber));
+								}
 							}
 						}
 					}
@@ -248,9 +270,20 @@ public class GeoWorldLoader
 				System.out.println(t);
 			}
 		}
-		destroyDirectByteBuffer(geo);
-		map.updateModelBound();
-		return true;
+		if (!mappedTerrain)
+		{
+			destroyDirectByteBuffer(geo);
+		}
+		if (hasDoors)
+		{
+			// region nodes can't be pruned before the doors are attached
+			placements.add(map::updateModelBound);
+		}
+		else
+		{
+			map.updateModelBound();
+		}
+		return placements;
 	}
 	
 	private static Spatial attachChild(GeoMap map, Spatial node, Matrix3f matrix, Vector3f location, float scale)
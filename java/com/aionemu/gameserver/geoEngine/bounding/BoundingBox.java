@@ -696,42 +696,38 @@ public class BoundingBox extends BoundingVolume
 	 */
 	private int collideWithRay(Ray ray, CollisionResults results)
 	{
-		final Vector3f diff = Vector3f.newInstance().set(ray.origin).subtractLocal(center);
-		final Vector3f direction = Vector3f.newInstance().set(ray.direction);
-		
-		final float[] t =
+		final float[] t = new float[2];
+		final int hits = clipRay(ray, t);
+		for (int i = 0; i < hits; i++)
 		{
-			0f,
-			Float.POSITIVE_INFINITY
-		};
+			final Vector3f point = new Vector3f(ray.direction).multLocal(t[i]).addLocal(ray.origin);
+			results.addCollision(new CollisionResult(point, t[i]));
+		}
+		return hits;
+	}
+	
+	/**
+	 * Distances along ray where it enters and leaves this box, without allocating.
+	 * @param ray
+	 * @param t storage for the distances, t[0] is the entry (0 if ray starts inside), t[1] the exit
+	 * @return number of intersection points: 0 if ray misses the box, 1 if only t[0] is valid, 2 otherwise
+	 */
+	public int clipRay(Ray ray, float[] t)
+	{
+		final float diffX = ray.origin.x - center.x;
+		final float diffY = ray.origin.y - center.y;
+		final float diffZ = ray.origin.z - center.z;
+		final Vector3f direction = ray.direction;
+		
+		t[0] = 0f;
+		t[1] = Float.POSITIVE_INFINITY;
 		
 		final float saveT0 = t[0], saveT1 = t[1];
-		final boolean notEntirelyClipped = clip(+direction.x, -diff.x - xExtent, t) && clip(-direction.x, +diff.x - xExtent, t) && clip(+direction.y, -diff.y - yExtent, t) && clip(-direction.y, +diff.y - yExtent, t) && clip(+direction.z, -diff.z - zExtent, t) && clip(-direction.z, +diff.z - zExtent, t);
-		Vector3f.recycle(diff);
-		Vector3f.recycle(direction);
+		final boolean notEntirelyClipped = clip(+direction.x, -diffX - xExtent, t) && clip(-direction.x, +diffX - xExtent, t) && clip(+direction.y, -diffY - yExtent, t) && clip(-direction.y, +diffY - yExtent, t) && clip(+direction.z, -diffZ - zExtent, t) && clip(-direction.z, +diffZ - zExtent, t);
 		
 		if (notEntirelyClipped && ((t[0] != saveT0) || (t[1] != saveT1)))
 		{
-			if (t[1] > t[0])
-			{
-				final float[] distances = t;
-				final Vector3f[] points = new Vector3f[]
-				{
-					new Vector3f(ray.direction).multLocal(distances[0]).addLocal(ray.origin),
-					new Vector3f(ray.direction).multLocal(distances[1]).addLocal(ray.origin)
-				};
-				
-				CollisionResult result = new CollisionResult(points[0], distances[0]);
-				results.addCollision(result);
-				result = new CollisionResult(points[1], distances[1]);
-				results.addCollision(result);
-				return 2;
-			}
-			
-			final Vector3f point = new Vector3f(ray.direction).multLocal(t[0]).addLocal(ray.origin);
-			final CollisionResult result = new CollisionResult(point, t[0]);
-			results.addCollision(result);
-			return 1;
+			return t[1] > t[0] ? 2 : 1;
 		}
 		return 0;
 	}
@@ -29,14 +29,28 @@ public class CollisionResult implements Comparable<CollisionResult>
 	private Vector3f contactNormal;
 	private float distance;
 	
+	/**
+	 * Owns its vectors, so {@link CollisionResults} may reuse it
+	 */
+	private final boolean reusable;
+	
 	public CollisionResult(Vector3f contactPoint, float distance)
 	{
 		this.contactPoint = contactPoint;
 		this.distance = distance;
+		reusable = false;
+	}
+	
+	CollisionResult(Vector3f contactPoint, Vector3f contactNormal)
+	{
+		this.contactPoint = contactPoint;
+		this.contactNormal = contactNormal;
+		reusable = true;
 	}
 	
 	public CollisionResult()
 	{
+		reusable = false;
 	}
 	
 	public void setContactPoint(Vector3f point)
@@ -95,4 +109,9 @@ public class CollisionResult implements Comparable<CollisionResult>
 	{
 		return distance;
 	}
+	
+	boolean isReusable()
+	{
+		return reusable;
+	}
 }
@@ -20,13 +20,20 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 
+import com.aionemu.gameserver.geoEngine.math.Vector3f;
+
 public class CollisionResults implements Iterable<CollisionResult>
 {
 	private final ArrayList<CollisionResult> results = new ArrayList<>();
+	
+	/**
+	 * Results of {@link #addCollision(float, float, float, float)} released by {@link #clear()}, reused by the next ones
+	 */
+	private final ArrayList<CollisionResult> spareResults = new ArrayList<>();
 	private boolean sorted = true;
-	private final boolean onlyFirst;
-	private final byte intentions;
-	private final int instanceId;
+	private boolean onlyFirst;
+	private byte intentions;
+	private int instanceId;
 	
 	public CollisionResults(byte intentions, boolean searchFirst, int instanceId)
 	{
@@ -37,7 +44,31 @@ public class CollisionResults implements Iterable<CollisionResult>
 	
 	public void clear()
 	{
+		for (int i = 0; i < results.size(); i++)
+		{
+			final CollisionResult result = results.get(i);
+			if (result.isReusable())
+			{
+				result.setGeometry(null);
+				spareResults.add(result);
+			}
+		}
 		results.clear();
+		sorted = true;
+	}
+	
+	/**
+	 * Clears and reconfigures these results for another query.
+	 * @param intentions
+	 * @param searchFirst
+	 * @param instanceId
+	 */
+	public void reset(byte intentions, boolean searchFirst, int instanceId)
+	{
+		clear();
+		this.intentions = intentions;
+		onlyFirst = searchFirst;
+		this.instanceId = instanceId;
 	}
 	
 	@Override
@@ -65,6 +96,32 @@ public class CollisionResults implements Iterable<CollisionResult>
 		}
 	}
 	
+	/**
+	 * Adds a collision without allocating if a released result can be reused. The contact point is copied, the returned result is only valid until
+	 * {@link #clear()}.
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @param distance
+	 * @return added result, null if distance is NaN
+	 */
+	public CollisionResult addCollision(float x, float y, float z, float distance)
+	{
+		if (Float.isNaN(distance))
+		{
+			return null;
+		}
+		final CollisionResult result = spareResults.isEmpty() ? new CollisionResult(new Vector3f(), new Vector3f()) : spareResults.remove(spareResults.size() - 1);
+		result.getContactPoint().set(x, y, z);
+		result.setDistance(distance);
+		results.add(result);
+		if (!onlyFirst)
+		{
+			sorted = false;
+		}
+		return result;
+	}
+	
 	public int size()
 	{
 		return results.size();
@@ -27,6 +27,7 @@ import com.aionemu.gameserver.geoEngine.math.Matrix4f;
 import com.aionemu.gameserver.geoEngine.math.Ray;
 import com.aionemu.gameserver.geoEngine.math.Triangle;
 import com.aionemu.gameserver.geoEngine.math.Vector3f;
+import com.aionemu.gameserver.geoEngine.utils.TempVars;
 
 import javolution.util.FastList;
 
@@ -265,143 +266,161 @@ public final class BIHNode
 	
 	public final int intersectWhere(Ray r, Matrix4f worldMatrix, BIHTree tree, float sceneMin, float sceneMax, CollisionResults results)
 	{
-		
-		final FastList<BIHStackData> stack = FastList.newInstance();
-		
-		// float tHit = Float.POSITIVE_INFINITY;
-		final Vector3f o = r.getOrigin().clone();
-		final Vector3f d = r.getDirection().clone();
-		
-		final Matrix4f inv = worldMatrix.invert();
-		
-		inv.mult(r.getOrigin(), r.getOrigin());
-		
-		// Fixes rotation collision bug
-		inv.multNormal(r.getDirection(), r.getDirection());
-		// inv.multNormalAcross(r.getDirection(), r.getDirection());
-		
-		final float[] origins =
-		{
-			r.getOrigin().x,
-			r.getOrigin().y,
-			r.getOrigin().z
-		};
-		
-		final float[] invDirections =
-		{
-			1f / r.getDirection().x,
-			1f / r.getDirection().y,
-			1f / r.getDirection().z
-		};
-		
-		r.getDirection().normalizeLocal();
-		
-		final Vector3f v1 = new Vector3f(), v2 = new Vector3f(), v3 = new Vector3f();
-		int cols = 0;
-		
-		stack.add(new BIHStackData(this, sceneMin, sceneMax));
-		stackloop: while (stack.size() > 0)
+		final TempVars vars = TempVars.get();
+		try
 		{
+			// float tHit = Float.POSITIVE_INFINITY;
+			final Vector3f o = vars.vect1.set(r.getOrigin());
+			final Vector3f d = vars.vect2.set(r.getDirection());
 			
-			final BIHStackData data = stack.remove(stack.size() - 1);
-			BIHNode node = data.node;
-			float tMin = data.min, tMax = data.max;
+			final Matrix4f inv = worldMatrix.invert(vars.tempMat4);
 			
-			if (tMax < tMin)
-			{
-				continue;
-			}
+			inv.mult(r.getOrigin(), r.getOrigin());
 			
-			while (node.axis != 3) // while node is not a leaf
+			// Fixes rotation collision bug
+			inv.multNormal(r.getDirection(), r.getDirection());
+			// inv.multNormalAcross(r.getDirection(), r.getDirection());
+			
+			final float[] origins = vars.fWdU;
+			origins[0] = r.getOrigin().x;
+			origins[1] = r.getOrigin().y;
+			origins[2] = r.getOrigin().z;
+			
+			final float[] invDirections = vars.fWdU2;
+			invDirections[0] = 1f / r.getDirection().x;
+			invDirections[1] = 1f / r.getDirection().y;
+			invDirections[2] = 1f / r.getDirection().z;
+			
+			r.getDirection().normalizeLocal();
+			
+			final Vector3f v1 = vars.vect3, v2 = vars.vect4, v3 = vars.vect5;
+			final Vector3f contactPoint = vars.vect6;
+			final Ray worldRay = vars.ray2;
+			worldRay.getOrigin().set(o);
+			worldRay.getDirection().set(d);
+			worldRay.setLimit(Float.POSITIVE_INFINITY);
+			int cols = 0;
+			
+			int stackSize = 0;
+			vars.bihNodes[stackSize] = this;
+			vars.bihMin[stackSize] = sceneMin;
+			vars.bihMax[stackSize++] = sceneMax;
+			stackloop: while (stackSize > 0)
 			{
-				final int a = node.axis;
-				
-				// find the origin and direction value for the given axis
-				final float origin = origins[a];
-				final float invDirection = invDirections[a];
-				
-				float tNearSplit, tFarSplit;
-				BIHNode nearNode, farNode;
-				
-				tNearSplit = (node.leftPlane - origin) * invDirection;
-				tFarSplit = (node.rightPlane - origin) * invDirection;
-				nearNode = node.left;
-				farNode = node.right;
-				
-				if (invDirection < 0)
-				{
-					final float tmpSplit = tNearSplit;
-					tNearSplit = tFarSplit;
-					tFarSplit = tmpSplit;
-					
-					final BIHNode tmpNode = nearNode;
-					nearNode = farNode;
-					farNode = tmpNode;
-				}
+				stackSize--;
+				BIHNode node = vars.bihNodes[stackSize];
+				float tMin = vars.bihMin[stackSize], tMax = vars.bihMax[stackSize];
+				vars.bihNodes[stackSize] = null;
 				
-				if ((tMin > tNearSplit) && (tMax < tFarSplit))
+				if (tMax < tMin)
 				{
-					continue stackloop;
+					continue;
 				}
 				
-				if (tMin > tNearSplit)
+				while (node.axis != 3) // while node is not a leaf
 				{
-					tMin = max(tMin, tFarSplit);
-					node = farNode;
-				}
-				else if (tMax < tFarSplit)
-				{
-					tMax = min(tMax, tNearSplit);
-					node = nearNode;
-				}
-				else
-				{
-					stack.add(new BIHStackData(farNode, max(tMin, tFarSplit), tMax));
-					tMax = min(tMax, tNearSplit);
-					node = nearNode;
-				}
-			}
-			
-			// a leaf
-			for (int i = node.leftIndex; i <= node.rightIndex; i++)
-			{
-				tree.getTriangle(i, v1, v2, v3);
-				
-				float t = r.intersects(v1, v2, v3);
-				if (!Float.isInfinite(t))
-				{
-					if (worldMatrix != null)
+					final int a = node.axis;
+					
+					// find the origin and direction value for the given axis
+					final float origin = origins[a];
+					final float invDirection = invDirections[a];
+					
+					float tNearSplit, tFarSplit;
+					BIHNode nearNode, farNode;
+					
+					tNearSplit = (node.leftPlane - origin) * invDirection;
+					tFarSplit = (node.rightPlane - origin) * invDirection;
+					nearNode = node.left;
+					farNode = node.right;
+					
+					if (invDirection < 0)
+					{
+						final float tmpSplit = tNearSplit;
+						tNearSplit = tFarSplit;
+						tFarSplit = tmpSplit;
+						
+						final BIHNode tmpNode = nearNode;
+						nearNode = farNode;
+						farNode = tmpNode;
+					}
+					
+					if ((tMin > tNearSplit) && (tMax < tFarSplit))
 					{
-						worldMatrix.mult(v1, v1);
-						worldMatrix.mult(v2, v2);
-						worldMatrix.mult(v3, v3);
-						final float t_world = new Ray(o, d).intersects(v1, v2, v3);
-						t = t_world;
+						continue stackloop;
 					}
 					
-					final Vector3f contactNormal = Triangle.computeTriangleNormal(v1, v2, v3, null);
-					final Vector3f contactPoint = new Vector3f(d).multLocal(t).addLocal(o);
-					final float worldSpaceDist = o.distance(contactPoint);
-					// fix invisible walls
-					if (worldSpaceDist > r.limit)
+					if (tMin > tNearSplit)
 					{
-						continue;
+						tMin = max(tMin, tFarSplit);
+						node = farNode;
 					}
-					final CollisionResult cr = new CollisionResult(contactPoint, worldSpaceDist);
-					cr.setContactNormal(contactNormal);
-					results.addCollision(cr);
-					if (results.isOnlyFirst())
+					else if (tMax < tFarSplit)
 					{
-						return 1;
+						tMax = min(tMax, tNearSplit);
+						node = nearNode;
+					}
+					else
+					{
+						vars.ensureBihStack(stackSize + 1);
+						vars.bihNodes[stackSize] = farNode;
+						vars.bihMin[stackSize] = max(tMin, tFarSplit);
+						vars.bihMax[stackSize++] = tMax;
+						tMax = min(tMax, tNearSplit);
+						node = nearNode;
+					}
+				}
+				
+				// a leaf
+				for (int i = node.leftIndex; i <= node.rightIndex; i++)
+				{
+					tree.getTriangle(i, v1, v2, v3);
+					
+					float t = r.intersects(v1, v2, v3);
+					if (!Float.isInfinite(t))
+					{
+						if (worldMatrix != null)
+						{
+							worldMatrix.mult(v1, v1);
+							worldMatrix.mult(v2, v2);
+							worldMatrix.mult(v3, v3);
+							final float t_world = worldRay.intersects(v1, v2, v3);
+							t = t_world;
+						}
+						
+						contactPoint.set(d).multLocal(t).addLocal(o);
+						final float worldSpaceDist = o.distance(contactPoint);
+						// fix invisible walls
+						if (worldSpaceDist > r.limit)
+						{
+							continue;
+						}
+						final CollisionResult cr = results.addCollision(contactPoint.x, contactPoint.y, contactPoint.z, worldSpaceDist);
+						if (cr != null)
+						{
+							Triangle.computeTriangleNormal(v1, v2, v3, cr.getContactNormal());
+						}
+						if (results.isOnlyFirst())
+						{
+							r.getOrigin().set(o);
+							r.getDirection().set(d);
+							while (stackSize > 0)
+							{
+								vars.bihNodes[--stackSize] = null;
+							}
+							return 1;
+						}
+						cols++;
 					}
-					cols++;
 				}
 			}
+			
+			r.getOrigin().set(o);
+			r.getDirection().set(d);
+			return cols;
+		}
+		finally
+		{
+			vars.release();
 		}
-		
-		r.setOrigin(o);
-		r.setDirection(d);
-		FastList.recycle(stack);
-		return cols;
 	}
 }
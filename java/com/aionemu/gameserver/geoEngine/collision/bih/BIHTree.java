@@ -33,6 +33,7 @@ import com.aionemu.gameserver.geoEngine.scene.CollisionData;
 import com.aionemu.gameserver.geoEngine.scene.Mesh;
 import com.aionemu.gameserver.geoEngine.scene.VertexBuffer.Type;
 import com.aionemu.gameserver.geoEngine.scene.mesh.IndexBuffer;
+import com.aionemu.gameserver.geoEngine.utils.TempVars;
 
 public class BIHTree implements CollisionData
 {
@@ -407,37 +408,56 @@ public class BIHTree implements CollisionData
 	
 	private int collideWithRay(Ray r, Matrix4f worldMatrix, BoundingVolume worldBound, CollisionResults results)
 	{
-		
-		final CollisionResults boundResults = new CollisionResults(results.getIntentions(), results.isOnlyFirst(), results.getInstanceId());
-		worldBound.collideWith(r, boundResults);
-		if (boundResults.size() > 0)
+		if (!(worldBound instanceof BoundingBox))
 		{
-			float tMin = boundResults.getClosestCollision().getDistance();
-			float tMax = boundResults.getFarthestCollision().getDistance();
-			
-			if (tMax <= 0)
-			{
-				tMax = Float.POSITIVE_INFINITY;
-			}
-			else if (tMin == tMax)
+			final CollisionResults boundResults = new CollisionResults(results.getIntentions(), results.isOnlyFirst(), results.getInstanceId());
+			worldBound.collideWith(r, boundResults);
+			if (boundResults.size() == 0)
 			{
-				tMin = 0;
+				return 0;
 			}
-			
-			if (tMin <= 0)
-			{
-				tMin = 0;
-			}
-			
-			if (r.getLimit() < Float.POSITIVE_INFINITY)
-			{
-				tMax = Math.min(tMax, r.getLimit());
-			}
-			
-			// return root.intersectBrute(r, worldMatrix, this, tMin, tMax, results);
-			return root.intersectWhere(r, worldMatrix, this, tMin, tMax, results);
+			return collideWithRay(r, worldMatrix, boundResults.getClosestCollision().getDistance(), boundResults.getFarthestCollision().getDistance(), results);
 		}
-		return 0;
+		
+		final TempVars vars = TempVars.get();
+		final float[] t = vars.bounds;
+		final int hits = ((BoundingBox) worldBound).clipRay(r, t);
+		final float closest = t[0];
+		final float farthest = hits == 2 ? t[1] : t[0];
+		vars.release();
+		if ((hits == 0) || Float.isNaN(closest) || Float.isNaN(farthest))
+		{
+			return 0;
+		}
+		return collideWithRay(r, worldMatrix, closest, farthest, results);
+	}
+	
+	private int collideWithRay(Ray r, Matrix4f worldMatrix, float closest, float farthest, CollisionResults results)
+	{
+		float tMin = closest;
+		float tMax = farthest;
+		
+		if (tMax <= 0)
+		{
+			tMax = Float.POSITIVE_INFINITY;
+		}
+		else if (tMin == tMax)
+		{
+			tMin = 0;
+		}
+		
+		if (tMin <= 0)
+		{
+			tMin = 0;
+		}
+		
+		if (r.getLimit() < Float.POSITIVE_INFINITY)
+		{
+			tMax = Math.min(tMax, r.getLimit());
+		}
+		
+		// return root.intersectBrute(r, worldMatrix, this, tMin, tMax, results);
+		return root.intersectWhere(r, worldMatrix, this, tMin, tMax, results);
 	}
 	
 	private int collideWithBoundingVolume(BoundingVolume bv, Matrix4f worldMatrix, CollisionResults results)
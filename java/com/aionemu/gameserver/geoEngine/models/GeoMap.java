@@ -16,7 +16,9 @@
  */
 package com.aionemu.gameserver.geoEngine.models;
 
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -24,15 +26,15 @@ import java.util.Map.Entry;
 
 import com.aionemu.gameserver.configs.main.GeoDataConfig;
 import com.aionemu.gameserver.geoEngine.bounding.BoundingBox;
+import com.aionemu.gameserver.geoEngine.bounding.BoundingVolume;
 import com.aionemu.gameserver.geoEngine.collision.CollisionIntention;
-import com.aionemu.gameserver.geoEngine.collision.CollisionResult;
 import com.aionemu.gameserver.geoEngine.collision.CollisionResults;
 import com.aionemu.gameserver.geoEngine.math.Ray;
-import com.aionemu.gameserver.geoEngine.math.Triangle;
 import com.aionemu.gameserver.geoEngine.math.Vector3f;
 import com.aionemu.gameserver.geoEngine.scene.Node;
 import com.aionemu.gameserver.geoEngine.scene.Spatial;
 import com.aionemu.gameserver.geoEngine.scene.mesh.DoorGeometry;
+import com.aionemu.gameserver.geoEngine.utils.TempVars;
 
 import javolution.util.FastMap;
 
@@ -41,9 +43,14 @@ import javolution.util.FastMap;
  */
 public class GeoMap extends Node
 {
-	private short[] terrainData;
+	/**
+	 * Terrain heights * 32, either a single height for the whole map or a square grid with 2m step. May be a view of the memory-mapped geo file.
+	 */
+	private ShortBuffer terrainData;
+	private int terrainSize;
 	private final List<BoundingBox> tmpBox = new ArrayList<>();
 	private final Map<String, DoorGeometry> doors = new FastMap<>();
+	private HeightFieldCache heightCache;
 	
 	/**
 	 * @param name
@@ -141,74 +148,205 @@ public class GeoMap extends Node
 	/**
 	 * @param terrainData The terrainData to set.
 	 */
-	public void setTerrainData(short[] terrainData)
+	public void setTerrainData(ShortBuffer terrainData)
 	{
 		this.terrainData = terrainData;
+		terrainSize = (int) Math.sqrt(terrainData.limit());
 	}
 	
 	public float getZ(float x, float y)
 	{
-		final CollisionResults results = new CollisionResults(CollisionIntention.PHYSICAL.getId(), false, 1);
-		final Vector3f pos = new Vector3f(x, y, 4000);
-		final Vector3f dir = new Vector3f(x, y, 0);
-		final Float limit = pos.distance(dir);
-		dir.subtractLocal(pos).normalizeLocal();
-		final Ray r = new Ray(pos, dir);
-		r.setLimit(limit);
-		collideWith(r, results);
-		Vector3f terrain = null;
-		if (terrainData.length == 1)
+		final TempVars vars = TempVars.get();
+		try
 		{
-			terrain = new Vector3f(x, y, terrainData[0] / 32f);
+			final CollisionResults results = vars.collisionResults;
+			results.reset(CollisionIntention.PHYSICAL.getId(), false, 1);
+			final Ray r = aimRay(vars.ray, x, y, 4000, x, y, 0);
+			collideWith(r, results);
+			final Vector3f terrain = vars.vect1;
+			boolean hasTerrain;
+			if (terrainData.limit() == 1)
+			{
+				terrain.set(x, y, terrainData.get(0) / 32f);
+				hasTerrain = true;
+			}
+			else
+			{
+				hasTerrain = terraionCollision(x, y, r, terrain, vars);
+			}
+			if (hasTerrain)
+			{
+				results.addCollision(terrain.x, terrain.y, terrain.z, Math.max(0, Math.max(4000 - terrain.z, terrain.z)));
+			}
+			if (results.size() == 0)
+			{
+				return 0;
+			}
+			return results.getClosestCollision().getContactPoint().z;
 		}
-		else
+		finally
 		{
-			terrain = terraionCollision(x, y, r);
+			vars.release();
 		}
-		if (terrain != null)
+	}
+	
+	/**
+	 * @param heightCache cache answering {@link #getZ(float, float, float, int)}, null to always ray cast
+	 */
+	public void setHeightCache(HeightFieldCache heightCache)
+	{
+		this.heightCache = heightCache;
+	}
+	
+	public HeightFieldCache getHeightCache()
+	{
+		return heightCache;
+	}
+	
+	public float getZ(float x, float y, float z, int instanceId)
+	{
+		final HeightFieldCache cache = heightCache;
+		if (cache != null)
 		{
-			final CollisionResult result = new CollisionResult(terrain, Math.max(0, Math.max(4000 - terrain.z, terrain.z)));
-			results.addCollision(result);
+			return cache.getZ(x, y, z, instanceId);
 		}
-		if (results.size() == 0)
+		return castZ(x, y, z, instanceId);
+	}
+	
+	/**
+	 * Ray cast behind {@link #getZ(float, float, float, int)}: highest surface from z + 2 down to z - 100, terrain counts at any depth.
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @param instanceId
+	 * @return z of the surface, z itself if there is none
+	 */
+	float castZ(float x, float y, float z, int instanceId)
+	{
+		final TempVars vars = TempVars.get();
+		try
 		{
-			return 0;
+			final CollisionResults results = vars.collisionResults;
+			results.reset(CollisionIntention.PHYSICAL.getId(), false, instanceId);
+			final Ray r = aimRay(vars.ray, x, y, z + 2, x, y, z - 100);
+			collideWith(r, results);
+			final Vector3f terrain = vars.vect1;
+			boolean hasTerrain = false;
+			if (terrainData.limit() == 1)
+			{
+				if (terrainData.get(0) != 0)
+				{
+					terrain.set(x, y, terrainData.get(0) / 32f);
+					hasTerrain = true;
+				}
+			}
+			else
+			{
+				hasTerrain = terraionCollision(x, y, r, terrain, vars);
+			}
+			if (hasTerrain && (terrain.z > 0) && (terrain.z < (z + 2)))
+			{
+				results.addCollision(terrain.x, terrain.y, terrain.z, Math.abs((z - terrain.z) + 2));
+			}
+			if (results.size() == 0)
+			{
+				return z;
+			}
+			return results.getClosestCollision().getContactPoint().z;
+		}
+		finally
+		{
+			vars.release();
 		}
-		return results.getClosestCollision().getContactPoint().z;
 	}
 	
-	public float getZ(float x, float y, float z, int instanceId)
+	/**
+	 * Collects the mesh surfaces crossed by the vertical line through (x, y), used to fill {@link HeightFieldCache}.
+	 * @param x
+	 * @param y
+	 * @param store heights, sorted highest first
+	 * @return number of heights written, -1 if store is too small
+	 */
+	int getMeshSurfaces(float x, float y, float[] store)
 	{
-		final CollisionResults results = new CollisionResults(CollisionIntention.PHYSICAL.getId(), false, instanceId);
-		final Vector3f pos = new Vector3f(x, y, z + 2);
-		final Vector3f dir = new Vector3f(x, y, z - 100);
-		final Float limit = pos.distance(dir);
-		dir.subtractLocal(pos).normalizeLocal();
-		final Ray r = new Ray(pos, dir);
-		r.setLimit(limit);
-		collideWith(r, results);
-		Vector3f terrain = null;
-		if (terrainData.length == 1)
+		final TempVars vars = TempVars.get();
+		try
 		{
-			if (terrainData[0] != 0)
+			final CollisionResults results = vars.collisionResults;
+			results.reset(CollisionIntention.PHYSICAL.getId(), false, 1);
+			collideWith(aimRay(vars.ray, x, y, 4000, x, y, -1000), results);
+			final int count = results.size();
+			if (count > store.length)
+			{
+				return -1;
+			}
+			for (int i = 0; i < count; i++)
 			{
-				terrain = new Vector3f(x, y, terrainData[0] / 32f);
+				store[i] = results.getCollisionDirect(i).getContactPoint().z;
 			}
+			Arrays.sort(store, 0, count);
+			for (int i = 0, j = count - 1; i < j; i++, j--)
+			{
+				final float tmp = store[i];
+				store[i] = store[j];
+				store[j] = tmp;
+			}
+			return count;
 		}
-		else
+		finally
+		{
+			vars.release();
+		}
+	}
+	
+	/**
+	 * @param x
+	 * @param y
+	 * @return terrain height at (x, y), NaN if there is no terrain
+	 */
+	float getTerrainZ(float x, float y)
+	{
+		if (terrainData.limit() == 1)
 		{
-			terrain = terraionCollision(x, y, r);
+			return terrainData.get(0) != 0 ? terrainData.get(0) / 32f : Float.NaN;
 		}
-		if ((terrain != null) && (terrain.z > 0) && (terrain.z < (z + 2)))
+		final TempVars vars = TempVars.get();
+		try
 		{
-			final CollisionResult result = new CollisionResult(terrain, Math.abs((z - terrain.z) + 2));
-			results.addCollision(result);
+			final Ray r = aimRay(vars.ray, x, y, 4000, x, y, 0);
+			final Vector3f terrain = vars.vect1;
+			return terraionCollision(x, y, r, terrain, vars) ? terrain.z : Float.NaN;
 		}
-		if (results.size() == 0)
+		finally
+		{
+			vars.release();
+		}
+	}
+	
+	/**
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @return true if a door may cross the rectangle, its collision depends on the instance
+	 */
+	boolean hasDoor(float minX, float minY, float maxX, float maxY)
+	{
+		for (DoorGeometry door : doors.values())
 		{
-			return z;
+			final BoundingVolume bound = door.getWorldBound();
+			if (!(bound instanceof BoundingBox))
+			{
+				return true;
+			}
+			final BoundingBox box = (BoundingBox) bound;
+			final Vector3f center = box.getCenter();
+			if (((center.x + box.getXExtent()) >= minX) && ((center.x - box.getXExtent()) <= maxX) && ((center.y + box.getYExtent()) >= minY) && ((center.y - box.getYExtent()) <= maxY))
+			{
+				return true;
+			}
 		}
-		return results.getClosestCollision().getContactPoint().z;
+		return false;
 	}
 	
 	public Vector3f getClosestCollision(float x, float y, float z, float targetX, float targetY, float targetZ, boolean changeDirection, boolean fly, int instanceId, byte intentions)
@@ -224,75 +362,79 @@ public class GeoMap extends Node
 		targetZ += 1f;
 		final Vector3f start = new Vector3f(x, y, z);
 		final Vector3f end = new Vector3f(targetX, targetY, targetZ);
-		final Vector3f pos = new Vector3f(x, y, z);
-		final Vector3f dir = new Vector3f(targetX, targetY, targetZ);
-		
-		final CollisionResults results = new CollisionResults(intentions, false, instanceId);
 		
-		final Float limit = pos.distance(dir);
-		dir.subtractLocal(pos).normalizeLocal();
-		final Ray r = new Ray(pos, dir);
-		r.setLimit(limit);
-		final Vector3f terrain = calculateTerrainCollision(start.x, start.y, start.z, end.x, end.y, end.z, r);
-		if (terrain != null)
+		final TempVars vars = TempVars.get();
+		try
 		{
-			final CollisionResult result = new CollisionResult(terrain, terrain.distance(pos));
-			results.addCollision(result);
-		}
-		
-		collideWith(r, results);
-		
-		float geoZ = 0;
-		if (results.size() == 0)
-		{
-			if (fly)
+			final CollisionResults results = vars.collisionResults;
+			results.reset(intentions, false, instanceId);
+			
+			final Ray r = aimRay(vars.ray, x, y, z, targetX, targetY, targetZ);
+			final Vector3f pos = r.getOrigin();
+			final Vector3f dir = r.getDirection();
+			final Vector3f terrain = vars.vect1;
+			if (calculateTerrainCollision(start.x, start.y, start.z, end.x, end.y, end.z, r, terrain, vars))
 			{
-				return end;
+				results.addCollision(terrain.x, terrain.y, terrain.z, terrain.distance(pos));
 			}
-			if ((zChecked1 > 0) && (targetX == x) && (targetY == y) && ((targetZ - 1f) == zChecked1))
-			{
-				geoZ = z - 1f;
-			}
-			else
+			
+			collideWith(r, results);
+			
+			float geoZ = 0;
+			if (results.size() == 0)
 			{
-				zChecked2 = targetZ;
-				geoZ = getZ(targetX, targetY, targetZ + 2, instanceId);
-			}
-			if (Math.abs(geoZ - targetZ) < start.distance(end))
-			{
-				return end.setZ(geoZ);
+				if (fly)
+				{
+					return end;
+				}
+				if ((zChecked1 > 0) && (targetX == x) && (targetY == y) && ((targetZ - 1f) == zChecked1))
+				{
+					geoZ = z - 1f;
+				}
+				else
+				{
+					zChecked2 = targetZ;
+					geoZ = getZ(targetX, targetY, targetZ + 2, instanceId);
+				}
+				if (Math.abs(geoZ - targetZ) < start.distance(end))
+				{
+					return end.setZ(geoZ);
+				}
+				return start;
 			}
-			return start;
-		}
-		Vector3f contactPoint = results.getClosestCollision().getContactPoint();
-		final float distance = results.getClosestCollision().getDistance();
-		if (distance < 1)
-		{
-			return start;
-		}
-		// -1m
-		contactPoint = contactPoint.subtract(dir);
-		if (!fly && changeDirection)
-		{
-			if ((zChecked1 > 0) && (contactPoint.x == x) && (contactPoint.y == y) && (contactPoint.z == zChecked1))
+			final float distance = results.getClosestCollision().getDistance();
+			if (distance < 1)
 			{
-				contactPoint.z = z - 1f;
+				return start;
 			}
-			else if ((zChecked2 > 0) && (contactPoint.x == targetX) && (contactPoint.y == targetY) && (contactPoint.z == zChecked2))
+			// -1m
+			final Vector3f contactPoint = results.getClosestCollision().getContactPoint().subtract(dir);
+			if (!fly && changeDirection)
 			{
-				contactPoint.z = geoZ;
+				if ((zChecked1 > 0) && (contactPoint.x == x) && (contactPoint.y == y) && (contactPoint.z == zChecked1))
+				{
+					contactPoint.z = z - 1f;
+				}
+				else if ((zChecked2 > 0) && (contactPoint.x == targetX) && (contactPoint.y == targetY) && (contactPoint.z == zChecked2))
+				{
+					contactPoint.z = geoZ;
+				}
+				else
+				{
+					contactPoint.z = getZ(contactPoint.x, contactPoint.y, contactPoint.z + 2, instanceId);
+				}
 			}
-			else
+			if (!fly && (Math.abs(start.z - contactPoint.z) > distance))
 			{
-				contactPoint.z = getZ(contactPoint.x, contactPoint.y, contactPoint.z + 2, instanceId);
+				return start;
 			}
+			
+			return contactPoint;
 		}
-		if (!fly && (Math.abs(start.z - contactPoint.z) > distance))
+		finally
 		{
-			return start;
+			vars.release();
 		}
-		
-		return contactPoint;
 	}
 	
 	public CollisionResults getCollisions(float x, float y, float z, float targetX, float targetY, float targetZ, boolean changeDirection, boolean fly, int instanceId, byte intentions)
@@ -303,26 +445,47 @@ public class GeoMap extends Node
 		}
 		z += 1f;
 		targetZ += 1f;
-		final Vector3f start = new Vector3f(x, y, z);
-		final Vector3f end = new Vector3f(targetX, targetY, targetZ);
-		final Vector3f pos = new Vector3f(x, y, z);
-		final Vector3f dir = new Vector3f(targetX, targetY, targetZ);
 		
 		final CollisionResults results = new CollisionResults(intentions, false, instanceId);
 		
-		final Float limit = pos.distance(dir);
-		dir.subtractLocal(pos).normalizeLocal();
-		final Ray r = new Ray(pos, dir);
-		r.setLimit(limit);
-		final Vector3f terrain = calculateTerrainCollision(start.x, start.y, start.z, end.x, end.y, end.z, r);
-		if (terrain != null)
+		final TempVars vars = TempVars.get();
+		try
+		{
+			final Ray r = aimRay(vars.ray, x, y, z, targetX, targetY, targetZ);
+			final Vector3f terrain = vars.vect1;
+			if (calculateTerrainCollision(x, y, z, targetX, targetY, targetZ, r, terrain, vars))
+			{
+				results.addCollision(terrain.x, terrain.y, terrain.z, terrain.distance(r.getOrigin()));
+			}
+			
+			collideWith(r, results);
+			return results;
+		}
+		finally
 		{
-			final CollisionResult result = new CollisionResult(terrain, terrain.distance(pos));
-			results.addCollision(result);
+			vars.release();
 		}
-		
-		collideWith(r, results);
-		return results;
+	}
+	
+	/**
+	 * Points ray from (x, y, z) to target, limited to the distance between them.
+	 * @param r
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @param targetX
+	 * @param targetY
+	 * @param targetZ
+	 * @return r
+	 */
+	private static Ray aimRay(Ray r, float x, float y, float z, float targetX, float targetY, float targetZ)
+	{
+		final Vector3f pos = r.getOrigin().set(x, y, z);
+		final Vector3f dir = r.getDirection().set(targetX, targetY, targetZ);
+		final float limit = pos.distance(dir);
+		dir.subtractLocal(pos).normalizeLocal();
+		r.setLimit(limit);
+		return r;
 	}
 	
 	/**
@@ -333,9 +496,11 @@ public class GeoMap extends Node
 	 * @param targetY
 	 * @param targetZ
 	 * @param ray
-	 * @return
+	 * @param result storage for the collision point
+	 * @param vars
+	 * @return true if terrain collides
 	 */
-	private Vector3f calculateTerrainCollision(float x, float y, float z, float targetX, float targetY, float targetZ, Ray ray)
+	private boolean calculateTerrainCollision(float x, float y, float z, float targetX, float targetY, float targetZ, Ray ray, Vector3f result, TempVars vars)
 	{
 		
 		final float x2 = targetX - x;
@@ -346,16 +511,23 @@ public class GeoMap extends Node
 		{
 			final float tempX = x + ((x2 * s) / ray.getLimit());
 			final float tempY = y + ((y2 * s) / ray.getLimit());
-			final Vector3f result = terraionCollision(tempX, tempY, ray);
-			if (result != null)
+			if (terraionCollision(tempX, tempY, ray, result, vars))
 			{
-				return result;
+				return true;
 			}
 		}
-		return null;
+		return false;
 	}
 	
-	private Vector3f terraionCollision(float x, float y, Ray ray)
+	/**
+	 * @param x
+	 * @param y
+	 * @param ray
+	 * @param result storage for the collision point
+	 * @param vars scratch vectors of the current query
+	 * @return true if the terrain cell of (x, y) collides with ray
+	 */
+	private boolean terraionCollision(float x, float y, Ray ray, Vector3f result, TempVars vars)
 	{
 		y /= 2f;
 		x /= 2f;
@@ -366,43 +538,45 @@ public class GeoMap extends Node
 		// || ||
 		// p3-----p4
 		float p1, p2, p3, p4;
-		if (terrainData.length == 1)
+		if (terrainData.limit() == 1)
 		{
-			p1 = p2 = p3 = p4 = terrainData[0] / 32f;
+			p1 = p2 = p3 = p4 = terrainData.get(0) / 32f;
 		}
 		else
 		{
-			final int size = (int) Math.sqrt(terrainData.length);
-			try
-			{
-				p1 = terrainData[(yInt + (xInt * size))] / 32f;
-				p2 = terrainData[((yInt + 1) + (xInt * size))] / 32f;
-				p3 = terrainData[((yInt) + ((xInt + 1) * size))] / 32f;
-				p4 = terrainData[((yInt + 1) + ((xInt + 1) * size))] / 32f;
-			}
-			catch (Exception e)
+			final int size = terrainSize;
+			final int index = yInt + (xInt * size);
+			if ((xInt < 0) || (yInt < 0) || (index < 0) || ((index + size + 1) >= terrainData.limit()))
 			{
-				return null;
+				return false;
 			}
+			p1 = terrainData.get(index) / 32f;
+			p2 = terrainData.get(index + 1) / 32f;
+			p3 = terrainData.get(index + size) / 32f;
+			p4 = terrainData.get(index + size + 1) / 32f;
 		}
-		final Vector3f result = new Vector3f();
+		final Vector3f v1 = vars.vect6, v2 = vars.vect7, v3 = vars.vect8;
 		if ((p1 >= 0) && (p2 >= 0) && (p3 >= 0))
 		{
-			final Triangle tringle1 = new Triangle(new Vector3f(xInt * 2, yInt * 2, p1), new Vector3f(xInt * 2, (yInt + 1) * 2, p2), new Vector3f((xInt + 1) * 2, yInt * 2, p3));
-			if (ray.intersectWhere(tringle1, result))
+			v1.set(xInt * 2, yInt * 2, p1);
+			v2.set(xInt * 2, (yInt + 1) * 2, p2);
+			v3.set((xInt + 1) * 2, yInt * 2, p3);
+			if (ray.intersectWhere(v1, v2, v3, result))
 			{
-				return result;
+				return true;
 			}
 		}
 		if ((p4 >= 0) && (p2 >= 0) && (p3 >= 0))
 		{
-			final Triangle tringle2 = new Triangle(new Vector3f((xInt + 1) * 2, (yInt + 1) * 2, p4), new Vector3f(xInt * 2, (yInt + 1) * 2, p2), new Vector3f((xInt + 1) * 2, yInt * 2, p3));
-			if (ray.intersectWhere(tringle2, result))
+			v1.set((xInt + 1) * 2, (yInt + 1) * 2, p4);
+			v2.set(xInt * 2, (yInt + 1) * 2, p2);
+			v3.set((xInt + 1) * 2, yInt * 2, p3);
+			if (ray.intersectWhere(v1, v2, v3, result))
 			{
-				return result;
+				return true;
 			}
 		}
-		return null;
+		return false;
 	}
 	
 	public boolean canSee(float x, float y, float z, float targetX, float targetY, float targetZ, float limit, int instanceId)
@@ -422,24 +596,30 @@ public class GeoMap extends Node
 		}
 		final int intD = (int) Math.abs(distance);
 		
-		final Vector3f pos = new Vector3f(x, y, z);
-		final Vector3f dir = new Vector3f(targetX, targetY, targetZ);
-		dir.subtractLocal(pos).normalizeLocal();
-		final Ray r = new Ray(pos, dir);
-		r.setLimit(limit);
-		for (float s = 2; s < intD; s += 2)
+		final TempVars vars = TempVars.get();
+		try
 		{
-			final float tempX = targetX + ((x2 * s) / distance);
-			final float tempY = targetY + ((y2 * s) / distance);
-			final Vector3f result = terraionCollision(tempX, tempY, r);
-			if (result != null)
+			final Ray r = aimRay(vars.ray, x, y, z, targetX, targetY, targetZ);
+			r.setLimit(limit);
+			final Vector3f terrain = vars.vect1;
+			for (float s = 2; s < intD; s += 2)
 			{
-				return false;
+				final float tempX = targetX + ((x2 * s) / distance);
+				final float tempY = targetY + ((y2 * s) / distance);
+				if (terraionCollision(tempX, tempY, r, terrain, vars))
+				{
+					return false;
+				}
 			}
+			final CollisionResults results = vars.collisionResults;
+			results.reset((byte) (CollisionIntention.PHYSICAL.getId() | CollisionIntention.DOOR.getId()), false, instanceId);
+			final int collisions = collideWith(r, results);
+			return ((results.size() == 0) && (collisions == 0));
+		}
+		finally
+		{
+			vars.release();
 		}
-		final CollisionResults results = new CollisionResults((byte) (CollisionIntention.PHYSICAL.getId() | CollisionIntention.DOOR.getId()), false, instanceId);
-		final int collisions = collideWith(r, results);
-		return ((results.size() == 0) && (collisions == 0));
 	}
 	
 	/*
@@ -0,0 +1,377 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.geoEngine.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Height field answering {@link GeoMap#getZ(float, float, float, int)} without a ray cast.<br>
+ * The map is divided into square cells. A cell is filled on first use by sampling every surface (meshes and terrain) at its four corners and its center. Each surface becomes a
+ * layer, interpolated bilinearly from its corner heights, so bridges and caves keep all their floors. Queries pick the highest layer the ray cast would hit.<br>
+ * A cell is ambiguous, and always ray cast, when its corners don't see the same layers, a layer isn't flat enough to interpolate within the tolerance, or a door crosses it. A
+ * query also ray casts when a layer lies within the tolerance of the ray ends.<br>
+ * Cells live in a fixed size set-associative table, a full set evicts its least recently used cell, so memory is bounded per map.
+ */
+public class HeightFieldCache
+{
+	private static final int WAYS = 4;
+	private static final int MAX_LAYERS = 16;
+	
+	private static final byte TERRAIN = 1;
+	private static final byte MESH = 2;
+	
+	/**
+	 * Surfaces closer than this are one layer (shared triangle edges are hit twice).
+	 */
+	private static final float MERGE_DISTANCE = 0.01f;
+	
+	/**
+	 * Rough size of a cell without its layers: object, arrays and table slot.
+	 */
+	private static final int CELL_OVERHEAD = 80;
+	
+	private final GeoMap map;
+	private final float cellSize;
+	private final float tolerance;
+	private final int setMask;
+	private final AtomicReferenceArray<Cell> cells;
+	
+	private final AtomicInteger tick = new AtomicInteger();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicLong memory = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder ambiguous = new LongAdder();
+	
+	/**
+	 * @param map
+	 * @param cellSize cell side in meters
+	 * @param maxCells upper bound of cached cells, rounded up to a power of two
+	 * @param tolerance max height error of a cached answer
+	 */
+	public HeightFieldCache(GeoMap map, float cellSize, int maxCells, float tolerance)
+	{
+		this.map = map;
+		this.cellSize = cellSize;
+		this.tolerance = tolerance;
+		int sets = 1;
+		while ((sets * WAYS) < maxCells)
+		{
+			sets <<= 1;
+		}
+		setMask = sets - 1;
+		cells = new AtomicReferenceArray<>(sets * WAYS);
+	}
+	
+	/**
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @param instanceId
+	 * @return same as {@link GeoMap#getZ(float, float, float, int)}, within the tolerance
+	 */
+	public float getZ(float x, float y, float z, int instanceId)
+	{
+		final float gx = x / cellSize;
+		final float gy = y / cellSize;
+		final int cx = (int) Math.floor(gx);
+		final int cy = (int) Math.floor(gy);
+		final Cell cell = getCell(cx, cy);
+		final float[] layers = cell.layers;
+		if (layers == null)
+		{
+			ambiguous.increment();
+			return map.castZ(x, y, z, instanceId);
+		}
+		final float fx = gx - cx;
+		final float fy = gy - cy;
+		final float top = z + 2;
+		final float bottom = z - 100;
+		for (int i = 0, l = 0; i < layers.length; i += 4, l++)
+		{
+			final float h0 = layers[i] + ((layers[i + 1] - layers[i]) * fx);
+			final float h1 = layers[i + 2] + ((layers[i + 3] - layers[i + 2]) * fx);
+			final float h = h0 + ((h1 - h0) * fy);
+			if (h > (top + tolerance))
+			{
+				continue;
+			}
+			if (h >= (top - tolerance))
+			{
+				ambiguous.increment();
+				return map.castZ(x, y, z, instanceId);
+			}
+			final byte type = cell.types[l];
+			if ((type & MESH) != 0)
+			{
+				if (h >= (bottom + tolerance))
+				{
+					return h;
+				}
+				if (h > (bottom - tolerance))
+				{
+					ambiguous.increment();
+					return map.castZ(x, y, z, instanceId);
+				}
+			}
+			if ((type & TERRAIN) != 0)
+			{
+				if (h > tolerance)
+				{
+					return h;
+				}
+				if (h > -tolerance)
+				{
+					ambiguous.increment();
+					return map.castZ(x, y, z, instanceId);
+				}
+			}
+		}
+		return z;
+	}
+	
+	private Cell getCell(int cx, int cy)
+	{
+		final int set = (((cx * 0x9E3779B1) ^ (cy * 0x85EBCA77)) >>> 7) & setMask;
+		final int first = set * WAYS;
+		int victim = first;
+		int victimUse = Integer.MAX_VALUE;
+		for (int i = first; i < (first + WAYS); i++)
+		{
+			final Cell cell = cells.get(i);
+			if (cell == null)
+			{
+				victim = i;
+				victimUse = Integer.MIN_VALUE;
+				continue;
+			}
+			if ((cell.x == cx) && (cell.y == cy))
+			{
+				hits.increment();
+				cell.lastUse = tick.get();
+				return cell;
+			}
+			if (cell.lastUse < victimUse)
+			{
+				victim = i;
+				victimUse = cell.lastUse;
+			}
+		}
+		misses.increment();
+		final Cell cell = build(cx, cy);
+		cell.lastUse = tick.incrementAndGet();
+		// racing builders of one set may drop each other's cells, that only costs another build
+		final Cell old = cells.getAndSet(victim, cell);
+		if (old == null)
+		{
+			size.incrementAndGet();
+		}
+		else
+		{
+			memory.addAndGet(-old.getMemory());
+		}
+		memory.addAndGet(cell.getMemory());
+		return cell;
+	}
+	
+	private Cell build(int cx, int cy)
+	{
+		final float x0 = cx * cellSize;
+		final float y0 = cy * cellSize;
+		final float x1 = x0 + cellSize;
+		final float y1 = y0 + cellSize;
+		if (map.hasDoor(x0, y0, x1, y1))
+		{
+			return new Cell(cx, cy, null, null);
+		}
+		final Column c00 = sample(x0, y0);
+		final Column c10 = sample(x1, y0);
+		final Column c01 = sample(x0, y1);
+		final Column c11 = sample(x1, y1);
+		final Column center = sample(x0 + (cellSize / 2), y0 + (cellSize / 2));
+		final int count = c00.count;
+		if ((count < 0) || (c10.count != count) || (c01.count != count) || (c11.count != count) || (center.count != count))
+		{
+			return new Cell(cx, cy, null, null);
+		}
+		final float[] layers = new float[count * 4];
+		final byte[] types = new byte[count];
+		for (int l = 0; l < count; l++)
+		{
+			final byte type = c00.types[l];
+			if ((c10.types[l] != type) || (c01.types[l] != type) || (c11.types[l] != type) || (center.types[l] != type))
+			{
+				return new Cell(cx, cy, null, null);
+			}
+			final float h00 = c00.heights[l];
+			final float h10 = c10.heights[l];
+			final float h01 = c01.heights[l];
+			final float h11 = c11.heights[l];
+			// a planar or two-triangle surface is interpolated within a quarter of its twist, the center sample catches creases and bumps
+			if ((Math.abs((h00 + h11) - h10 - h01) > (4 * tolerance)) || (Math.abs((((h00 + h10 + h01 + h11) / 4) - center.heights[l])) > tolerance))
+			{
+				return new Cell(cx, cy, null, null);
+			}
+			layers[l * 4] = h00;
+			layers[(l * 4) + 1] = h10;
+			layers[(l * 4) + 2] = h01;
+			layers[(l * 4) + 3] = h11;
+			types[l] = type;
+		}
+		return new Cell(cx, cy, layers, types);
+	}
+	
+	/**
+	 * @param x
+	 * @param y
+	 * @return all surfaces at (x, y), highest first
+	 */
+	private Column sample(float x, float y)
+	{
+		final Column column = new Column();
+		final float[] meshes = new float[MAX_LAYERS];
+		final int meshCount = map.getMeshSurfaces(x, y, meshes);
+		if (meshCount < 0)
+		{
+			column.count = -1;
+			return column;
+		}
+		final float terrain = map.getTerrainZ(x, y);
+		boolean terrainAdded = Float.isNaN(terrain);
+		for (int i = 0; i <= meshCount; i++)
+		{
+			if (!terrainAdded && ((i == meshCount) || (terrain > meshes[i])))
+			{
+				terrainAdded = true;
+				if ((column.count > 0) && ((column.heights[column.count - 1] - terrain) < MERGE_DISTANCE))
+				{
+					column.types[column.count - 1] |= TERRAIN;
+				}
+				else if (!column.add(terrain, TERRAIN))
+				{
+					return column;
+				}
+			}
+			if (i == meshCount)
+			{
+				break;
+			}
+			if ((column.count > 0) && ((column.heights[column.count - 1] - meshes[i]) < MERGE_DISTANCE))
+			{
+				column.types[column.count - 1] |= MESH;
+			}
+			else if (!column.add(meshes[i], MESH))
+			{
+				return column;
+			}
+		}
+		return column;
+	}
+	
+	/**
+	 * @return number of cells the cache holds at most
+	 */
+	public int getCapacity()
+	{
+		return cells.length();
+	}
+	
+	/**
+	 * @return rough bytes held now
+	 */
+	public long getMemory()
+	{
+		return (cells.length() * 4L) + memory.get();
+	}
+	
+	/**
+	 * @return rough bytes held once every cell is cached with one surface, each further surface of a cell adds 17 bytes
+	 */
+	public long getFullMemory()
+	{
+		return cells.length() * (4L + CELL_OVERHEAD + 17);
+	}
+	
+	/**
+	 * @return cached cells, memory, hit rate and ray casts left
+	 */
+	public List<String> getStats()
+	{
+		final List<String> list = new ArrayList<>();
+		final long hitCount = hits.sum();
+		final long missCount = misses.sum();
+		final long total = hitCount + missCount;
+		list.add("Height cache of map " + map.getName() + ":");
+		list.add("\tCells: " + size.get() + "/" + cells.length() + " (" + cellSize + " m)");
+		list.add("\tMemory: ~" + (getMemory() / 1024) + " KB (~" + (getFullMemory() / 1024) + " KB when full)");
+		list.add("\tHits: " + hitCount + " Misses: " + missCount + " Hit rate: " + (total == 0 ? 0 : (hitCount * 100) / total) + "%");
+		list.add("\tRay casts on ambiguous cells: " + ambiguous.sum() + " (" + (total == 0 ? 0 : (ambiguous.sum() * 100) / total) + "% of queries)");
+		return list;
+	}
+	
+	private static final class Column
+	{
+		final float[] heights = new float[MAX_LAYERS];
+		final byte[] types = new byte[MAX_LAYERS];
+		int count;
+		
+		/**
+		 * @return false if the column has too many layers, it's marked ambiguous then
+		 */
+		boolean add(float height, byte type)
+		{
+			if (count == MAX_LAYERS)
+			{
+				count = -1;
+				return false;
+			}
+			heights[count] = height;
+			types[count++] = type;
+			return true;
+		}
+	}
+	
+	private static final class Cell
+	{
+		final int x;
+		final int y;
+		/**
+		 * Corner heights (x0y0, x1y0, x0y1, x1y1) of every layer, highest layer first. Null if the cell is ambiguous.
+		 */
+		final float[] layers;
+		final byte[] types;
+		volatile int lastUse;
+		
+		Cell(int x, int y, float[] layers, byte[] types)
+		{
+			this.x = x;
+			this.y = y;
+			this.layers = layers;
+			this.types = types;
+		}
+		
+		long getMemory()
+		{
+			return layers == null ? CELL_OVERHEAD : CELL_OVERHEAD + (layers.length * 4) + types.length;
+		}
+	}
+}
@@ -101,7 +101,10 @@ public class Geometry extends Spatial
 	@Override
 	public void updateModelBound()
 	{
-		mesh.updateBound();
+		if (mesh.getBound() == null)
+		{
+			mesh.updateBound();
+		}
 		worldBound = getModelBound().transform(cachedWorldMat, worldBound);
 	}
 	
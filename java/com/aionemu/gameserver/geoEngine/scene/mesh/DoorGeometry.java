@@ -73,7 +73,10 @@ public class DoorGeometry extends Geometry
 		// duplicate call distorts world bounds, thus do only once
 		if (worldBound == null)
 		{
-			mesh.updateBound();
+			if (mesh.getBound() == null)
+			{
+				mesh.updateBound();
+			}
 			worldBound = getModelBound().transform(cachedWorldMat, worldBound);
 		}
 	}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.geoEngine.utils;
+
+import java.util.Arrays;
+
+import com.aionemu.gameserver.geoEngine.collision.CollisionResults;
+import com.aionemu.gameserver.geoEngine.collision.bih.BIHNode;
+import com.aionemu.gameserver.geoEngine.math.Matrix4f;
+import com.aionemu.gameserver.geoEngine.math.Ray;
+import com.aionemu.gameserver.geoEngine.math.Vector3f;
+
+/**
+ * Per-thread scratch objects for geo queries, so the common queries allocate nothing.<br>
+ * Queries may nest (getZ inside getClosestCollision, the BIH traversal inside both), so every thread keeps a small stack of instances. Always pair
+ * {@link #get()} with {@link #release()} in a finally block and never let the objects escape the query.
+ */
+public final class TempVars
+{
+	/**
+	 * Deepest nesting of geo queries on one thread
+	 */
+	private static final int STACK_SIZE = 5;
+	
+	private static final ThreadLocal<TempVarsStack> varsLocal = ThreadLocal.withInitial(TempVarsStack::new);
+	
+	private static final class TempVarsStack
+	{
+		int index = 0;
+		final TempVars[] tempVars = new TempVars[STACK_SIZE];
+	}
+	
+	private boolean isUsed = false;
+	
+	public final Vector3f vect1 = new Vector3f();
+	public final Vector3f vect2 = new Vector3f();
+	public final Vector3f vect3 = new Vector3f();
+	public final Vector3f vect4 = new Vector3f();
+	public final Vector3f vect5 = new Vector3f();
+	public final Vector3f vect6 = new Vector3f();
+	public final Vector3f vect7 = new Vector3f();
+	public final Vector3f vect8 = new Vector3f();
+	
+	public final Ray ray = new Ray();
+	public final Ray ray2 = new Ray();
+	
+	public final Matrix4f tempMat4 = new Matrix4f();
+	
+	public final float[] fWdU = new float[3];
+	public final float[] fWdU2 = new float[3];
+	public final float[] bounds = new float[2];
+	
+	public final CollisionResults collisionResults = new CollisionResults((byte) 0, false, 1);
+	
+	/**
+	 * Traversal stack of {@link BIHNode#intersectWhere(Ray, Matrix4f, com.aionemu.gameserver.geoEngine.collision.bih.BIHTree, float, float, CollisionResults)}
+	 */
+	public BIHNode[] bihNodes = new BIHNode[64];
+	public float[] bihMin = new float[64];
+	public float[] bihMax = new float[64];
+	
+	private TempVars()
+	{
+	}
+	
+	/**
+	 * @return free scratch instance of the current thread
+	 * @throws IllegalStateException if queries nest deeper than {@link #STACK_SIZE}
+	 */
+	public static TempVars get()
+	{
+		final TempVarsStack stack = varsLocal.get();
+		if (stack.index == STACK_SIZE)
+		{
+			throw new IllegalStateException("Too many nested geo queries, increase TempVars.STACK_SIZE");
+		}
+		TempVars instance = stack.tempVars[stack.index];
+		if (instance == null)
+		{
+			instance = new TempVars();
+			stack.tempVars[stack.index] = instance;
+		}
+		stack.index++;
+		instance.isUsed = true;
+		return instance;
+	}
+	
+	/**
+	 * Returns this instance to the stack of its thread, it must be the last one taken.
+	 */
+	public void release()
+	{
+		if (!isUsed)
+		{
+			throw new IllegalStateException("This instance of TempVars was already released!");
+		}
+		isUsed = false;
+		final TempVarsStack stack = varsLocal.get();
+		stack.index--;
+		if (stack.tempVars[stack.index] != this)
+		{
+			throw new IllegalStateException("An instance of TempVars has not been released in a called method!");
+		}
+	}
+	
+	/**
+	 * Grows the BIH traversal stack.
+	 * @param size
+	 */
+	public void ensureBihStack(int size)
+	{
+		if (size > bihNodes.length)
+		{
+			final int newSize = Math.max(size, bihNodes.length * 2);
+			bihNodes = Arrays.copyOf(bihNodes, newSize);
+			bihMin = Arrays.copyOf(bihMin, newSize);
+			bihMax = Arrays.copyOf(bihMax, newSize);
+		}
+	}
+}
@@ -0,0 +1,368 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.model.broker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.aionemu.commons.utils.collections.ConcurrentIntObjectMap;
+import com.aionemu.gameserver.model.gameobjects.BrokerItem;
+
+/**
+ * Sorted views over the items registered on the broker of one race.<br>
+ * Every view keeps its items in sorted arrays, one per sort key, which are replaced on register, buy, cancel and expire instead of being rebuilt per request. Readers work on
+ * the array they got without locking, so a page is a slice of an already sorted array and its total count is the array length.<br>
+ * Views are kept per item id (searches and price lookups) and per category mask. Mask views are created by the first request for that mask and maintained from then on.<br>
+ * An item must be removed before its price or count changes and added back afterwards, since its position depends on them.
+ */
+public class BrokerIndex
+{
+	/**
+	 * Sort keys, indexed by sort type / 2.
+	 */
+	private static final List<Comparator<BrokerItem>> ORDERS = new ArrayList<>();
+	
+	/**
+	 * Whether a sort type walks its key backwards. Names have always been listed ascending for both name sort types.
+	 */
+	private static final boolean[] DESCENDING =
+	{
+		false,
+		false,
+		false,
+		true,
+		false,
+		true,
+		false,
+		true
+	};
+	
+	private static final int PIECE_PRICE_ORDER = 3;
+	
+	private static final BrokerItem[] EMPTY = new BrokerItem[0];
+	
+	static
+	{
+		for (int sortType = 0; sortType < DESCENDING.length; sortType += 2)
+		{
+			// unique id makes every position distinct so an item can be found again by binary search
+			ORDERS.add(BrokerItem.getComparatoryByType(sortType).thenComparingInt(BrokerItem::getItemUniqueId));
+		}
+	}
+	
+	private final ConcurrentIntObjectMap<SortedItems> itemsById = new ConcurrentIntObjectMap<>();
+	private final AtomicReferenceArray<SortedItems> itemsByMask = new AtomicReferenceArray<>(BrokerItemMask.values().length);
+	private final ConcurrentIntObjectMap<BrokerItem> items = new ConcurrentIntObjectMap<>();
+	
+	/**
+	 * @param item registered item
+	 */
+	public synchronized void add(BrokerItem item)
+	{
+		if ((item.getItem() == null) || (items.putIfAbsent(item.getItemUniqueId(), item) != null))
+		{
+			return;
+		}
+		SortedItems byId = itemsById.get(item.getItemId());
+		if (byId == null)
+		{
+			byId = new SortedItems(EMPTY);
+			itemsById.put(item.getItemId(), byId);
+		}
+		byId.add(item);
+		for (int i = 0; i < itemsByMask.length(); i++)
+		{
+			final SortedItems byMask = itemsByMask.get(i);
+			if ((byMask != null) && BrokerItemMask.values()[i].isMatches(item.getItem()))
+			{
+				byMask.add(item);
+			}
+		}
+	}
+	
+	/**
+	 * @param item indexed item, with the price and count it was added with
+	 */
+	public synchronized void remove(BrokerItem item)
+	{
+		if (items.remove(item.getItemUniqueId()) == null)
+		{
+			return;
+		}
+		final SortedItems byId = itemsById.get(item.getItemId());
+		if (byId != null)
+		{
+			byId.remove(item);
+			if (byId.size() == 0)
+			{
+				itemsById.remove(item.getItemId());
+			}
+		}
+		for (int i = 0; i < itemsByMask.length(); i++)
+		{
+			final SortedItems byMask = itemsByMask.get(i);
+			if ((byMask != null) && BrokerItemMask.values()[i].isMatches(item.getItem()))
+			{
+				byMask.remove(item);
+			}
+		}
+	}
+	
+	/**
+	 * @param mask
+	 * @param sortType
+	 * @return items matching mask in sort type order
+	 */
+	public SortedView getItemsByMask(BrokerItemMask mask, int sortType)
+	{
+		SortedItems byMask = itemsByMask.get(mask.ordinal());
+		if (byMask == null)
+		{
+			byMask = createMaskView(mask);
+		}
+		return byMask.view(sortType);
+	}
+	
+	private synchronized SortedItems createMaskView(BrokerItemMask mask)
+	{
+		SortedItems byMask = itemsByMask.get(mask.ordinal());
+		if (byMask == null)
+		{
+			final List<BrokerItem> matching = new ArrayList<>();
+			for (BrokerItem item : items.values())
+			{
+				if (mask.isMatches(item.getItem()))
+				{
+					matching.add(item);
+				}
+			}
+			byMask = new SortedItems(matching.toArray(new BrokerItem[matching.size()]));
+			itemsByMask.set(mask.ordinal(), byMask);
+		}
+		return byMask;
+	}
+	
+	/**
+	 * @param itemIds
+	 * @param mask mask items must match, null for any
+	 * @param sortType
+	 * @return items with one of the ids in sort type order
+	 */
+	public BrokerItem[] getItemsById(List<Integer> itemIds, BrokerItemMask mask, int sortType)
+	{
+		final List<BrokerItem> found = new ArrayList<>();
+		for (int itemId : itemIds)
+		{
+			final SortedItems byId = itemsById.get(itemId);
+			if (byId == null)
+			{
+				continue;
+			}
+			for (BrokerItem item : byId.sorted[0])
+			{
+				if ((mask == null) || mask.isMatches(item.getItem()))
+				{
+					found.add(item);
+				}
+			}
+		}
+		final BrokerItem[] result = found.toArray(new BrokerItem[found.size()]);
+		checkSortType(sortType);
+		if (result.length > 1)
+		{
+			Arrays.sort(result, ORDERS.get(sortType >> 1));
+			if (DESCENDING[sortType])
+			{
+				for (int i = 0, j = result.length - 1; i < j; i++, j--)
+				{
+					final BrokerItem tmp = result[i];
+					result[i] = result[j];
+					result[j] = tmp;
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @param itemId
+	 * @return items with this id ordered by piece price, lowest first
+	 */
+	public SortedView getItemsByPiecePrice(int itemId)
+	{
+		final SortedItems byId = itemsById.get(itemId);
+		return byId == null ? new SortedView(EMPTY, false, 0) : byId.view(PIECE_PRICE_ORDER * 2);
+	}
+	
+	private static void checkSortType(int sortType)
+	{
+		if ((sortType < 0) || (sortType >= DESCENDING.length))
+		{
+			throw new IllegalArgumentException("Illegal sort type for broker items");
+		}
+	}
+	
+	/**
+	 * One set of items sorted by every key. Changed only under the {@link BrokerIndex} lock, every change publishes new arrays.
+	 */
+	private static class SortedItems
+	{
+		private volatile BrokerItem[][] sorted;
+		private volatile long piecePriceSum;
+		
+		SortedItems(BrokerItem[] items)
+		{
+			final BrokerItem[][] sorted = new BrokerItem[ORDERS.size()][];
+			long sum = 0;
+			for (int i = 0; i < sorted.length; i++)
+			{
+				final BrokerItem[] copy = items.clone();
+				Arrays.sort(copy, ORDERS.get(i));
+				sorted[i] = copy;
+			}
+			for (BrokerItem item : items)
+			{
+				sum += item.getPiecePrice();
+			}
+			this.sorted = sorted;
+			piecePriceSum = sum;
+		}
+		
+		int size()
+		{
+			return sorted[0].length;
+		}
+		
+		void add(BrokerItem item)
+		{
+			final BrokerItem[][] sorted = this.sorted.clone();
+			for (int i = 0; i < sorted.length; i++)
+			{
+				final BrokerItem[] old = sorted[i];
+				final int pos = -Arrays.binarySearch(old, item, ORDERS.get(i)) - 1;
+				final BrokerItem[] copy = new BrokerItem[old.length + 1];
+				System.arraycopy(old, 0, copy, 0, pos);
+				copy[pos] = item;
+				System.arraycopy(old, pos, copy, pos + 1, old.length - pos);
+				sorted[i] = copy;
+			}
+			this.sorted = sorted;
+			piecePriceSum += item.getPiecePrice();
+		}
+		
+		void remove(BrokerItem item)
+		{
+			final BrokerItem[][] current = this.sorted;
+			// orders are total (unique id last), so an indexed item is always found by binary search
+			final int[] positions = new int[current.length];
+			for (int i = 0; i < current.length; i++)
+			{
+				final int pos = Arrays.binarySearch(current[i], item, ORDERS.get(i));
+				if ((pos < 0) || (current[i][pos] != item))
+				{
+					return;
+				}
+				positions[i] = pos;
+			}
+			final BrokerItem[][] sorted = current.clone();
+			for (int i = 0; i < sorted.length; i++)
+			{
+				final BrokerItem[] old = sorted[i];
+				final int pos = positions[i];
+				final BrokerItem[] copy = new BrokerItem[old.length - 1];
+				System.arraycopy(old, 0, copy, 0, pos);
+				System.arraycopy(old, pos + 1, copy, pos, old.length - pos - 1);
+				sorted[i] = copy;
+			}
+			this.sorted = sorted;
+			piecePriceSum -= item.getPiecePrice();
+		}
+		
+		SortedView view(int sortType)
+		{
+			checkSortType(sortType);
+			return new SortedView(sorted[sortType >> 1], DESCENDING[sortType], piecePriceSum);
+		}
+	}
+	
+	/**
+	 * Immutable snapshot of sorted items.
+	 */
+	public static class SortedView
+	{
+		private final BrokerItem[] items;
+		private final boolean descending;
+		private final long piecePriceSum;
+		
+		SortedView(BrokerItem[] items, boolean descending, long piecePriceSum)
+		{
+			this.items = items;
+			this.descending = descending;
+			this.piecePriceSum = piecePriceSum;
+		}
+		
+		public int size()
+		{
+			return items.length;
+		}
+		
+		public BrokerItem get(int index)
+		{
+			return descending ? items[items.length - 1 - index] : items[index];
+		}
+		
+		public BrokerItem getFirst()
+		{
+			return items.length == 0 ? null : get(0);
+		}
+		
+		public BrokerItem getLast()
+		{
+			return items.length == 0 ? null : get(items.length - 1);
+		}
+		
+		/**
+		 * @return sum of piece prices of all items
+		 */
+		public long getPiecePriceSum()
+		{
+			return piecePriceSum;
+		}
+		
+		/**
+		 * @param start
+		 * @param limit
+		 * @return at most limit items from start on
+		 */
+		public BrokerItem[] getPage(int start, int limit)
+		{
+			if ((start < 0) || (start >= items.length))
+			{
+				return EMPTY;
+			}
+			final BrokerItem[] page = new BrokerItem[Math.min(limit, items.length - start)];
+			for (int i = 0; i < page.length; i++)
+			{
+				page[i] = get(start + i);
+			}
+			return page;
+		}
+	}
+}
@@ -19,35 +19,16 @@ package com.aionemu.gameserver.model.broker;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.aionemu.gameserver.model.gameobjects.BrokerItem;
-
 /**
  * @author ATracer
  */
 public class BrokerPlayerCache
 {
-	private BrokerItem[] brokerListCache = new BrokerItem[0];
 	private int brokerMaskCache;
 	private int brokerSoftTypeCache;
 	private int brokerStartPageCache;
 	private List<Integer> itemList = new ArrayList<>();
 	
-	/**
-	 * @return the brokerListCache
-	 */
-	public BrokerItem[] getBrokerListCache()
-	{
-		return brokerListCache;
-	}
-	
-	/**
-	 * @param brokerListCache the brokerListCache to set
-	 */
-	public void setBrokerListCache(BrokerItem[] brokerListCache)
-	{
-		this.brokerListCache = brokerListCache;
-	}
-	
 	/**
 	 * @return the brokerMaskCache
 	 */
@@ -153,6 +153,30 @@ public interface Area
 	 */
 	float getMaxZ();
 	
+	/**
+	 * Returns minimal x of the 2D bounding box of this area
+	 * @return minimal x of this area
+	 */
+	float getMinX();
+	
+	/**
+	 * Returns maximal x of the 2D bounding box of this area
+	 * @return maximal x of this area
+	 */
+	float getMaxX();
+	
+	/**
+	 * Returns minimal y of the 2D bounding box of this area
+	 * @return minimal y of this area
+	 */
+	float getMinY();
+	
+	/**
+	 * Returns maximal y of the 2D bounding box of this area
+	 * @return maximal y of this area
+	 */
+	float getMaxY();
+	
 	boolean intersectsRectangle(RectangleArea area);
 	
 	int getWorldId();
@@ -137,6 +137,30 @@ public class CylinderArea extends AbstractArea
 		return new Point2D((float) pointX, (float) pointY);
 	}
 	
+	@Override
+	public float getMinX()
+	{
+		return centerX - radius;
+	}
+	
+	@Override
+	public float getMaxX()
+	{
+		return centerX + radius;
+	}
+	
+	@Override
+	public float getMinY()
+	{
+		return centerY - radius;
+	}
+	
+	@Override
+	public float getMaxY()
+	{
+		return centerY + radius;
+	}
+	
 	@Override
 	public boolean intersectsRectangle(RectangleArea area)
 	{
@@ -163,6 +163,42 @@ public class PolyArea extends AbstractArea
 		return closestPoint;
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public float getMinX()
+	{
+		return (float) poly.getBounds2D().getMinX();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public float getMaxX()
+	{
+		return (float) poly.getBounds2D().getMaxX();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public float getMinY()
+	{
+		return (float) poly.getBounds2D().getMinY();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public float getMaxY()
+	{
+		return (float) poly.getBounds2D().getMaxY();
+	}
+	
 	@Override
 	public boolean intersectsRectangle(RectangleArea area)
 	{
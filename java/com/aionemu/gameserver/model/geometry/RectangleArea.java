@@ -37,6 +37,7 @@ public class RectangleArea extends AbstractArea
 	/**
 	 * @return the minX
 	 */
+	@Override
 	public float getMinX()
 	{
 		return minX;
@@ -45,6 +46,7 @@ public class RectangleArea extends AbstractArea
 	/**
 	 * @return the maxX
 	 */
+	@Override
 	public float getMaxX()
 	{
 		return maxX;
@@ -53,6 +55,7 @@ public class RectangleArea extends AbstractArea
 	/**
 	 * @return the minY
 	 */
+	@Override
 	public float getMinY()
 	{
 		return minY;
@@ -61,6 +64,7 @@ public class RectangleArea extends AbstractArea
 	/**
 	 * @return the maxY
 	 */
+	@Override
 	public float getMaxY()
 	{
 		return maxY;
@@ -153,6 +153,30 @@ public class SphereArea implements Area
 		return z + r;
 	}
 	
+	@Override
+	public float getMinX()
+	{
+		return x - r;
+	}
+	
+	@Override
+	public float getMaxX()
+	{
+		return x + r;
+	}
+	
+	@Override
+	public float getMinY()
+	{
+		return y - r;
+	}
+	
+	@Override
+	public float getMaxY()
+	{
+		return y + r;
+	}
+	
 	@Override
 	public boolean intersectsRectangle(RectangleArea area)
 	{
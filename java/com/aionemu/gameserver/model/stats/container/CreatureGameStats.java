@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.slf4j.Logger;
@@ -36,7 +37,11 @@ import com.aionemu.gameserver.model.stats.calc.StatCapUtil;
 import com.aionemu.gameserver.model.stats.calc.StatOwner;
 import com.aionemu.gameserver.model.stats.calc.functions.IStatFunction;
 import com.aionemu.gameserver.model.stats.calc.functions.StatFunction;
+import com.aionemu.gameserver.model.stats.calc.functions.StatAddFunction;
 import com.aionemu.gameserver.model.stats.calc.functions.StatFunctionProxy;
+import com.aionemu.gameserver.model.stats.calc.functions.StatRateFunction;
+import com.aionemu.gameserver.model.stats.calc.functions.StatSetFunction;
+import com.aionemu.gameserver.model.stats.calc.functions.StatSubFunction;
 
 import javolution.util.FastMap;
 import javolution.util.FastMap.Entry;
@@ -56,6 +61,11 @@ public abstract class CreatureGameStats<T extends Creature>
 	protected T owner = null;
 	private Stat2 cachedHPStat;
 	private Stat2 cachedMPStat;
+	/**
+	 * Last computed values of stats which functions don't depend on anything else than stat base, created on first use.<br>
+	 * Entries are put under read lock and removed under write lock, so they can't outlive functions change.
+	 */
+	private volatile ConcurrentHashMap<StatEnum, CachedStat> cachedStats;
 	
 	protected CreatureGameStats(T owner)
 	{
@@ -115,6 +125,7 @@ public abstract class CreatureGameStats<T extends Creature>
 					func = new StatFunctionProxy(statOwner, function);
 				}
 				addFunction(function.getName(), func);
+				invalidateCachedStat(function.getName());
 			}
 		}
 		finally
@@ -143,6 +154,7 @@ public abstract class CreatureGameStats<T extends Creature>
 					if ((ownedMod.getOwner() != null) && ownedMod.getOwner().equals(statOwner))
 					{
 						iter.remove();
+						invalidateCachedStat(e.getKey());
 					}
 				}
 			}
@@ -171,25 +183,62 @@ public abstract class CreatureGameStats<T extends Creature>
 	public Stat2 getStat(StatEnum statEnum, int base)
 	{
 		final Stat2 stat = new AdditionStat(statEnum, base, owner);
-		return getStat(statEnum, stat);
+		return getNewStat(statEnum, stat, false);
 	}
 	
 	public Stat2 getStat(StatEnum statEnum, int base, float bonusRate)
 	{
 		final Stat2 stat = new AdditionStat(statEnum, base, owner, bonusRate);
-		return getStat(statEnum, stat);
+		return getNewStat(statEnum, stat, false);
 	}
 	
 	public Stat2 getReverseStat(StatEnum statEnum, int base)
 	{
 		final Stat2 stat = new ReverseStat(statEnum, base, owner);
-		return getStat(statEnum, stat);
+		return getNewStat(statEnum, stat, true);
 	}
 	
 	public Stat2 getReverseStat(StatEnum statEnum, int base, float bonusRate)
 	{
 		final Stat2 stat = new ReverseStat(statEnum, base, owner, bonusRate);
-		return getStat(statEnum, stat);
+		return getNewStat(statEnum, stat, true);
+	}
+	
+	/**
+	 * Same as {@link #getStat(StatEnum, Stat2)}, but given stat must be just created, so result may be taken from cache.
+	 * @param statEnum
+	 * @param stat
+	 * @param reverse
+	 * @return stat
+	 */
+	private Stat2 getNewStat(StatEnum statEnum, Stat2 stat, boolean reverse)
+	{
+		final ConcurrentHashMap<StatEnum, CachedStat> cache = cachedStats;
+		if (cache != null)
+		{
+			final CachedStat cached = cache.get(statEnum);
+			if ((cached != null) && cached.matches(stat, reverse))
+			{
+				stat.setBase(cached.resultBase);
+				stat.setBonus(cached.resultBonus);
+				return stat;
+			}
+		}
+		final int base = stat.getBase();
+		lock.readLock().lock();
+		try
+		{
+			final TreeSet<IStatFunction> functions = calculate(statEnum, stat);
+			if (isCacheable(functions))
+			{
+				getCachedStats().put(statEnum, new CachedStat(reverse, base, stat));
+			}
+			return stat;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
 	}
 	
 	public Stat2 getStat(StatEnum statEnum, Stat2 stat)
@@ -197,24 +246,92 @@ public abstract class CreatureGameStats<T extends Creature>
 		lock.readLock().lock();
 		try
 		{
-			final TreeSet<IStatFunction> functions = getStatsByStatEnum(statEnum);
-			if (functions == null)
+			calculate(statEnum, stat);
+			return stat;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Apply functions of statEnum to given stat. Must be called under read lock.
+	 * @param statEnum
+	 * @param stat
+	 * @return applied functions or null
+	 */
+	private TreeSet<IStatFunction> calculate(StatEnum statEnum, Stat2 stat)
+	{
+		final TreeSet<IStatFunction> functions = getStatsByStatEnum(statEnum);
+		if (functions == null)
+		{
+			return null;
+		}
+		for (IStatFunction func : functions)
+		{
+			if (func.validate(stat, func))
 			{
-				return stat;
+				func.apply(stat);
 			}
-			for (IStatFunction func : functions)
+		}
+		StatCapUtil.calculateBaseValue(stat, ((Creature) owner).isPlayer());
+		return functions;
+	}
+	
+	/**
+	 * @param functions
+	 * @return True if result of given functions depends only on stat base [no conditions, no other stats, equipment etc.]
+	 */
+	private static boolean isCacheable(TreeSet<IStatFunction> functions)
+	{
+		if (functions == null)
+		{
+			return true;
+		}
+		for (IStatFunction func : functions)
+		{
+			IStatFunction function = func;
+			if (function.getClass() == StatFunctionProxy.class)
+			{
+				function = ((StatFunctionProxy) function).getProxiedFunction();
+			}
+			final Class<?> type = function.getClass();
+			if (function.hasConditions() || ((type != StatAddFunction.class) && (type != StatRateFunction.class) && (type != StatSetFunction.class) && (type != StatSubFunction.class)))
 			{
-				if (func.validate(stat, func))
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private ConcurrentHashMap<StatEnum, CachedStat> getCachedStats()
+	{
+		ConcurrentHashMap<StatEnum, CachedStat> cache = cachedStats;
+		if (cache == null)
+		{
+			synchronized (this)
+			{
+				cache = cachedStats;
+				if (cache == null)
 				{
-					func.apply(stat);
+					cachedStats = cache = new ConcurrentHashMap<>();
 				}
 			}
-			StatCapUtil.calculateBaseValue(stat, ((Creature) owner).isPlayer());
-			return stat;
 		}
-		finally
+		return cache;
+	}
+	
+	/**
+	 * Must be called under write lock.
+	 * @param statEnum
+	 */
+	private void invalidateCachedStat(StatEnum statEnum)
+	{
+		final ConcurrentHashMap<StatEnum, CachedStat> cache = cachedStats;
+		if (cache != null)
 		{
-			lock.readLock().unlock();
+			cache.remove(statEnum);
 		}
 	}
 	
@@ -379,6 +496,11 @@ public abstract class CreatureGameStats<T extends Creature>
 	{
 	}
 	
+	/**
+	 * Must be called under read lock, returned set may be the live one.
+	 * @param stat
+	 * @return functions which should be applied to given stat
+	 */
 	public TreeSet<IStatFunction> getStatsByStatEnum(StatEnum stat)
 	{
 		final TreeSet<IStatFunction> allStats = stats.get(stat);
@@ -386,7 +508,6 @@ public abstract class CreatureGameStats<T extends Creature>
 		{
 			return null;
 		}
-		final TreeSet<IStatFunction> tmp = new TreeSet<>();
 		List<IStatFunction> setFuncs = null;
 		for (IStatFunction func : allStats)
 		{
@@ -405,13 +526,9 @@ public abstract class CreatureGameStats<T extends Creature>
 		}
 		if (setFuncs == null)
 		{
-			tmp.addAll(allStats);
-		}
-		else
-		{
-			tmp.addAll(setFuncs);
+			return allStats;
 		}
-		return tmp;
+		return new TreeSet<>(setFuncs);
 	}
 	
 	private void addFunction(StatEnum stat, IStatFunction function)
@@ -477,4 +594,30 @@ public abstract class CreatureGameStats<T extends Creature>
 			owner.getLifeStats().setCurrentMp(Math.round(owner.getLifeStats().getCurrentMp() * percent));
 		}
 	}
+	
+	/**
+	 * Result of stat calculation for given base and bonus rate.
+	 */
+	private static final class CachedStat
+	{
+		final boolean reverse;
+		final int base;
+		final float bonusRate;
+		final int resultBase;
+		final int resultBonus;
+		
+		CachedStat(boolean reverse, int base, Stat2 result)
+		{
+			this.reverse = reverse;
+			this.base = base;
+			bonusRate = result.getBonusRate();
+			resultBase = result.getBase();
+			resultBonus = result.getBonus();
+		}
+		
+		boolean matches(Stat2 stat, boolean reverse)
+		{
+			return (this.reverse == reverse) && (base == stat.getBase()) && (bonusRate == stat.getBonusRate());
+		}
+	}
 }
\ No newline at end of file
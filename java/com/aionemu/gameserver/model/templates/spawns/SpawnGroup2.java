@@ -85,6 +85,7 @@ public class SpawnGroup2 extends AbstractLockManager
 	private SpawnHandlerType handlerType;
 	private final List<SpawnTemplate> spots = new ArrayList<>();
 	private HashMap<Integer, HashMap<SpawnTemplate, Boolean>> poolUsedTemplates;
+	private volatile boolean lazySpawn;
 	
 	public SpawnGroup2(int worldId, Spawn spawn)
 	{
@@ -432,6 +433,19 @@ public class SpawnGroup2 extends AbstractLockManager
 		return temporarySpawn != null;
 	}
 	
+	/**
+	 * @return true if npcs of this group are brought into world only while their map region is active
+	 */
+	public boolean isLazySpawn()
+	{
+		return lazySpawn;
+	}
+	
+	public void setLazySpawn(boolean lazySpawn)
+	{
+		this.lazySpawn = lazySpawn;
+	}
+	
 	public SpawnHandlerType getHandlerType()
 	{
 		return handlerType;
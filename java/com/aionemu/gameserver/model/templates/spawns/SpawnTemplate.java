@@ -261,6 +261,11 @@ public class SpawnTemplate
 		return spawnGroup.isTemporarySpawn();
 	}
 	
+	public boolean isLazySpawn()
+	{
+		return spawnGroup.isLazySpawn();
+	}
+	
 	public boolean isEventSpawn()
 	{
 		return eventTemplate != null;
@@ -38,6 +38,11 @@ public abstract class AionClientPacket extends BaseClientPacket<AionConnection>
 	
 	private final Set<State> validStates;
 	
+	/**
+	 * Pool this packet is given back to after execution, null if it isn't pooled.
+	 */
+	private ClientPacketPool pool;
+	
 	/**
 	 * Constructs new client packet instance. ByBuffer and ClientConnection should be later set manually, after using this constructor.
 	 * @param opcode packet id
@@ -75,6 +80,33 @@ public abstract class AionClientPacket extends BaseClientPacket<AionConnection>
 			
 			log.error("Error handling client (" + name + ") message :" + this, e);
 		}
+		finally
+		{
+			if (pool != null)
+			{
+				setBuffer(null);
+				setConnection(null);
+				pool.release(this);
+			}
+		}
+	}
+	
+	/**
+	 * Packets returning true are reused after their execution instead of cloning the prototype for every received packet. Such packet must overwrite in {@link #readImpl()} every field
+	 * {@link #runImpl()} uses and must not be referenced once {@link #runImpl()} returned.
+	 * @return true if instances of this packet may be pooled
+	 */
+	protected boolean isPoolable()
+	{
+		return false;
+	}
+	
+	/**
+	 * @param pool pool clones of this prototype are given back to
+	 */
+	final void setPool(ClientPacketPool pool)
+	{
+		this.pool = pool;
 	}
 	
 	/**
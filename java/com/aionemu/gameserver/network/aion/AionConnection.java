@@ -16,9 +16,14 @@
  */
 package com.aionemu.gameserver.network.aion;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -26,7 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import com.aionemu.commons.network.AConnection;
 import com.aionemu.commons.network.Dispatcher;
-import com.aionemu.commons.network.PacketProcessor;
+import com.aionemu.commons.network.SerialPacketProcessor;
 import com.aionemu.commons.utils.concurrent.ExecuteWrapper;
 import com.aionemu.commons.utils.concurrent.RunnableStatsManager;
 import com.aionemu.gameserver.configs.main.GSConfig;
@@ -44,8 +49,6 @@ import com.aionemu.gameserver.services.player.PlayerLeaveWorldService;
 import com.aionemu.gameserver.utils.ThreadPoolManager;
 import com.google.common.base.Preconditions;
 
-import javolution.util.FastList;
-
 /**
  * Object representing connection between GameServer and Aion Client.
  * @author -Nemesiss-
@@ -57,7 +60,7 @@ public class AionConnection extends AConnection
 	 */
 	private static final Logger log = LoggerFactory.getLogger(AionConnection.class);
 	
-	private static final PacketProcessor<AionConnection> packetProcessor = new PacketProcessor<>(NetworkConfig.PACKET_PROCESSOR_MIN_THREADS, NetworkConfig.PACKET_PROCESSOR_MAX_THREADS, NetworkConfig.PACKET_PROCESSOR_THREAD_SPAWN_THRESHOLD, NetworkConfig.PACKET_PROCESSOR_THREAD_KILL_THRESHOLD, new ExecuteWrapper());
+	private static final SerialPacketProcessor<AionConnection> packetProcessor = new SerialPacketProcessor<>("PacketProcessor", NetworkConfig.PACKET_PROCESSOR_THREADS, NetworkConfig.PACKET_PROCESSOR_WORK_STEALING, NetworkConfig.PACKET_PROCESSOR_LAG_WARN, new ExecuteWrapper());
 	
 	private String hdd_serial;
 	private String ipv4list;
@@ -163,9 +166,29 @@ public class AionConnection extends AConnection
 	}
 	
 	/**
-	 * Server Packet "to send" Queue
+	 * Server Packet "to send" Queue [lock-free, many producers and Dispatcher thread as only consumer]
+	 */
+	private final Queue<AionServerPacket> sendMsgQueue = new ConcurrentLinkedQueue<>();
+	
+	/**
+	 * True if write interest was already requested and Dispatcher didn't drop it yet, so burst of sent packets causes only one selector wakeup.
 	 */
-	private final FastList<AionServerPacket> sendMsgQueue = new FastList<>();
+	private final AtomicBoolean writeScheduled = new AtomicBoolean();
+	
+	/**
+	 * Last packet that will be sent before closing connection, all other packets are dropped.
+	 */
+	private volatile AionServerPacket closePacket;
+	
+	/**
+	 * True if closePacket was already written. Used only by Dispatcher thread.
+	 */
+	private boolean closePacketWritten;
+	
+	/**
+	 * Packet that didn't fit into write buffer and will be written first by next writeData call. Used only by Dispatcher thread.
+	 */
+	private AionServerPacket overflowPacket;
 	
 	/**
 	 * Current state of this connection
@@ -336,31 +359,127 @@ public class AionConnection extends AConnection
 	}
 	
 	/**
-	 * This method will be called by Dispatcher, and will be repeated till return false.
+	 * This method will be called by Dispatcher, and will be repeated till return false. If packet write coalescing is enabled, as many queued packets as fit into data are written (each one encrypted on its own), so they will be sent by one socket write.
 	 * @param data
 	 * @return True if data was written to buffer, False indicating that there are not any more data to write.
 	 */
 	@Override
 	protected final boolean writeData(ByteBuffer data)
 	{
-		synchronized (guard)
+		final AionServerPacket closePacket = this.closePacket;
+		if (closePacket != null)
 		{
-			final long begin = System.nanoTime();
-			if (sendMsgQueue.isEmpty())
+			if (closePacketWritten)
 			{
 				return false;
 			}
-			final AionServerPacket packet = sendMsgQueue.removeFirst();
+			closePacketWritten = true;
+			writePacket(closePacket, data);
+			onPacketsWritten(1);
+			return true;
+		}
+		
+		int written = 0;
+		while (true)
+		{
+			if ((written > 0) && (!NetworkConfig.PACKET_WRITE_COALESCE || (data.remaining() < NetworkConfig.PACKET_WRITE_COALESCE_RESERVE)))
+			{
+				break;
+			}
+			AionServerPacket packet = overflowPacket;
+			if (packet != null)
+			{
+				overflowPacket = null;
+			}
+			else if ((packet = sendMsgQueue.poll()) == null)
+			{
+				break;
+			}
+			final ByteBuffer slice = data.slice().order(ByteOrder.LITTLE_ENDIAN);
 			try
 			{
-				packet.write(this, data);
-				return true;
+				writePacket(packet, slice);
+			}
+			catch (BufferOverflowException e)
+			{
+				if (written == 0)
+				{
+					throw e;
+				}
+				/**
+				 * Packet didn't fit behind already written ones, it will be sent alone by next call [it wasn't encrypted yet]
+				 */
+				overflowPacket = packet;
+				break;
 			}
-			finally
+			data.position(data.position() + slice.limit());
+			written++;
+		}
+		if (written == 0)
+		{
+			return false;
+		}
+		data.flip();
+		onPacketsWritten(written);
+		return true;
+	}
+	
+	/**
+	 * Write and encrypt one packet to given buffer.
+	 * @param packet
+	 * @param buffer
+	 */
+	private void writePacket(AionServerPacket packet, ByteBuffer buffer)
+	{
+		final boolean sampled = RunnableStatsManager.isSampled();
+		final long begin = sampled ? System.nanoTime() : 0;
+		try
+		{
+			packet.write(this, buffer);
+		}
+		finally
+		{
+			if (sampled)
 			{
 				RunnableStatsManager.handleStats(packet.getClass(), "runImpl()", System.nanoTime() - begin);
 			}
-			
+		}
+	}
+	
+	/**
+	 * Called by Dispatcher when all data were written. Drops write interest and checks if some packet wasn't queued meanwhile [its sender saw writeScheduled still set, so it didn't request write interest].
+	 */
+	@Override
+	protected final void disableWriteInterest()
+	{
+		super.disableWriteInterest();
+		writeScheduled.set(false);
+		if (hasPendingData())
+		{
+			scheduleWrite();
+		}
+	}
+	
+	/**
+	 * @return True if there are some packets waiting to be written.
+	 */
+	private boolean hasPendingData()
+	{
+		if (closePacket != null)
+		{
+			return !closePacketWritten;
+		}
+		return (overflowPacket != null) || !sendMsgQueue.isEmpty();
+	}
+	
+	/**
+	 * Request write interest if it's not already requested.
+	 */
+	private void scheduleWrite()
+	{
+		if (writeScheduled.compareAndSet(false, true))
+		{
+			enableWriteInterest();
 		}
 	}
 	
@@ -421,19 +540,16 @@ public class AionConnection extends AConnection
 	 */
 	public final void sendPacket(AionServerPacket bp)
 	{
-		synchronized (guard)
+		/**
+		 * Connection is already closed or waiting for last (close packet) to be sent
+		 */
+		if (isWriteDisabled())
 		{
-			/**
-			 * Connection is already closed or waiting for last (close packet) to be sent
-			 */
-			if (isWriteDisabled())
-			{
-				return;
-			}
-			
-			sendMsgQueue.addLast(bp);
-			enableWriteInterest();
+			return;
 		}
+		
+		sendMsgQueue.offer(bp);
+		scheduleWrite();
 	}
 	
 	/**
@@ -453,12 +569,20 @@ public class AionConnection extends AConnection
 			
 			pendingClose = true;
 			isForcedClosing = forced;
+			this.closePacket = closePacket;
 			sendMsgQueue.clear();
-			sendMsgQueue.addLast(closePacket);
-			enableWriteInterest();
+			scheduleWrite();
 		}
 	}
 	
+	/**
+	 * @return Packet processor executing client packets of all connections.
+	 */
+	public static SerialPacketProcessor<AionConnection> getPacketProcessor()
+	{
+		return packetProcessor;
+	}
+	
 	/**
 	 * Current state of this connection
 	 * @return state
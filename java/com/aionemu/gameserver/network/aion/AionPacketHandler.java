@@ -17,8 +17,7 @@
 package com.aionemu.gameserver.network.aion;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +39,15 @@ public class AionPacketHandler
 	 */
 	private static final Logger log = LoggerFactory.getLogger(AionPacketHandler.class);
 	
-	private final Map<Integer, AionClientPacket> packetsPrototypes = new HashMap<>();
+	/**
+	 * Packet prototypes indexed by opcode.
+	 */
+	private AionClientPacket[] packetsPrototypes = new AionClientPacket[0];
+	
+	/**
+	 * Pools of poolable packets indexed by opcode, null for packets cloned every time.
+	 */
+	private ClientPacketPool[] packetsPools = new ClientPacketPool[0];
 	
 	/**
 	 * Reads one packet from given ByteBuffer
@@ -58,23 +65,41 @@ public class AionPacketHandler
 		return getPacket(state, id, data, client);
 	}
 	
+	/**
+	 * Registers packet prototype. Not thread-safe, all prototypes are added before clients may connect.
+	 * @param packetPrototype
+	 */
 	public void addPacketPrototype(AionClientPacket packetPrototype)
 	{
-		packetsPrototypes.put(packetPrototype.getOpcode(), packetPrototype);
+		final int opcode = packetPrototype.getOpcode();
+		if (opcode >= packetsPrototypes.length)
+		{
+			packetsPrototypes = Arrays.copyOf(packetsPrototypes, opcode + 1);
+			packetsPools = Arrays.copyOf(packetsPools, opcode + 1);
+		}
+		packetsPrototypes[opcode] = packetPrototype;
+		packetsPools[opcode] = null;
+		if ((NetworkConfig.PACKET_POOL_SIZE > 0) && packetPrototype.isPoolable())
+		{
+			final ClientPacketPool pool = new ClientPacketPool(packetPrototype, NetworkConfig.PACKET_POOL_SIZE);
+			packetPrototype.setPool(pool);
+			packetsPools[opcode] = pool;
+		}
 	}
 	
 	private AionClientPacket getPacket(State state, int id, ByteBuffer buf, AionConnection con)
 	{
-		final AionClientPacket prototype = packetsPrototypes.get(id);
+		final AionClientPacket prototype = id < packetsPrototypes.length ? packetsPrototypes[id] : null;
 		if (prototype == null)
 		{
 			unknownPacket(state, id, buf);
 			return null;
 		}
-		final AionClientPacket res = prototype.clonePacket();
+		final ClientPacketPool pool = packetsPools[id];
+		final AionClientPacket res = pool != null ? pool.get() : prototype.clonePacket();
 		res.setBuffer(buf);
 		res.setConnection(con);
-		if (con.getState().equals(AionConnection.State.IN_GAME) && (con.getActivePlayer().getPlayerAccount().getAccessLevel() == 5) && NetworkConfig.DISPLAY_PACKETS)
+		if (NetworkConfig.DISPLAY_PACKETS && con.getState().equals(AionConnection.State.IN_GAME) && (con.getActivePlayer().getPlayerAccount().getAccessLevel() == 5))
 		{
 			log.info("0x" + Integer.toHexString(res.getOpcode()).toUpperCase() + " : " + res.getPacketName());
 			PacketSendUtility.sendMessage(con.getActivePlayer(), ColorChat.colorChat("0x" + Integer.toHexString(res.getOpcode()).toUpperCase() + " : " + res.getPacketName(), "1 0 5 0"));
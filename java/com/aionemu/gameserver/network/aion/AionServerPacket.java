@@ -29,6 +29,16 @@ import com.aionemu.gameserver.utils.PacketSendUtility;
  */
 public abstract class AionServerPacket extends BaseServerPacket
 {
+	/**
+	 * True if this packet body is serialized once and shared by all recipients.
+	 */
+	private volatile boolean broadcast;
+	
+	/**
+	 * Unencrypted packet data shared by all recipients of broadcasted packet.
+	 */
+	private byte[] sharedData;
+	
 	/**
 	 * Constructs new server packet
 	 */
@@ -73,15 +83,66 @@ public abstract class AionServerPacket extends BaseServerPacket
 				PacketSendUtility.sendMessage(con.getActivePlayer(), "0x" + Integer.toHexString(getOpcode()).toUpperCase() + " : " + getPacketName());
 			}
 		}
+		if (broadcast)
+		{
+			final byte[] data = getSharedData(con, buffer);
+			buffer.clear();
+			buffer.put(data);
+			buffer.flip();
+			buffer.position(2);
+		}
+		else
+		{
+			writeUnencrypted(con, buffer);
+		}
+		final ByteBuffer b = buffer.slice();
+		buffer.position(0);
+		con.encrypt(b);
+	}
+	
+	/**
+	 * Write size, opcode and body of this packet to given buffer. After return buffer position is set just after size.
+	 * @param con
+	 * @param buffer
+	 */
+	private void writeUnencrypted(AionConnection con, ByteBuffer buffer)
+	{
 		setBuf(buffer);
 		buf.putShort((short) 0);
 		writeOP(getOpcode());
 		writeImpl(con);
 		buf.flip();
 		buf.putShort((short) buf.limit());
-		final ByteBuffer b = buf.slice();
-		buf.position(0);
-		con.encrypt(b);
+	}
+	
+	/**
+	 * Serialize this packet only once [using first recipient connection and buffer] and return copy of unencrypted data that is shared by all recipients.
+	 * @param con
+	 * @param buffer
+	 * @return unencrypted packet data
+	 */
+	private synchronized byte[] getSharedData(AionConnection con, ByteBuffer buffer)
+	{
+		if (sharedData == null)
+		{
+			writeUnencrypted(con, buffer);
+			final byte[] data = new byte[buf.limit()];
+			buf.position(0);
+			buf.get(data);
+			sharedData = data;
+		}
+		return sharedData;
+	}
+	
+	/**
+	 * Marks this packet as broadcasted - it will be serialized only once and all recipients will get encrypted copy of the same data. Has no effect for {@link RecipientDependentPacket} or if it's disabled in config.
+	 */
+	public final void setBroadcast()
+	{
+		if (NetworkConfig.PACKET_BROADCAST_SHARED && !(this instanceof RecipientDependentPacket))
+		{
+			broadcast = true;
+		}
 	}
 	
 	/**
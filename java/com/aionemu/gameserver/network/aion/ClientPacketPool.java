@@ -0,0 +1,68 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.network.aion;
+
+/**
+ * Pool of reusable instances of one client packet.<br>
+ * Instances are taken when the packet is received and given back by {@link AionClientPacket#run()} once it was executed, so hot packets are parsed without allocating a new clone each time. When
+ * the pool is empty the prototype is cloned, when it is full the released instance is left to the garbage collector.
+ */
+final class ClientPacketPool
+{
+	private final AionClientPacket prototype;
+	private final AionClientPacket[] packets;
+	private int size;
+	
+	/**
+	 * @param prototype packet to clone when the pool is empty
+	 * @param capacity max number of idle instances kept
+	 */
+	ClientPacketPool(AionClientPacket prototype, int capacity)
+	{
+		this.prototype = prototype;
+		packets = new AionClientPacket[capacity];
+	}
+	
+	/**
+	 * @return idle instance or new clone of the prototype
+	 */
+	AionClientPacket get()
+	{
+		synchronized (this)
+		{
+			if (size > 0)
+			{
+				final AionClientPacket packet = packets[--size];
+				packets[size] = null;
+				return packet;
+			}
+		}
+		return prototype.clonePacket();
+	}
+	
+	/**
+	 * Gives executed packet back to the pool. It must not be referenced by anyone else anymore.
+	 * @param packet
+	 */
+	synchronized void release(AionClientPacket packet)
+	{
+		if (size < packets.length)
+		{
+			packets[size++] = packet;
+		}
+	}
+}
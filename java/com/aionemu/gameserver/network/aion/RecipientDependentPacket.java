@@ -0,0 +1,25 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.network.aion;
+
+/**
+ * Marker for server packets which content depends on connection they are written to (player, account, client state...).<br>
+ * Such packets are never serialized once for all recipients of a broadcast, see {@link AionServerPacket#setBroadcast()}.
+ */
+public interface RecipientDependentPacket
+{
+}
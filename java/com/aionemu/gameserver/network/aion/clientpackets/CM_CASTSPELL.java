@@ -48,9 +48,18 @@ public class CM_CASTSPELL extends AionClientPacket
 		super(opcode, state, restStates);
 	}
 	
+	@Override
+	protected boolean isPoolable()
+	{
+		return true;
+	}
+	
 	@Override
 	protected void readImpl()
 	{
+		// target point isn't sent for every target type, don't keep the one of previous (pooled) packet
+		x = y = z = 0;
+		targetObjectId = 0;
 		spellid = readH();
 		level = readC();
 		targetType = readC();
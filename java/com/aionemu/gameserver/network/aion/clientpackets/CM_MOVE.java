@@ -55,12 +55,21 @@ public class CM_MOVE extends AionClientPacket
 		super(opcode, state, restStates);
 	}
 	
+	@Override
+	protected boolean isPoolable()
+	{
+		return true;
+	}
+	
 	@Override
 	protected void readImpl()
 	{
 		final Player player = getConnection().getActivePlayer();
 		if ((player == null) || !player.isSpawned())
 		{
+			// don't keep position of previous (pooled) packet
+			x = y = z = 0;
+			heading = type = 0;
 			return;
 		}
 		x = readF();
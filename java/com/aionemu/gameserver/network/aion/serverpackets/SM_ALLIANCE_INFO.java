@@ -26,11 +26,12 @@ import com.aionemu.gameserver.model.team2.common.legacy.LootGroupRules;
 import com.aionemu.gameserver.model.team2.league.LeagueMember;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * @author Sarynth, xTz
  */
-public class SM_ALLIANCE_INFO extends AionServerPacket
+public class SM_ALLIANCE_INFO extends AionServerPacket implements RecipientDependentPacket
 {
 	private LootGroupRules lootRules;
 	private final PlayerAlliance alliance;
@@ -20,11 +20,12 @@ import com.aionemu.gameserver.configs.network.NetworkConfig;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * @author Ranastic
  */
-public class SM_A_STATION extends AionServerPacket
+public class SM_A_STATION extends AionServerPacket implements RecipientDependentPacket
 {
 	private boolean isFirst = false;
 	private int currentServer = 0;
@@ -20,12 +20,13 @@ import com.aionemu.gameserver.model.gameobjects.player.BlockList;
 import com.aionemu.gameserver.model.gameobjects.player.BlockedPlayer;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * Packet responsible for telling a player his block list
  * @author Ben
  */
-public class SM_BLOCK_LIST extends AionServerPacket
+public class SM_BLOCK_LIST extends AionServerPacket implements RecipientDependentPacket
 {
 	@Override
 	protected void writeImpl(AionConnection con)
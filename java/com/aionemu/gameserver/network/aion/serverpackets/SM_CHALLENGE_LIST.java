@@ -24,11 +24,12 @@ import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.templates.challenge.ChallengeType;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * @author ViAl
  */
-public class SM_CHALLENGE_LIST extends AionServerPacket
+public class SM_CHALLENGE_LIST extends AionServerPacket implements RecipientDependentPacket
 {
 	int action;
 	int ownerId;
@@ -25,6 +25,7 @@ import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerCommonData;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.PlayerInfo;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.BrokerService;
 import com.aionemu.gameserver.services.player.PlayerService;
 
@@ -32,7 +33,7 @@ import com.aionemu.gameserver.services.player.PlayerService;
  * In this packet Server is sending Character List to client.
  * @author Nemesiss, AEJTester
  */
-public class SM_CHARACTER_LIST extends PlayerInfo
+public class SM_CHARACTER_LIST extends PlayerInfo implements RecipientDependentPacket
 {
 	/**
 	 * PlayOk2 - we dont care...
@@ -24,6 +24,7 @@ import com.aionemu.gameserver.model.gameobjects.Npc;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.player.PlayerMailboxState;
 import com.aionemu.gameserver.world.MapRegion;
 import com.aionemu.gameserver.world.World;
@@ -32,7 +33,7 @@ import com.aionemu.gameserver.world.zone.ZoneInstance;
 /**
  * @author alexa026
  */
-public class SM_DIALOG_WINDOW extends AionServerPacket
+public class SM_DIALOG_WINDOW extends AionServerPacket implements RecipientDependentPacket
 {
 	private final int targetObjectId;
 	private final int dialogID;
@@ -22,8 +22,9 @@ import com.aionemu.gameserver.configs.main.MembershipConfig;
 import com.aionemu.gameserver.model.gameobjects.player.emotion.Emotion;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
-public class SM_EMOTION_LIST extends AionServerPacket
+public class SM_EMOTION_LIST extends AionServerPacket implements RecipientDependentPacket
 {
 	byte action;
 	Collection<Emotion> emotions;
@@ -21,13 +21,14 @@ import com.aionemu.gameserver.model.gameobjects.player.FriendList;
 import com.aionemu.gameserver.model.house.House;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.HousingService;
 
 /**
  * Sends a friend list to the client
  * @author Ben
  */
-public class SM_FRIEND_LIST extends AionServerPacket
+public class SM_FRIEND_LIST extends AionServerPacket implements RecipientDependentPacket
 {
 	@Override
 	protected void writeImpl(AionConnection con)
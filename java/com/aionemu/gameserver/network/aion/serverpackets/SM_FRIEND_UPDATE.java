@@ -22,12 +22,13 @@ import org.slf4j.LoggerFactory;
 import com.aionemu.gameserver.model.gameobjects.player.Friend;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * Sent to update a player's status in a friendlist
  * @author Ben
  */
-public class SM_FRIEND_UPDATE extends AionServerPacket
+public class SM_FRIEND_UPDATE extends AionServerPacket implements RecipientDependentPacket
 {
 	private final int friendObjId;
 	
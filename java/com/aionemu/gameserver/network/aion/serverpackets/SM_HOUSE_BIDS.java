@@ -24,12 +24,13 @@ import com.aionemu.gameserver.model.house.HouseBidEntry;
 import com.aionemu.gameserver.model.house.HouseStatus;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.HousingBidService;
 
 /**
  * @author Rolandas
  */
-public class SM_HOUSE_BIDS extends AionServerPacket
+public class SM_HOUSE_BIDS extends AionServerPacket implements RecipientDependentPacket
 {
 	private final boolean isFirst;
 	private final boolean isLast;
@@ -23,11 +23,12 @@ import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.house.House;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * @author Rolandas
  */
-public class SM_HOUSE_OBJECT extends AionServerPacket
+public class SM_HOUSE_OBJECT extends AionServerPacket implements RecipientDependentPacket
 {
 	HouseObject<?> houseObject;
 	
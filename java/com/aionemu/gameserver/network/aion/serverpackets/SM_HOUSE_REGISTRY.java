@@ -22,11 +22,12 @@ import com.aionemu.gameserver.model.gameobjects.UseableItemObject;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * @author Rolandas
  */
-public class SM_HOUSE_REGISTRY extends AionServerPacket
+public class SM_HOUSE_REGISTRY extends AionServerPacket implements RecipientDependentPacket
 {
 	int action;
 	
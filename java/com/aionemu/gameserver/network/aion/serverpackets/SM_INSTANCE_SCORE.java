@@ -58,6 +58,7 @@ import com.aionemu.gameserver.model.instance.playerreward.ShugoEmperorVaultPlaye
 import com.aionemu.gameserver.model.instance.playerreward.SmolderingPlayerReward;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 import javolution.util.FastList;
 
@@ -65,7 +66,7 @@ import javolution.util.FastList;
  * @author Dns, ginho1, nrg, xTz
  */
 @SuppressWarnings("rawtypes")
-public class SM_INSTANCE_SCORE extends AionServerPacket
+public class SM_INSTANCE_SCORE extends AionServerPacket implements RecipientDependentPacket
 {
 	private int type;
 	private final int mapId;
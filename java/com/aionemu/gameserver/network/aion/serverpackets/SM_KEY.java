@@ -18,11 +18,12 @@ package com.aionemu.gameserver.network.aion.serverpackets;
 
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * @author -Nemesiss-
  */
-public class SM_KEY extends AionServerPacket
+public class SM_KEY extends AionServerPacket implements RecipientDependentPacket
 {
 	/**
 	 * {@inheritDoc}
@@ -24,12 +24,13 @@ import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.templates.item.ItemTemplate;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.utils.PacketSendUtility;
 
 /**
  * @author Ranastic
  */
-public class SM_LUNA_SHOP extends AionServerPacket
+public class SM_LUNA_SHOP extends AionServerPacket implements RecipientDependentPacket
 {
 	private final int actionId;
 	private int unk1;
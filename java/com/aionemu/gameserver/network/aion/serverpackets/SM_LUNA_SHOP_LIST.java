@@ -20,11 +20,12 @@ import java.util.List;
 
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * @author Ranastic
  */
-public class SM_LUNA_SHOP_LIST extends AionServerPacket
+public class SM_LUNA_SHOP_LIST extends AionServerPacket implements RecipientDependentPacket
 {
 	private final int actionId;
 	@SuppressWarnings("unused")
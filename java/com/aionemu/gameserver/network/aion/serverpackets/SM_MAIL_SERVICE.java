@@ -25,12 +25,13 @@ import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.templates.mail.MailMessage;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.MailServicePacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.utils.collections.ListSplitter;
 
 /**
  * @author kosyachok, Source
  */
-public class SM_MAIL_SERVICE extends MailServicePacket
+public class SM_MAIL_SERVICE extends MailServicePacket implements RecipientDependentPacket
 {
 	private final int serviceId;
 	private Collection<Letter> letters;
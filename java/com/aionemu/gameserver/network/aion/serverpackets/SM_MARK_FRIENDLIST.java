@@ -18,11 +18,12 @@ package com.aionemu.gameserver.network.aion.serverpackets;
 
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * @author xTz
  */
-public class SM_MARK_FRIENDLIST extends AionServerPacket
+public class SM_MARK_FRIENDLIST extends AionServerPacket implements RecipientDependentPacket
 {
 	@Override
 	protected void writeImpl(AionConnection con)
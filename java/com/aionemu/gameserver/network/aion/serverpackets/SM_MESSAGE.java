@@ -22,12 +22,13 @@ import com.aionemu.gameserver.model.Race;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * Massage [chat, etc]
  * @author -Nemesiss-, Sweetkr
  */
-public class SM_MESSAGE extends AionServerPacket
+public class SM_MESSAGE extends AionServerPacket implements RecipientDependentPacket
 {
 	/**
 	 * Player.
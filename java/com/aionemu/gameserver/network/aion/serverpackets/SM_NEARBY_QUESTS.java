@@ -21,11 +21,12 @@ import java.util.Map.Entry;
 
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 
 /**
  * @author MrPoke, Rolandas
  */
-public class SM_NEARBY_QUESTS extends AionServerPacket
+public class SM_NEARBY_QUESTS extends AionServerPacket implements RecipientDependentPacket
 {
 	private final HashMap<Integer, Integer> nearbyQuestList;
 	
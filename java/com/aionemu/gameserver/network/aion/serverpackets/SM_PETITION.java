@@ -19,12 +19,13 @@ package com.aionemu.gameserver.network.aion.serverpackets;
 import com.aionemu.gameserver.model.Petition;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.PetitionService;
 
 /**
  * @author zdead
  */
-public class SM_PETITION extends AionServerPacket
+public class SM_PETITION extends AionServerPacket implements RecipientDependentPacket
 {
 	private final Petition petition;
 	
@@ -23,6 +23,7 @@ import com.aionemu.gameserver.model.cp.PlayerCPEntry;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.player.CreativityPanel.CreativitySkillService;
 import com.aionemu.gameserver.services.player.CreativityPanel.CreativityTransfoService;
 import com.aionemu.gameserver.services.player.CreativityPanel.stats.Agility;
@@ -35,7 +36,7 @@ import com.aionemu.gameserver.services.player.CreativityPanel.stats.Will;
 /**
  * @author Ranastic (Encom)
  */
-public class SM_PLAYER_ESSENCE extends AionServerPacket
+public class SM_PLAYER_ESSENCE extends AionServerPacket implements RecipientDependentPacket
 {
 	Logger log = LoggerFactory.getLogger(SM_PLAYER_ESSENCE.class);
 	private int totalPoint;
@@ -33,6 +33,7 @@ import com.aionemu.gameserver.model.team.legion.LegionEmblem;
 import com.aionemu.gameserver.model.team.legion.LegionEmblemType;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.EnchantService;
 import com.aionemu.gameserver.services.events.DisplayService;
 import com.aionemu.gameserver.services.events.FFAService;
@@ -49,7 +50,7 @@ import javolution.util.FastList;
  * @modified -Enomine- -Artur-
  * @Reworked Kill3r
  */
-public class SM_PLAYER_INFO extends AionServerPacket
+public class SM_PLAYER_INFO extends AionServerPacket implements RecipientDependentPacket
 {
 	private final Player player;
 	private final boolean enemy;
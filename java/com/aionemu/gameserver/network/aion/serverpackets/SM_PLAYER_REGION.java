@@ -18,12 +18,13 @@ package com.aionemu.gameserver.network.aion.serverpackets;
 
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.world.zone.ZoneName;
 
 /**
  * @author LightNing
  */
-public class SM_PLAYER_REGION extends AionServerPacket
+public class SM_PLAYER_REGION extends AionServerPacket implements RecipientDependentPacket
 {
 	private final ZoneName subZone;
 	
@@ -18,12 +18,13 @@ package com.aionemu.gameserver.network.aion.serverpackets;
 
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.trade.PricesService;
 
 /**
  * @author xavier, Sarynth modified by Wakizashi Price/tax in Influence ration dialog
  */
-public class SM_PRICES extends AionServerPacket
+public class SM_PRICES extends AionServerPacket implements RecipientDependentPacket
 {
 	@Override
 	protected void writeImpl(AionConnection con)
@@ -28,6 +28,7 @@ import com.aionemu.gameserver.model.team.legion.LegionEmblem;
 import com.aionemu.gameserver.model.team.legion.LegionEmblemType;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.LegionService;
 import com.aionemu.gameserver.services.SiegeService;
 
@@ -36,7 +37,7 @@ import javolution.util.FastMap;
 /**
  * @author Sarynth
  */
-public class SM_SIEGE_LOCATION_INFO extends AionServerPacket
+public class SM_SIEGE_LOCATION_INFO extends AionServerPacket implements RecipientDependentPacket
 {
 	private final int infoType;
 	private final Map<Integer, SiegeLocation> locations;
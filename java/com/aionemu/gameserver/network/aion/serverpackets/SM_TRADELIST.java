@@ -24,13 +24,14 @@ import com.aionemu.gameserver.model.templates.tradelist.TradeListTemplate;
 import com.aionemu.gameserver.model.templates.tradelist.TradeListTemplate.TradeTab;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.services.LimitedItemTradeService;
 import com.aionemu.gameserver.utils.PacketSendUtility;
 
 /**
  * @author Dr.Nism
  */
-public class SM_TRADELIST extends AionServerPacket
+public class SM_TRADELIST extends AionServerPacket implements RecipientDependentPacket
 {
 	private final Integer playerObj;
 	private final int npcObj;
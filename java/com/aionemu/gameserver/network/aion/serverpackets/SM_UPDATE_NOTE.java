@@ -18,12 +18,13 @@ package com.aionemu.gameserver.network.aion.serverpackets;
 
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.network.aion.RecipientDependentPacket;
 import com.aionemu.gameserver.utils.PacketSendUtility;
 
 /**
  * @author xavier
  */
-public class SM_UPDATE_NOTE extends AionServerPacket
+public class SM_UPDATE_NOTE extends AionServerPacket implements RecipientDependentPacket
 {
 	private final int targetObjId;
 	private final String note;
@@ -18,12 +18,10 @@ package com.aionemu.gameserver.services;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +32,8 @@ import com.aionemu.gameserver.configs.main.SecurityConfig;
 import com.aionemu.gameserver.dao.BrokerDAO;
 import com.aionemu.gameserver.dao.InventoryDAO;
 import com.aionemu.gameserver.model.Race;
+import com.aionemu.gameserver.model.broker.BrokerIndex;
+import com.aionemu.gameserver.model.broker.BrokerIndex.SortedView;
 import com.aionemu.gameserver.model.broker.BrokerItemMask;
 import com.aionemu.gameserver.model.broker.BrokerMessages;
 import com.aionemu.gameserver.model.broker.BrokerPlayerCache;
@@ -71,6 +71,8 @@ public class BrokerService
 	private final Map<Integer, BrokerItem> elyosSettledItems = new FastMap<Integer, BrokerItem>().shared();
 	private final Map<Integer, BrokerItem> asmodianBrokerItems = new FastMap<Integer, BrokerItem>().shared();
 	private final Map<Integer, BrokerItem> asmodianSettledItems = new FastMap<Integer, BrokerItem>().shared();
+	private final BrokerIndex elyosBrokerIndex = new BrokerIndex();
+	private final BrokerIndex asmodianBrokerIndex = new BrokerIndex();
 	private static final Logger log = LoggerFactory.getLogger("EXCHANGE_LOG");
 	private final int DELAY_BROKER_SAVE = (BrokerConfig.SAVE_MANAGER_INTERVAL * 1000) >= 6000 ? (BrokerConfig.SAVE_MANAGER_INTERVAL * 1000) : 6000;
 	private final int DELAY_BROKER_CHECK = (BrokerConfig.CHECK_EXPIRED_ITEMS_INTERVAL * 1000) >= 60000 ? (BrokerConfig.CHECK_EXPIRED_ITEMS_INTERVAL * 1000) : 60000;
@@ -109,6 +111,7 @@ public class BrokerService
 				else
 				{
 					asmodianBrokerItems.put(item.getItemUniqueId(), item);
+					asmodianBrokerIndex.add(item);
 					loadedBrokerItemsCount++;
 				}
 			}
@@ -122,6 +125,7 @@ public class BrokerService
 				else
 				{
 					elyosBrokerItems.put(item.getItemUniqueId(), item);
+					elyosBrokerIndex.add(item);
 					loadedBrokerItemsCount++;
 				}
 			}
@@ -139,132 +143,46 @@ public class BrokerService
 	 */
 	public void showRequestedItems(Player player, int clientMask, int sortType, int startPage, List<Integer> itemList)
 	{
-		BrokerItem[] searchItems = null;
-		final int playerBrokerMaskCache = getPlayerMask(player);
-		final BrokerItemMask brokerMaskById = BrokerItemMask.getBrokerMaskById(clientMask);
-		final boolean isChidrenMask = brokerMaskById.isChildrenMask(playerBrokerMaskCache);
-		if ((itemList != null) && (clientMask == 0))
-		{
-			final Map<Integer, BrokerItem> brokerItems = getRaceBrokerItems(player.getRace());
-			if (brokerItems == null)
-			{
-				return;
-			}
-			searchItems = brokerItems.values().toArray(new BrokerItem[brokerItems.values().size()]);
-		}
-		else if (((getFilteredItems(player).length == 0) || !isChidrenMask) && (clientMask != 0))
-		{
-			searchItems = getItemsByMask(player, clientMask, false);
-		}
-		else if (isChidrenMask)
-		{
-			searchItems = getItemsByMask(player, clientMask, true);
-		}
-		else
+		final BrokerIndex brokerIndex = getRaceBrokerIndex(player.getRace());
+		if (brokerIndex == null)
 		{
-			searchItems = getFilteredItems(player);
+			return;
 		}
 		
-		if ((searchItems == null) || (searchItems.length < 0))
+		final BrokerPlayerCache playerCache = getPlayerCache(player);
+		int mask = clientMask;
+		List<Integer> searchItemList = itemList;
+		if ((clientMask == 0) && (itemList == null))
 		{
-			return;
+			// no filter, list the last result again
+			mask = playerCache.getBrokerMaskCache();
+			searchItemList = playerCache.getSearchItemList();
 		}
 		
-		int totalSearchItemsCount = searchItems.length;
-		
-		getPlayerCache(player).setBrokerSortTypeCache(sortType);
-		getPlayerCache(player).setBrokerStartPageCache(startPage);
-		
-		if (itemList != null)
+		BrokerItem[] searchItems;
+		int totalSearchItemsCount;
+		if (searchItemList != null)
 		{
-			final List<BrokerItem> itemsFound = new ArrayList<>();
-			for (BrokerItem item : searchItems)
-			{
-				if (itemList.contains(item.getItemId()))
-				{
-					itemsFound.add(item);
-				}
-			}
-			getPlayerCache(player).setSearchItemsList(itemList);
-			searchItems = itemsFound.toArray(new BrokerItem[itemsFound.size()]);
-			totalSearchItemsCount = searchItems.length;
-			getPlayerCache(player).setBrokerListCache(searchItems);
+			final BrokerItem[] itemsFound = brokerIndex.getItemsById(searchItemList, mask == 0 ? null : BrokerItemMask.getBrokerMaskById(mask), sortType);
+			totalSearchItemsCount = itemsFound.length;
+			searchItems = getRequestedPage(itemsFound, startPage);
 		}
 		else
 		{
-			getPlayerCache(player).setSearchItemsList(null);
+			final SortedView itemsFound = brokerIndex.getItemsByMask(BrokerItemMask.getBrokerMaskById(mask), sortType);
+			totalSearchItemsCount = itemsFound.size();
+			searchItems = itemsFound.getPage(startPage * 9, 45);
 		}
 		
-		sortBrokerItems(searchItems, sortType);
-		searchItems = getRequestedPage(searchItems, startPage);
-		
-		PacketSendUtility.sendPacket(player, new SM_BROKER_SERVICE(searchItems, totalSearchItemsCount, startPage));
-	}
-	
-	/**
-	 * @param player
-	 * @param clientMask
-	 * @param cached
-	 * @return
-	 */
-	private BrokerItem[] getItemsByMask(Player player, int clientMask, boolean cached)
-	{
-		final List<BrokerItem> searchItems = new ArrayList<>();
-		final BrokerItemMask brokerMask = BrokerItemMask.getBrokerMaskById(clientMask);
-		if (cached)
+		if (clientMask != 0)
 		{
-			final BrokerItem[] brokerItems = getFilteredItems(player);
-			if (brokerItems == null)
-			{
-				return null;
-			}
-			for (BrokerItem item : brokerItems)
-			{
-				if ((item == null) || (item.getItem() == null))
-				{
-					continue;
-				}
-				if (brokerMask.isMatches(item.getItem()))
-				{
-					searchItems.add(item);
-				}
-			}
+			playerCache.setBrokerMaskCache(clientMask);
 		}
-		else
-		{
-			final Map<Integer, BrokerItem> brokerItems = getRaceBrokerItems(player.getRace());
-			if (brokerItems == null)
-			{
-				return null;
-			}
-			for (BrokerItem item : brokerItems.values())
-			{
-				if ((item == null) || (item.getItem() == null))
-				{
-					continue;
-				}
-				if (brokerMask.isMatches(item.getItem()))
-				{
-					searchItems.add(item);
-				}
-			}
-		}
-		
-		final BrokerItem[] items = searchItems.toArray(new BrokerItem[searchItems.size()]);
-		getPlayerCache(player).setBrokerListCache(items);
-		getPlayerCache(player).setBrokerMaskCache(clientMask);
+		playerCache.setSearchItemsList(searchItemList);
+		playerCache.setBrokerSortTypeCache(sortType);
+		playerCache.setBrokerStartPageCache(startPage);
 		
-		return items;
-	}
-	
-	/**
-	 * Perform sorting according to sort type
-	 * @param brokerItems
-	 * @param sortType
-	 */
-	private void sortBrokerItems(BrokerItem[] brokerItems, int sortType)
-	{
-		Arrays.sort(brokerItems, BrokerItem.getComparatoryByType(sortType));
+		PacketSendUtility.sendPacket(player, new SM_BROKER_SERVICE(searchItems, totalSearchItemsCount, startPage));
 	}
 	
 	/**
@@ -306,6 +224,29 @@ public class BrokerService
 		}
 	}
 	
+	/**
+	 * @param race
+	 * @return
+	 */
+	private BrokerIndex getRaceBrokerIndex(Race race)
+	{
+		switch (race)
+		{
+			case ELYOS:
+			{
+				return elyosBrokerIndex;
+			}
+			case ASMODIANS:
+			{
+				return asmodianBrokerIndex;
+			}
+			default:
+			{
+				return null;
+			}
+		}
+	}
+	
 	/**
 	 * @param race
 	 * @return
@@ -336,7 +277,6 @@ public class BrokerService
 	 */
 	public void buyBrokerItem(Player player, int itemUniqueId, long itemCount)
 	{
-		final boolean isEmptyCache = getFilteredItems(player).length == 0;
 		final Race playerRace = player.getRace();
 		final BrokerItem buyingItem = getRaceBrokerItems(playerRace).get(itemUniqueId);
 		if (!RestrictionsManager.canTrade(player))
@@ -405,33 +345,22 @@ public class BrokerService
 			{
 				isBuyWholeItem = true;
 				getRaceBrokerItems(playerRace).remove(itemUniqueId);
+				getRaceBrokerIndex(playerRace).remove(buyingItem);
 				putToSettled(playerRace, buyingItem, true);
 			}
 			else
 			{
+				// price and count are sort keys, take the item out of the index while they change
+				getRaceBrokerIndex(playerRace).remove(buyingItem);
 				item.setItemCount(buyingItem.getItemCount() - itemCount);
 				buyingItem.setItemCount(buyingItem.getItemCount() - itemCount);
 				buyingItem.setPrice(price - TotalBuyPrice);
+				getRaceBrokerIndex(playerRace).add(buyingItem);
 				isBuyWholeItem = false;
 				buyingItem.setPersistentState(PersistentState.UPDATE_ITEM_BROKER);
 				saveManager.add(new BrokerOpSaveTask(buyingItem, item, null, buyingItem.getSellerId()));
 				newItem = BuySplitSell(playerRace, buyingItem, TotalBuyPrice, itemCount);
 			}
-			if (!isEmptyCache)
-			{
-				BrokerItem[] newCache;
-				if (isBuyWholeItem)
-				{
-					newCache = (BrokerItem[]) ArrayUtils.removeElement(getFilteredItems(player), buyingItem);
-				}
-				else
-				{
-					final int buyingItemIndex = ArrayUtils.indexOf(getFilteredItems(player), buyingItem);
-					newCache = (BrokerItem[]) ArrayUtils.removeElement(getFilteredItems(player), buyingItem);
-					newCache = (BrokerItem[]) ArrayUtils.add(newCache, buyingItemIndex, buyingItem);
-				}
-				getPlayerCache(player).setBrokerListCache(newCache);
-			}
 			player.getInventory().decreaseKinah(TotalBuyPrice);
 			final Item boughtItem = player.getInventory().add(isBuyWholeItem ? item : newItem);
 			final BrokerOpSaveTask bost = new BrokerOpSaveTask(null, boughtItem, player.getInventory().getKinahItem(), player.getObjectId());
@@ -729,11 +658,13 @@ public class BrokerService
 			case ASMODIAN:
 			{
 				asmodianBrokerItems.put(newBrokerItem.getItemUniqueId(), newBrokerItem);
+				asmodianBrokerIndex.add(newBrokerItem);
 				break;
 			}
 			case ELYOS:
 			{
 				elyosBrokerItems.put(newBrokerItem.getItemUniqueId(), newBrokerItem);
+				elyosBrokerIndex.add(newBrokerItem);
 				break;
 			}
 		}
@@ -752,13 +683,8 @@ public class BrokerService
 	 */
 	public long GetItemAveLowHigh(Player player, int sortType, int itemUniqueId)
 	{
-		BrokerItem[] searchItems = null;
-		long AveItemPrice = 0; // 7-day item's price average
-		
-		final Map<Integer, BrokerItem> brokerItems = getRaceBrokerItems(player.getRace());
-		searchItems = brokerItems.values().toArray(new BrokerItem[brokerItems.values().size()]);
-		
-		if ((searchItems == null) || (searchItems.length <= 0))
+		final BrokerIndex brokerIndex = getRaceBrokerIndex(player.getRace());
+		if (brokerIndex == null)
 		{
 			return 0;
 		}
@@ -768,45 +694,24 @@ public class BrokerService
 			return 0;
 		}
 		
-		final List<BrokerItem> itemsFound = new ArrayList<>();
-		for (BrokerItem item : searchItems)
-		{
-			if (TargetItem.getItemId() == item.getItemId())
-			{
-				itemsFound.add(item);
-				AveItemPrice += item.getPiecePrice();
-			}
-		}
+		// ordered by piece price, lowest first
+		final SortedView itemsFound = brokerIndex.getItemsByPiecePrice(TargetItem.getItemId());
 		if (itemsFound.size() <= 0)
 		{
 			return 0;
 		}
-		AveItemPrice = (AveItemPrice / itemsFound.size());
-		
-		searchItems = itemsFound.toArray(new BrokerItem[itemsFound.size()]);
 		
 		if (sortType == 1) // Current Low
 		{
-			if (searchItems.length > 1)
-			{
-				sortBrokerItems(searchItems, 6); // PIECE_PRICE_SORT_ASC
-			}
-			return searchItems[0].getPiecePrice();
-			
+			return itemsFound.getFirst().getPiecePrice();
 		}
 		else if (sortType == 2) // Current High
 		{
-			if (searchItems.length > 1)
-			{
-				sortBrokerItems(searchItems, 7); // PIECE_PRICE_SORT_DESC
-			}
-			return searchItems[0].getPiecePrice();
-			
+			return itemsFound.getLast().getPiecePrice();
 		}
 		else if (sortType == 3) // 7-day Average
 		{
-			return AveItemPrice;
-			
+			return itemsFound.getPiecePriceSum() / itemsFound.size();
 		}
 		else
 		{
@@ -896,6 +801,7 @@ public class BrokerService
 				saveManager.add(new BrokerOpSaveTask(brokerItem));
 				brokerItem.setIsCanceled(true);
 				brokerItems.remove(brokerItemId);
+				getRaceBrokerIndex(player.getRace()).remove(brokerItem);
 			}
 		}
 		showRegisteredItems(player);
@@ -1078,6 +984,7 @@ public class BrokerService
 			if ((item != null) && (item.getExpireTime().getTime() <= currentTime.getTime()))
 			{
 				// putToSettled(Race.ASMODIANS, item, false);
+				asmodianBrokerIndex.remove(item);
 				expireItem(Race.ASMODIANS, item);
 				asmodianBrokerItems.remove(item.getItemUniqueId());
 			}
@@ -1088,6 +995,7 @@ public class BrokerService
 			if ((item != null) && (item.getExpireTime().getTime() <= currentTime.getTime()))
 			{
 				// putToSettled(Race.ELYOS, item, false);
+				elyosBrokerIndex.remove(item);
 				expireItem(Race.ELYOS, item);
 				this.elyosBrokerItems.remove(item.getItemUniqueId());
 			}
@@ -1144,24 +1052,6 @@ public class BrokerService
 		playerBrokerCache.remove(player.getObjectId());
 	}
 	
-	/**
-	 * @param player
-	 * @return
-	 */
-	private int getPlayerMask(Player player)
-	{
-		return getPlayerCache(player).getBrokerMaskCache();
-	}
-	
-	/**
-	 * @param player
-	 * @return
-	 */
-	private BrokerItem[] getFilteredItems(Player player)
-	{
-		return getPlayerCache(player).getBrokerListCache();
-	}
-	
 	/**
 	 * Frequent running save task
 	 */
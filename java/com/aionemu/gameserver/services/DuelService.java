@@ -37,7 +37,9 @@ import com.aionemu.gameserver.skillengine.model.SkillTargetSlot;
 import com.aionemu.gameserver.utils.MathUtil;
 import com.aionemu.gameserver.utils.PacketSendUtility;
 import com.aionemu.gameserver.utils.ThreadPoolManager;
+import com.aionemu.gameserver.world.SpatialGrid;
 import com.aionemu.gameserver.world.World;
+import com.aionemu.gameserver.world.knownlist.Visitor;
 import com.aionemu.gameserver.world.zone.ZoneInstance;
 
 import javolution.util.FastMap;
@@ -149,9 +151,32 @@ public class DuelService
 		createTask(requester, responder);
 	}
 	
+	/**
+	 * Runs visitor on players around the given one, using the spatial grid of its instance when enabled.
+	 * @param player
+	 * @param range
+	 * @param visitor
+	 */
+	private static void doOnPlayersInRange(Player player, float range, Visitor<Player> visitor)
+	{
+		final SpatialGrid grid = player.isSpawned() ? player.getPosition().getWorldMapInstance().getSpatialGrid() : null;
+		if (grid == null)
+		{
+			World.getInstance().doOnAllPlayers(visitor);
+			return;
+		}
+		grid.doOnObjectsInRange(player.getX(), player.getY(), range, object ->
+		{
+			if (object instanceof Player)
+			{
+				visitor.visit((Player) object);
+			}
+		});
+	}
+	
 	private void startDuelMsg(Player player1, Player player2)
 	{
-		World.getInstance().doOnAllPlayers(object ->
+		doOnPlayersInRange(player1, 100, object ->
 		{
 			if (MathUtil.isInRange(player1, object, 100))
 			{
@@ -163,7 +188,7 @@ public class DuelService
 	
 	private void loseDuelMsg(Player player1, Player player2)
 	{
-		World.getInstance().doOnAllPlayers(object ->
+		doOnPlayersInRange(player1, 100, object ->
 		{
 			if (MathUtil.isInRange(player1, object, 100))
 			{
@@ -175,7 +200,7 @@ public class DuelService
 	
 	void drawDuelMsg(Player player1, Player player2)
 	{
-		World.getInstance().doOnAllPlayers(object ->
+		doOnPlayersInRange(player1, 100, object ->
 		{
 			if (MathUtil.isInRange(player1, object, 100))
 			{
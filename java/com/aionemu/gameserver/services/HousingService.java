@@ -18,7 +18,6 @@ package com.aionemu.gameserver.services;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -64,7 +63,7 @@ import javolution.util.FastList;
 public class HousingService
 {
 	private static final Logger log = LoggerFactory.getLogger(HousingService.class);
-	private static final Map<Integer, List<House>> housesByMapId = new HashMap<>();
+	private static final Map<Integer, List<House>> housesByMapId = PlatformDependent.newConcurrentHashMap();
 	private final Map<Integer, House> customHouses;
 	private final Map<Integer, House> studios;
 	
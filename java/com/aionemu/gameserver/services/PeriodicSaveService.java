@@ -28,6 +28,8 @@ import com.aionemu.gameserver.dao.InventoryDAO;
 import com.aionemu.gameserver.dao.ItemStoneListDAO;
 import com.aionemu.gameserver.model.gameobjects.Item;
 import com.aionemu.gameserver.model.team.legion.Legion;
+import com.aionemu.gameserver.model.team.legion.LegionWarehouse;
+import com.aionemu.gameserver.taskmanager.WriteBehindQueue;
 import com.aionemu.gameserver.utils.ThreadPoolManager;
 
 import javolution.util.FastList;
@@ -40,6 +42,7 @@ public class PeriodicSaveService
 	static final Logger log = LoggerFactory.getLogger(PeriodicSaveService.class);
 	
 	private final Future<?> legionWhUpdateTask;
+	private final WriteBehindQueue saveQueue = new WriteBehindQueue("PeriodicSave", PeriodicSaveConfig.WRITER_THREADS, PeriodicSaveConfig.WRITER_QUEUE);
 	
 	public static PeriodicSaveService getInstance()
 	{
@@ -52,6 +55,24 @@ public class PeriodicSaveService
 		legionWhUpdateTask = ThreadPoolManager.getInstance().scheduleAtFixedRate(new LegionWhUpdateTask(), DELAY_LEGION_ITEM, DELAY_LEGION_ITEM);
 	}
 	
+	/**
+	 * Queues a save to be written by the save threads. A save still waiting under an equal key is replaced.
+	 * @param key identifies the saved entity
+	 * @param save
+	 */
+	public void queueSave(Object key, Runnable save)
+	{
+		saveQueue.queue(key, save);
+	}
+	
+	/**
+	 * @return the queue of periodic saves, for its backlog and latency
+	 */
+	public WriteBehindQueue getSaveQueue()
+	{
+		return saveQueue;
+	}
+	
 	private class LegionWhUpdateTask implements Runnable
 	{
 		public LegionWhUpdateTask()
@@ -61,36 +82,38 @@ public class PeriodicSaveService
 		@Override
 		public void run()
 		{
-			log.info("Legion WH update task started.");
-			final long startTime = System.currentTimeMillis();
 			final Iterator<Legion> legionsIterator = LegionService.getInstance().getCachedLegionIterator();
-			int legionWhUpdated = 0;
+			int legionWhQueued = 0;
 			while (legionsIterator.hasNext())
 			{
 				final Legion legion = legionsIterator.next();
-				final FastList<Item> allItems = legion.getLegionWarehouse().getItemsWithKinah();
-				allItems.addAll(legion.getLegionWarehouse().getDeletedItems());
-				try
-				{
-					/**
-					 * 1. save items first
-					 */
-					DAOManager.getDAO(InventoryDAO.class).store(allItems, null, null, legion.getLegionId());
-					
-					/**
-					 * 2. save item stones
-					 */
-					DAOManager.getDAO(ItemStoneListDAO.class).save(allItems);
-				}
-				catch (Exception ex)
-				{
-					log.error("Exception during periodic saving of legion WH", ex);
-				}
+				final LegionWarehouse warehouse = legion.getLegionWarehouse();
+				queueSave(warehouse, () -> saveLegionWh(legion, warehouse));
+				legionWhQueued++;
+			}
+			log.info("Legion WH update: " + legionWhQueued + " legions queued, " + saveQueue + ".");
+		}
+		
+		private void saveLegionWh(Legion legion, LegionWarehouse warehouse)
+		{
+			final FastList<Item> allItems = warehouse.getItemsWithKinah();
+			allItems.addAll(warehouse.getDeletedItems());
+			try
+			{
+				/**
+				 * 1. save items first
+				 */
+				DAOManager.getDAO(InventoryDAO.class).store(allItems, null, null, legion.getLegionId());
 				
-				legionWhUpdated++;
+				/**
+				 * 2. save item stones
+				 */
+				DAOManager.getDAO(ItemStoneListDAO.class).save(allItems);
+			}
+			catch (Exception ex)
+			{
+				log.error("Exception during periodic saving of legion WH", ex);
 			}
-			final long workTime = System.currentTimeMillis() - startTime;
-			log.info("Legion WH update: " + workTime + " ms, legions: " + legionWhUpdated + ".");
 		}
 	}
 	
@@ -103,6 +126,8 @@ public class PeriodicSaveService
 		// save legion warehouse
 		legionWhUpdateTask.cancel(false);
 		new LegionWhUpdateTask().run();
+		// writes everything still queued
+		saveQueue.shutdown();
 		log.info("Data successfully saved.");
 	}
 	
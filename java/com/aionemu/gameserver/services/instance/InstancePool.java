@@ -0,0 +1,207 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.services.instance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aionemu.commons.utils.internal.chmv8.PlatformDependent;
+import com.aionemu.gameserver.configs.main.CustomConfig;
+import com.aionemu.gameserver.spawnengine.SpawnEngine;
+import com.aionemu.gameserver.utils.ThreadPoolManager;
+import com.aionemu.gameserver.world.World;
+import com.aionemu.gameserver.world.WorldMap;
+import com.aionemu.gameserver.world.WorldMapInstance;
+import com.aionemu.gameserver.world.WorldMapInstanceFactory;
+
+/**
+ * Keeps pre-built and pre-spawned instances of popular instance maps (see {@link CustomConfig#INSTANCES_POOL}), so entering them doesn't wait for spawning hundreds of npcs.<br>
+ * Pooled instances are added to their {@link WorldMap} but nobody is registered in them. The instance handler is notified ({@link com.aionemu.gameserver.instance.InstanceEngine#onInstanceCreate})
+ * only when the instance is taken, every taken instance is replaced in background.
+ */
+public class InstancePool
+{
+	private static final Logger log = LoggerFactory.getLogger(InstancePool.class);
+	
+	/**
+	 * Map id -> number of instances kept ready.
+	 */
+	private final Map<Integer, Integer> sizes = PlatformDependent.newConcurrentHashMap();
+	private final Map<Integer, Queue<WorldMapInstance>> pools = PlatformDependent.newConcurrentHashMap();
+	/**
+	 * Map id -> ready instances plus instances being built.
+	 */
+	private final Map<Integer, AtomicInteger> counts = PlatformDependent.newConcurrentHashMap();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	
+	public static InstancePool getInstance()
+	{
+		return SingletonHolder.instance;
+	}
+	
+	InstancePool()
+	{
+	}
+	
+	/**
+	 * Parses pool sizes and starts filling the pools in background.
+	 */
+	public void load()
+	{
+		for (String entry : CustomConfig.INSTANCES_POOL.split(","))
+		{
+			entry = entry.trim();
+			if (entry.isEmpty())
+			{
+				continue;
+			}
+			final String[] parts = entry.split(":");
+			try
+			{
+				final int worldId = Integer.parseInt(parts[0].trim());
+				final int size = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+				final WorldMap map = World.getInstance().getWorldMap(worldId);
+				if (!map.isInstanceType())
+				{
+					log.warn("Instance pool: " + worldId + " is not an instance map");
+					continue;
+				}
+				if (size > 0)
+				{
+					sizes.put(worldId, size);
+					pools.put(worldId, new ConcurrentLinkedQueue<>());
+					counts.put(worldId, new AtomicInteger());
+				}
+			}
+			catch (RuntimeException e)
+			{
+				log.warn("Instance pool: invalid entry " + entry, e);
+			}
+		}
+		if (!sizes.isEmpty())
+		{
+			log.info("Instance pool: keeping " + sizes + " instances ready");
+			for (int worldId : sizes.keySet())
+			{
+				refill(worldId);
+			}
+		}
+	}
+	
+	/**
+	 * @param worldId
+	 * @return ready instance removed from the pool, null if there is none (pool miss or map isn't pooled)
+	 */
+	WorldMapInstance take(int worldId)
+	{
+		final Queue<WorldMapInstance> pool = pools.get(worldId);
+		if (pool == null)
+		{
+			return null;
+		}
+		final WorldMapInstance instance = pool.poll();
+		if (instance != null)
+		{
+			counts.get(worldId).decrementAndGet();
+			hits.incrementAndGet();
+		}
+		else
+		{
+			misses.incrementAndGet();
+		}
+		refill(worldId);
+		return instance;
+	}
+	
+	/**
+	 * Builds missing instances of the map on a long running thread.
+	 * @param worldId
+	 */
+	private void refill(int worldId)
+	{
+		final int size = sizes.get(worldId);
+		final AtomicInteger count = counts.get(worldId);
+		for (int c = count.get(); c < size; c = count.get())
+		{
+			if (count.compareAndSet(c, c + 1))
+			{
+				ThreadPoolManager.getInstance().executeLongRunning(() -> build(worldId));
+			}
+		}
+	}
+	
+	private void build(int worldId)
+	{
+		try
+		{
+			final long start = System.currentTimeMillis();
+			final WorldMap map = World.getInstance().getWorldMap(worldId);
+			final int instanceId = map.getNextInstanceId();
+			final WorldMapInstance instance = WorldMapInstanceFactory.createWorldMapInstance(map, instanceId, 0);
+			map.addInstance(instanceId, instance);
+			SpawnEngine.spawnInstance(worldId, instanceId, (byte) 0, 0);
+			pools.get(worldId).add(instance);
+			log.debug("Instance pool: built " + worldId + " id:" + instanceId + " in " + (System.currentTimeMillis() - start) + " ms");
+		}
+		catch (Exception e)
+		{
+			counts.get(worldId).decrementAndGet();
+			log.error("Instance pool: error while building instance of " + worldId, e);
+		}
+	}
+	
+	public long getHits()
+	{
+		return hits.get();
+	}
+	
+	public long getMisses()
+	{
+		return misses.get();
+	}
+	
+	/**
+	 * @return Statistics of the pool.
+	 */
+	public List<String> getStats()
+	{
+		final List<String> list = new ArrayList<>();
+		list.add("Instance pool:");
+		list.add("=================================================");
+		list.add("\thits: ................ " + getHits());
+		list.add("\tmisses: .............. " + getMisses());
+		for (Map.Entry<Integer, Integer> e : sizes.entrySet())
+		{
+			list.add("\t" + e.getKey() + ": ......... " + pools.get(e.getKey()).size() + "/" + e.getValue() + " ready");
+		}
+		return list;
+	}
+	
+	private static class SingletonHolder
+	{
+		protected static final InstancePool instance = new InstancePool();
+	}
+}
@@ -73,6 +73,7 @@ public class InstanceService
 		{
 			instanceCoolDownFilter.add(Integer.parseInt(s));
 		}
+		InstancePool.getInstance().load();
 	}
 	
 	public static synchronized WorldMapInstance getNextAvailableInstance(int worldId, int ownerId)
@@ -82,11 +83,19 @@ public class InstanceService
 		{
 			throw new UnsupportedOperationException("Invalid call for next available instance  of " + worldId);
 		}
-		final int nextInstanceId = map.getNextInstanceId();
-		log.info("<Instance In Progress>" + worldId + " id:" + nextInstanceId + " owner:" + ownerId);
-		final WorldMapInstance worldMapInstance = WorldMapInstanceFactory.createWorldMapInstance(map, nextInstanceId, ownerId);
-		map.addInstance(nextInstanceId, worldMapInstance);
-		SpawnEngine.spawnInstance(worldId, worldMapInstance.getInstanceId(), (byte) 0, ownerId);
+		WorldMapInstance worldMapInstance = ownerId == 0 ? InstancePool.getInstance().take(worldId) : null;
+		if (worldMapInstance != null)
+		{
+			log.info("<Instance In Progress>" + worldId + " id:" + worldMapInstance.getInstanceId() + " owner:" + ownerId + " (pooled)");
+		}
+		else
+		{
+			final int nextInstanceId = map.getNextInstanceId();
+			log.info("<Instance In Progress>" + worldId + " id:" + nextInstanceId + " owner:" + ownerId);
+			worldMapInstance = WorldMapInstanceFactory.createWorldMapInstance(map, nextInstanceId, ownerId);
+			map.addInstance(nextInstanceId, worldMapInstance);
+			SpawnEngine.spawnInstance(worldId, worldMapInstance.getInstanceId(), (byte) 0, ownerId);
+		}
 		InstanceEngine.getInstance().onInstanceCreate(worldMapInstance);
 		if (map.isInstanceType())
 		{
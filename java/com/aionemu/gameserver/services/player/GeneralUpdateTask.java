@@ -28,6 +28,7 @@ import com.aionemu.gameserver.dao.PlayerSkillListDAO;
 import com.aionemu.gameserver.dao.PlayerStigmasEquippedDAO;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.house.House;
+import com.aionemu.gameserver.services.PeriodicSaveService;
 import com.aionemu.gameserver.world.World;
 
 class GeneralUpdateTask implements Runnable
@@ -40,8 +41,16 @@ class GeneralUpdateTask implements Runnable
 		this.playerId = playerId;
 	}
 	
+	/**
+	 * Queues the save, it runs on a save thread.
+	 */
 	@Override
 	public void run()
+	{
+		PeriodicSaveService.getInstance().queueSave(this, this::save);
+	}
+	
+	private void save()
 	{
 		final Player player = World.getInstance().findPlayer(playerId);
 		if (player != null)
@@ -23,6 +23,7 @@ import com.aionemu.commons.database.dao.DAOManager;
 import com.aionemu.gameserver.dao.InventoryDAO;
 import com.aionemu.gameserver.dao.ItemStoneListDAO;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
+import com.aionemu.gameserver.services.PeriodicSaveService;
 import com.aionemu.gameserver.world.World;
 
 class ItemUpdateTask implements Runnable
@@ -35,8 +36,16 @@ class ItemUpdateTask implements Runnable
 		this.playerId = playerId;
 	}
 	
+	/**
+	 * Queues the save, it runs on a save thread.
+	 */
 	@Override
 	public void run()
+	{
+		PeriodicSaveService.getInstance().queueSave(this, this::save);
+	}
+	
+	private void save()
 	{
 		final Player player = World.getInstance().findPlayer(playerId);
 		if (player != null)
@@ -16,16 +16,32 @@
  */
 package com.aionemu.gameserver.services.player;
 
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aionemu.commons.database.PersistenceSession;
 import com.aionemu.commons.database.dao.DAOManager;
 import com.aionemu.commons.utils.GenericValidator;
+import com.aionemu.commons.utils.concurrent.PriorityThreadFactory;
 import com.aionemu.gameserver.configs.main.CacheConfig;
+import com.aionemu.gameserver.configs.main.GSConfig;
+import com.aionemu.gameserver.configs.main.PeriodicSaveConfig;
 import com.aionemu.gameserver.controllers.FlyController;
 import com.aionemu.gameserver.controllers.PlayerController;
 import com.aionemu.gameserver.controllers.effect.PlayerEffectController;
@@ -72,14 +88,22 @@ import com.aionemu.gameserver.dataholders.PlayerInitialData.PlayerCreationData;
 import com.aionemu.gameserver.dataholders.PlayerInitialData.PlayerCreationData.ItemType;
 import com.aionemu.gameserver.model.account.Account;
 import com.aionemu.gameserver.model.account.PlayerAccountData;
+import com.aionemu.gameserver.model.cp.PlayerCPList;
+import com.aionemu.gameserver.model.dorinerk_wardrobe.PlayerWardrobeList;
 import com.aionemu.gameserver.model.gameobjects.Item;
 import com.aionemu.gameserver.model.gameobjects.PersistentState;
+import com.aionemu.gameserver.model.gameobjects.player.BlockList;
 import com.aionemu.gameserver.model.gameobjects.player.Equipment;
+import com.aionemu.gameserver.model.gameobjects.player.FriendList;
 import com.aionemu.gameserver.model.gameobjects.player.MacroList;
 import com.aionemu.gameserver.model.gameobjects.player.Mailbox;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerAppearance;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerCommonData;
+import com.aionemu.gameserver.model.gameobjects.player.PlayerPassports;
+import com.aionemu.gameserver.model.gameobjects.player.QuestStateList;
+import com.aionemu.gameserver.model.gameobjects.player.RecipeList;
+import com.aionemu.gameserver.model.gameobjects.player.title.TitleList;
 import com.aionemu.gameserver.model.house.House;
 import com.aionemu.gameserver.model.house.HouseRegistry;
 import com.aionemu.gameserver.model.house.HouseStatus;
@@ -88,6 +112,7 @@ import com.aionemu.gameserver.model.items.storage.PlayerStorage;
 import com.aionemu.gameserver.model.items.storage.Storage;
 import com.aionemu.gameserver.model.items.storage.StorageType;
 import com.aionemu.gameserver.model.skill.PlayerSkillList;
+import com.aionemu.gameserver.model.skill.linked_skill.PlayerEquippedStigmaList;
 import com.aionemu.gameserver.model.stats.calc.functions.PlayerStatFunctions;
 import com.aionemu.gameserver.model.stats.listeners.TitleChangeListener;
 import com.aionemu.gameserver.model.team.legion.LegionMember;
@@ -113,7 +138,11 @@ import com.google.common.collect.Sets;
  */
 public class PlayerService
 {
+	private static final Logger log = LoggerFactory.getLogger(PlayerService.class);
 	private static final CacheMap<Integer, Player> playerCache = CacheMapFactory.createSoftCacheMap("Player", "player");
+	private static final AtomicLong storedPlayers = new AtomicLong();
+	private static final AtomicLong storeTime = new AtomicLong();
+	private static final ExecutorService loadExecutor = GSConfig.PLAYER_LOAD_THREADS > 0 ? Executors.newFixedThreadPool(GSConfig.PLAYER_LOAD_THREADS, new PriorityThreadFactory("PlayerLoad", Thread.NORM_PRIORITY)) : null;
 	
 	public static boolean isFreeName(String name)
 	{
@@ -130,7 +159,50 @@ public class PlayerService
 		return DAOManager.getDAO(PlayerDAO.class).saveNewPlayer(player.getCommonData(), accountId, accountName) && DAOManager.getDAO(PlayerAppearanceDAO.class).store(player) && DAOManager.getDAO(PlayerSkillListDAO.class).storeSkills(player) && DAOManager.getDAO(InventoryDAO.class).store(player);
 	}
 	
+	/**
+	 * Stores all player data, in one transaction when {@link PeriodicSaveConfig#PLAYER_TRANSACTION} is enabled.
+	 * @param player
+	 */
 	public static void storePlayer(Player player)
+	{
+		final long start = System.currentTimeMillis();
+		if (PeriodicSaveConfig.PLAYER_TRANSACTION)
+		{
+			storePlayerInSession(player);
+		}
+		else
+		{
+			storePlayerData(player);
+		}
+		final long time = System.currentTimeMillis() - start;
+		storedPlayers.incrementAndGet();
+		storeTime.addAndGet(time);
+		log.debug("Player " + player.getName() + " stored in " + time + " ms");
+	}
+	
+	private static void storePlayerInSession(Player player)
+	{
+		PersistenceSession session = null;
+		try
+		{
+			session = PersistenceSession.begin();
+			storePlayerData(player);
+			session.commit();
+		}
+		catch (SQLException e)
+		{
+			log.error("Error while storing player " + player.getObjectId(), e);
+		}
+		finally
+		{
+			if (session != null)
+			{
+				session.close();
+			}
+		}
+	}
+	
+	private static void storePlayerData(Player player)
 	{
 		DAOManager.getDAO(PlayerDAO.class).storePlayer(player);
 		DAOManager.getDAO(PlayerSkillListDAO.class).storeSkills(player);
@@ -157,6 +229,15 @@ public class PlayerService
 		DAOManager.getDAO(PlayerNpcFactionsDAO.class).storeNpcFactions(player);
 	}
 	
+	/**
+	 * @return average time in ms {@link #storePlayer(Player)} took so far, 0 before the first store
+	 */
+	public static long getAverageStoreTime()
+	{
+		final long count = storedPlayers.get();
+		return count == 0 ? 0 : storeTime.get() / count;
+	}
+	
 	public static Player getPlayer(int playerObjId, Account account)
 	{
 		Player player = playerCache.get(playerObjId);
@@ -168,27 +249,57 @@ public class PlayerService
 		final PlayerCommonData pcd = playerAccountData.getPlayerCommonData();
 		final PlayerAppearance appearance = playerAccountData.getAppereance();
 		player = new Player(new PlayerController(), pcd, appearance, account);
+		final Player loadedPlayer = player;
+		// loads which only read the object id run concurrently, their results are applied below in the usual order
+		final Future<MacroList> macroses = load(() -> DAOManager.getDAO(PlayerMacrossesDAO.class).restoreMacrosses(playerObjId));
+		final Future<PlayerSkillList> skillList = load(() -> DAOManager.getDAO(PlayerSkillListDAO.class).loadSkillList(playerObjId));
+		final Future<PlayerEquippedStigmaList> stigmaList = load(() -> DAOManager.getDAO(PlayerStigmasEquippedDAO.class).loadItemsList(playerObjId));
+		final Future<FriendList> friendList = load(() -> DAOManager.getDAO(FriendListDAO.class).load(loadedPlayer));
+		final Future<BlockList> blockList = load(() -> DAOManager.getDAO(BlockListDAO.class).load(loadedPlayer));
+		final Future<TitleList> titleList = load(() -> DAOManager.getDAO(PlayerTitleListDAO.class).loadTitleList(playerObjId));
+		final Future<PlayerCPList> cpList = load(() -> DAOManager.getDAO(PlayerCPDAO.class).loadCP(loadedPlayer));
+		final Future<PlayerWardrobeList> wardrobe = load(() -> DAOManager.getDAO(PlayerWardrobeDAO.class).load(loadedPlayer));
+		final Future<Map<String, Object>> vars = load(() -> DAOManager.getDAO(PlayerVarsDAO.class).load(playerObjId));
+		final Future<QuestStateList> questStateList = load(() -> DAOManager.getDAO(PlayerQuestListDAO.class).load(loadedPlayer));
+		final Future<RecipeList> recipeList = load(() -> DAOManager.getDAO(PlayerRecipesDAO.class).load(playerObjId));
+		final Future<PlayerPassports> passports = load(() -> DAOManager.getDAO(PlayerPassportsDAO.class).load(loadedPlayer));
+		final Future<Storage> inventory = loadStorage(playerObjId, StorageType.CUBE);
+		final List<Future<Storage>> petBags = new ArrayList<>();
+		for (int petBagId = StorageType.PET_BAG_MIN; petBagId <= StorageType.PET_BAG_MAX; petBagId++)
+		{
+			petBags.add(loadStorage(playerObjId, StorageType.getStorageTypeById(petBagId)));
+		}
+		final List<Future<Storage>> cabinets = new ArrayList<>();
+		for (int houseWhId = StorageType.HOUSE_WH_MIN; houseWhId <= StorageType.HOUSE_WH_MAX; houseWhId++)
+		{
+			final StorageType whType = StorageType.getStorageTypeById(houseWhId);
+			if (whType != null)
+			{
+				cabinets.add(loadStorage(playerObjId, whType));
+			}
+		}
+		final Future<Storage> warehouse = loadStorage(playerObjId, StorageType.REGULAR_WAREHOUSE);
+		
 		final LegionMember legionMember = LegionService.getInstance().getLegionMember(player.getObjectId());
 		if (legionMember != null)
 		{
 			player.setLegionMember(legionMember);
 		}
-		final MacroList macroses = DAOManager.getDAO(PlayerMacrossesDAO.class).restoreMacrosses(playerObjId);
-		player.setMacroList(macroses);
-		player.setSkillList(DAOManager.getDAO(PlayerSkillListDAO.class).loadSkillList(playerObjId));
-		player.setEquipedStigmaList(DAOManager.getDAO(PlayerStigmasEquippedDAO.class).loadItemsList(playerObjId));
+		player.setMacroList(await(macroses));
+		player.setSkillList(await(skillList));
+		player.setEquipedStigmaList(await(stigmaList));
 		player.setKnownlist(new KnownList(player));
-		player.setFriendList(DAOManager.getDAO(FriendListDAO.class).load(player));
-		player.setBlockList(DAOManager.getDAO(BlockListDAO.class).load(player));
-		player.setTitleList(DAOManager.getDAO(PlayerTitleListDAO.class).loadTitleList(playerObjId));
-		player.setCP(DAOManager.getDAO(PlayerCPDAO.class).loadCP(player));
-		player.setWardrobe(DAOManager.getDAO(PlayerWardrobeDAO.class).load(player));
+		player.setFriendList(await(friendList));
+		player.setBlockList(await(blockList));
+		player.setTitleList(await(titleList));
+		player.setCP(await(cpList));
+		player.setWardrobe(await(wardrobe));
 		DAOManager.getDAO(F2pDAO.class).loadF2pInfo(player);
 		DAOManager.getDAO(PlayerSettingsDAO.class).loadSettings(player);
 		DAOManager.getDAO(AbyssRankDAO.class).loadAbyssRank(player);
 		DAOManager.getDAO(PlayerNpcFactionsDAO.class).loadNpcFactions(player);
 		DAOManager.getDAO(MotionDAO.class).loadMotionList(player);
-		player.setVars(DAOManager.getDAO(PlayerVarsDAO.class).load(player.getObjectId()));
+		player.setVars(await(vars));
 		final Equipment equipment = DAOManager.getDAO(InventoryDAO.class).loadEquipment(player);
 		ItemService.loadItemStones(equipment.getEquippedItemsWithoutStigma());
 		equipment.setOwner(player);
@@ -196,33 +307,23 @@ public class PlayerService
 		player.setEffectController(new PlayerEffectController(player));
 		player.setFlyController(new FlyController(player));
 		PlayerStatFunctions.addPredefinedStatFunctions(player);
-		player.setQuestStateList(DAOManager.getDAO(PlayerQuestListDAO.class).load(player));
-		player.setRecipeList(DAOManager.getDAO(PlayerRecipesDAO.class).load(player.getObjectId()));
-		player.getCommonData().setCompletedPassports(DAOManager.getDAO(PlayerPassportsDAO.class).load(player));
+		player.setQuestStateList(await(questStateList));
+		player.setRecipeList(await(recipeList));
+		player.getCommonData().setCompletedPassports(await(passports));
 		final Storage accWarehouse = account.getAccountWarehouse();
 		player.setStorage(accWarehouse, StorageType.ACCOUNT_WAREHOUSE);
-		final Storage inventory = DAOManager.getDAO(InventoryDAO.class).loadStorage(playerObjId, StorageType.CUBE);
-		ItemService.loadItemStones(inventory.getItems());
-		player.setStorage(inventory, StorageType.CUBE);
-		for (int petBagId = StorageType.PET_BAG_MIN; petBagId <= StorageType.PET_BAG_MAX; petBagId++)
+		player.setStorage(await(inventory), StorageType.CUBE);
+		for (Future<Storage> petBag : petBags)
 		{
-			final Storage petBag = DAOManager.getDAO(InventoryDAO.class).loadStorage(playerObjId, StorageType.getStorageTypeById(petBagId));
-			ItemService.loadItemStones(petBag.getItems());
-			player.setStorage(petBag, StorageType.getStorageTypeById(petBagId));
+			final Storage storage = await(petBag);
+			player.setStorage(storage, storage.getStorageType());
 		}
-		for (int houseWhId = StorageType.HOUSE_WH_MIN; houseWhId <= StorageType.HOUSE_WH_MAX; houseWhId++)
+		for (Future<Storage> cabinet : cabinets)
 		{
-			final StorageType whType = StorageType.getStorageTypeById(houseWhId);
-			if (whType != null)
-			{
-				final Storage cabinet = DAOManager.getDAO(InventoryDAO.class).loadStorage(playerObjId, StorageType.getStorageTypeById(houseWhId));
-				ItemService.loadItemStones(cabinet.getItems());
-				player.setStorage(cabinet, StorageType.getStorageTypeById(houseWhId));
-			}
+			final Storage storage = await(cabinet);
+			player.setStorage(storage, storage.getStorageType());
 		}
-		final Storage warehouse = DAOManager.getDAO(InventoryDAO.class).loadStorage(playerObjId, StorageType.REGULAR_WAREHOUSE);
-		ItemService.loadItemStones(warehouse.getItems());
-		player.setStorage(warehouse, StorageType.REGULAR_WAREHOUSE);
+		player.setStorage(await(warehouse), StorageType.REGULAR_WAREHOUSE);
 		HouseRegistry houseRegistry = null;
 		for (House house : player.getHouses())
 		{
@@ -258,6 +359,57 @@ public class PlayerService
 		return player;
 	}
 	
+	private static <T> Future<T> load(Callable<T> loader)
+	{
+		if (loadExecutor == null)
+		{
+			final FutureTask<T> task = new FutureTask<>(loader);
+			task.run();
+			return task;
+		}
+		return loadExecutor.submit(loader);
+	}
+	
+	private static Future<Storage> loadStorage(int playerObjId, StorageType storageType)
+	{
+		return load(() ->
+		{
+			final Storage storage = DAOManager.getDAO(InventoryDAO.class).loadStorage(playerObjId, storageType);
+			ItemService.loadItemStones(storage.getItems());
+			return storage;
+		});
+	}
+	
+	/**
+	 * @param future
+	 * @return result of a load, rethrowing what the loader threw
+	 */
+	private static <T> T await(Future<T> future)
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading player", e);
+		}
+		catch (ExecutionException e)
+		{
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Error while loading player", cause);
+		}
+	}
+	
 	public static Player newPlayer(PlayerCommonData playerCommonData, PlayerAppearance playerAppearance, Account account)
 	{
 		final PlayerInitialData playerInitialData = DataManager.PLAYER_INITIAL_DATA;
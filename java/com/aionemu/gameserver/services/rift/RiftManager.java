@@ -44,7 +44,7 @@ public class RiftManager
 	private static List<Npc> rifts = new ArrayList<>();
 	private static Map<String, SpawnTemplate> riftGroups = new HashMap<>();
 	
-	public static void addRiftSpawnTemplate(SpawnGroup2 spawn)
+	public static synchronized void addRiftSpawnTemplate(SpawnGroup2 spawn)
 	{
 		if (spawn.hasPool())
 		{
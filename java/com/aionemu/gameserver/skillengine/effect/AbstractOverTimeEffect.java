@@ -73,7 +73,7 @@ public abstract class AbstractOverTimeEffect extends EffectTemplate
 		}
 		try
 		{
-			final Future<?> task = ThreadPoolManager.getInstance().scheduleAtFixedRate(new Runnable()
+			final Future<?> task = ThreadPoolManager.getInstance().scheduleTimerAtFixedRate(new Runnable()
 			{
 				
 				@Override
@@ -110,7 +110,7 @@ public class AuraEffect extends EffectTemplate
 	@Override
 	public void startEffect(Effect effect)
 	{
-		effect.setPeriodicTask(ThreadPoolManager.getInstance().scheduleAtFixedRate(new AuraTask(effect), 0, 6500), position);
+		effect.setPeriodicTask(ThreadPoolManager.getInstance().scheduleTimerAtFixedRate(new AuraTask(effect), 0, 6500), position);
 	}
 	
 	private class AuraTask implements Runnable
@@ -61,7 +61,7 @@ public class DelayedFPAttackInstantEffect extends EffectTemplate
 		final Player effected = (Player) effect.getEffected();
 		final int newValue = effect.getReserved2();
 		
-		ThreadPoolManager.getInstance().schedule(new Runnable()
+		ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 		{
 			@Override
 			public void run()
@@ -45,7 +45,7 @@ public class DelayedFpAtkInstantEffect extends EffectTemplate
 	@Override
 	public void applyEffect(Effect effect)
 	{
-		ThreadPoolManager.getInstance().schedule(() ->
+		ThreadPoolManager.getInstance().scheduleTimer(() ->
 		{
 			if (effect.getEffector().isEnemy(effect.getEffected()))
 			{
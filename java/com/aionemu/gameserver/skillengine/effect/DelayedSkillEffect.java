@@ -46,7 +46,7 @@ public class DelayedSkillEffect extends EffectTemplate
 	@Override
 	public void startEffect(Effect effect)
 	{
-		ThreadPoolManager.getInstance().schedule(new Runnable()
+		ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 		{
 			@Override
 			public void run()
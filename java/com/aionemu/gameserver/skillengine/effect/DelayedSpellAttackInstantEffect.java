@@ -41,7 +41,7 @@ public class DelayedSpellAttackInstantEffect extends DamageEffect
 	@Override
 	public void applyEffect(Effect effect)
 	{
-		ThreadPoolManager.getInstance().schedule(() ->
+		ThreadPoolManager.getInstance().scheduleTimer(() ->
 		{
 			if (effect.getEffector().isEnemy(effect.getEffected()))
 			{
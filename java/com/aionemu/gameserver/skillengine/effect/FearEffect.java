@@ -87,7 +87,7 @@ public class FearEffect extends EffectTemplate
 		}
 		if (GeoDataConfig.FEAR_ENABLE)
 		{
-			final ScheduledFuture<?> fearTask = ThreadPoolManager.getInstance().scheduleAtFixedRate(new FearTask(effector, effected), 0, 1000);
+			final ScheduledFuture<?> fearTask = ThreadPoolManager.getInstance().scheduleTimerAtFixedRate(new FearTask(effector, effected), 0, 1000);
 			effect.setPeriodicTask(fearTask, position);
 		}
 		
@@ -97,7 +97,7 @@ public class HideEffect extends BuffEffect
 		
 		PacketSendUtility.broadcastPacketAndReceive(effected, new SM_PLAYER_STATE(effected));
 		
-		ThreadPoolManager.getInstance().schedule(new Runnable()
+		ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 		{
 			
 			@Override
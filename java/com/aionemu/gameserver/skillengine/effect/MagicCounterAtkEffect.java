@@ -64,7 +64,7 @@ public class MagicCounterAtkEffect extends EffectTemplate
 			@Override
 			public void skilluse(Skill skill)
 			{
-				ThreadPoolManager.getInstance().schedule(new Runnable()
+				ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 				{
 					
 					@Override
@@ -53,7 +53,7 @@ public class SummonEffect extends EffectTemplate
 		{
 			final Player effector = (Player) effect.getEffected();
 			final Summon summon = effector.getSummon();
-			final Future<?> task = ThreadPoolManager.getInstance().schedule(new Runnable()
+			final Future<?> task = ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 			{
 				
 				@Override
@@ -43,7 +43,7 @@ public class SummonFunctionalNpcEffect extends SummonEffect
 		final Player effected = (Player) effect.getEffected();
 		final Npc functionalNpc = VisibleObjectSpawner.spawnFunctionalNpc(effected, npcId, owner);
 		
-		ThreadPoolManager.getInstance().schedule(new Runnable()
+		ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 		{
 			@Override
 			public void run()
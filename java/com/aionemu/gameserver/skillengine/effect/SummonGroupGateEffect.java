@@ -52,7 +52,7 @@ public class SummonGroupGateEffect extends SummonEffect
 		final SpawnTemplate spawn = SpawnEngine.addNewSingleTimeSpawn(worldId, npcId, x, y, z, heading);
 		final GroupGate groupgate = VisibleObjectSpawner.spawnGroupGate(spawn, instanceId, effector);
 		
-		final Future<?> task = ThreadPoolManager.getInstance().schedule(new Runnable()
+		final Future<?> task = ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 		{
 			@Override
 			public void run()
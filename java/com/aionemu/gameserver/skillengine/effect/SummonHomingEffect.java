@@ -85,7 +85,7 @@ public class SummonHomingEffect extends SummonEffect
 				effect.setActionObserver(observer, position);
 			}
 			// Schedule a despawn just in case
-			final Future<?> task = ThreadPoolManager.getInstance().schedule(new Runnable()
+			final Future<?> task = ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 			{
 				
 				@Override
@@ -91,7 +91,7 @@ public class SummonServantEffect extends SummonEffect
 		final SpawnTemplate spawn = SpawnEngine.addNewSingleTimeSpawn(worldId, npcId, x, y, z, heading);
 		final Servant servant = VisibleObjectSpawner.spawnServant(spawn, instanceId, effector, skillId, effect.getSkillLevel(), npcObjectType);
 		
-		final Future<?> task = ThreadPoolManager.getInstance().schedule(() -> servant.getController().onDelete(), time * 1000);
+		final Future<?> task = ThreadPoolManager.getInstance().scheduleTimer(() -> servant.getController().onDelete(), time * 1000);
 		servant.getController().addTask(TaskId.DESPAWN, task);
 		servant.getAi2().onCreatureEvent(AIEventType.ATTACK, target != null ? target : effected);
 		return servant;
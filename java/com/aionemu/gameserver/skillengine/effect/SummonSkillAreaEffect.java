@@ -123,7 +123,7 @@ public class SummonSkillAreaEffect extends SummonServantEffect
 		}
 		final Servant servant = spawnServant(effect, useTime, NpcObjectType.SKILLAREA, x, y, z);
 		final int finalSkillId = servant.getSkillList() != null ? servant.getSkillList().getRandomSkill().getSkillId() : 0;
-		final Future<?> task = ThreadPoolManager.getInstance().scheduleAtFixedRate(new Runnable()
+		final Future<?> task = ThreadPoolManager.getInstance().scheduleTimerAtFixedRate(new Runnable()
 		{
 			@Override
 			public void run()
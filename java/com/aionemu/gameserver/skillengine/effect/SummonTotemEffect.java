@@ -73,7 +73,7 @@ public class SummonTotemEffect extends SummonServantEffect
 				final int instanceId = effector.getInstanceId();
 				final SpawnTemplate spawn = SpawnEngine.addNewSingleTimeSpawn(worldId, npcId, x, y, z, heading);
 				final Servant servant = VisibleObjectSpawner.spawnServant(spawn, instanceId, effector, effect.getSkillId(), effect.getSkillLevel(), NpcObjectType.SKILLAREA);
-				final Future<?> task = ThreadPoolManager.getInstance().schedule(new Runnable()
+				final Future<?> task = ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 				{
 					@Override
 					public void run()
@@ -74,7 +74,7 @@ public class SummonTrapEffect extends SummonEffect
 		maxTraps(effector);
 		final SpawnTemplate spawn = SpawnEngine.addNewSingleTimeSpawn(worldId, npcId, x, y, z, heading);
 		final Trap trap = VisibleObjectSpawner.spawnTrap(spawn, instanceId, effector);
-		final Future<?> task = ThreadPoolManager.getInstance().schedule(new Runnable()
+		final Future<?> task = ThreadPoolManager.getInstance().scheduleTimer(new Runnable()
 		{
 			@Override
 			public void run()
@@ -944,7 +944,7 @@ public class Effect implements StatOwner
 			duration = skillTemplate.getDuration();
 		}
 		endTime = System.currentTimeMillis() + duration;
-		task = ThreadPoolManager.getInstance().schedule(() -> endEffect(), duration);
+		task = ThreadPoolManager.getInstance().scheduleTimer(() -> endEffect(), duration);
 	}
 	
 	/**
@@ -1176,7 +1176,7 @@ public class Effect implements StatOwner
 			return;
 		}
 		final int checktime = periodicActions.getChecktime();
-		periodicActionsTask = ThreadPoolManager.getInstance().scheduleAtFixedRate(() ->
+		periodicActionsTask = ThreadPoolManager.getInstance().scheduleTimerAtFixedRate(() ->
 		{
 			for (PeriodicAction action : periodicActions.getPeriodicActions())
 			{
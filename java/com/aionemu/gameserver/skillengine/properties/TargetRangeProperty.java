@@ -68,7 +68,20 @@ public class TargetRangeProperty
 				}
 				// Create a sorted map of the objects in knownlist
 				// and filter them properly
-				for (VisibleObject nextCreature : firstTarget.getKnownList().getKnownObjects().values())
+				final List<VisibleObject> candidates;
+				if (skill.isPointSkill())
+				{
+					candidates = firstTarget.getKnownList().getKnownObjectsInRange(skill.getX(), skill.getY(), distance + 1);
+				}
+				else if (properties.getEffectiveWidth() > 0)
+				{
+					candidates = firstTarget.getKnownList().getKnownObjectsInRange(firstTarget.getX(), firstTarget.getY(), distance + properties.getEffectiveWidth() + 1);
+				}
+				else
+				{
+					candidates = firstTarget.getKnownList().getKnownObjectsInRange(firstTarget.getX(), firstTarget.getY(), distance + firstTarget.getObjectTemplate().getBoundRadius().getCollision() + 1);
+				}
+				for (VisibleObject nextCreature : candidates)
 				{
 					if (((nextCreature instanceof Creature)) && (firstTarget != nextCreature) && (((Creature) nextCreature).getLifeStats() != null) && (!((Creature) nextCreature).getLifeStats().isAlreadyDead()) && ((!(skill.getEffector() instanceof Trap)) || (((Trap) skill.getEffector()).getCreator() != nextCreature)) && ((!(nextCreature instanceof Player)) || (!((Player) nextCreature).isProtectionActive())))
 					{
@@ -230,7 +243,7 @@ public class TargetRangeProperty
 			}
 			case POINT:
 			{
-				for (VisibleObject nextCreature : skill.getEffector().getKnownList().getKnownObjects().values())
+				for (VisibleObject nextCreature : skill.getEffector().getKnownList().getKnownObjectsInRange(skill.getX(), skill.getY(), distance + 2))
 				{
 					if (!(nextCreature instanceof Creature))
 					{
@@ -0,0 +1,155 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.spawnengine;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aionemu.gameserver.ai2.AIState;
+import com.aionemu.gameserver.model.gameobjects.Npc;
+import com.aionemu.gameserver.model.gameobjects.VisibleObject;
+import com.aionemu.gameserver.model.templates.spawns.SpawnGroup2;
+import com.aionemu.gameserver.model.templates.spawns.SpawnTemplate;
+import com.aionemu.gameserver.utils.idfactory.IDFactory;
+import com.aionemu.gameserver.world.MapRegion;
+import com.aionemu.gameserver.world.World;
+import com.aionemu.gameserver.world.WorldMapInstance;
+
+/**
+ * Lazy spawning of open world npcs (see {@link com.aionemu.gameserver.configs.main.WorldConfig#WORLD_LAZY_SPAWN}).<br>
+ * Spawn templates of plain npc groups are parked in the {@link MapRegion} of their spawn point, npcs are created when the region activates. After long deactivation npcs which are idle at
+ * full hp are taken out of world again. Dead npcs are never parked, their respawn (and drop) is handled as usual and the respawned npc may be parked later.
+ */
+public class LazySpawnEngine
+{
+	private static final Logger log = LoggerFactory.getLogger(LazySpawnEngine.class);
+	
+	/**
+	 * @param spawn
+	 * @return true if npcs of the group may be kept out of world while their region is inactive
+	 */
+	static boolean canSpawnLazily(SpawnGroup2 spawn)
+	{
+		final int npcId = spawn.getNpcId();
+		if ((spawn.getHandlerType() != null) || spawn.isTemporarySpawn() || ((npcId > 400000) && (npcId < 499999)))
+		{
+			return false;
+		}
+		for (SpawnTemplate template : spawn.getSpawnTemplates())
+		{
+			if ((template.getClass() != SpawnTemplate.class) || template.isEventSpawn() || (template.getWalkerId() != null))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Parks spawn in the region of its spawn point unless the region is active.
+	 * @param spawn
+	 * @param instanceId
+	 * @return true if spawn was parked, false if it must be spawned now
+	 */
+	static boolean park(SpawnTemplate spawn, int instanceId)
+	{
+		final MapRegion region = getSpawnRegion(spawn, instanceId);
+		if ((region == null) || region.isRegionActive())
+		{
+			return false;
+		}
+		region.addParkedSpawn(spawn);
+		// region could activate meanwhile
+		if (region.isRegionActive())
+		{
+			materialize(region);
+		}
+		return true;
+	}
+	
+	/**
+	 * Spawns all spawns parked in region.
+	 * @param region
+	 */
+	public static void materialize(MapRegion region)
+	{
+		final List<SpawnTemplate> spawns = region.takeParkedSpawns();
+		if (spawns == null)
+		{
+			return;
+		}
+		final int instanceId = region.getParent().getInstanceId();
+		for (SpawnTemplate spawn : spawns)
+		{
+			SpawnEngine.spawnObject(spawn, instanceId);
+		}
+		log.debug("Spawned {} parked npcs in map {} region {}", spawns.size(), region.getMapId(), region.getRegionId());
+	}
+	
+	/**
+	 * Takes idle lazy spawned npcs of inactive region out of world and parks their spawns.
+	 * @param region
+	 */
+	public static void parkObjects(MapRegion region)
+	{
+		int parked = 0;
+		for (VisibleObject object : region.getObjects().values())
+		{
+			if (!(object instanceof Npc))
+			{
+				continue;
+			}
+			final Npc npc = (Npc) object;
+			final SpawnTemplate spawn = npc.getSpawn();
+			if ((spawn == null) || !spawn.isLazySpawn() || !isIdle(npc) || (getSpawnRegion(spawn, npc.getInstanceId()) != region))
+			{
+				continue;
+			}
+			npc.getController().onDelete();
+			IDFactory.getInstance().releaseId(npc.getObjectId());
+			region.addParkedSpawn(spawn);
+			parked++;
+		}
+		// region could activate meanwhile
+		if (region.isRegionActive())
+		{
+			materialize(region);
+		}
+		else if (parked > 0)
+		{
+			log.debug("Parked {} npcs in map {} region {}", parked, region.getMapId(), region.getRegionId());
+		}
+	}
+	
+	private static boolean isIdle(Npc npc)
+	{
+		if (!npc.isSpawned() || npc.isDeleteDelayed() || npc.getLifeStats().isAlreadyDead() || !npc.getLifeStats().isFullyRestoredHp() || !npc.getAggroList().getList().isEmpty())
+		{
+			return false;
+		}
+		final AIState state = npc.getAi2().getState();
+		return (state == AIState.IDLE) || (state == AIState.WALKING);
+	}
+	
+	private static MapRegion getSpawnRegion(SpawnTemplate spawn, int instanceId)
+	{
+		final WorldMapInstance instance = World.getInstance().getWorldMap(spawn.getWorldId()).getWorldMapInstanceById(instanceId);
+		return instance != null ? instance.getRegion(spawn.getX(), spawn.getY(), spawn.getZ()) : null;
+	}
+}
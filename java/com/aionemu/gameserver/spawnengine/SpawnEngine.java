@@ -16,12 +16,20 @@
  */
 package com.aionemu.gameserver.spawnengine;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.aionemu.commons.utils.concurrent.PriorityThreadFactory;
 import com.aionemu.gameserver.configs.administration.DeveloperConfig;
+import com.aionemu.gameserver.configs.main.GSConfig;
+import com.aionemu.gameserver.configs.main.WorldConfig;
 import com.aionemu.gameserver.dataholders.DataManager;
 import com.aionemu.gameserver.model.gameobjects.Gatherable;
 import com.aionemu.gameserver.model.gameobjects.Npc;
@@ -279,7 +287,8 @@ public class SpawnEngine
 	}
 	
 	/**
-	 * Spawn all NPC's from templates
+	 * Spawn all NPC's from templates.<br>
+	 * Every world map (with its twins) is spawned by its own task, so objects spawned concurrently never share a map region.
 	 */
 	public static void spawnAll()
 	{
@@ -288,14 +297,56 @@ public class SpawnEngine
 			log.info("Spawns are disabled");
 			return;
 		}
+		final List<WorldMapTemplate> worldMaps = new ArrayList<>();
 		for (WorldMapTemplate worldMapTemplate : DataManager.WORLD_MAPS_DATA)
 		{
-			if (worldMapTemplate.isInstance())
+			if (!worldMapTemplate.isInstance())
 			{
-				continue;
+				worldMaps.add(worldMapTemplate);
 			}
-			spawnBasedOnTemplate(worldMapTemplate);
 		}
+		final int threads = Math.min(GSConfig.SPAWN_THREADS > 0 ? GSConfig.SPAWN_THREADS : Runtime.getRuntime().availableProcessors(), Math.max(worldMaps.size(), 1));
+		final long start = System.currentTimeMillis();
+		if (threads > 1)
+		{
+			final ExecutorService pool = Executors.newFixedThreadPool(threads, new PriorityThreadFactory("SpawnEngine", Thread.NORM_PRIORITY));
+			try
+			{
+				final List<Future<?>> tasks = new ArrayList<>(worldMaps.size());
+				for (WorldMapTemplate worldMapTemplate : worldMaps)
+				{
+					tasks.add(pool.submit(() -> spawnBasedOnTemplate(worldMapTemplate)));
+				}
+				for (int i = 0; i < tasks.size(); i++)
+				{
+					try
+					{
+						tasks.get(i).get();
+					}
+					catch (ExecutionException e)
+					{
+						throw new Error("Error while spawning world " + worldMaps.get(i).getMapId(), e.getCause());
+					}
+					catch (InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+						throw new Error("Interrupted while spawning worlds", e);
+					}
+				}
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+		}
+		else
+		{
+			for (WorldMapTemplate worldMapTemplate : worldMaps)
+			{
+				spawnBasedOnTemplate(worldMapTemplate);
+			}
+		}
+		log.info("Spawned " + worldMaps.size() + " worlds in " + (System.currentTimeMillis() - start) + " ms using " + threads + " thread(s)");
 		DataManager.SPAWNS_DATA2.clearTemplates();
 		printWorldSpawnStats();
 	}
@@ -321,10 +372,12 @@ public class SpawnEngine
 		final int mapId = worldMapTemplate.getMapId();
 		final int numberToSpawn = maxTwin > 0 ? maxTwin : 1;
 		
+		final long start = System.currentTimeMillis();
 		for (int instanceId = 1; instanceId <= numberToSpawn; instanceId++)
 		{
 			spawnInstance(mapId, instanceId, 0);
 		}
+		log.info("Spawned world " + mapId + " (" + numberToSpawn + " instance(s)) in " + (System.currentTimeMillis() - start) + " ms");
 	}
 	
 	public static void spawnInstance(int worldId, int instanceId, int difficultId)
@@ -343,7 +396,9 @@ public class SpawnEngine
 		final List<SpawnGroup2> worldSpawns = DataManager.SPAWNS_DATA2.getSpawnsByWorldId(worldId);
 		final WorldMapTemplate worldTemplate = DataManager.WORLD_MAPS_DATA.getTemplate(worldId);
 		StaticDoorSpawnManager.spawnTemplate(worldId, instanceId);
+		final boolean lazySpawn = WorldConfig.WORLD_LAZY_SPAWN && !worldTemplate.isInstance();
 		int spawnedCounter = 0;
+		int parkedCounter = 0;
 		if (worldSpawns != null)
 		{
 			for (SpawnGroup2 spawn : worldSpawns)
@@ -382,31 +437,49 @@ public class SpawnEngine
 						}
 					}
 				}
-				else if (spawn.hasPool() && checkPool(spawn))
+				else
 				{
-					for (int i = 0; i < spawn.getPool(); i++)
+					final boolean lazy = lazySpawn && LazySpawnEngine.canSpawnLazily(spawn);
+					if (lazy)
 					{
-						final SpawnTemplate template = spawn.getRndTemplate(instanceId);
-						if (template == null)
+						spawn.setLazySpawn(true);
+					}
+					if (spawn.hasPool() && checkPool(spawn))
+					{
+						for (int i = 0; i < spawn.getPool(); i++)
 						{
-							break;
+							final SpawnTemplate template = spawn.getRndTemplate(instanceId);
+							if (template == null)
+							{
+								break;
+							}
+							if (lazy && LazySpawnEngine.park(template, instanceId))
+							{
+								parkedCounter++;
+								continue;
+							}
+							spawnObject(template, instanceId);
+							spawnedCounter++;
 						}
-						spawnObject(template, instanceId);
-						spawnedCounter++;
 					}
-				}
-				else
-				{
-					for (SpawnTemplate template : spawn.getSpawnTemplates())
+					else
 					{
-						spawnObject(template, instanceId);
-						spawnedCounter++;
+						for (SpawnTemplate template : spawn.getSpawnTemplates())
+						{
+							if (lazy && LazySpawnEngine.park(template, instanceId))
+							{
+								parkedCounter++;
+								continue;
+							}
+							spawnObject(template, instanceId);
+							spawnedCounter++;
+						}
 					}
 				}
 			}
 			WalkerFormator.organizeAndSpawn(worldId, instanceId);
 		}
-		log.info("Spawned " + worldId + " [" + instanceId + "] : " + spawnedCounter);
+		log.info("Spawned " + worldId + " [" + instanceId + "] : " + spawnedCounter + (parkedCounter > 0 ? ", parked until region activates: " + parkedCounter : ""));
 		HousingService.getInstance().spawnHouses(worldId, instanceId, ownerId);
 	}
 	
@@ -16,6 +16,8 @@
  */
 package com.aionemu.gameserver.spawnengine;
 
+import java.util.List;
+
 import com.aionemu.gameserver.controllers.StaticObjectController;
 import com.aionemu.gameserver.dataholders.DataManager;
 import com.aionemu.gameserver.model.gameobjects.StaticObject;
@@ -47,10 +49,10 @@ public class StaticObjectSpawnManager
 		if (spawn.hasPool())
 		{
 			spawn.resetTemplates(instanceIndex);
-			for (int i = 0; i < spawn.getPool(); i++)
+			final int[] objectIds = IDFactory.getInstance().nextIds(spawn.getPool());
+			for (int objectId : objectIds)
 			{
 				final SpawnTemplate template = spawn.getRndTemplate(instanceIndex);
-				final int objectId = IDFactory.getInstance().nextId();
 				final StaticObject staticObject = new StaticObject(objectId, new StaticObjectController(), template, objectTemplate);
 				staticObject.setKnownlist(new PlayerAwareKnownList(staticObject));
 				bringIntoWorld(staticObject, template, instanceIndex);
@@ -58,9 +60,12 @@ public class StaticObjectSpawnManager
 		}
 		else
 		{
-			for (SpawnTemplate template : spawn.getSpawnTemplates())
+			final List<SpawnTemplate> templates = spawn.getSpawnTemplates();
+			final int[] objectIds = IDFactory.getInstance().nextIds(templates.size());
+			for (int i = 0; i < objectIds.length; i++)
 			{
-				final int objectId = IDFactory.getInstance().nextId();
+				final SpawnTemplate template = templates.get(i);
+				final int objectId = objectIds[i];
 				final StaticObject staticObject = new StaticObject(objectId, new StaticObjectController(), template, objectTemplate);
 				staticObject.setKnownlist(new PlayerAwareKnownList(staticObject));
 				bringIntoWorld(staticObject, template, instanceIndex);
@@ -120,7 +120,7 @@ public class TemporarySpawnEngine
 	 * @param spawn
 	 * @param instanceId
 	 */
-	public static void addSpawnGroup(SpawnGroup2 spawn, int instanceId)
+	public static synchronized void addSpawnGroup(SpawnGroup2 spawn, int instanceId)
 	{
 		temporarySpawns.add(spawn);
 		HashSet<Integer> instances = tempSpawnInstanceMap.get(spawn);
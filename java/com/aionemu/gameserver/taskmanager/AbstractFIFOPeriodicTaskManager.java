@@ -69,7 +69,8 @@ public abstract class AbstractFIFOPeriodicTaskManager<T>extends AbstractPeriodic
 		
 		for (T task; (task = activeTasks.removeFirst()) != null;)
 		{
-			final long begin = System.nanoTime();
+			final boolean sampled = RunnableStatsManager.isSampled();
+			final long begin = sampled ? System.nanoTime() : 0;
 			
 			try
 			{
@@ -81,7 +82,10 @@ public abstract class AbstractFIFOPeriodicTaskManager<T>extends AbstractPeriodic
 			}
 			finally
 			{
-				RunnableStatsManager.handleStats(task.getClass(), getCalledMethodName(), System.nanoTime() - begin);
+				if (sampled)
+				{
+					RunnableStatsManager.handleStats(task.getClass(), getCalledMethodName(), System.nanoTime() - begin);
+				}
 			}
 		}
 	}
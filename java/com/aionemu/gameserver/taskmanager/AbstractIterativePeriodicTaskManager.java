@@ -106,7 +106,8 @@ public abstract class AbstractIterativePeriodicTaskManager<T>extends AbstractPer
 		for (FastSet.Record r = activeTasks.head(), end = activeTasks.tail(); (r = r.getNext()) != end;)
 		{
 			final T task = activeTasks.valueOf(r);
-			final long begin = System.nanoTime();
+			final boolean sampled = RunnableStatsManager.isSampled();
+			final long begin = sampled ? System.nanoTime() : 0;
 			
 			try
 			{
@@ -118,7 +119,10 @@ public abstract class AbstractIterativePeriodicTaskManager<T>extends AbstractPer
 			}
 			finally
 			{
-				RunnableStatsManager.handleStats(task.getClass(), getCalledMethodName(), System.nanoTime() - begin);
+				if (sampled)
+				{
+					RunnableStatsManager.handleStats(task.getClass(), getCalledMethodName(), System.nanoTime() - begin);
+				}
 			}
 		}
 	}
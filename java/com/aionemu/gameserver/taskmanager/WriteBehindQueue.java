@@ -0,0 +1,313 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.taskmanager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aionemu.commons.utils.concurrent.PriorityThreadFactory;
+
+/**
+ * Runs save tasks on dedicated writer threads, so blocking database work doesn't hold up scheduler threads.<br>
+ * Saves are queued under a key. While a save is waiting, another save with an equal key replaces it instead of queueing again, so an entity that is saved repeatedly is
+ * written once with its latest state. Equal keys always go to the same writer, which keeps saves of one entity in order and never runs them concurrently.<br>
+ * Queues are bounded. When the queue of a writer is full, the caller waits for room rather than running the save itself, which could overlap with the writer saving the same
+ * entity.
+ */
+public class WriteBehindQueue
+{
+	private static final Logger log = LoggerFactory.getLogger(WriteBehindQueue.class);
+	
+	private static final Object SHUTDOWN = new Object();
+	
+	private final String name;
+	private final Writer[] writers;
+	private final ConcurrentHashMap<Object, PendingSave> pending = new ConcurrentHashMap<>();
+	/** Serializes the saves run outside the writers once they are stopped */
+	private final Object drainLock = new Object();
+	private volatile boolean shutdown;
+	
+	private final AtomicLong queued = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong overflowed = new AtomicLong();
+	private final AtomicLong executed = new AtomicLong();
+	private final AtomicLong totalLatency = new AtomicLong();
+	private final AtomicLong maxLatency = new AtomicLong();
+	
+	/**
+	 * @param name name of the writer threads
+	 * @param threads number of writer threads
+	 * @param capacity maximum number of waiting saves, split between writers
+	 */
+	public WriteBehindQueue(String name, int threads, int capacity)
+	{
+		this.name = name;
+		writers = new Writer[Math.max(1, threads)];
+		final PriorityThreadFactory factory = new PriorityThreadFactory(name, Thread.NORM_PRIORITY);
+		for (int i = 0; i < writers.length; i++)
+		{
+			writers[i] = new Writer(Math.max(1, capacity / writers.length));
+			final Thread thread = factory.newThread(writers[i]);
+			writers[i].thread = thread;
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+	
+	/**
+	 * Queues save, replacing a save with an equal key that is still waiting.
+	 * @param key identifies the saved entity
+	 * @param save
+	 */
+	public void queue(Object key, Runnable save)
+	{
+		final PendingSave newSave = new PendingSave(save);
+		final PendingSave oldSave = pending.put(key, newSave);
+		if (oldSave != null)
+		{
+			// still waiting, keep its place in the queue
+			newSave.queueTime = oldSave.queueTime;
+			coalesced.incrementAndGet();
+		}
+		else if (!shutdown)
+		{
+			final Writer writer = getWriter(key);
+			if (!writer.queue.offer(key))
+			{
+				overflowed.incrementAndGet();
+				waitForRoom(writer, key);
+			}
+			queued.incrementAndGet();
+		}
+		if (shutdown)
+		{
+			// the writers may have stopped before taking the key, run it once they are done
+			awaitWriters();
+			synchronized (drainLock)
+			{
+				runPending(key);
+			}
+		}
+	}
+	
+	/**
+	 * Puts key in the queue of writer, waiting for room until the queue is shut down.
+	 */
+	private void waitForRoom(Writer writer, Object key)
+	{
+		boolean interrupted = false;
+		while (!shutdown)
+		{
+			try
+			{
+				if (writer.queue.offer(key, 1, TimeUnit.SECONDS))
+				{
+					break;
+				}
+			}
+			catch (InterruptedException e)
+			{
+				// the key must get into the queue, it would never be saved otherwise
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Waits for the writers to stop, saves run afterwards can't overlap with theirs.
+	 */
+	private void awaitWriters()
+	{
+		boolean interrupted = false;
+		for (Writer writer : writers)
+		{
+			while ((writer.thread != Thread.currentThread()) && writer.thread.isAlive())
+			{
+				try
+				{
+					writer.thread.join();
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private void runPending(Object key)
+	{
+		final PendingSave save = pending.remove(key);
+		if (save != null)
+		{
+			execute(save.save, save.queueTime);
+		}
+	}
+	
+	private Writer getWriter(Object key)
+	{
+		return writers[(key.hashCode() & Integer.MAX_VALUE) % writers.length];
+	}
+	
+	private void execute(Runnable save, long queueTime)
+	{
+		final long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queueTime);
+		try
+		{
+			save.run();
+		}
+		catch (Throwable t)
+		{
+			log.error("Exception in " + name + " save", t);
+		}
+		executed.incrementAndGet();
+		totalLatency.addAndGet(latency);
+		long max;
+		while (latency > (max = maxLatency.get()))
+		{
+			if (maxLatency.compareAndSet(max, latency))
+			{
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Stops accepting saves, runs every waiting save and waits for the writers to finish. Saves queued afterwards run on the caller, one at a time.
+	 */
+	public void shutdown()
+	{
+		shutdown = true;
+		log.info(name + ": writing " + getBacklog() + " pending saves...");
+		for (Writer writer : writers)
+		{
+			boolean added = false;
+			while (!added)
+			{
+				try
+				{
+					writer.queue.put(SHUTDOWN);
+					added = true;
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		awaitWriters();
+		// saves that raced with the shutdown flag
+		synchronized (drainLock)
+		{
+			for (Object key : pending.keySet())
+			{
+				runPending(key);
+			}
+		}
+		log.info(toString());
+	}
+	
+	/**
+	 * @return number of saves waiting
+	 */
+	public int getBacklog()
+	{
+		return pending.size();
+	}
+	
+	/**
+	 * @return average time in ms between queueing a save and running it
+	 */
+	public long getAverageLatency()
+	{
+		final long count = executed.get();
+		return count == 0 ? 0 : totalLatency.get() / count;
+	}
+	
+	public long getMaxLatency()
+	{
+		return maxLatency.get();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return name + ": backlog " + getBacklog() + ", queued " + queued.get() + ", coalesced " + coalesced.get() + ", waited for room " + overflowed.get() + ", executed " + executed.get() + ", latency avg " + getAverageLatency() + " ms, max " + getMaxLatency() + " ms";
+	}
+	
+	private static class PendingSave
+	{
+		final Runnable save;
+		long queueTime = System.nanoTime();
+		
+		PendingSave(Runnable save)
+		{
+			this.save = save;
+		}
+	}
+	
+	private class Writer implements Runnable
+	{
+		final BlockingQueue<Object> queue;
+		Thread thread;
+		
+		Writer(int capacity)
+		{
+			queue = new ArrayBlockingQueue<>(capacity);
+		}
+		
+		@Override
+		public void run()
+		{
+			while (true)
+			{
+				final Object key;
+				try
+				{
+					key = queue.take();
+				}
+				catch (InterruptedException e)
+				{
+					continue;
+				}
+				if (key == SHUTDOWN)
+				{
+					return;
+				}
+				final PendingSave save = pending.remove(key);
+				if (save != null)
+				{
+					execute(save.save, save.queueTime);
+				}
+			}
+		}
+	}
+}
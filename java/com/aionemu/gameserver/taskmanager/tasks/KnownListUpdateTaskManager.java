@@ -0,0 +1,168 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.taskmanager.tasks;
+
+import static com.aionemu.gameserver.taskmanager.parallel.ForEach.forEach;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aionemu.commons.utils.collections.ConcurrentIntObjectMap;
+import com.aionemu.commons.utils.internal.chmv8.ForkJoinTask;
+import com.aionemu.gameserver.configs.main.WorldConfig;
+import com.aionemu.gameserver.model.gameobjects.VisibleObject;
+import com.aionemu.gameserver.taskmanager.AbstractPeriodicTaskManager;
+import com.aionemu.gameserver.utils.ThreadPoolManager;
+import com.aionemu.gameserver.world.knownlist.KnownList;
+import com.google.common.base.Predicate;
+
+/**
+ * Batches known list updates caused by movement.<br>
+ * Moved objects are only marked dirty, every tick the ones which moved farther than {@link WorldConfig#WORLD_KNOWNLIST_UPDATE_DISTANCE} or weren't updated for
+ * {@link WorldConfig#WORLD_KNOWNLIST_UPDATE_DELAY} ms are updated in parallel on the forking pool, the others wait for a later tick.
+ */
+public class KnownListUpdateTaskManager extends AbstractPeriodicTaskManager
+{
+	public static final int UPDATE_PERIOD = 100;
+	
+	private final ConcurrentIntObjectMap<VisibleObject> dirtyObjects = new ConcurrentIntObjectMap<>();
+	
+	private final AtomicInteger tickUpdates = new AtomicInteger();
+	private final AtomicLong tickUpdateTime = new AtomicLong();
+	
+	private volatile long ticks;
+	private volatile long updates;
+	private volatile long deferred;
+	private volatile long updateTime;
+	private volatile long maxTickTime;
+	private volatile int lastTickUpdates;
+	private volatile long lastTickTime;
+	
+	private final Predicate<VisibleObject> UPDATE_PREDICATE = object ->
+	{
+		final long begin = System.nanoTime();
+		object.updateKnownlist();
+		tickUpdateTime.addAndGet(System.nanoTime() - begin);
+		tickUpdates.incrementAndGet();
+		return true;
+	};
+	
+	KnownListUpdateTaskManager()
+	{
+		super(UPDATE_PERIOD);
+	}
+	
+	/**
+	 * Updates the known list of moved object right away if throttling is disabled, otherwise on one of the next ticks.
+	 * @param object
+	 */
+	public void onMove(VisibleObject object)
+	{
+		if (WorldConfig.WORLD_KNOWNLIST_UPDATE_DELAY <= 0)
+		{
+			object.updateKnownlist();
+			return;
+		}
+		object.getKnownList().markDirty();
+		dirtyObjects.put(object.getObjectId(), object);
+	}
+	
+	@Override
+	public void run()
+	{
+		final long begin = System.nanoTime();
+		final long now = System.currentTimeMillis();
+		final List<VisibleObject> due = new ArrayList<>();
+		int waiting = 0;
+		for (VisibleObject object : dirtyObjects.values())
+		{
+			if (object == null)
+			{
+				continue;
+			}
+			final KnownList knownList = object.getKnownList();
+			if (!object.isSpawned() || !knownList.isDirty())
+			{
+				dirtyObjects.remove(object.getObjectId());
+				// marked again meanwhile
+				if (object.isSpawned() && knownList.isDirty())
+				{
+					dirtyObjects.put(object.getObjectId(), object);
+				}
+				continue;
+			}
+			if (knownList.isUpdateDue(now, WorldConfig.WORLD_KNOWNLIST_UPDATE_DELAY, WorldConfig.WORLD_KNOWNLIST_UPDATE_DISTANCE))
+			{
+				// removed first, so a move during the update marks it for the next tick
+				dirtyObjects.remove(object.getObjectId());
+				knownList.clearDirty();
+				due.add(object);
+			}
+			else
+			{
+				waiting++;
+			}
+		}
+		
+		tickUpdates.set(0);
+		tickUpdateTime.set(0);
+		final ForkJoinTask<VisibleObject> task = forEach(due, UPDATE_PREDICATE);
+		if (task != null)
+		{
+			ThreadPoolManager.getInstance().getForkingPool().invoke(task);
+		}
+		
+		final long tickTime = System.nanoTime() - begin;
+		ticks++;
+		updates += tickUpdates.get();
+		deferred += waiting;
+		updateTime += tickUpdateTime.get();
+		lastTickUpdates = tickUpdates.get();
+		lastTickTime = tickTime;
+		if (tickTime > maxTickTime)
+		{
+			maxTickTime = tickTime;
+		}
+	}
+	
+	public List<String> getStats()
+	{
+		final List<String> list = new ArrayList<>();
+		list.add("Known list update scheduler:");
+		list.add("=================================================");
+		list.add("\tdirty objects: ....... " + dirtyObjects.size());
+		list.add("\tticks: ............... " + ticks);
+		list.add("\tupdates: ............. " + updates + " (" + (ticks == 0 ? 0 : updates / ticks) + " per tick)");
+		list.add("\tdeferred: ............ " + deferred);
+		list.add("\tupdate cpu time: ..... " + (updateTime / 1000000) + " ms (" + (updates == 0 ? 0 : updateTime / updates / 1000) + " us per update)");
+		list.add("\tlast tick: ........... " + lastTickUpdates + " updates, " + (lastTickTime / 1000) + " us");
+		list.add("\tmax tick: ............ " + (maxTickTime / 1000) + " us");
+		return list;
+	}
+	
+	public static KnownListUpdateTaskManager getInstance()
+	{
+		return SingletonHolder.INSTANCE;
+	}
+	
+	private static final class SingletonHolder
+	{
+		static final KnownListUpdateTaskManager INSTANCE = new KnownListUpdateTaskManager();
+	}
+}
@@ -122,6 +122,7 @@ public class PacketSendUtility
 	 */
 	public static void npcSendPacketTime(Npc npc, AionServerPacket packet, int time)
 	{
+		packet.setBroadcast();
 		ThreadPoolManager.getInstance().schedule(() -> npc.getKnownList().doOnAllPlayers(player ->
 		{
 			if (player.isOnline())
@@ -133,6 +134,7 @@ public class PacketSendUtility
 	
 	public static void broadcastPacket(Player player, AionServerPacket packet, boolean toSelf)
 	{
+		packet.setBroadcast();
 		if (toSelf)
 		{
 			sendPacket(player, packet);
@@ -142,6 +144,7 @@ public class PacketSendUtility
 	
 	public static void broadcastPacketAndReceive(VisibleObject visibleObject, AionServerPacket packet)
 	{
+		packet.setBroadcast();
 		if (visibleObject instanceof Player)
 		{
 			sendPacket((Player) visibleObject, packet);
@@ -151,6 +154,7 @@ public class PacketSendUtility
 	
 	public static void broadcastPacket(VisibleObject visibleObject, AionServerPacket packet)
 	{
+		packet.setBroadcast();
 		visibleObject.getKnownList().doOnAllPlayers(player ->
 		{
 			if (player.isOnline())
@@ -162,6 +166,7 @@ public class PacketSendUtility
 	
 	public static void broadcastPacket(Player player, AionServerPacket packet, boolean toSelf, ObjectFilter<Player> filter)
 	{
+		packet.setBroadcast();
 		if (toSelf)
 		{
 			sendPacket(player, packet);
@@ -177,6 +182,7 @@ public class PacketSendUtility
 	
 	public static void broadcastPacket(VisibleObject visibleObject, AionServerPacket packet, int distance)
 	{
+		packet.setBroadcast();
 		visibleObject.getKnownList().doOnAllPlayers(p ->
 		{
 			if (MathUtil.isIn3dRange(visibleObject, p, distance))
@@ -188,6 +194,7 @@ public class PacketSendUtility
 	
 	public static void broadcastFilteredPacket(AionServerPacket packet, ObjectFilter<Player> filter)
 	{
+		packet.setBroadcast();
 		World.getInstance().doOnAllPlayers(object ->
 		{
 			if (filter.acceptObject(object))
@@ -199,6 +206,7 @@ public class PacketSendUtility
 	
 	public static void broadcastPacketToLegion(Legion legion, AionServerPacket packet)
 	{
+		packet.setBroadcast();
 		for (Player onlineLegionMember : legion.getOnlineLegionMembers())
 		{
 			sendPacket(onlineLegionMember, packet);
@@ -207,6 +215,7 @@ public class PacketSendUtility
 	
 	public static void broadcastPacketToLegion(Legion legion, AionServerPacket packet, int playerObjId)
 	{
+		packet.setBroadcast();
 		for (Player onlineLegionMember : legion.getOnlineLegionMembers())
 		{
 			if (onlineLegionMember.getObjectId() != playerObjId)
@@ -218,6 +227,7 @@ public class PacketSendUtility
 	
 	public static void broadcastPacketToZone(SiegeZoneInstance zone, AionServerPacket packet)
 	{
+		packet.setBroadcast();
 		zone.doOnAllPlayers(player -> sendPacket(player, packet));
 	}
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -33,6 +34,7 @@ import com.aionemu.commons.network.util.ThreadUncaughtExceptionHandler;
 import com.aionemu.commons.utils.concurrent.AionRejectedExecutionHandler;
 import com.aionemu.commons.utils.concurrent.PriorityThreadFactory;
 import com.aionemu.commons.utils.concurrent.RunnableWrapper;
+import com.aionemu.commons.utils.concurrent.TimingWheel;
 import com.aionemu.commons.utils.internal.chmv8.ForkJoinPool;
 import com.aionemu.gameserver.configs.main.ThreadConfig;
 
@@ -48,6 +50,8 @@ public final class ThreadPoolManager
 	private final ThreadPoolExecutor instantPool;
 	private final ThreadPoolExecutor longRunningPool;
 	private final ForkJoinPool workStealingPool;
+	private final ThreadPoolExecutor timerPool;
+	private final TimingWheel timingWheel;
 	
 	ThreadPoolManager()
 	{
@@ -64,6 +68,19 @@ public final class ThreadPoolManager
 		final WorkStealThreadFactory forkJoinThreadFactory = new WorkStealThreadFactory("ForkJoinPool");
 		workStealingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinThreadFactory, new ThreadUncaughtExceptionHandler(), true);
 		forkJoinThreadFactory.setDefaultPool(workStealingPool);
+		if (ThreadConfig.TIMING_WHEEL_ENABLE)
+		{
+			final int timerPoolSize = Math.max(1, ThreadConfig.EXTRA_THREAD_PER_CORE) * Runtime.getRuntime().availableProcessors();
+			timerPool = new ThreadPoolExecutor(timerPoolSize, timerPoolSize, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new PriorityThreadFactory("TimerPool", ThreadConfig.USE_PRIORITIES ? 7 : Thread.NORM_PRIORITY));
+			timerPool.setRejectedExecutionHandler(new AionRejectedExecutionHandler());
+			timerPool.prestartAllCoreThreads();
+			timingWheel = new TimingWheel("TimingWheel", ThreadConfig.TIMING_WHEEL_TICK, timerPool);
+		}
+		else
+		{
+			timerPool = null;
+			timingWheel = null;
+		}
 		final Thread maintainThread = new Thread((Runnable) () -> purge(), "ThreadPool Purge Task");
 		maintainThread.setDaemon(true);
 		scheduleAtFixedRate(maintainThread, 500000, 500000);
@@ -97,6 +114,39 @@ public final class ThreadPoolManager
 		return scheduledPool.scheduleAtFixedRate(r, delay, period, TimeUnit.MILLISECONDS);
 	}
 	
+	/**
+	 * Schedule short gameplay timer (effects, attacks, walking...). If timing wheel is enabled it's used instead of scheduled pool: O(1) schedule and cancel, but only with timing wheel tick resolution.
+	 * @param r
+	 * @param delay
+	 * @return timer
+	 */
+	public final ScheduledFuture<?> scheduleTimer(Runnable r, long delay)
+	{
+		if (timingWheel == null)
+		{
+			return schedule(r, delay);
+		}
+		r = new ThreadPoolRunnableWrapper(r);
+		return timingWheel.schedule(r, validate(delay));
+	}
+	
+	/**
+	 * Periodic version of {@link #scheduleTimer(Runnable, long)}.
+	 * @param r
+	 * @param delay
+	 * @param period
+	 * @return timer
+	 */
+	public final ScheduledFuture<?> scheduleTimerAtFixedRate(Runnable r, long delay, long period)
+	{
+		if (timingWheel == null)
+		{
+			return scheduleAtFixedRate(r, delay, period);
+		}
+		r = new ThreadPoolRunnableWrapper(r);
+		return timingWheel.scheduleAtFixedRate(r, validate(delay), validate(period));
+	}
+	
 	public ForkJoinPool getForkingPool()
 	{
 		return workStealingPool;
@@ -135,6 +185,10 @@ public final class ThreadPoolManager
 	{
 		scheduledPool.purge();
 		instantPool.purge();
+		if (timerPool != null)
+		{
+			timerPool.purge();
+		}
 		longRunningPool.purge();
 	}
 	
@@ -143,6 +197,12 @@ public final class ThreadPoolManager
 		final long begin = System.currentTimeMillis();
 		log.info("ThreadPoolManager: Shutting down.");
 		log.info("\t... executing " + getTaskCount(scheduledPool) + " scheduled tasks.");
+		if (timingWheel != null)
+		{
+			log.info("\t... dropping " + timingWheel.getPendingTimers() + " gameplay timers.");
+			timingWheel.shutdown();
+			timerPool.shutdown();
+		}
 		log.info("\t... executing " + getTaskCount(instantPool) + " instant tasks.");
 		log.info("\t... executing " + getTaskCount(longRunningPool) + " long running tasks.");
 		log.info("\t... " + (workStealingPool.getQueuedTaskCount() + workStealingPool.getQueuedSubmissionCount()) + " forking tasks left.");
@@ -219,6 +279,18 @@ public final class ThreadPoolManager
 		list.add("\tgetStealCount: ........" + workStealingPool.getStealCount());
 		list.add("\tgetQueuedTaskCount: .. " + workStealingPool.getQueuedTaskCount());
 		list.add("\tgetRunningThreadCount: " + workStealingPool.getRunningThreadCount());
+		if (timingWheel != null)
+		{
+			list.add("");
+			list.add("Timer pool:");
+			list.add("=================================================");
+			list.add("\tgetActiveCount: ...... " + timerPool.getActiveCount());
+			list.add("\tgetPoolSize: ......... " + timerPool.getPoolSize());
+			list.add("\tgetCompletedTaskCount: " + timerPool.getCompletedTaskCount());
+			list.add("\tgetQueuedTaskCount: .. " + timerPool.getQueue().size());
+			list.add("");
+			list.addAll(timingWheel.getStats());
+		}
 		return list;
 	}
 	
@@ -16,9 +16,10 @@
  */
 package com.aionemu.gameserver.utils.idfactory;
 
-import java.util.BitSet;
 import java.util.Collection;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +36,8 @@ import com.aionemu.gameserver.dao.PlayerRegisteredItemsDAO;
 
 /**
  * This class is responsible for id generation for all Aion-Emu objects.<br>
- * This class is Thread-Safe.<br>
+ * This class is Thread-Safe and lock-free: used ids are kept in a bitmap of {@link AtomicLongArray} chunks and every id is claimed or released with a CAS on its 64 bit word, so
+ * threads only contend when they touch the same word.<br>
  * This class is designed to be very strict with id usage. Any illegal operation will throw {@link IDFactoryError}
  * @author SoulKeeper
  */
@@ -44,20 +46,23 @@ public class IDFactory
 	private static final Logger log = LoggerFactory.getLogger(IDFactory.class);
 	
 	/**
-	 * Bitset that is used for all id's.<br>
-	 * We are allowing BitSet to grow over time, so in the end it can be as big as {@link Integer#MAX_VALUE}
+	 * Every chunk holds 2^16 ids, chunks are created on first use so the bitmap grows over time up to {@link Integer#MAX_VALUE}
 	 */
-	private final BitSet idList;
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_WORDS = 1 << (CHUNK_SHIFT - 6);
+	private static final int CHUNK_WORD_MASK = CHUNK_WORDS - 1;
+	private static final int WORD_COUNT = 1 << (31 - 6);
 	
 	/**
-	 * Synchronization of bitset
+	 * Bitmap that is used for all id's.
 	 */
-	private final ReentrantLock lock;
+	private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(1 << (31 - CHUNK_SHIFT));
 	
 	/**
-	 * Id that will be used as minimal on next id request
+	 * Id that will be used as minimal on next id request (low 32 bits) and count of releases (high 32 bits).<br>
+	 * Allocators only advance the hint if no id was released while they were scanning, so a released id is never skipped.
 	 */
-	private volatile int nextMinId = 1;
+	private final AtomicLong nextMinId = new AtomicLong(1);
 	
 	/**
 	 * Returns next free id.
@@ -65,9 +70,19 @@ public class IDFactory
 	 */
 	private IDFactory()
 	{
-		idList = new BitSet();
-		lock = new ReentrantLock();
+		this(true);
+	}
+	
+	/**
+	 * @param loadUsedIds false leaves every id but 0 free without reading the database, for benchmarks
+	 */
+	IDFactory(boolean loadUsedIds)
+	{
 		lockIds(0);
+		if (!loadUsedIds)
+		{
+			return;
+		}
 		// Here should be calls to all IDFactoryAwareDAO implementations to initialize
 		// used values in IDFactory
 		lockIds(DAOManager.getDAO(PlayerDAO.class).getUsedIDs());
@@ -87,63 +102,217 @@ public class IDFactory
 	
 	public int nextId()
 	{
-		try
+		final long hint = nextMinId.get();
+		final int minId = (int) hint;
+		// It ok to have Integer OverFlow in the hint, negative value means the last id was given out
+		final int id = minId < 0 ? -1 : claim(minId);
+		if (id < 0)
 		{
-			lock.lock();
-			
-			int id;
-			if (nextMinId == Integer.MIN_VALUE)
-			{
-				// Error will be thrown few lines later, we have no more free id's.
-				// BitSet will throw IllegalArgumentException if nextMinId is negative
-				id = Integer.MIN_VALUE;
-			}
-			else
+			throw new IDFactoryError("All id's are used, please clear your database");
+		}
+		advanceMinId(hint, id + 1);
+		return id;
+	}
+	
+	/**
+	 * Returns count free ids at once, claiming all free ids of a bitmap word with a single CAS. Meant for bulk spawning.
+	 * @param count amount of ids to take
+	 * @return taken ids in ascending order
+	 * @throws IDFactoryError if there are not enough free id's
+	 */
+	public int[] nextIds(int count)
+	{
+		final int[] ids = new int[count];
+		if (count == 0)
+		{
+			return ids;
+		}
+		
+		final long hint = nextMinId.get();
+		final int minId = (int) hint;
+		final int taken = minId < 0 ? 0 : claim(minId, ids);
+		if (taken < count)
+		{
+			for (int i = 0; i < taken; i++)
 			{
-				id = idList.nextClearBit(nextMinId);
+				clearBit(ids[i]);
 			}
-			
-			// If BitSet reached Integer.MAX_VALUE size and returned last free id before - it will return
-			// Intger.MIN_VALUE as the next id, so we must catch such case and throw error (no free id's left)
-			if (id == Integer.MIN_VALUE)
+			throw new IDFactoryError("All id's are used, please clear your database");
+		}
+		advanceMinId(hint, ids[count - 1] + 1);
+		return ids;
+	}
+	
+	/**
+	 * Moves the hint up to newMinId, all ids below it starting from the old hint are used now unless some id was released meanwhile.
+	 * @param hint value of {@link #nextMinId} the scan started from
+	 * @param newMinId
+	 */
+	private void advanceMinId(long hint, int newMinId)
+	{
+		final long newHint = (hint & 0xFFFFFFFF00000000L) | (newMinId & 0xFFFFFFFFL);
+		long current = hint;
+		while (!nextMinId.compareAndSet(current, newHint))
+		{
+			current = nextMinId.get();
+			// other allocators may have moved it further already
+			final int currentMinId = (int) current;
+			if ((((current ^ hint) & 0xFFFFFFFF00000000L) != 0) || (currentMinId < 0) || (currentMinId >= newMinId))
 			{
-				throw new IDFactoryError("All id's are used, please clear your database");
+				return;
 			}
-			idList.set(id);
-			
-			// It ok to have Integer OverFlow here, on next ID request IDFactory will throw error
-			nextMinId = id + 1;
-			return id;
 		}
-		finally
+	}
+	
+	/**
+	 * Scans the bitmap from minId and claims the lowest free id.
+	 * @param minId
+	 * @return claimed id, -1 if the bitmap is full
+	 */
+	private int claim(int minId)
+	{
+		long mask = -1L << (minId & 63);
+		for (int wordIndex = minId >>> 6; wordIndex < WORD_COUNT; wordIndex++, mask = -1L)
 		{
-			lock.unlock();
+			final AtomicLongArray chunk = getChunk(wordIndex >>> (CHUNK_SHIFT - 6));
+			final int index = wordIndex & CHUNK_WORD_MASK;
+			while (true)
+			{
+				final long word = chunk.get(index);
+				final long free = ~word & mask;
+				if (free == 0)
+				{
+					break;
+				}
+				final long bit = free & -free;
+				if (chunk.compareAndSet(index, word, word | bit))
+				{
+					return (wordIndex << 6) | Long.numberOfTrailingZeros(bit);
+				}
+			}
 		}
+		return -1;
 	}
 	
 	/**
-	 * Locks given ids.
-	 * @param ids ids to lock
-	 * @throws IDFactoryError if some of the id's were locked before
+	 * Scans the bitmap from minId and claims the lowest free ids.
+	 * @param minId
+	 * @param ids array to fill
+	 * @return amount of claimed ids, less than ids.length if the bitmap is full
 	 */
-	private void lockIds(int... ids)
+	private int claim(int minId, int[] ids)
 	{
-		try
+		int taken = 0;
+		long mask = -1L << (minId & 63);
+		for (int wordIndex = minId >>> 6; wordIndex < WORD_COUNT; wordIndex++, mask = -1L)
 		{
-			lock.lock();
-			for (int id : ids)
+			final AtomicLongArray chunk = getChunk(wordIndex >>> (CHUNK_SHIFT - 6));
+			final int index = wordIndex & CHUNK_WORD_MASK;
+			while (true)
 			{
-				final boolean status = idList.get(id);
-				if (status)
+				final long word = chunk.get(index);
+				long free = ~word & mask;
+				if (free == 0)
+				{
+					break;
+				}
+				long bits = 0;
+				int wordTaken = 0;
+				while ((free != 0) && ((taken + wordTaken) < ids.length))
+				{
+					final long bit = free & -free;
+					bits |= bit;
+					free ^= bit;
+					ids[taken + wordTaken++] = (wordIndex << 6) | Long.numberOfTrailingZeros(bit);
+				}
+				if (chunk.compareAndSet(index, word, word | bits))
 				{
-					throw new IDFactoryError("ID " + id + " is already taken, fatal error!!!");
+					taken += wordTaken;
+					if (taken == ids.length)
+					{
+						return taken;
+					}
+					break;
 				}
-				idList.set(id);
 			}
 		}
-		finally
+		return taken;
+	}
+	
+	private AtomicLongArray getChunk(int chunkIndex)
+	{
+		AtomicLongArray chunk = chunks.get(chunkIndex);
+		if (chunk == null)
 		{
-			lock.unlock();
+			chunk = new AtomicLongArray(CHUNK_WORDS);
+			if (!chunks.compareAndSet(chunkIndex, null, chunk))
+			{
+				chunk = chunks.get(chunkIndex);
+			}
+		}
+		return chunk;
+	}
+	
+	/**
+	 * @param id
+	 * @return false if id was taken already
+	 */
+	private boolean setBit(int id)
+	{
+		final AtomicLongArray chunk = getChunk(id >>> CHUNK_SHIFT);
+		final int index = (id >>> 6) & CHUNK_WORD_MASK;
+		final long bit = 1L << id;
+		while (true)
+		{
+			final long word = chunk.get(index);
+			if ((word & bit) != 0)
+			{
+				return false;
+			}
+			if (chunk.compareAndSet(index, word, word | bit))
+			{
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * @param id
+	 * @return false if id was not taken
+	 */
+	private boolean clearBit(int id)
+	{
+		final AtomicLongArray chunk = chunks.get(id >>> CHUNK_SHIFT);
+		if (chunk == null)
+		{
+			return false;
+		}
+		final int index = (id >>> 6) & CHUNK_WORD_MASK;
+		final long bit = 1L << id;
+		while (true)
+		{
+			final long word = chunk.get(index);
+			if ((word & bit) == 0)
+			{
+				return false;
+			}
+			if (chunk.compareAndSet(index, word, word & ~bit))
+			{
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Locks given ids.
+	 * @param ids ids to lock
+	 * @throws IDFactoryError if some of the id's were locked before
+	 */
+	private void lockIds(int... ids)
+	{
+		for (int id : ids)
+		{
+			lockId(id);
 		}
 	}
 	
@@ -154,22 +323,17 @@ public class IDFactory
 	 */
 	public void lockIds(Iterable<Integer> ids)
 	{
-		try
+		for (int id : ids)
 		{
-			lock.lock();
-			for (int id : ids)
-			{
-				final boolean status = idList.get(id);
-				if (status)
-				{
-					throw new IDFactoryError("ID " + id + " is already taken, fatal error!!!");
-				}
-				idList.set(id);
-			}
+			lockId(id);
 		}
-		finally
+	}
+	
+	private void lockId(int id)
+	{
+		if ((id < 0) || !setBit(id))
 		{
-			lock.unlock();
+			throw new IDFactoryError("ID " + id + " is already taken, fatal error!!!");
 		}
 	}
 	
@@ -180,23 +344,20 @@ public class IDFactory
 	 */
 	public void releaseId(int id)
 	{
-		try
+		if ((id < 0) || !clearBit(id))
 		{
-			lock.lock();
-			final boolean status = idList.get(id);
-			if (!status)
-			{
-				throw new IDFactoryError("ID " + id + " is not taken, can't release it.");
-			}
-			idList.clear(id);
-			if ((id < nextMinId) || (nextMinId == Integer.MIN_VALUE))
-			{
-				nextMinId = id;
-			}
+			throw new IDFactoryError("ID " + id + " is not taken, can't release it.");
 		}
-		finally
+		while (true)
 		{
-			lock.unlock();
+			final long hint = nextMinId.get();
+			final int minId = (int) hint;
+			final int newMinId = ((id < minId) || (minId < 0)) ? id : minId;
+			// release count is bumped even if the hint stays, so allocators that scanned past id don't move the hint over it
+			if (nextMinId.compareAndSet(hint, ((hint + (1L << 32)) & 0xFFFFFFFF00000000L) | (newMinId & 0xFFFFFFFFL)))
+			{
+				return;
+			}
 		}
 	}
 	
@@ -207,26 +368,9 @@ public class IDFactory
 			return;
 		}
 		
-		try
+		for (Integer id : ids)
 		{
-			lock.lock();
-			for (Integer id : ids)
-			{
-				final boolean status = idList.get(id);
-				if (!status)
-				{
-					throw new IDFactoryError("ID " + id + " is not taken, can't release it.");
-				}
-				idList.clear(id);
-				if ((id < nextMinId) || (nextMinId == Integer.MIN_VALUE))
-				{
-					nextMinId = id;
-				}
-			}
-		}
-		finally
-		{
-			lock.unlock();
+			releaseId(id);
 		}
 	}
 	
@@ -236,15 +380,19 @@ public class IDFactory
 	 */
 	public int getUsedCount()
 	{
-		try
-		{
-			lock.lock();
-			return idList.cardinality();
-		}
-		finally
+		int count = 0;
+		for (int i = 0; i < chunks.length(); i++)
 		{
-			lock.unlock();
+			final AtomicLongArray chunk = chunks.get(i);
+			if (chunk != null)
+			{
+				for (int j = 0; j < CHUNK_WORDS; j++)
+				{
+					count += Long.bitCount(chunk.get(j));
+				}
+			}
 		}
+		return count;
 	}
 	
 	@SuppressWarnings("synthetic-access")
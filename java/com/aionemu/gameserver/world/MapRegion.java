@@ -18,10 +18,10 @@ package com.aionemu.gameserver.world;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -29,6 +29,7 @@ import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.aionemu.commons.utils.collections.ConcurrentIntObjectMap;
 import com.aionemu.gameserver.ai2.event.AIEventType;
 import com.aionemu.gameserver.configs.administration.DeveloperConfig;
 import com.aionemu.gameserver.configs.main.SiegeConfig;
@@ -39,8 +40,11 @@ import com.aionemu.gameserver.model.gameobjects.VisibleObject;
 import com.aionemu.gameserver.model.gameobjects.base.BaseNpc;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.gameobjects.siege.SiegeNpc;
+import com.aionemu.gameserver.model.templates.spawns.SpawnTemplate;
 import com.aionemu.gameserver.model.templates.zone.ZoneClassName;
+import com.aionemu.gameserver.spawnengine.LazySpawnEngine;
 import com.aionemu.gameserver.utils.ThreadPoolManager;
+import com.aionemu.gameserver.world.zone.ZoneIndex;
 import com.aionemu.gameserver.world.zone.ZoneInstance;
 import com.aionemu.gameserver.world.zone.ZoneName;
 
@@ -70,7 +74,7 @@ public class MapRegion
 	/**
 	 * Objects on this map region.
 	 */
-	private final FastMap<Integer, VisibleObject> objects = new FastMap<Integer, VisibleObject>().shared();
+	private final ConcurrentIntObjectMap<VisibleObject> objects = new ConcurrentIntObjectMap<>();
 	
 	private final AtomicInteger playerCount = new AtomicInteger(0);
 	
@@ -83,18 +87,36 @@ public class MapRegion
 	 */
 	private FastMap<Integer, TreeSet<ZoneInstance>> zoneMap;
 	
+	/**
+	 * Candidate zones by position, used for zone revalidation
+	 */
+	private final ZoneIndex zoneIndex;
+	
+	/**
+	 * Spawns kept out of world until this region activates, null if there are none (see {@link LazySpawnEngine}).
+	 */
+	private List<SpawnTemplate> parkedSpawns;
+	
+	/**
+	 * Task taking idle lazy spawns out of world after long deactivation.
+	 */
+	private Future<?> parkTask;
+	
 	/**
 	 * Constructor.
 	 * @param id
 	 * @param parent
 	 * @param zones
+	 * @param startX
+	 * @param startY
 	 */
-	MapRegion(int id, WorldMapInstance parent, ZoneInstance[] zones)
+	MapRegion(int id, WorldMapInstance parent, ZoneInstance[] zones, float startX, float startY)
 	{
 		regionId = id;
 		this.parent = parent;
 		zoneCount = zones.length;
 		createZoneMap(zones);
+		zoneIndex = new ZoneIndex(zoneMap, startX, startY);
 		addNeighbourRegion(this);
 	}
 	
@@ -138,7 +160,7 @@ public class MapRegion
 	 * Returns iterator over AionObjects on this region
 	 * @return objects iterator
 	 */
-	public FastMap<Integer, VisibleObject> getObjects()
+	public ConcurrentIntObjectMap<VisibleObject> getObjects()
 	{
 		return objects;
 	}
@@ -188,20 +210,18 @@ public class MapRegion
 			}
 			else if (DeveloperConfig.SPAWN_CHECK)
 			{
-				final Iterator<TreeSet<ZoneInstance>> zoneIter = zoneMap.values().iterator();
-				while (zoneIter.hasNext())
+				final long[] candidates = zoneIndex.getCandidates(object.getX(), object.getY());
+				final ZoneInstance[] zones = zoneIndex.getZones();
+				for (int i = 0; i < zones.length; i++)
 				{
-					final TreeSet<ZoneInstance> zones = zoneIter.next();
-					for (ZoneInstance zone : zones)
+					final ZoneInstance zone = zones[i];
+					if (!zoneIndex.mayContain(candidates, i, object.getX(), object.getY()) || !zone.isInsideCordinate(object.getX(), object.getY(), object.getZ()))
 					{
-						if (!zone.isInsideCordinate(object.getX(), object.getY(), object.getZ()))
-						{
-							continue;
-						}
-						if (zone.getZoneTemplate().getZoneType() != ZoneClassName.DUMMY)
-						{
-							return;
-						}
+						continue;
+					}
+					if (zone.getZoneTemplate().getZoneType() != ZoneClassName.DUMMY)
+					{
+						return;
 					}
 				}
 				log.warn("Outside any zones: id=" + object + " > X:" + object.getX() + ",Y:" + object.getY() + ",Z:" + object.getZ());
@@ -277,6 +297,11 @@ public class MapRegion
 	 */
 	final void activateObjects()
 	{
+		if (WorldConfig.WORLD_LAZY_SPAWN)
+		{
+			cancelParking();
+			LazySpawnEngine.materialize(this);
+		}
 		for (VisibleObject visObject : objects.values())
 		{
 			if (visObject instanceof Creature)
@@ -292,9 +317,71 @@ public class MapRegion
 		if (regionActive.compareAndSet(true, false))
 		{
 			deactivateObjects();
+			if (WorldConfig.WORLD_LAZY_SPAWN)
+			{
+				scheduleParking();
+			}
+		}
+	}
+	
+	private synchronized void scheduleParking()
+	{
+		if (parkTask == null)
+		{
+			parkTask = ThreadPoolManager.getInstance().schedule(() ->
+			{
+				synchronized (MapRegion.this)
+				{
+					parkTask = null;
+				}
+				if (!regionActive.get())
+				{
+					LazySpawnEngine.parkObjects(MapRegion.this);
+				}
+			}, WorldConfig.WORLD_LAZY_SPAWN_PARK_DELAY * 60000L);
+		}
+	}
+	
+	private synchronized void cancelParking()
+	{
+		if (parkTask != null)
+		{
+			parkTask.cancel(false);
+			parkTask = null;
 		}
 	}
 	
+	/**
+	 * Keeps spawn out of world until this region activates.
+	 * @param spawn
+	 */
+	public synchronized void addParkedSpawn(SpawnTemplate spawn)
+	{
+		if (parkedSpawns == null)
+		{
+			parkedSpawns = new ArrayList<>();
+		}
+		parkedSpawns.add(spawn);
+	}
+	
+	/**
+	 * @return spawns kept out of world, null if there are none. They are removed from this region.
+	 */
+	public synchronized List<SpawnTemplate> takeParkedSpawns()
+	{
+		final List<SpawnTemplate> spawns = parkedSpawns;
+		parkedSpawns = null;
+		return spawns;
+	}
+	
+	/**
+	 * @return true if this region or its neighbour has players, regardless of {@link WorldConfig#WORLD_ACTIVE_TRACE}
+	 */
+	public boolean isRegionActive()
+	{
+		return regionActive.get();
+	}
+	
 	/**
 	 * Send DEACTIVATE event to all objects with AI2
 	 */
@@ -327,32 +414,42 @@ public class MapRegion
 		return false;
 	}
 	
+	/**
+	 * Enters creature into the zones containing it and takes it out of the others. Only zones whose bounding box covers the position are tested, leaving is
+	 * only signalled for zones the creature is inside of.
+	 * @param creature
+	 */
 	public void revalidateZones(Creature creature)
 	{
-		for (Entry<Integer, TreeSet<ZoneInstance>> e = zoneMap.head(), mapEnd = zoneMap.tail(); (e = e.getNext()) != mapEnd;)
+		final boolean spawned = creature.isSpawned();
+		final float x = creature.getX();
+		final float y = creature.getY();
+		final long[] candidates = zoneIndex.getCandidates(x, y);
+		final ZoneInstance[] zones = zoneIndex.getZones();
+		int currentCategory = 0;
+		boolean foundZone = false;
+		for (int i = 0; i < zones.length; i++)
 		{
-			boolean foundZone = false;
-			final int category = e.getKey();
-			final TreeSet<ZoneInstance> zones = e.getValue();
-			for (ZoneInstance zone : zones)
+			final ZoneInstance zone = zones[i];
+			final int category = zoneIndex.getCategory(i);
+			if ((i == 0) || (category != currentCategory))
 			{
-				if (!creature.isSpawned() || ((category != -1) && foundZone))
-				{
-					zone.onLeave(creature);
-					continue;
-				}
-				final boolean result = zone.revalidate(creature);
-				if (!result)
+				currentCategory = category;
+				foundZone = false;
+			}
+			if (!spawned || ((category != -1) && foundZone) || !zoneIndex.mayContain(candidates, i, x, y) || !zone.revalidate(creature))
+			{
+				if (zone.isInsideCreature(creature))
 				{
 					zone.onLeave(creature);
-					continue;
 				}
-				if (category != -1)
-				{
-					foundZone = true;
-				}
-				zone.onEnter(creature);
+				continue;
+			}
+			if (category != -1)
+			{
+				foundZone = true;
 			}
+			zone.onEnter(creature);
 		}
 	}
 	
@@ -0,0 +1,233 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.world;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aionemu.commons.utils.collections.ConcurrentIntObjectMap;
+import com.aionemu.gameserver.configs.main.WorldConfig;
+import com.aionemu.gameserver.model.gameobjects.VisibleObject;
+import com.aionemu.gameserver.world.knownlist.Visitor;
+
+/**
+ * Uniform 2D cell grid over one {@link WorldMapInstance}.<br>
+ * Answers "objects within radius R of (x, y)" by visiting only the cells overlapping the query circle instead of every object of the neighbour regions. Z is not indexed, callers filter it themselves.<br>
+ * Cells are created on first use, so sparse maps only pay for the cells that ever held an object. The cell an object is registered in is kept in its {@link WorldPosition}.
+ */
+public class SpatialGrid
+{
+	private static final Logger log = LoggerFactory.getLogger(SpatialGrid.class);
+	
+	private final int cellSize;
+	private final int cellsPerSide;
+	private final AtomicReferenceArray<ConcurrentIntObjectMap<VisibleObject>> cells;
+	
+	/**
+	 * Objects whose known list does its own range check when others look for them (see {@link com.aionemu.gameserver.world.knownlist.KnownList#hasReversedRange()}).
+	 */
+	private final ConcurrentIntObjectMap<VisibleObject> reversedRangeObjects = new ConcurrentIntObjectMap<>();
+	
+	public SpatialGrid(int worldSize)
+	{
+		cellSize = Math.max(1, WorldConfig.WORLD_GRID_CELL_SIZE);
+		cellsPerSide = (Math.max(worldSize, 1) / cellSize) + 1;
+		cells = new AtomicReferenceArray<>(cellsPerSide * cellsPerSide);
+	}
+	
+	private int toCell(float coord)
+	{
+		final int cell = (int) coord / cellSize;
+		if (cell < 0)
+		{
+			return 0;
+		}
+		return cell >= cellsPerSide ? cellsPerSide - 1 : cell;
+	}
+	
+	private int getCellIndex(VisibleObject object)
+	{
+		return (toCell(object.getY()) * cellsPerSide) + toCell(object.getX());
+	}
+	
+	private ConcurrentIntObjectMap<VisibleObject> getOrCreateCell(int index)
+	{
+		ConcurrentIntObjectMap<VisibleObject> cell = cells.get(index);
+		if (cell == null)
+		{
+			cell = new ConcurrentIntObjectMap<>();
+			if (!cells.compareAndSet(index, null, cell))
+			{
+				cell = cells.get(index);
+			}
+		}
+		return cell;
+	}
+	
+	/**
+	 * Registers object in the cell of its current position.
+	 * @param object
+	 */
+	void add(VisibleObject object)
+	{
+		final WorldPosition position = object.getPosition();
+		synchronized (position)
+		{
+			if (position.getGridCell() != -1)
+			{
+				log.warn("Object " + object.getObjectId() + " is already registered in spatial grid, moving it");
+				removeFromCell(object, position.getGridCell());
+			}
+			final int index = getCellIndex(object);
+			getOrCreateCell(index).put(object.getObjectId(), object);
+			position.setGridCell(index);
+		}
+		if (object.getKnownList().hasReversedRange())
+		{
+			reversedRangeObjects.put(object.getObjectId(), object);
+		}
+	}
+	
+	/**
+	 * Unregisters object from the cell it was last registered in.
+	 * @param object
+	 */
+	void remove(VisibleObject object)
+	{
+		final WorldPosition position = object.getPosition();
+		synchronized (position)
+		{
+			if (position.getGridCell() != -1)
+			{
+				removeFromCell(object, position.getGridCell());
+				position.setGridCell(-1);
+			}
+		}
+		reversedRangeObjects.remove(object.getObjectId());
+	}
+	
+	/**
+	 * Moves object to the cell of its current position, no-op while it stays in the same cell.
+	 * @param object
+	 */
+	public void update(VisibleObject object)
+	{
+		final WorldPosition position = object.getPosition();
+		final int index = getCellIndex(object);
+		if (position.getGridCell() == index)
+		{
+			return;
+		}
+		synchronized (position)
+		{
+			final int oldIndex = position.getGridCell();
+			if ((oldIndex == -1) || (oldIndex == index))
+			{
+				return;
+			}
+			getOrCreateCell(index).put(object.getObjectId(), object);
+			removeFromCell(object, oldIndex);
+			position.setGridCell(index);
+		}
+	}
+	
+	private void removeFromCell(VisibleObject object, int index)
+	{
+		final ConcurrentIntObjectMap<VisibleObject> cell = cells.get(index);
+		if (cell != null)
+		{
+			cell.remove(object.getObjectId());
+		}
+	}
+	
+	/**
+	 * Visits every object whose 2D distance to (x, y) is below radius.
+	 * @param x
+	 * @param y
+	 * @param radius
+	 * @param visitor
+	 */
+	public void doOnObjectsInRange(float x, float y, float radius, Visitor<VisibleObject> visitor)
+	{
+		final float radiusSqr = radius * radius;
+		final int minX = toCell(x - radius);
+		final int maxX = toCell(x + radius);
+		final int minY = toCell(y - radius);
+		final int maxY = toCell(y + radius);
+		for (int cy = minY; cy <= maxY; cy++)
+		{
+			for (int cx = minX; cx <= maxX; cx++)
+			{
+				final ConcurrentIntObjectMap<VisibleObject> cell = cells.get((cy * cellsPerSide) + cx);
+				if ((cell == null) || cell.isEmpty())
+				{
+					continue;
+				}
+				for (VisibleObject object : cell.values())
+				{
+					if (object == null)
+					{
+						continue;
+					}
+					final float dx = object.getX() - x;
+					final float dy = object.getY() - y;
+					if (((dx * dx) + (dy * dy)) < radiusSqr)
+					{
+						visitor.visit(object);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @param x
+	 * @param y
+	 * @param radius
+	 * @return objects whose 2D distance to (x, y) is below radius
+	 */
+	public List<VisibleObject> getObjectsInRange(float x, float y, float radius)
+	{
+		final List<VisibleObject> objects = new ArrayList<>();
+		doOnObjectsInRange(x, y, radius, objects::add);
+		return objects;
+	}
+	
+	/**
+	 * Visits objects which decide themselves whether others see them, regardless of distance.
+	 * @param visitor
+	 */
+	public void doOnReversedRangeObjects(Visitor<VisibleObject> visitor)
+	{
+		for (VisibleObject object : reversedRangeObjects.values())
+		{
+			if (object != null)
+			{
+				visitor.visit(object);
+			}
+		}
+	}
+	
+	public int getCellSize()
+	{
+		return cellSize;
+	}
+}
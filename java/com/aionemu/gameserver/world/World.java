@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.aionemu.commons.utils.GenericValidator;
+import com.aionemu.commons.utils.collections.ConcurrentIntObjectMap;
 import com.aionemu.gameserver.dataholders.DataManager;
 import com.aionemu.gameserver.dataholders.PlayerInitialData.LocationData;
 import com.aionemu.gameserver.model.gameobjects.Creature;
@@ -35,6 +36,7 @@ import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.gameobjects.siege.SiegeNpc;
 import com.aionemu.gameserver.model.gameobjects.state.CreatureState;
 import com.aionemu.gameserver.model.templates.world.WorldMapTemplate;
+import com.aionemu.gameserver.taskmanager.tasks.KnownListUpdateTaskManager;
 import com.aionemu.gameserver.world.container.PlayerContainer;
 import com.aionemu.gameserver.world.exceptions.AlreadySpawnedException;
 import com.aionemu.gameserver.world.exceptions.DuplicateAionObjectException;
@@ -43,7 +45,6 @@ import com.aionemu.gameserver.world.knownlist.Visitor;
 
 import gnu.trove.map.hash.TIntObjectHashMap;
 import javolution.util.FastList;
-import javolution.util.FastMap;
 
 /**
  * World object for storing and spawning, despawning etc players and other in-game objects. It also manage WorldMaps and instances.
@@ -53,10 +54,10 @@ public class World
 {
 	private static final Logger log = LoggerFactory.getLogger(World.class);
 	private final PlayerContainer allPlayers;
-	private final FastMap<Integer, VisibleObject> allObjects;
-	private final TIntObjectHashMap<Collection<SiegeNpc>> localSiegeNpcs = new TIntObjectHashMap<>();
-	private final TIntObjectHashMap<Collection<BaseNpc>> localBaseNpcs = new TIntObjectHashMap<>();
-	private final FastMap<Integer, Npc> allNpcs;
+	private final ConcurrentIntObjectMap<VisibleObject> allObjects;
+	private final ConcurrentIntObjectMap<Collection<SiegeNpc>> localSiegeNpcs = new ConcurrentIntObjectMap<>();
+	private final ConcurrentIntObjectMap<Collection<BaseNpc>> localBaseNpcs = new ConcurrentIntObjectMap<>();
+	private final ConcurrentIntObjectMap<Npc> allNpcs;
 	private final TIntObjectHashMap<WorldMap> worldMaps;
 	
 	/**
@@ -65,8 +66,8 @@ public class World
 	private World()
 	{
 		allPlayers = new PlayerContainer();
-		allObjects = new FastMap<Integer, VisibleObject>().shared();
-		allNpcs = new FastMap<Integer, Npc>().shared();
+		allObjects = new ConcurrentIntObjectMap<>(65536);
+		allNpcs = new ConcurrentIntObjectMap<>(65536);
 		worldMaps = new TIntObjectHashMap<>();
 		for (WorldMapTemplate template : DataManager.WORLD_MAPS_DATA)
 		{
@@ -283,7 +284,7 @@ public class World
 	 * @param newY
 	 * @param newZ
 	 * @param newHeading
-	 * @param updateKnownList
+	 * @param updateKnownList if true known list is updated through {@link KnownListUpdateTaskManager}
 	 */
 	public void updatePosition(VisibleObject object, float newX, float newY, float newZ, byte newHeading, boolean updateKnownList)
 	{
@@ -333,6 +334,11 @@ public class World
 			return;
 		}
 		object.getPosition().setXYZH(newX, newY, newZ, newHeading);
+		final SpatialGrid grid = newRegion.getParent().getSpatialGrid();
+		if (grid != null)
+		{
+			grid.update(object);
+		}
 		if (newRegion != oldRegion)
 		{
 			if (object instanceof Creature)
@@ -346,7 +352,7 @@ public class World
 		}
 		if (updateKnownList)
 		{
-			object.updateKnownlist();
+			KnownListUpdateTaskManager.getInstance().onMove(object);
 		}
 	}
 	
@@ -495,9 +501,8 @@ public class World
 	{
 		try
 		{
-			for (FastMap.Entry<Integer, VisibleObject> e = allObjects.head(), mapEnd = allObjects.tail(); (e = e.getNext()) != mapEnd;)
+			for (VisibleObject object : allObjects.values())
 			{
-				final VisibleObject object = e.getValue();
 				if (object != null)
 				{
 					visitor.visit(object);
@@ -39,7 +39,7 @@ public class WorldMap2DInstance extends WorldMapInstance
 		final int size = getParent().getWorldSize();
 		final float maxZ = Math.round((float) size / regionSize) * regionSize;
 		final ZoneInstance[] zones = filterZones(getMapId(), regionId, startX, startY, 0, maxZ);
-		return new MapRegion(regionId, this, zones);
+		return new MapRegion(regionId, this, zones, startX, startY);
 	}
 	
 	@Override
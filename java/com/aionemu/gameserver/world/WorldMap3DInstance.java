@@ -98,7 +98,7 @@ public class WorldMap3DInstance extends WorldMapInstance
 		final float startY = RegionUtil.getYFrom3dRegionId(regionId);
 		final float startZ = RegionUtil.getZFrom3dRegionId(regionId);
 		final ZoneInstance[] zones = filterZones(getMapId(), regionId, startX, startY, startZ, startZ + regionSize);
-		return new MapRegion(regionId, this, zones);
+		return new MapRegion(regionId, this, zones, startX, startY);
 	}
 	
 	@Override
@@ -87,6 +87,8 @@ public abstract class WorldMapInstance
 	/**
 	 * All players spawned in this world map instance
 	 */
+	private final SpatialGrid spatialGrid;
+	
 	private final FastMap<Integer, Player> worldMapPlayers = new FastMap<Integer, Player>().shared();
 	
 	private final Set<Integer> registeredObjects = Collections.newSetFromMap(new FastMap<Integer, Boolean>().shared());
@@ -121,6 +123,7 @@ public abstract class WorldMapInstance
 	{
 		this.parent = parent;
 		this.instanceId = instanceId;
+		spatialGrid = WorldConfig.WORLD_GRID_ENABLE ? new SpatialGrid(parent.getWorldSize()) : null;
 		zones = ZoneService.getInstance().getZoneInstancesByWorldId(parent.getMapId());
 		initMapRegions();
 	}
@@ -189,6 +192,14 @@ public abstract class WorldMapInstance
 		return getParent().getWorld();
 	}
 	
+	/**
+	 * @return grid index of the objects in this instance or null if disabled
+	 */
+	public SpatialGrid getSpatialGrid()
+	{
+		return spatialGrid;
+	}
+	
 	/**
 	 * @param object
 	 */
@@ -198,6 +209,10 @@ public abstract class WorldMapInstance
 		{
 			throw new DuplicateAionObjectException("Object with templateId " + String.valueOf(object.getObjectTemplate().getTemplateId()) + " already spawned in the instance " + String.valueOf(getMapId()) + " " + String.valueOf(getInstanceId()));
 		}
+		if (spatialGrid != null)
+		{
+			spatialGrid.add(object);
+		}
 		if (object instanceof Npc)
 		{
 			final QuestNpc data = QuestEngine.getInstance().getQuestNpc(((Npc) object).getNpcId());
@@ -227,7 +242,10 @@ public abstract class WorldMapInstance
 	 */
 	public void removeObject(AionObject object)
 	{
-		worldMapObjects.remove(object.getObjectId());
+		if ((worldMapObjects.remove(object.getObjectId()) != null) && (spatialGrid != null))
+		{
+			spatialGrid.remove((VisibleObject) object);
+		}
 		if (object instanceof Player)
 		{
 			if (getParent().isPossibleFly())
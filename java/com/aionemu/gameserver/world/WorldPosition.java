@@ -64,6 +64,7 @@ public class WorldPosition
 	 * indicating if object is spawned or not.
 	 */
 	private boolean isSpawned = false;
+	private int gridCell = -1;
 	
 	/**
 	 * Return World map id.
@@ -198,6 +199,19 @@ public class WorldPosition
 		isSpawned = val;
 	}
 	
+	/**
+	 * @return index of the {@link SpatialGrid} cell this position is registered in, -1 if none
+	 */
+	int getGridCell()
+	{
+		return gridCell;
+	}
+	
+	void setGridCell(int gridCell)
+	{
+		this.gridCell = gridCell;
+	}
+	
 	/**
 	 * Set map region
 	 * @param r - map region
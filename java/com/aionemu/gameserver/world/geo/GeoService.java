@@ -16,14 +16,20 @@
  */
 package com.aionemu.gameserver.world.geo;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.aionemu.gameserver.configs.main.GeoDataConfig;
+import com.aionemu.gameserver.dataholders.DataManager;
 import com.aionemu.gameserver.geoEngine.collision.CollisionResults;
 import com.aionemu.gameserver.geoEngine.math.Vector3f;
+import com.aionemu.gameserver.geoEngine.models.HeightFieldCache;
 import com.aionemu.gameserver.model.gameobjects.Creature;
 import com.aionemu.gameserver.model.gameobjects.VisibleObject;
+import com.aionemu.gameserver.model.templates.world.WorldMapTemplate;
 import com.aionemu.gameserver.utils.MathUtil;
 
 /**
@@ -165,6 +171,23 @@ public class GeoService
 		return geoData.getMap(object.getWorldId()).getClosestCollision(object.getX(), object.getY(), object.getZ(), x, y, z, changeDirection, object.isInFlyingState(), object.getInstanceId(), intentions);
 	}
 	
+	/**
+	 * @return stats of the height caches of all maps
+	 */
+	public List<String> getHeightCacheStats()
+	{
+		final List<String> list = new ArrayList<>();
+		for (WorldMapTemplate map : DataManager.WORLD_MAPS_DATA)
+		{
+			final HeightFieldCache cache = geoData.getMap(map.getMapId()).getHeightCache();
+			if (cache != null)
+			{
+				list.addAll(cache.getStats());
+			}
+		}
+		return list;
+	}
+	
 	public GeoType getConfiguredGeoType()
 	{
 		if (GeoDataConfig.GEO_ENABLE)
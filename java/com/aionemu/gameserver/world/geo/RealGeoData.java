@@ -20,13 +20,17 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.aionemu.gameserver.configs.main.GeoDataConfig;
 import com.aionemu.gameserver.dataholders.DataManager;
 import com.aionemu.gameserver.geoEngine.GeoWorldLoader;
 import com.aionemu.gameserver.geoEngine.models.GeoMap;
+import com.aionemu.gameserver.geoEngine.models.HeightFieldCache;
 import com.aionemu.gameserver.geoEngine.scene.Spatial;
 import com.aionemu.gameserver.model.templates.world.WorldMapTemplate;
 import com.aionemu.gameserver.utils.Util;
@@ -63,36 +67,96 @@ public class RealGeoData implements GeoData
 		int currentProgress = 0;
 		int lastProgress = 1;
 		
-		for (WorldMapTemplate map : DataManager.WORLD_MAPS_DATA)
+		// maps load concurrently, their leftover placements and the progress follow in template order
+		final long start = System.currentTimeMillis();
+		final int threads = GeoDataConfig.GEO_LOAD_THREADS > 0 ? GeoDataConfig.GEO_LOAD_THREADS : Runtime.getRuntime().availableProcessors();
+		final ForkJoinPool pool = new ForkJoinPool(threads);
+		try
 		{
-			final GeoMap geoMap = new GeoMap(Integer.toString(map.getMapId()), map.getWorldSize());
-			try
-			{
-				if (GeoWorldLoader.loadWorld(map.getMapId(), models, geoMap))
-				{
-					geoMaps.put(map.getMapId(), geoMap);
-				}
-			}
-			catch (Throwable t)
+			final List<WorldMapTemplate> templates = new ArrayList<>(totalSize);
+			final List<GeoMap> maps = new ArrayList<>(totalSize);
+			final List<ForkJoinTask<List<Runnable>>> tasks = new ArrayList<>(totalSize);
+			final List<GeoMap> cachedMaps = new ArrayList<>();
+			for (WorldMapTemplate map : DataManager.WORLD_MAPS_DATA)
 			{
-				mapsWithErrors.add(map.getMapId());
-				geoMaps.put(map.getMapId(), DummyGeoData.DUMMY_MAP);
+				final GeoMap geoMap = new GeoMap(Integer.toString(map.getMapId()), map.getWorldSize());
+				templates.add(map);
+				maps.add(geoMap);
+				tasks.add(pool.submit(() -> GeoWorldLoader.loadWorld(map.getMapId(), models, geoMap)));
 			}
 			
-			currentProgress++;
-			if ((totalSize / currentProgress) < (140 / lastProgress))
+			for (int i = 0; i < tasks.size(); i++)
 			{
-				Util.printCurrentProgress();
-				lastProgress++;
+				final WorldMapTemplate map = templates.get(i);
+				final GeoMap geoMap = maps.get(i);
+				try
+				{
+					for (Runnable placement : tasks.get(i).join())
+					{
+						try
+						{
+							placement.run();
+						}
+						catch (Throwable t)
+						{
+							log.error("Error while placing a door or material zone on geo map " + map.getMapId(), t);
+						}
+					}
+					geoMaps.put(map.getMapId(), geoMap);
+					if (GeoDataConfig.GEO_HEIGHT_CACHE_ENABLE && !map.isInstance())
+					{
+						geoMap.setHeightCache(new HeightFieldCache(geoMap, GeoDataConfig.GEO_HEIGHT_CACHE_CELL_SIZE, GeoDataConfig.GEO_HEIGHT_CACHE_CELLS, GeoDataConfig.GEO_HEIGHT_CACHE_TOLERANCE));
+						cachedMaps.add(geoMap);
+					}
+				}
+				catch (Throwable t)
+				{
+					mapsWithErrors.add(map.getMapId());
+					geoMaps.put(map.getMapId(), DummyGeoData.DUMMY_MAP);
+				}
+				
+				currentProgress++;
+				if ((totalSize / currentProgress) < (140 / lastProgress))
+				{
+					Util.printCurrentProgress();
+					lastProgress++;
+				}
 			}
+			Util.printEndProgress();
+			logHeightCaches(cachedMaps);
+		}
+		finally
+		{
+			pool.shutdown();
 		}
-		Util.printEndProgress();
+		log.info("Loaded " + geoMaps.size() + " geo maps in " + (System.currentTimeMillis() - start) + " ms using " + threads + " threads");
 		
 		if (mapsWithErrors.size() > 0)
 		{
 		}
 	}
 	
+	/**
+	 * Logs the memory each height cache starts with and grows to, caches fill as the maps are queried.
+	 * @param cachedMaps maps with a height cache
+	 */
+	private void logHeightCaches(List<GeoMap> cachedMaps)
+	{
+		long memory = 0;
+		long fullMemory = 0;
+		for (GeoMap geoMap : cachedMaps)
+		{
+			final HeightFieldCache cache = geoMap.getHeightCache();
+			memory += cache.getMemory();
+			fullMemory += cache.getFullMemory();
+			log.info("Height cache of map " + geoMap.getName() + ": " + cache.getCapacity() + " cells, ~" + (cache.getMemory() / 1024) + " KB, ~" + (cache.getFullMemory() / 1024) + " KB when full");
+		}
+		if (!cachedMaps.isEmpty())
+		{
+			log.info("Height caches of " + cachedMaps.size() + " maps: ~" + (memory / 1024) + " KB, ~" + (fullMemory / 1024) + " KB when full");
+		}
+	}
+	
 	/**
 	 * @return
 	 */
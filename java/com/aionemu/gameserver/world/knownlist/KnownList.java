@@ -16,13 +16,16 @@
  */
 package com.aionemu.gameserver.world.knownlist;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.aionemu.commons.utils.collections.ConcurrentIntObjectMap;
 import com.aionemu.gameserver.configs.main.SecurityConfig;
 import com.aionemu.gameserver.model.gameobjects.AionObject;
 import com.aionemu.gameserver.model.gameobjects.Creature;
@@ -31,8 +34,8 @@ import com.aionemu.gameserver.model.gameobjects.VisibleObject;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.utils.MathUtil;
 import com.aionemu.gameserver.world.MapRegion;
-
-import javolution.util.FastMap;
+import com.aionemu.gameserver.world.SpatialGrid;
+import com.aionemu.gameserver.world.WorldMapInstance;
 
 /**
  * KnownList.
@@ -51,25 +54,38 @@ public class KnownList
 	/**
 	 * List of objects that this KnownList owner known
 	 */
-	protected final FastMap<Integer, VisibleObject> knownObjects = new FastMap<Integer, VisibleObject>().shared();
+	protected final ConcurrentIntObjectMap<VisibleObject> knownObjects = new ConcurrentIntObjectMap<>();
 	
 	/**
 	 * List of player that this KnownList owner known
 	 */
-	protected volatile FastMap<Integer, Player> knownPlayers;
+	protected volatile ConcurrentIntObjectMap<Player> knownPlayers;
 	
 	/**
 	 * List of objects that this KnownList owner known
 	 */
-	protected final FastMap<Integer, VisibleObject> visualObjects = new FastMap<Integer, VisibleObject>().shared();
+	protected final ConcurrentIntObjectMap<VisibleObject> visualObjects = new ConcurrentIntObjectMap<>();
 	
 	/**
 	 * List of player that this KnownList owner known
 	 */
-	protected volatile FastMap<Integer, Player> visualPlayers;
+	protected volatile ConcurrentIntObjectMap<Player> visualPlayers;
 	
 	private final ReentrantLock lock = new ReentrantLock();
 	
+	/**
+	 * Time and owner position of the last update, used to throttle movement updates (see {@link com.aionemu.gameserver.taskmanager.tasks.KnownListUpdateTaskManager}).
+	 */
+	private volatile long lastUpdateTime;
+	private volatile float lastUpdateX;
+	private volatile float lastUpdateY;
+	private volatile float lastUpdateZ;
+	
+	/**
+	 * Time the owner was first moved since the last update, 0 if it wasn't.
+	 */
+	private volatile long dirtySince;
+	
 	/**
 	 * @param owner
 	 */
@@ -86,6 +102,11 @@ public class KnownList
 		lock.lock();
 		try
 		{
+			dirtySince = 0;
+			lastUpdateTime = System.currentTimeMillis();
+			lastUpdateX = owner.getX();
+			lastUpdateY = owner.getY();
+			lastUpdateZ = owner.getZ();
 			forgetObjects();
 			findVisibleObjects();
 		}
@@ -95,6 +116,49 @@ public class KnownList
 		}
 	}
 	
+	/**
+	 * Marks owner as moved since the last update.
+	 */
+	public void markDirty()
+	{
+		if (dirtySince == 0)
+		{
+			dirtySince = System.currentTimeMillis();
+		}
+	}
+	
+	public void clearDirty()
+	{
+		dirtySince = 0;
+	}
+	
+	public boolean isDirty()
+	{
+		return dirtySince != 0;
+	}
+	
+	/**
+	 * @param now
+	 * @param delay ms since the last update after which a moved owner is updated anyway
+	 * @param distance displacement since the last update after which owner is updated right away
+	 * @return true if owner was moved and should be updated now
+	 */
+	public boolean isUpdateDue(long now, int delay, float distance)
+	{
+		if (dirtySince == 0)
+		{
+			return false;
+		}
+		if ((now - lastUpdateTime) >= delay)
+		{
+			return true;
+		}
+		final float dx = owner.getX() - lastUpdateX;
+		final float dy = owner.getY() - lastUpdateY;
+		final float dz = owner.getZ() - lastUpdateZ;
+		return ((dx * dx) + (dy * dy) + (dz * dz)) >= (distance * distance);
+	}
+	
 	/**
 	 * Clear known list. Used when object is despawned.
 	 */
@@ -238,43 +302,56 @@ public class KnownList
 			return;
 		}
 		
+		// objects seeing farther than a region keep the region scan, the grid would widen their range
+		final SpatialGrid grid = owner.getPosition().getWorldMapInstance().getSpatialGrid();
+		if ((grid != null) && (owner.getVisibilityDistance() <= WorldMapInstance.regionSize))
+		{
+			grid.update(owner);
+			grid.doOnObjectsInRange(owner.getX(), owner.getY(), owner.getVisibilityDistance(), this::findVisibleObject);
+			grid.doOnReversedRangeObjects(this::findVisibleObject);
+			return;
+		}
+		
 		final MapRegion[] regions = owner.getActiveRegion().getNeighbours();
 		for (MapRegion r : regions)
 		{
-			final FastMap<Integer, VisibleObject> objects = r.getObjects();
-			for (FastMap.Entry<Integer, VisibleObject> e = objects.head(), mapEnd = objects.tail(); (e = e.getNext()) != mapEnd;)
+			for (VisibleObject object : r.getObjects().values())
 			{
-				final VisibleObject newObject = e.getValue();
-				if ((newObject == owner) || (newObject == null))
-				{
-					continue;
-				}
-				
-				if (!isAwareOf(newObject))
-				{
-					continue;
-				}
-				if (knownObjects.containsKey(newObject.getObjectId()))
-				{
-					continue;
-				}
-				
-				if (!checkObjectInRange(newObject) && !newObject.getKnownList().checkReversedObjectInRange(owner))
-				{
-					continue;
-				}
-				
-				/**
-				 * New object is not known.
-				 */
-				if (add(newObject))
-				{
-					newObject.getKnownList().add(owner);
-				}
+				findVisibleObject(object);
 			}
 		}
 	}
 	
+	private void findVisibleObject(VisibleObject newObject)
+	{
+		if ((newObject == owner) || (newObject == null))
+		{
+			return;
+		}
+		
+		if (!isAwareOf(newObject))
+		{
+			return;
+		}
+		if (knownObjects.containsKey(newObject.getObjectId()))
+		{
+			return;
+		}
+		
+		if (!checkObjectInRange(newObject) && !newObject.getKnownList().checkReversedObjectInRange(owner))
+		{
+			return;
+		}
+		
+		/**
+		 * New object is not known.
+		 */
+		if (add(newObject))
+		{
+			newObject.getKnownList().add(owner);
+		}
+	}
+	
 	/**
 	 * Whether knownlist owner aware of found object (should be kept in knownlist)
 	 * @param newObject
@@ -306,6 +383,14 @@ public class KnownList
 		return false;
 	}
 	
+	/**
+	 * @return true if {@link #checkReversedObjectInRange(VisibleObject)} can accept objects outside their own visibility distance
+	 */
+	public boolean hasReversedRange()
+	{
+		return false;
+	}
+	
 	public void doOnAllNpcs(Visitor<Npc> visitor)
 	{
 		doOnAllNpcs(visitor, Integer.MAX_VALUE);
@@ -316,9 +401,8 @@ public class KnownList
 		int counter = 0;
 		try
 		{
-			for (FastMap.Entry<Integer, VisibleObject> e = knownObjects.head(), mapEnd = knownObjects.tail(); (e = e.getNext()) != mapEnd;)
+			for (VisibleObject newObject : knownObjects.values())
 			{
-				final VisibleObject newObject = e.getValue();
 				if (newObject instanceof Npc)
 				{
 					if ((++counter) == iterationLimit)
@@ -346,9 +430,8 @@ public class KnownList
 		int counter = 0;
 		try
 		{
-			for (FastMap.Entry<Integer, VisibleObject> e = knownObjects.head(), mapEnd = knownObjects.tail(); (e = e.getNext()) != mapEnd;)
+			for (VisibleObject newObject : knownObjects.values())
 			{
-				final VisibleObject newObject = e.getValue();
 				if (newObject instanceof Npc)
 				{
 					if ((++counter) == iterationLimit)
@@ -374,9 +457,8 @@ public class KnownList
 		}
 		try
 		{
-			for (FastMap.Entry<Integer, Player> e = knownPlayers.head(), mapEnd = knownPlayers.tail(); (e = e.getNext()) != mapEnd;)
+			for (Player player : knownPlayers.values())
 			{
-				final Player player = e.getValue();
 				if (player != null)
 				{
 					visitor.visit(player);
@@ -393,9 +475,8 @@ public class KnownList
 	{
 		try
 		{
-			for (FastMap.Entry<Integer, VisibleObject> e = knownObjects.head(), mapEnd = knownObjects.tail(); (e = e.getNext()) != mapEnd;)
+			for (VisibleObject newObject : knownObjects.values())
 			{
-				final VisibleObject newObject = e.getValue();
 				if (newObject != null)
 				{
 					visitor.visit(newObject);
@@ -413,6 +494,45 @@ public class KnownList
 		return knownObjects;
 	}
 	
+	/**
+	 * Known objects whose 2D distance to (x, y) is below radius, looked up in the spatial grid when possible.
+	 * @param x
+	 * @param y
+	 * @param radius
+	 * @return
+	 */
+	public List<VisibleObject> getKnownObjectsInRange(float x, float y, float radius)
+	{
+		final List<VisibleObject> objects = new ArrayList<>();
+		final SpatialGrid grid = owner.isSpawned() ? owner.getPosition().getWorldMapInstance().getSpatialGrid() : null;
+		if ((grid != null) && (radius <= owner.getVisibilityDistance()))
+		{
+			grid.doOnObjectsInRange(x, y, radius, object ->
+			{
+				if (knownObjects.containsKey(object.getObjectId()))
+				{
+					objects.add(object);
+				}
+			});
+			return objects;
+		}
+		final float radiusSqr = radius * radius;
+		for (VisibleObject object : knownObjects.values())
+		{
+			if (object == null)
+			{
+				continue;
+			}
+			final float dx = object.getX() - x;
+			final float dy = object.getY() - y;
+			if (((dx * dx) + (dy * dy)) < radiusSqr)
+			{
+				objects.add(object);
+			}
+		}
+		return objects;
+	}
+	
 	public Map<Integer, VisibleObject> getVisibleObjects()
 	{
 		return visualObjects;
@@ -436,7 +556,7 @@ public class KnownList
 			{
 				if (knownPlayers == null)
 				{
-					knownPlayers = new FastMap<Integer, Player>().shared();
+					knownPlayers = new ConcurrentIntObjectMap<>();
 				}
 			}
 		}
@@ -450,7 +570,7 @@ public class KnownList
 			{
 				if (visualPlayers == null)
 				{
-					visualPlayers = new FastMap<Integer, Player>().shared();
+					visualPlayers = new ConcurrentIntObjectMap<>();
 				}
 			}
 		}
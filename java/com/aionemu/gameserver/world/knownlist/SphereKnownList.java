@@ -37,4 +37,10 @@ public class SphereKnownList extends PlayerAwareKnownList
 	{
 		return MathUtil.isIn3dRange(owner, newObject, radius);
 	}
+	
+	@Override
+	public boolean hasReversedRange()
+	{
+		return true;
+	}
 }
@@ -0,0 +1,162 @@
+/*
+ * This file is part of the Aion-Emu project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.world.zone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.aionemu.gameserver.configs.main.WorldConfig;
+import com.aionemu.gameserver.model.geometry.Area;
+
+/**
+ * Zone lookup structure of one {@link com.aionemu.gameserver.world.MapRegion}.<br>
+ * Zones are flattened in category and priority order. The region is split into a grid of cells and every cell keeps a bit mask of the zones whose 2D
+ * bounding box overlaps it, so a position only needs the containment test of the few zones which can contain it. Positions outside the region (creatures
+ * leaving it) are checked against the bounding boxes alone.
+ */
+public class ZoneIndex
+{
+	private final ZoneInstance[] zones;
+	private final int[] categories;
+	private final float[] minX;
+	private final float[] maxX;
+	private final float[] minY;
+	private final float[] maxY;
+	
+	private final float startX;
+	private final float startY;
+	private final int cellSize;
+	private final int cellsPerSide;
+	private final long[][] cells;
+	
+	/**
+	 * @param zoneMap zones of the region by category, each category sorted by priority
+	 * @param startX
+	 * @param startY
+	 */
+	public ZoneIndex(Map<Integer, TreeSet<ZoneInstance>> zoneMap, float startX, float startY)
+	{
+		final List<ZoneInstance> zoneList = new ArrayList<>();
+		final List<Integer> categoryList = new ArrayList<>();
+		for (Map.Entry<Integer, TreeSet<ZoneInstance>> e : zoneMap.entrySet())
+		{
+			for (ZoneInstance zone : e.getValue())
+			{
+				zoneList.add(zone);
+				categoryList.add(e.getKey());
+			}
+		}
+		final int size = zoneList.size();
+		zones = zoneList.toArray(new ZoneInstance[size]);
+		categories = new int[size];
+		minX = new float[size];
+		maxX = new float[size];
+		minY = new float[size];
+		maxY = new float[size];
+		for (int i = 0; i < size; i++)
+		{
+			final Area area = zones[i].getAreaTemplate();
+			categories[i] = categoryList.get(i);
+			minX[i] = area.getMinX();
+			maxX[i] = area.getMaxX();
+			minY[i] = area.getMinY();
+			maxY[i] = area.getMaxY();
+		}
+		
+		this.startX = startX;
+		this.startY = startY;
+		cellSize = Math.max(1, Math.min(WorldConfig.WORLD_ZONE_INDEX_CELL_SIZE, WorldConfig.WORLD_REGION_SIZE));
+		cellsPerSide = (WorldConfig.WORLD_REGION_SIZE + cellSize - 1) / cellSize;
+		cells = new long[cellsPerSide * cellsPerSide][];
+		final int words = (size + 63) >>> 6;
+		if (words == 0)
+		{
+			Arrays.fill(cells, new long[0]);
+			return;
+		}
+		for (int cy = 0; cy < cellsPerSide; cy++)
+		{
+			final float cellMinY = startY + (cy * cellSize);
+			for (int cx = 0; cx < cellsPerSide; cx++)
+			{
+				final float cellMinX = startX + (cx * cellSize);
+				final long[] mask = new long[words];
+				for (int i = 0; i < size; i++)
+				{
+					if ((minX[i] <= (cellMinX + cellSize)) && (maxX[i] >= cellMinX) && (minY[i] <= (cellMinY + cellSize)) && (maxY[i] >= cellMinY))
+					{
+						mask[i >>> 6] |= 1L << i;
+					}
+				}
+				cells[(cy * cellsPerSide) + cx] = mask;
+			}
+		}
+	}
+	
+	/**
+	 * @param x
+	 * @param y
+	 * @return bit mask of zones which may contain the position, null if it is outside the region
+	 */
+	public long[] getCandidates(float x, float y)
+	{
+		final int cx = (int) Math.floor((x - startX) / cellSize);
+		final int cy = (int) Math.floor((y - startY) / cellSize);
+		if ((cx < 0) || (cy < 0) || (cx >= cellsPerSide) || (cy >= cellsPerSide))
+		{
+			return null;
+		}
+		return cells[(cy * cellsPerSide) + cx];
+	}
+	
+	/**
+	 * Cheap pre-check before the exact containment test of zone.
+	 * @param candidates result of {@link #getCandidates(float, float)} for the same position
+	 * @param index zone index
+	 * @param x
+	 * @param y
+	 * @return false if zone certainly doesn't contain the position
+	 */
+	public boolean mayContain(long[] candidates, int index, float x, float y)
+	{
+		if ((candidates != null) && ((candidates[index >>> 6] & (1L << index)) == 0))
+		{
+			return false;
+		}
+		return (x >= minX[index]) && (x <= maxX[index]) && (y >= minY[index]) && (y <= maxY[index]);
+	}
+	
+	/**
+	 * @return zones of the region in category and priority order
+	 */
+	public ZoneInstance[] getZones()
+	{
+		return zones;
+	}
+	
+	/**
+	 * @param index
+	 * @return category of zone, -1 if zones of its category don't exclude each other
+	 */
+	public int getCategory(int index)
+	{
+		return categories[index];
+	}
+}
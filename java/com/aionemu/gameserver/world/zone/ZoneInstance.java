@@ -39,7 +39,7 @@ public class ZoneInstance implements Comparable<ZoneInstance>
 {
 	private final ZoneInfo template;
 	private final int mapId;
-	private final Map<Integer, Creature> creatures = new FastMap<>();
+	private final Map<Integer, Creature> creatures = new FastMap<Integer, Creature>().shared();
 	protected List<ZoneHandler> handlers = new ArrayList<>();
 	
 	public ZoneInstance(int mapId, ZoneInfo template)